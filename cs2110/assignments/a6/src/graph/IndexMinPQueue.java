@@ -0,0 +1,221 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A min priority queue of distinct int elements in `[0..capacity)` associated with (extrinsic)
+ * double priorities, implemented using a binary heap paired with an index array.  Unlike
+ * `MinPQueue`, no objects are allocated once the queue has been constructed, which makes it
+ * suitable for graph searches over densely-numbered vertices and for other hot loops.
+ */
+public class IndexMinPQueue {
+
+    /**
+     * Binary min-heap of elements.  Satisfies `priority[heap[i]] >= priority[heap[(i-1)/2]]` for
+     * all `i` in `[1..size)`.
+     */
+    private final int[] heap;
+
+    /**
+     * The index of each element in `heap`, or -1 if that element is not in the queue.  Satisfies
+     * `heap[position[e]] == e` for every element `e` in the queue.
+     */
+    private final int[] position;
+
+    /**
+     * The priority associated with each element in the queue (entries of absent elements are
+     * meaningless).
+     */
+    private final double[] priority;
+
+    /**
+     * The number of elements in the queue.
+     */
+    private int size;
+
+    /**
+     * Create an empty queue that may hold elements in `[0..capacity)`.
+     */
+    public IndexMinPQueue(int capacity) {
+        heap = new int[capacity];
+        position = new int[capacity];
+        priority = new double[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    /**
+     * Return the number of distinct elements this queue can hold.
+     */
+    public int capacity() {
+        return heap.length;
+    }
+
+    /**
+     * Return whether this queue contains no elements.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Return the number of elements contained in this queue.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return whether element `e` is contained in this queue.
+     */
+    public boolean contains(int e) {
+        return position[e] >= 0;
+    }
+
+    /**
+     * Return the priority associated with element `e`.  Requires that `e` is contained in this
+     * queue.
+     */
+    public double priority(int e) {
+        assert contains(e);
+        return priority[e];
+    }
+
+    /**
+     * Return an element associated with the smallest priority in this queue.  This is the same
+     * element that would be removed by a call to `remove()` (assuming no mutations in between).
+     * Throws NoSuchElementException if this queue is empty.
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new NoSuchElementException("Queue is empty");
+        }
+        return heap[0];
+    }
+
+    /**
+     * Return the minimum priority associated with an element in this queue.  Throws
+     * NoSuchElementException if this queue is empty.
+     */
+    public double minPriority() {
+        return priority[peek()];
+    }
+
+    /**
+     * If `e` is already contained in this queue, change its associated priority to `p`.
+     * Otherwise, add it to this queue with that priority.
+     */
+    public void addOrUpdate(int e, double p) {
+        int i = position[e];
+        if (i < 0) {
+            i = size;
+            size += 1;
+            heap[i] = e;
+            position[e] = i;
+            priority[e] = p;
+            bubbleUp(i);
+        } else {
+            double old = priority[e];
+            priority[e] = p;
+            if (p < old) {
+                bubbleUp(i);
+            } else if (p > old) {
+                bubbleDown(i);
+            }
+        }
+    }
+
+    /**
+     * Remove and return the element associated with the smallest priority in this queue.  If
+     * multiple elements are tied for the smallest priority, an arbitrary one will be removed.
+     * Throws NoSuchElementException if this queue is empty.
+     */
+    public int remove() {
+        int min = peek();
+        removeAt(0);
+        return min;
+    }
+
+    /**
+     * Remove element `e` from this queue if it is contained in it.
+     */
+    public void remove(int e) {
+        int i = position[e];
+        if (i >= 0) {
+            removeAt(i);
+        }
+    }
+
+    /**
+     * Remove all elements from this queue.  Takes time proportional to its size.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Remove the element at index `i` of `heap`, restoring the heap invariant.
+     */
+    private void removeAt(int i) {
+        int e = heap[i];
+        size -= 1;
+        position[e] = -1;
+        if (i == size) {
+            return;
+        }
+        int last = heap[size];
+        heap[i] = last;
+        position[last] = i;
+        bubbleUp(i);
+        bubbleDown(position[last]);
+    }
+
+    /**
+     * Move the element at index `i` of `heap` up until its parent's priority is no larger.
+     */
+    private void bubbleUp(int i) {
+        int e = heap[i];
+        double p = priority[e];
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            int pe = heap[parent];
+            if (priority[pe] <= p) {
+                break;
+            }
+            heap[i] = pe;
+            position[pe] = i;
+            i = parent;
+        }
+        heap[i] = e;
+        position[e] = i;
+    }
+
+    /**
+     * Move the element at index `i` of `heap` down until neither child has a smaller priority.
+     */
+    private void bubbleDown(int i) {
+        int e = heap[i];
+        double p = priority[e];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && priority[heap[child + 1]] < priority[heap[child]]) {
+                child += 1;
+            }
+            int ce = heap[child];
+            if (priority[ce] >= p) {
+                break;
+            }
+            heap[i] = ce;
+            position[ce] = i;
+            i = child;
+        }
+        heap[i] = e;
+        position[e] = i;
+    }
+}
@@ -25,7 +25,7 @@ public class Pathfinding {
     public static <V extends Vertex<E>, E extends Edge<V>> List<E> shortestNonBacktrackingPath(
             V src, V dst, E previousEdge) {
 
-        Map<V, PathEnd<E>> paths = pathInfo(src, previousEdge);
+        Map<V, PathEnd<E>> paths = pathInfo(src, previousEdge, dst);
         return paths.containsKey(dst) ? pathTo(paths, src, dst) : null;
     }
 
@@ -40,6 +40,18 @@ public class Pathfinding {
      */
     static <V extends Vertex<E>, E extends Edge<V>> Map<V, PathEnd<E>> pathInfo(V src,
             E previousEdge) {
+        return pathInfo(src, previousEdge, null);
+    }
+
+    /**
+     * Returns a map like `pathInfo(src, previousEdge)`, except that the search stops as soon as
+     * `dst` is settled (if `dst` is not null).  The map then contains correct information about
+     * the paths to `dst` and to every vertex settled before it, which is all that `pathTo()` needs
+     * to reconstruct the path to `dst`; the paths found are the same as those of a full search,
+     * since settled vertices are never updated.
+     */
+    static <V extends Vertex<E>, E extends Edge<V>> Map<V, PathEnd<E>> pathInfo(V src,
+            E previousEdge, V dst) {
 
         assert previousEdge == null || previousEdge.dst().equals(src);
 
@@ -59,6 +71,9 @@ public class Pathfinding {
             double vertexDistance =
                     pathInfo.containsKey(vertex) ? pathInfo.get(vertex).distance() : 0.0;
             settled.put(vertex, vertexDistance); // Mark this vertex as settled
+            if (dst != null && vertex.equals(dst)) {
+                break;
+            }
 
             // Get the last edge that led to this vertex (null for the source vertex)
             E lastEdge = vertex.equals(src) ? null : pathInfo.get(vertex).lastEdge();
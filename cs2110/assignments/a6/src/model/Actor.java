@@ -3,7 +3,6 @@ package model;
 import java.util.List;
 import model.MazeGraph.Direction;
 import model.MazeGraph.MazeEdge;
-import model.MazeGraph.IPair;
 import model.MazeGraph.MazeVertex;
 
 /**
@@ -47,16 +46,7 @@ public abstract class Actor {
          * Determines whether this location and the given `other` location have collided.
          */
         public boolean collidesWith(Location other) {
-            final double tol = 1e-6;
-            if (edge.equals(other.edge)) {
-                return Math.abs(progress - other.progress) < tol;
-            } else if (edge.src().equals(other.edge.dst()) && edge.dst().equals(other.edge.src())) {
-                return Math.abs(progress - (1 - other.progress)) < tol;
-            } else if (atVertex() && other.atVertex()) {
-                return nearestVertex().equals(other.nearestVertex());
-            } else {
-                return false;
-            }
+            return collide(edge, progress, other.edge, other.progress);
         }
 
         /**
@@ -83,17 +73,33 @@ public abstract class Actor {
     protected final GameModel model;
 
     /**
-     * The current location of this actor, modeled as a record of the edge that they are currently
-     * traversing and their relative progress along this edge.
+     * Where the current location of this actor (the edge that they are currently traversing and
+     * their relative progress along this edge) is stored, and this actor's slot in it.
      */
-    protected Location location;
+    private final ActorStore store;
+    final int slot;
 
 
     /**
-     * Construct a new actor associated with the given `model`.
+     * Construct a new actor associated with the given `model`, which is given the next slot in the
+     * model's `ActorStore`.  The actor has no location until it is given one by `setLocation()`.
      */
     public Actor(GameModel model) {
         this.model = model;
+        store = model.actorStore();
+        slot = store.add();
+    }
+
+
+    /**
+     * Construct a copy of `original` associated with `model`, a fork of the original's model (see
+     * `GameModel.fork()`).  The copy occupies the same slot as the original in the model's
+     * `ActorStore`, which must already hold a copy of the original's state.
+     */
+    protected Actor(GameModel model, Actor original) {
+        this.model = model;
+        store = model.actorStore();
+        slot = original.slot;
     }
 
 
@@ -101,6 +107,13 @@ public abstract class Actor {
      * Abstract Actor methods                                         *
      **************************************************************** */
 
+    /**
+     * Return a copy of this actor, in the same location and state, associated with `model`, a fork
+     * of this actor's model (see `GameModel.fork()`).  The copy's later choices must be the same as
+     * this actor's would be in the same situation.
+     */
+    public abstract Actor forkFor(GameModel model);
+
     /**
      * Update the model based on this actor's arrival at vertex v.
      */
@@ -136,17 +149,35 @@ public abstract class Actor {
      **************************************************************** */
 
     /**
-     * Return Location object summarizing this actor's current location.
+     * Return Location object summarizing this actor's current location.  The object is created
+     * when it is first asked for after this actor moves; hot loops should prefer `currentEdge()`
+     * and `progress()`.
      */
     public Location location() {
-        return location;
+        return store.location(slot);
     }
 
     /**
      * Return the current edge that this actor is traversing.
      */
     public MazeEdge currentEdge() {
-        return location.edge();
+        return store.edge(slot);
+    }
+
+    /**
+     * Return the proportion of `currentEdge()` that this actor has traversed, between 0 and 1.
+     */
+    public double progress() {
+        return store.progress(slot);
+    }
+
+    /**
+     * Return whether this actor is standing atop a vertex (which is true when `progress()` is 0
+     * or 1).
+     */
+    public boolean atVertex() {
+        double progress = store.progress(slot);
+        return progress == 0 || progress == 1;
     }
 
     /**
@@ -154,7 +185,36 @@ public abstract class Actor {
      * `currentEdge.src()` or `currentEdge.dst()`, depending on `distanceAlongEdge`.
      */
     public MazeVertex nearestVertex() {
-        return location.nearestVertex();
+        MazeEdge edge = store.edge(slot);
+        return (store.progress(slot) < 0.5) ? edge.src() : edge.dst();
+    }
+
+    /**
+     * Return whether this actor and `other` have collided (see `Location.collidesWith()`).
+     * Allocates no objects.
+     */
+    public boolean collidesWith(Actor other) {
+        return collide(currentEdge(), progress(), other.currentEdge(), other.progress());
+    }
+
+    /**
+     * Return whether actors at `progress` along `edge` and at `otherProgress` along `otherEdge`
+     * have collided.
+     */
+    private static boolean collide(MazeEdge edge, double progress, MazeEdge otherEdge,
+            double otherProgress) {
+        final double tol = 1e-6;
+        if (edge.equals(otherEdge)) {
+            return Math.abs(progress - otherProgress) < tol;
+        } else if (edge.src().equals(otherEdge.dst()) && edge.dst().equals(otherEdge.src())) {
+            return Math.abs(progress - (1 - otherProgress)) < tol;
+        } else if ((progress == 0 || progress == 1) && (otherProgress == 0 || otherProgress == 1)) {
+            MazeVertex v = (progress < 0.5) ? edge.src() : edge.dst();
+            MazeVertex w = (otherProgress < 0.5) ? otherEdge.src() : otherEdge.dst();
+            return v.equals(w);
+        } else {
+            return false;
+        }
     }
 
 
@@ -169,8 +229,9 @@ public abstract class Actor {
      * standing still and has no anticipated state changes.
      */
     public double maxPropagationTime() {
-        if (location.progress() < 1) {
-            return (1.0 - location.progress()) / edgeSpeed();
+        double progress = store.progress(slot);
+        if (progress < 1) {
+            return (1.0 - progress) / edgeSpeed();
         } else {
             return Double.POSITIVE_INFINITY;
         }
@@ -182,8 +243,7 @@ public abstract class Actor {
      * edge, it will stop at that edge's destination vertex.
      */
     public void propagate(double dt) {
-        double edgeDistance = edgeSpeed() * dt;
-        location = location.progressed(edgeDistance);
+        store.advance(slot, dt);
     }
 
     /**
@@ -192,14 +252,33 @@ public abstract class Actor {
      */
     public void traverseEdge(MazeEdge newEdge) {
         assert newEdge.src().equals(nearestVertex());
-        location = new Location(newEdge, 0);
+        setLocation(newEdge, 0);
+    }
+
+    /**
+     * Move this actor to `progress` along `edge`.
+     */
+    protected void setLocation(MazeEdge edge, double progress) {
+        store.place(slot, edge, progress);
+        speedChanged();
+    }
+
+    /**
+     * Recompute this actor's `edgeSpeed()`.  Must be called whenever its `baseSpeed()` may have
+     * changed; moving the actor recomputes its speed already.
+     */
+    protected void speedChanged() {
+        // An actor has no speed until it is first given a location
+        if (store.edge(slot) != null) {
+            store.setSpeed(slot, baseSpeed() / store.edge(slot).weight());
+        }
     }
 
     /**
      * Return the speed of this actor, which is primarily a function of its `currentEdge`'s weight.
      */
     protected double edgeSpeed() {
-        return baseSpeed() / location.edge().weight();
+        return store.speed(slot);
     }
 
 
@@ -219,20 +298,38 @@ public abstract class Actor {
      * directly atop a vertex (i.e., `distanceAlongEdge` is 0 or 1), this is 0.25 tiles NW
      * (northwest) of the NW corner of that vertex's tile. Otherwise, `distanceAlongEdge` is used to
      * linearly interpolate the bounding box position between `currentEdge.src()` and
-     * `currentEdge.dst()` (accounting for tunnels).
+     * `currentEdge.dst()` (accounting for tunnels).  Painting code should prefer `boundingBoxI()`
+     * and `boundingBoxJ()`, which allocate nothing.
      */
     public DPair getBoundingBoxUL() {
-        MazeEdge currentEdge = location.edge();
-        IPair loc = currentEdge.src().loc();
-        double x = loc.i() - 0.25;
-        double y = loc.j() - 0.25;
+        return new DPair(boundingBoxI(), boundingBoxJ());
+    }
 
-        double distanceAlongEdge = location.progress();
+    /**
+     * Return the column coordinate (`i`) of the upper left corner of this actor's bounding box
+     * (see `getBoundingBoxUL()`).
+     */
+    public double boundingBoxI() {
+        MazeEdge currentEdge = store.edge(slot);
+        double x = currentEdge.src().loc().i() - 0.25;
+        return switch (currentEdge.direction()) {
+            case Direction.LEFT -> x - store.progress(slot);
+            case Direction.RIGHT -> x + store.progress(slot);
+            case Direction.UP, Direction.DOWN -> x;
+        };
+    }
+
+    /**
+     * Return the row coordinate (`j`) of the upper left corner of this actor's bounding box (see
+     * `getBoundingBoxUL()`).
+     */
+    public double boundingBoxJ() {
+        MazeEdge currentEdge = store.edge(slot);
+        double y = currentEdge.src().loc().j() - 0.25;
         return switch (currentEdge.direction()) {
-            case Direction.LEFT -> new DPair(x - distanceAlongEdge, y);
-            case Direction.RIGHT -> new DPair(x + distanceAlongEdge, y);
-            case Direction.UP -> new DPair(x, y - distanceAlongEdge);
-            case Direction.DOWN -> new DPair(x, y + distanceAlongEdge);
+            case Direction.UP -> y - store.progress(slot);
+            case Direction.DOWN -> y + store.progress(slot);
+            case Direction.LEFT, Direction.RIGHT -> y;
         };
     }
 }
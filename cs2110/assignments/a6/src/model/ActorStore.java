@@ -0,0 +1,201 @@
+package model;
+
+import java.util.Arrays;
+import model.Actor.Location;
+import model.MazeGraph.MazeEdge;
+
+/**
+ * The changing state of a game's actors, stored as parallel arrays indexed by each actor's "slot"
+ * (its position in the game's list of actors) rather than as objects.  Moving an actor along its
+ * edge only updates a `double`, so the loops over every actor allocate nothing and read memory
+ * sequentially.  An actor's `Location` is only materialized when it is asked for, and is kept
+ * until the actor moves again.
+ */
+class ActorStore {
+
+    /**
+     * Marks the slots of actors that are not ghosts in `ghostStates`.
+     */
+    static final byte NOT_A_GHOST = -1;
+
+    /**
+     * The edge each actor is traversing, and the id of its undirected edge (see
+     * `EdgeOccupancy.undirectedId()`).
+     */
+    private MazeEdge[] edges;
+    private int[] edgeIds;
+
+    /**
+     * The proportion of its edge that each actor has traversed, between 0 and 1.
+     */
+    private double[] progress;
+
+    /**
+     * The speed of each actor along its edge (the proportion of the edge it traverses per ms).
+     */
+    private double[] speeds;
+
+    /**
+     * The ordinal of each ghost's `GhostState`, or `NOT_A_GHOST`.
+     */
+    private byte[] ghostStates;
+
+    /**
+     * The materialized location of each actor, or null if it has moved since its location was
+     * last asked for.
+     */
+    private Location[] views;
+
+    /**
+     * The number of slots in use.
+     */
+    private int size;
+
+    /**
+     * Create an empty store with room for `capacity` actors before it must grow.
+     */
+    ActorStore(int capacity) {
+        capacity = Math.max(capacity, 1);
+        edges = new MazeEdge[capacity];
+        edgeIds = new int[capacity];
+        progress = new double[capacity];
+        speeds = new double[capacity];
+        ghostStates = new byte[capacity];
+        views = new Location[capacity];
+    }
+
+    /**
+     * Create a copy of `original`, holding the same actors in the same slots.
+     */
+    private ActorStore(ActorStore original) {
+        edges = original.edges.clone();
+        edgeIds = original.edgeIds.clone();
+        progress = original.progress.clone();
+        speeds = original.speeds.clone();
+        ghostStates = original.ghostStates.clone();
+        // Locations are immutable, so their views can be shared
+        views = original.views.clone();
+        size = original.size;
+    }
+
+    /**
+     * Return a copy of this store, holding the same actors in the same slots, which can be changed
+     * independently of this one.
+     */
+    ActorStore copy() {
+        return new ActorStore(this);
+    }
+
+    /**
+     * Add a slot for a new actor, which is not a ghost and has no location yet, and return it.
+     * Slots are numbered consecutively from 0.
+     */
+    int add() {
+        if (size == edges.length) {
+            int capacity = 2 * size;
+            edges = Arrays.copyOf(edges, capacity);
+            edgeIds = Arrays.copyOf(edgeIds, capacity);
+            progress = Arrays.copyOf(progress, capacity);
+            speeds = Arrays.copyOf(speeds, capacity);
+            ghostStates = Arrays.copyOf(ghostStates, capacity);
+            views = Arrays.copyOf(views, capacity);
+        }
+        ghostStates[size] = NOT_A_GHOST;
+        size += 1;
+        return size - 1;
+    }
+
+    /**
+     * Return the number of slots in use.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Return the edge that the actor in `slot` is traversing.
+     */
+    MazeEdge edge(int slot) {
+        return edges[slot];
+    }
+
+    /**
+     * Return the id of the undirected edge that the actor in `slot` is traversing.
+     */
+    int edgeId(int slot) {
+        return edgeIds[slot];
+    }
+
+    /**
+     * Return the proportion of its edge that the actor in `slot` has traversed.
+     */
+    double progress(int slot) {
+        return progress[slot];
+    }
+
+    /**
+     * Return the speed of the actor in `slot` along its edge.
+     */
+    double speed(int slot) {
+        return speeds[slot];
+    }
+
+    /**
+     * Return the ordinal of the `GhostState` of the ghost in `slot`, or `NOT_A_GHOST`.
+     */
+    byte ghostState(int slot) {
+        return ghostStates[slot];
+    }
+
+    /**
+     * Return the location of the actor in `slot`, materializing it if it has moved since its
+     * location was last asked for.
+     */
+    Location location(int slot) {
+        Location view = views[slot];
+        if (view == null) {
+            view = new Location(edges[slot], progress[slot]);
+            views[slot] = view;
+        }
+        return view;
+    }
+
+    /**
+     * Move the actor in `slot` to `progress` along `edge`.  Its speed must be set again if the
+     * edge's weight may differ.
+     */
+    void place(int slot, MazeEdge edge, double progress) {
+        if (edge != edges[slot]) {
+            edges[slot] = edge;
+            edgeIds[slot] = EdgeOccupancy.undirectedId(edge);
+        }
+        this.progress[slot] = progress;
+        views[slot] = null;
+    }
+
+    /**
+     * Move the actor in `slot` along its edge at its speed for `dt` ms, stopping at the end of
+     * the edge (as `Location.progressed()` would).
+     */
+    void advance(int slot, double dt) {
+        double p = Math.clamp(progress[slot] + speeds[slot] * dt, 0.0, 1.0);
+        if (p != progress[slot]) {
+            progress[slot] = p;
+            views[slot] = null;
+        }
+    }
+
+    /**
+     * Set the speed of the actor in `slot` along its edge.
+     */
+    void setSpeed(int slot, double speed) {
+        speeds[slot] = speed;
+    }
+
+    /**
+     * Set the ordinal of the `GhostState` of the ghost in `slot`.
+     */
+    void setGhostState(int slot, byte state) {
+        ghostStates[slot] = state;
+    }
+}
@@ -0,0 +1,405 @@
+package model;
+
+import graph.IndexMinPQueue;
+import java.util.Arrays;
+import model.MazeGraph.Direction;
+import model.MazeGraph.MazeEdge;
+import model.MazeGraph.MazeVertex;
+
+/**
+ * For every vertex of a maze graph, the least value with which any of a set of "sources" reaches
+ * it, as found by a multi-source Dijkstra search.  Each source starts at a vertex with a starting
+ * value (such as the time at which a ghost reaches it) and pays a cost per unit of edge weight
+ * (such as the ghost's ms per unit of weight).  The field either follows edges away from the
+ * sources (the time at which something leaving them arrives) or towards them (the cost of
+ * reaching the nearest one).
+ * <p>
+ * Each vertex remembers the source that reaches it first, and each source keeps a list of the
+ * vertices it reaches.  When sources change, only the vertices they reached are searched again,
+ * starting from the values of the neighboring vertices reached by unchanged sources, so the cost
+ * of an update is proportional to the region that changed rather than to the graph.  Values are
+ * exact when every source pays the same cost per unit of weight.  A search may be limited to
+ * values no greater than some bound (such as a time horizon), leaving the vertices beyond it
+ * infinite, which keeps each repair local.  The graph must not change while a field is in use; a
+ * field over a changed graph must be rebuilt.
+ */
+class ArrivalField {
+
+    /**
+     * All directions, cached to avoid cloning `Direction.values()`.
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * The graph this field covers.
+     */
+    private final MazeGraph graph;
+
+    /**
+     * Whether values are costs of reaching the sources (rather than of leaving them).
+     */
+    private final boolean towardSources;
+
+    /**
+     * The value of each vertex, and the source reaching it (-1 if none does).
+     */
+    private final double[] value;
+    private final int[] owner;
+
+    /**
+     * For each vertex reached from another vertex, the ordinal of the direction of the edge from it
+     * to that vertex (its next step towards its source); -1 for sources and unreached vertices.
+     */
+    private final byte[] via;
+
+    /**
+     * The vertices reached by each source, as doubly-linked lists threaded through `nextOwned` and
+     * `prevOwned` (-1 ends a list).
+     */
+    private final int[] firstOwned;
+    private final int[] nextOwned;
+    private final int[] prevOwned;
+
+    /**
+     * The greatest value the next repair searches; vertices with greater values are left
+     * infinite.
+     */
+    private double limit = Double.POSITIVE_INFINITY;
+
+    /**
+     * The vertex of each source (-1 if it is absent), its starting value, and its cost per unit of
+     * edge weight.
+     */
+    private final int[] sourceVertex;
+    private final double[] sourceStart;
+    private final double[] sourceCost;
+
+    /**
+     * The sources placed on each vertex, as lists threaded through `nextAtVertex` (-1 ends a
+     * list).
+     */
+    private final int[] firstAtVertex;
+    private final int[] nextAtVertex;
+
+    /**
+     * The sources changed since the field was last repaired, listed once each.
+     */
+    private final boolean[] dirty;
+    private final int[] dirtySources;
+    private int numDirty;
+
+    /**
+     * Scratch space for repairs: the vertices whose values were forgotten, and the search frontier.
+     */
+    private final int[] forgotten;
+    private final IndexMinPQueue frontier;
+
+    /**
+     * Create a field over `graph` with room for `numSources` sources, initially absent, whose
+     * values follow edges towards the sources if `towardSources` is true, and away from them
+     * otherwise.
+     */
+    ArrivalField(MazeGraph graph, int numSources, boolean towardSources) {
+        this.graph = graph;
+        this.towardSources = towardSources;
+        int n = graph.vertexCount();
+        value = new double[n];
+        owner = new int[n];
+        Arrays.fill(value, Double.POSITIVE_INFINITY);
+        Arrays.fill(owner, -1);
+        via = new byte[n];
+        Arrays.fill(via, (byte) -1);
+        firstOwned = new int[numSources];
+        nextOwned = new int[n];
+        prevOwned = new int[n];
+        Arrays.fill(firstOwned, -1);
+        sourceVertex = new int[numSources];
+        sourceStart = new double[numSources];
+        sourceCost = new double[numSources];
+        Arrays.fill(sourceVertex, -1);
+        firstAtVertex = new int[n];
+        nextAtVertex = new int[numSources];
+        Arrays.fill(firstAtVertex, -1);
+        dirty = new boolean[numSources];
+        dirtySources = new int[numSources];
+        forgotten = new int[n];
+        frontier = new IndexMinPQueue(n);
+    }
+
+    /**
+     * Create a copy of `original`, with the same sources and values.
+     */
+    private ArrivalField(ArrivalField original) {
+        graph = original.graph;
+        towardSources = original.towardSources;
+        limit = original.limit;
+        value = original.value.clone();
+        owner = original.owner.clone();
+        via = original.via.clone();
+        firstOwned = original.firstOwned.clone();
+        nextOwned = original.nextOwned.clone();
+        prevOwned = original.prevOwned.clone();
+        sourceVertex = original.sourceVertex.clone();
+        sourceStart = original.sourceStart.clone();
+        sourceCost = original.sourceCost.clone();
+        firstAtVertex = original.firstAtVertex.clone();
+        nextAtVertex = original.nextAtVertex.clone();
+        dirty = original.dirty.clone();
+        dirtySources = original.dirtySources.clone();
+        numDirty = original.numDirty;
+        forgotten = new int[value.length];
+        frontier = new IndexMinPQueue(value.length);
+    }
+
+    /**
+     * Return a copy of this field that can be changed independently of it.
+     */
+    ArrivalField copy() {
+        return new ArrivalField(this);
+    }
+
+    /**
+     * Return the graph this field covers.
+     */
+    MazeGraph graph() {
+        return graph;
+    }
+
+    /**
+     * Limit later repairs to values no greater than `limit`.  Values searched by earlier repairs
+     * are kept (as they are still correct), but vertices left infinite under an earlier, lower
+     * limit are only searched again when a source near them changes.
+     */
+    void setLimit(double limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Place source `s` on the vertex with id `vertexId`, with starting value `start` and cost
+     * `costPerWeight` per unit of edge weight.  Takes effect at the next `repair()`.
+     */
+    void setSource(int s, int vertexId, double start, double costPerWeight) {
+        if (sourceVertex[s] == vertexId && sourceStart[s] == start
+                && sourceCost[s] == costPerWeight) {
+            return;
+        }
+        markDirty(s);
+        if (sourceVertex[s] != vertexId) {
+            removeFromVertex(s);
+            sourceVertex[s] = vertexId;
+            nextAtVertex[s] = firstAtVertex[vertexId];
+            firstAtVertex[vertexId] = s;
+        }
+        sourceStart[s] = start;
+        sourceCost[s] = costPerWeight;
+    }
+
+    /**
+     * Remove source `s`, if it is present.  Takes effect at the next `repair()`.
+     */
+    void clearSource(int s) {
+        if (sourceVertex[s] >= 0) {
+            markDirty(s);
+            removeFromVertex(s);
+            sourceVertex[s] = -1;
+        }
+    }
+
+    /**
+     * Return whether source `s` is present.
+     */
+    boolean hasSource(int s) {
+        return sourceVertex[s] >= 0;
+    }
+
+    /**
+     * Return the value of the vertex with id `vertexId` (infinity if no source reaches it within
+     * the limit), as of the last `repair()`.
+     */
+    double value(int vertexId) {
+        return value[vertexId];
+    }
+
+    /**
+     * Return the source that reaches the vertex with id `vertexId` first, or -1 if none does.
+     */
+    int owner(int vertexId) {
+        return owner[vertexId];
+    }
+
+    /**
+     * Return the direction of the first edge on the path from the vertex with id `vertexId` back to
+     * the source that reaches it, or null if it is a source or no source reaches it.  In a field
+     * following edges towards the sources, this is the next step of a cheapest path to the nearest
+     * source.
+     */
+    Direction towardSource(int vertexId) {
+        int d = via[vertexId];
+        return (d < 0) ? null : DIRECTIONS[d];
+    }
+
+    /**
+     * Bring the values up to date with the sources changed since the last repair.  Returns the
+     * number of vertices whose values were searched again.
+     */
+    int repair() {
+        if (numDirty == 0) {
+            return 0;
+        }
+
+        // Forget the values of the vertices reached by changed sources
+        int numForgotten = 0;
+        for (int k = 0; k < numDirty; k++) {
+            int s = dirtySources[k];
+            while (firstOwned[s] >= 0) {
+                int v = firstOwned[s];
+                value[v] = Double.POSITIVE_INFINITY;
+                setOwner(v, -1);
+                via[v] = -1;
+                forgotten[numForgotten] = v;
+                numForgotten += 1;
+            }
+        }
+
+        // Resume the search from the edge of the region still reached by unchanged sources
+        for (int k = 0; k < numForgotten; k++) {
+            MazeVertex u = graph.vertex(forgotten[k]);
+            for (Direction d : DIRECTIONS) {
+                MazeEdge e = u.edgeInDirection(d);
+                if (e == null) {
+                    continue;
+                }
+                int w = e.dst().id();
+                if (owner[w] >= 0) {
+                    double candidate = value[w] + stepCost(e.reverse()) * sourceCost[owner[w]];
+                    if (candidate < value[u.id()] && candidate <= limit) {
+                        value[u.id()] = candidate;
+                        setOwner(u.id(), owner[w]);
+                        via[u.id()] = (byte) d.ordinal();
+                    }
+                }
+            }
+            if (owner[u.id()] >= 0) {
+                frontier.addOrUpdate(u.id(), value[u.id()]);
+            }
+        }
+
+        // Start the changed sources, along with any unchanged source on a forgotten vertex (which
+        // may have been beaten to it by a changed one, and so reached nothing until now)
+        for (int k = 0; k < numDirty; k++) {
+            dirty[dirtySources[k]] = false;
+            start(dirtySources[k]);
+        }
+        numDirty = 0;
+        for (int k = 0; k < numForgotten; k++) {
+            for (int s = firstAtVertex[forgotten[k]]; s >= 0; s = nextAtVertex[s]) {
+                start(s);
+            }
+        }
+
+        int searched = 0;
+        while (!frontier.isEmpty()) {
+            int u = frontier.remove();
+            searched += 1;
+            MazeVertex vertex = graph.vertex(u);
+            double cost = sourceCost[owner[u]];
+            for (Direction d : DIRECTIONS) {
+                MazeEdge e = vertex.edgeInDirection(d);
+                if (e == null) {
+                    continue;
+                }
+                int w = e.dst().id();
+                double candidate = value[u] + stepCost(e) * cost;
+                if (candidate < value[w] && candidate <= limit) {
+                    value[w] = candidate;
+                    setOwner(w, owner[u]);
+                    via[w] = (byte) d.reverse().ordinal();
+                    frontier.addOrUpdate(w, candidate);
+                }
+            }
+        }
+        return searched;
+    }
+
+    /**
+     * Start the search from source `s`, if it is present and reaches its vertex first.
+     */
+    private void start(int s) {
+        int v = sourceVertex[s];
+        if (v >= 0 && sourceStart[s] < value[v] && sourceStart[s] <= limit) {
+            value[v] = sourceStart[s];
+            setOwner(v, s);
+            via[v] = -1;
+            frontier.addOrUpdate(v, value[v]);
+        }
+    }
+
+    /**
+     * Make source `s` (or no source, if `s` is -1) the owner of vertex `v`, moving `v` between
+     * the sources' lists of the vertices they reach.
+     */
+    private void setOwner(int v, int s) {
+        int old = owner[v];
+        if (old == s) {
+            return;
+        }
+        if (old >= 0) {
+            if (prevOwned[v] >= 0) {
+                nextOwned[prevOwned[v]] = nextOwned[v];
+            } else {
+                firstOwned[old] = nextOwned[v];
+            }
+            if (nextOwned[v] >= 0) {
+                prevOwned[nextOwned[v]] = prevOwned[v];
+            }
+        }
+        owner[v] = s;
+        if (s >= 0) {
+            prevOwned[v] = -1;
+            nextOwned[v] = firstOwned[s];
+            if (firstOwned[s] >= 0) {
+                prevOwned[firstOwned[s]] = v;
+            }
+            firstOwned[s] = v;
+        }
+    }
+
+    /**
+     * Remove source `s` from the list of the sources on its vertex, if it has one.
+     */
+    private void removeFromVertex(int s) {
+        int v = sourceVertex[s];
+        if (v < 0) {
+            return;
+        }
+        if (firstAtVertex[v] == s) {
+            firstAtVertex[v] = nextAtVertex[s];
+            return;
+        }
+        int prev = firstAtVertex[v];
+        while (nextAtVertex[prev] != s) {
+            prev = nextAtVertex[prev];
+        }
+        nextAtVertex[prev] = nextAtVertex[s];
+    }
+
+    /**
+     * Note that source `s` has changed since the last repair.
+     */
+    private void markDirty(int s) {
+        if (!dirty[s]) {
+            dirty[s] = true;
+            dirtySources[numDirty] = s;
+            numDirty += 1;
+        }
+    }
+
+    /**
+     * Return the weight paid when the search extends along `e`: its own weight if the field
+     * follows edges away from the sources, and otherwise the weight of its reverse (which is the
+     * edge actually traveled towards a source).
+     */
+    private double stepCost(MazeEdge e) {
+        return towardSources ? e.reverse().weight() : e.weight();
+    }
+}
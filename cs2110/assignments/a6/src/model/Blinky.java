@@ -19,7 +19,19 @@ public class Blinky extends Ghost {
      * @param model the game model that provides access to the maze and PacMann.
      */
     public Blinky(GameModel model) {
-        super(model, java.awt.Color.RED, 2); // initialDelay of 2 seconds
+        super(model, 2); // initialDelay of 2 seconds
+    }
+
+    /**
+     * Creates a copy of `original` in `model`, a fork of the original's model.
+     */
+    private Blinky(GameModel model, Blinky original) {
+        super(model, original);
+    }
+
+    @Override
+    public Blinky forkFor(GameModel model) {
+        return new Blinky(model, this);
     }
 
     /**
@@ -30,7 +42,7 @@ public class Blinky extends Ghost {
      */
     @Override
     protected MazeVertex target() {
-        if (state == GhostState.CHASE) {
+        if (state() == GhostState.CHASE) {
             return model.pacMann().nearestVertex();
         } else {
             return model.graph().closestTo(2, 2);
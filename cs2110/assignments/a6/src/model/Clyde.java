@@ -1,6 +1,7 @@
 package model;
 
 import model.MazeGraph.MazeVertex;
+import util.CopyableRandom;
 
 /**
  * Represents Clyde, the orange ghost in the PacMann game.
@@ -16,16 +17,45 @@ import model.MazeGraph.MazeVertex;
  */
 public class Clyde extends Ghost {
 
-    private final java.util.Random random;
+    private CopyableRandom random;
 
     /**
      * Creates a new instance of Clyde.
      *
      * @param model  the game model containing the maze and actors.
-     * @param random a Random object used for generating random targets when close to PacMann.
+     * @param random a Random object used for generating random targets when close to PacMann.  If
+     *               it is not a `CopyableRandom`, Clyde draws from a `CopyableRandom` seeded from
+     *               it instead, so that he can always be forked.
      */
     public Clyde(GameModel model, java.util.Random random) {
-        super(model, java.awt.Color.ORANGE, 8);
+        super(model, 8);
+        this.random = (random instanceof CopyableRandom r) ? r
+                : new CopyableRandom(random.nextLong());
+    }
+
+    /**
+     * Creates a copy of `original` in `model`, a fork of the original's model, with a copy of its
+     * random number generator.
+     */
+    private Clyde(GameModel model, Clyde original) {
+        super(model, original);
+        random = original.random.copy();
+    }
+
+    /**
+     * Returns a copy of Clyde in `model`, whose random number generator is a copy of Clyde's, so
+     * that the copy makes the same random choices.
+     */
+    @Override
+    public Clyde forkFor(GameModel model) {
+        return new Clyde(model, this);
+    }
+
+    /**
+     * Make Clyde draw his random targets from `random` from now on.  Planners use this in forks of
+     * a game to choose which of Clyde's random choices they explore.
+     */
+    void setRandom(CopyableRandom random) {
         this.random = random;
     }
 
@@ -38,7 +68,7 @@ public class Clyde extends Ghost {
      */
     @Override
     protected MazeVertex target() {
-        if (state == GhostState.CHASE) {
+        if (state() == GhostState.CHASE) {
             MazeVertex clydeVertex = nearestVertex();
             MazeVertex pacVertex = model.pacMann().nearestVertex();
 
@@ -0,0 +1,405 @@
+package model;
+
+import graph.IndexMinPQueue;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+import model.MazeGraph.MazeEdge;
+import model.MazeGraph.MazeVertex;
+import util.GameMap;
+
+/**
+ * A table of shortest-path distances over a `MazeGraph`, persisted in a binary file so that the
+ * (expensive) table can be computed once and then shared by every process working on the same
+ * map.  Readers memory-map the file read-only, so all processes on a host share a single copy of
+ * the table through the OS page cache, and opening a table takes time independent of its size.
+ * <p>
+ * A table holds one row of distances for each of its "source" vertices: every vertex for an
+ * all-pairs table, or a handful of "landmarks" otherwise.  From landmark rows, `lowerBound()`
+ * derives admissible estimates of the distance between any two vertices.  Distances are from the
+ * source to each vertex along directed edges (ignoring the non-backtracking rule of
+ * `graph.Pathfinding`); unreachable vertices are at distance POSITIVE_INFINITY.
+ * <p>
+ * File layout (big-endian): a fixed header (see `HEADER_BYTES`), the source vertex ids (ints),
+ * then one row of `vertexCount` doubles per source, indexed by vertex id.  Tables are keyed by
+ * `GameMap.fingerprint()`, which `open()` checks against the map it is asked to serve.
+ */
+public class DistanceOracle {
+
+    /**
+     * Identifies a distance table file ("PDST").
+     */
+    private static final int MAGIC = 0x50445354;
+
+    /**
+     * The version of the file layout; files with any other version are rejected.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * Size of the header: magic, version (ints), map fingerprint (long), vertex count, source
+     * count (ints), and checksum (long).
+     */
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 4 + 8;
+
+    /**
+     * Upper bound on the size of a single memory mapping; large tables are mapped in segments of
+     * whole rows.
+     */
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    /**
+     * The relative rounding error allowed for in stored distances, which are sums of many edge
+     * weights.  `lowerBound()` gives up this fraction of each landmark's distance, so that rounding
+     * cannot push a bound above the distance found by a search.
+     */
+    private static final double ROUNDING_SLACK = 1e-9;
+
+    /**
+     * The number of vertices in the graph (the length of each row).
+     */
+    private final int vertexCount;
+
+    /**
+     * The id of the source vertex of each row.
+     */
+    private final int[] sources;
+
+    /**
+     * The row of each vertex that is a source, or -1 for vertices that are not.
+     */
+    private final int[] rowOf;
+
+    /**
+     * The number of rows in each of `segments` (except possibly the last).
+     */
+    private final int rowsPerSegment;
+
+    /**
+     * Read-only views of the mapped rows.
+     */
+    private final DoubleBuffer[] segments;
+
+    /**
+     * The checksum recorded in the file header.
+     */
+    private final long checksum;
+
+    private DistanceOracle(int vertexCount, int[] sources, int rowsPerSegment,
+            DoubleBuffer[] segments, long checksum) {
+        this.vertexCount = vertexCount;
+        this.sources = sources;
+        this.rowsPerSegment = rowsPerSegment;
+        this.segments = segments;
+        this.checksum = checksum;
+        rowOf = new int[vertexCount];
+        Arrays.fill(rowOf, -1);
+        for (int k = 0; k < sources.length; k++) {
+            rowOf[sources[k]] = k;
+        }
+    }
+
+    /* ****************************************************************
+     * Writing tables                                                 *
+     **************************************************************** */
+
+    /**
+     * Return the conventional name of the table file for `map` within `directory`.
+     */
+    public static Path fileFor(Path directory, GameMap map) {
+        return directory.resolve(String.format("dist-%016x.bin", map.fingerprint()));
+    }
+
+    /**
+     * Compute and write to `file` the all-pairs distance table of `graph`.  Its size is quadratic
+     * in the number of vertices, so this is only practical for small and medium boards; see
+     * `landmarks()` for larger ones.
+     */
+    public static void writeAllPairs(Path file, MazeGraph graph) throws IOException {
+        write(file, graph, IntStream.range(0, graph.vertexCount()).toArray());
+    }
+
+    /**
+     * Compute and write to `file` the table of distances from each vertex (id) in `sources` to
+     * every vertex of `graph`.  Rows are computed in parallel.  The table is written to a
+     * temporary file and then moved into place, so readers never observe a partial table.
+     * Requires that `sources` contains distinct vertex ids.
+     */
+    public static void write(Path file, MazeGraph graph, int[] sources) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "dist-", ".tmp");
+        try {
+            writeTable(tmp, graph, sources);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Write the table of distances from each vertex in `sources` to the (existing) file `file`.
+     */
+    private static void writeTable(Path file, MazeGraph graph, int[] sources) throws IOException {
+        int n = graph.vertexCount();
+        long rowBytes = (long) n * Double.BYTES;
+        long rowsStart = HEADER_BYTES + (long) sources.length * Integer.BYTES;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer sourceSection = ByteBuffer.allocate(sources.length * Integer.BYTES);
+            sourceSection.asIntBuffer().put(sources);
+            writeFully(channel, sourceSection, HEADER_BYTES);
+
+            // Rows are independent, so compute and write them concurrently (positional writes
+            // to a FileChannel are safe to issue from several threads)
+            long[] rowChecksums = new long[sources.length];
+            try {
+                IntStream.range(0, sources.length).parallel().forEach(k -> {
+                    double[] dist = new double[n];
+                    distancesFrom(graph, sources[k], dist, new IndexMinPQueue(n));
+                    ByteBuffer row = ByteBuffer.allocate((int) rowBytes);
+                    for (double d : dist) {
+                        row.putDouble(d);
+                    }
+                    row.flip();
+                    CRC32 crc = new CRC32();
+                    crc.update(row.duplicate());
+                    rowChecksums[k] = crc.getValue();
+                    try {
+                        writeFully(channel, row, rowsStart + k * rowBytes);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putLong(graph.map().fingerprint()).putInt(n)
+                    .putInt(sources.length).putLong(checksum(sourceSection.flip(), rowChecksums));
+            writeFully(channel, header.flip(), 0);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Return the ids of `count` landmark vertices of `graph` that are spread out across the maze,
+     * chosen greedily so that each is as far as possible from the previously chosen ones.
+     */
+    public static int[] landmarks(MazeGraph graph, int count) {
+        int n = graph.vertexCount();
+        count = Math.min(count, n);
+        int[] landmarks = new int[count];
+        double[] nearest = new double[n];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        double[] dist = new double[n];
+        IndexMinPQueue frontier = new IndexMinPQueue(n);
+
+        int next = 0;
+        for (int k = 0; k < count; k++) {
+            landmarks[k] = next;
+            distancesFrom(graph, next, dist, frontier);
+            double farthest = -1;
+            for (int v = 0; v < n; v++) {
+                nearest[v] = Math.min(nearest[v], dist[v]);
+                if (nearest[v] < Double.POSITIVE_INFINITY && nearest[v] > farthest) {
+                    farthest = nearest[v];
+                    next = v;
+                }
+            }
+        }
+        return landmarks;
+    }
+
+    /**
+     * Write all of `buf` to `channel` starting at `position`.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buf, long position)
+            throws IOException {
+        while (buf.hasRemaining()) {
+            position += channel.write(buf, position);
+        }
+    }
+
+    /**
+     * Return the checksum of a table with the given source section and row checksums.  Row
+     * checksums are combined (rather than checksumming the rows as one stream) so that rows can be
+     * written and verified in parallel.
+     */
+    private static long checksum(ByteBuffer sourceSection, long[] rowChecksums) {
+        CRC32 crc = new CRC32();
+        crc.update(sourceSection.duplicate());
+        ByteBuffer rowSection = ByteBuffer.allocate(rowChecksums.length * Long.BYTES);
+        rowSection.asLongBuffer().put(rowChecksums);
+        crc.update(rowSection);
+        return crc.getValue();
+    }
+
+    /* ****************************************************************
+     * Reading tables                                                 *
+     **************************************************************** */
+
+    /**
+     * Attach to the table stored in `file`, which must have been written for a graph of `map`.
+     * Only the header and source ids are read; rows are paged in on demand.  Throws IOException if
+     * the file cannot be read, is not a distance table of this version, or was computed for a
+     * different map.  (The rows' checksum is not verified here, as that would read the whole
+     * table; see `verify()`.)
+     */
+    public static DistanceOracle open(Path file, GameMap map) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException(file + ": not a distance table");
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException(file + ": not a distance table of version " + VERSION);
+            }
+            if (header.getLong() != map.fingerprint()) {
+                throw new IOException(file + ": distance table was built for a different map");
+            }
+            int n = header.getInt();
+            int sourceCount = header.getInt();
+            long checksum = header.getLong();
+            long rowBytes = (long) n * Double.BYTES;
+            long rowsStart = HEADER_BYTES + (long) sourceCount * Integer.BYTES;
+            if (n <= 0 || sourceCount < 0 || sourceCount > n
+                    || channel.size() != rowsStart + sourceCount * rowBytes) {
+                throw new IOException(file + ": distance table is truncated or malformed");
+            }
+
+            int[] sources = new int[sourceCount];
+            IntBuffer sourceSection = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES,
+                    rowsStart - HEADER_BYTES).asIntBuffer();
+            sourceSection.get(sources);
+            for (int s : sources) {
+                if (s < 0 || s >= n) {
+                    throw new IOException(file + ": distance table is malformed");
+                }
+            }
+
+            // The mappings remain valid after the channel is closed
+            int rowsPerSegment = (int) Math.max(1, MAX_SEGMENT_BYTES / rowBytes);
+            DoubleBuffer[] segments = new DoubleBuffer[
+                    (sourceCount + rowsPerSegment - 1) / rowsPerSegment];
+            for (int s = 0; s < segments.length; s++) {
+                int rows = Math.min(rowsPerSegment, sourceCount - s * rowsPerSegment);
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        rowsStart + s * rowsPerSegment * rowBytes, rows * rowBytes)
+                        .asDoubleBuffer();
+            }
+            return new DistanceOracle(n, sources, rowsPerSegment, segments, checksum);
+        }
+    }
+
+    /**
+     * Return whether this table's contents match the checksum recorded when it was written.  Reads
+     * the entire table.
+     */
+    public boolean verify() {
+        long[] rowChecksums = new long[sources.length];
+        IntStream.range(0, sources.length).parallel().forEach(k -> {
+            ByteBuffer row = ByteBuffer.allocate(vertexCount * Double.BYTES);
+            DoubleBuffer segment = segments[k / rowsPerSegment];
+            int start = (k % rowsPerSegment) * vertexCount;
+            row.asDoubleBuffer().put(segment.slice(start, vertexCount));
+            CRC32 crc = new CRC32();
+            crc.update(row);
+            rowChecksums[k] = crc.getValue();
+        });
+        ByteBuffer sourceSection = ByteBuffer.allocate(sources.length * Integer.BYTES);
+        sourceSection.asIntBuffer().put(sources);
+        return checksum(sourceSection, rowChecksums) == checksum;
+    }
+
+    /**
+     * Return the number of vertices covered by this table.
+     */
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Return whether this table holds exact distances from the vertex with id `v`.
+     */
+    public boolean isSource(int v) {
+        return rowOf[v] >= 0;
+    }
+
+    /**
+     * Return the shortest-path distance from vertex `src` to vertex `dst` (both ids).  Requires
+     * `isSource(src)`.
+     */
+    public double distance(int src, int dst) {
+        int row = rowOf[src];
+        if (row < 0) {
+            throw new IllegalArgumentException("No distances stored from vertex " + src);
+        }
+        return segments[row / rowsPerSegment].get((row % rowsPerSegment) * vertexCount + dst);
+    }
+
+    /**
+     * Return a lower bound on the shortest-path distance from vertex `u` to vertex `v` (both ids),
+     * which is exact if `isSource(u)`.  Otherwise, the bound follows from the triangle inequality
+     * `d(L, u) + d(u, v) >= d(L, v)` for each source `L`, less `ROUNDING_SLACK`.
+     */
+    public double lowerBound(int u, int v) {
+        if (rowOf[u] >= 0) {
+            return distance(u, v);
+        }
+        double bound = 0;
+        for (int k = 0; k < sources.length; k++) {
+            DoubleBuffer segment = segments[k / rowsPerSegment];
+            int start = (k % rowsPerSegment) * vertexCount;
+            double du = segment.get(start + u);
+            double dv = segment.get(start + v);
+            if (du < Double.POSITIVE_INFINITY) {
+                bound = Math.max(bound, dv * (1 - ROUNDING_SLACK) - du);
+            }
+        }
+        return bound;
+    }
+
+    /* ****************************************************************
+     * Shortest paths over vertex ids                                 *
+     **************************************************************** */
+
+    /**
+     * Fill `dist` (indexed by vertex id) with the shortest-path distances from vertex `source` to
+     * every vertex of `graph` using Dijkstra's algorithm, using `frontier` as scratch space.
+     * Requires `dist.length` and `frontier.capacity()` are at least `graph.vertexCount()`, and that
+     * `frontier` is empty.
+     */
+    static void distancesFrom(MazeGraph graph, int source, double[] dist,
+            IndexMinPQueue frontier) {
+        Arrays.fill(dist, 0, graph.vertexCount(), Double.POSITIVE_INFINITY);
+        dist[source] = 0;
+        frontier.addOrUpdate(source, 0);
+        while (!frontier.isEmpty()) {
+            int v = frontier.remove();
+            MazeVertex vertex = graph.vertex(v);
+            for (MazeEdge e : vertex.outgoingEdges()) {
+                int w = e.dst().id();
+                double d = dist[v] + e.weight();
+                if (d < dist[w]) {
+                    dist[w] = d;
+                    frontier.addOrUpdate(w, d);
+                }
+            }
+        }
+    }
+}
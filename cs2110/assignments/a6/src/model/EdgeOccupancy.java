@@ -0,0 +1,224 @@
+package model;
+
+import java.util.Arrays;
+import model.MazeGraph.MazeEdge;
+
+/**
+ * An index from the _undirected_ edges of a maze graph to the actors ("slots", numbered from 0)
+ * currently on them, stored in preallocated primitive arrays.  The occupants of each edge form a
+ * doubly-linked list threaded through the slot arrays, so moving an actor to another edge takes
+ * constant time, and no objects are allocated.
+ * <p>
+ * The first occupant of each occupied edge is found through a small open-addressing hash table
+ * keyed by edge id, rather than an array over every edge of the graph, so an index takes space
+ * proportional to its number of slots (at most one edge per slot is occupied).  This keeps
+ * creating an index cheap, which matters when games are forked often.
+ * <p>
+ * An undirected edge is identified by the vertex it leaves in a "positive" direction (RIGHT or
+ * DOWN): its id is twice that vertex's id, plus 1 if the edge is vertical.  A directed edge and
+ * its reverse (including tunnel edges) therefore share an id.
+ */
+class EdgeOccupancy {
+
+    /**
+     * Marks an empty entry of `keys`.
+     */
+    private static final int EMPTY = -1;
+
+    /**
+     * The hash table of occupied edges: the id of each entry's edge (or `EMPTY`), and the first
+     * slot on that edge.  Collisions are resolved by linear probing; the table's length is a
+     * power of 2 at least twice the number of slots, so it is at most half full.
+     */
+    private final int[] keys;
+    private final int[] heads;
+
+    /**
+     * One more than the largest edge id the graph can have, as far as this index knows.
+     */
+    private int edgeCapacity;
+
+    /**
+     * The undirected edge occupied by each slot, or -1 if the slot has not been placed.
+     */
+    private final int[] edgeOf;
+
+    /**
+     * The next and previous slots on the same edge as each slot, or -1 at the ends of the list.
+     */
+    private final int[] next;
+    private final int[] prev;
+
+    /**
+     * Create an index of `slots` actors over a graph with `vertexCount` vertices, with every slot
+     * initially unplaced.
+     */
+    EdgeOccupancy(int vertexCount, int slots) {
+        int tableSize = Integer.highestOneBit(Math.max(2 * slots, 2) - 1) << 1;
+        keys = new int[tableSize];
+        heads = new int[tableSize];
+        Arrays.fill(keys, EMPTY);
+        edgeCapacity = 2 * vertexCount;
+        edgeOf = new int[slots];
+        next = new int[slots];
+        prev = new int[slots];
+        Arrays.fill(edgeOf, -1);
+    }
+
+    /**
+     * Return the id of the undirected edge containing `e`.
+     */
+    static int undirectedId(MazeEdge e) {
+        return switch (e.direction()) {
+            case RIGHT -> 2 * e.src().id();
+            case DOWN -> 2 * e.src().id() + 1;
+            case LEFT -> 2 * e.dst().id();
+            case UP -> 2 * e.dst().id() + 1;
+        };
+    }
+
+    /**
+     * Return the number of undirected edge ids this index currently knows of; every id placed so
+     * far is less than this, which only grows when the graph gains vertices.
+     */
+    int edgeCapacity() {
+        return edgeCapacity;
+    }
+
+    /**
+     * Return the number of slots in this index.
+     */
+    int slots() {
+        return edgeOf.length;
+    }
+
+    /**
+     * Return the undirected edge occupied by `slot`, or -1 if it has not been placed.
+     */
+    int edgeOf(int slot) {
+        return edgeOf[slot];
+    }
+
+    /**
+     * Return the first slot occupying undirected edge `edgeId`, or -1 if there is none.
+     */
+    int first(int edgeId) {
+        int i = find(edgeId);
+        return keys[i] == EMPTY ? -1 : heads[i];
+    }
+
+    /**
+     * Return whether `slot` has been placed and is the first slot on its edge (that is, whether
+     * `first(edgeOf(slot)) == slot`).
+     */
+    boolean isFirst(int slot) {
+        return edgeOf[slot] >= 0 && prev[slot] < 0;
+    }
+
+    /**
+     * Return the slot after `slot` on the same edge, or -1 if it is the last.
+     */
+    int next(int slot) {
+        return next[slot];
+    }
+
+    /**
+     * Move `slot` onto undirected edge `edgeId`.  Has no effect if it is already there.
+     */
+    void place(int slot, int edgeId) {
+        if (edgeOf[slot] == edgeId) {
+            return;
+        }
+        unlink(slot);
+        // The graph may have gained vertices since this index was created
+        edgeCapacity = Math.max(edgeCapacity, edgeId + 1);
+        int i = find(edgeId);
+        int h;
+        if (keys[i] == EMPTY) {
+            keys[i] = edgeId;
+            h = -1;
+        } else {
+            h = heads[i];
+        }
+        next[slot] = h;
+        prev[slot] = -1;
+        if (h >= 0) {
+            prev[h] = slot;
+        }
+        heads[i] = slot;
+        edgeOf[slot] = edgeId;
+    }
+
+    /**
+     * Remove `slot` from the edge it occupies, if any.
+     */
+    private void unlink(int slot) {
+        int edgeId = edgeOf[slot];
+        if (edgeId < 0) {
+            return;
+        }
+        int p = prev[slot];
+        int n = next[slot];
+        if (p >= 0) {
+            next[p] = n;
+        } else {
+            int i = find(edgeId);
+            if (n >= 0) {
+                heads[i] = n;
+            } else {
+                remove(i);
+            }
+        }
+        if (n >= 0) {
+            prev[n] = p;
+        }
+        edgeOf[slot] = -1;
+    }
+
+    /**
+     * Return the index in `keys` of the entry for `edgeId`, or of the empty entry where it would
+     * be inserted.
+     */
+    private int find(int edgeId) {
+        int mask = keys.length - 1;
+        int i = home(edgeId);
+        while (keys[i] != EMPTY && keys[i] != edgeId) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Return the index in `keys` at which the probe for `edgeId` starts.
+     */
+    private int home(int edgeId) {
+        // Fibonacci hashing spreads consecutive ids across the table
+        return (edgeId * 0x9E3779B9) >>> (Integer.SIZE - Integer.numberOfTrailingZeros(keys.length))
+                & (keys.length - 1);
+    }
+
+    /**
+     * Empty entry `i` of the table, moving later entries of its probe sequence back so that every
+     * entry can still be found without tombstones.
+     */
+    private void remove(int i) {
+        int mask = keys.length - 1;
+        keys[i] = EMPTY;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == EMPTY) {
+                return;
+            }
+            int h = home(keys[j]);
+            // Entry `j` may only move back to `i` if its home is not cyclically within `(i..j]`
+            boolean between = (i <= j) ? (i < h && h <= j) : (i < h || h <= j);
+            if (!between) {
+                keys[i] = keys[j];
+                heads[i] = heads[j];
+                keys[j] = EMPTY;
+                i = j;
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package model;
+
+import graph.IndexMinPQueue;
+import java.util.Arrays;
+import java.util.List;
+import model.Ghost.GhostState;
+import model.MazeGraph.MazeEdge;
+
+/**
+ * Predicts the next event in a game (an actor arriving at a vertex, a ghost's WAIT or FLEE timer
+ * expiring, or two actors meeting on an edge) from a priority queue of predicted event times, so
+ * that only the actors whose motion has changed need to be predicted again after each step.
+ * <p>
+ * Each actor (identified by its index in the game's list of actors, its "slot") has its own next
+ * event in the queue (element `slot`), and each undirected edge holding actors that will meet has
+ * the earliest of those meetings (element `slots + edgeId`).  Events are stored at absolute game
+ * times, since they then stay valid while actors move along their edges.  Because predictions
+ * made in earlier steps carry rounding errors of their own, the events due within `WINDOW` of the
+ * earliest one are recomputed from the actors' current state; this makes the time to the next
+ * event exactly the same as if every actor had been polled.
+ */
+class EventScheduler {
+
+    /**
+     * How far (in ms) a predicted event may lie beyond the earliest predicted event and still
+     * be recomputed.  This must be much larger than the rounding errors that predictions
+     * accumulate between steps, which are many orders of magnitude smaller.
+     */
+    static final double WINDOW = 1e-6;
+
+    /**
+     * The actors whose events are scheduled, indexed by slot.
+     */
+    private final List<Actor> actors;
+
+    /**
+     * The undirected edges that the actors occupy.  Must be synchronized with the actors'
+     * locations before each call to `timeToNextEvent()`.
+     */
+    private final EdgeOccupancy occupancy;
+
+    /**
+     * Finds the earliest meeting on an undirected edge.
+     */
+    private final MeetingFinder meetings;
+
+    /**
+     * The predicted (absolute) time of each actor's next event and each edge's earliest meeting.
+     */
+    private IndexMinPQueue events;
+
+    /**
+     * The edge, undirected edge id, and edge speed of each actor when its events were last
+     * predicted, to detect actors that have started along a new edge or changed speed since.
+     */
+    private final MazeEdge[] predictedEdges;
+    private final int[] predictedEdgeIds;
+    private final double[] predictedSpeeds;
+
+    /**
+     * Whether each actor's events must be predicted again, regardless of whether its edge or
+     * speed has changed.
+     */
+    private final boolean[] stale;
+
+    /**
+     * The undirected edges whose meetings must be predicted again, and their number.  An edge is
+     * listed at most once per call to `timeToNextEvent()`, which is tracked by stamping it with
+     * that call's number in `edgeStamps`.
+     */
+    private final int[] staleEdges;
+    private int staleEdgeCount;
+    private int[] edgeStamps;
+    private int stamp;
+
+    /**
+     * Scratch space for the events due within `WINDOW` of the earliest one.
+     */
+    private final int[] due;
+
+    /**
+     * Create a scheduler for `actors`, whose edges are tracked by `occupancy` and whose meetings
+     * are found by `meetings`.  Every actor's events will be predicted on the first call to
+     * `timeToNextEvent()`.
+     */
+    EventScheduler(List<Actor> actors, EdgeOccupancy occupancy, MeetingFinder meetings) {
+        this.actors = actors;
+        this.occupancy = occupancy;
+        this.meetings = meetings;
+        int n = actors.size();
+        events = new IndexMinPQueue(n + occupancy.edgeCapacity());
+        edgeStamps = new int[occupancy.edgeCapacity()];
+        predictedEdges = new MazeEdge[n];
+        predictedEdgeIds = new int[n];
+        predictedSpeeds = new double[n];
+        stale = new boolean[n];
+        // Each actor can make at most two edges stale, and at most one edge per two actors can
+        // have a meeting that is due
+        staleEdges = new int[3 * n];
+        due = new int[2 * n];
+        Arrays.fill(predictedEdgeIds, -1);
+        invalidateAll();
+    }
+
+    /**
+     * Require every actor's events to be predicted again.  Must be called after any change to
+     * actors' states that does not change their edges or speeds (for example, resetting a timer).
+     */
+    void invalidateAll() {
+        Arrays.fill(stale, true);
+    }
+
+    /**
+     * Return the amount of time (in ms) from game time `now` until the next event: the smallest
+     * `maxPropagationTime()` of any actor, or the earliest time at which two actors sharing an
+     * undirected edge will meet (see `GameModel.meetingTime()`), whichever is sooner, but no more
+     * than `maxDt`.  If `epsilon` is positive, the result is extended to the latest
+     * `maxPropagationTime()` that is within `epsilon` of it, as long as that is not past `maxDt` or
+     * the earliest meeting (see `GameModel.setEventCoalescing()`).  Returns POSITIVE_INFINITY if
+     * there are no more events and `maxDt` is infinite.  Requires that `occupancy` is synchronized.
+     */
+    double timeToNextEvent(double now, double maxDt, double epsilon) {
+        int n = actors.size();
+        if (n + occupancy.edgeCapacity() > events.capacity()) {
+            // The graph has gained vertices; start over with room for their edges
+            events = new IndexMinPQueue(n + occupancy.edgeCapacity());
+            edgeStamps = new int[occupancy.edgeCapacity()];
+            invalidateAll();
+        }
+        stamp += 1;
+
+        // Edges whose meetings were due last time must be predicted again
+        int carried = staleEdgeCount;
+        staleEdgeCount = 0;
+        for (int i = 0; i < carried; i++) {
+            markEdge(staleEdges[i]);
+        }
+
+        for (int k = 0; k < n; k++) {
+            Actor a = actors.get(k);
+            MazeEdge e = a.currentEdge();
+            double speed = a.edgeSpeed();
+            if (stale[k] || e != predictedEdges[k] || speed != predictedSpeeds[k] || isFrozen(a)) {
+                // The meetings on the edge this actor left and on the edge it is on may change
+                if (predictedEdgeIds[k] >= 0) {
+                    markEdge(predictedEdgeIds[k]);
+                }
+                markEdge(occupancy.edgeOf(k));
+                predictedEdges[k] = e;
+                predictedEdgeIds[k] = occupancy.edgeOf(k);
+                predictedSpeeds[k] = speed;
+                stale[k] = false;
+                events.addOrUpdate(k, now + a.maxPropagationTime());
+            }
+        }
+        for (int i = 0; i < staleEdgeCount; i++) {
+            predictMeeting(staleEdges[i], now);
+        }
+        staleEdgeCount = 0;
+
+        // Recompute every event due within `WINDOW` of the earliest one (when coalescing, within
+        // `epsilon` of it as well).  These events will have happened or been passed after the
+        // next step, so they are predicted again next time.
+        double threshold = events.minPriority() + epsilon + WINDOW;
+        int count = 0;
+        while (!events.isEmpty() && events.minPriority() <= threshold) {
+            due[count] = events.remove();
+            count += 1;
+        }
+        double next = maxDt;
+        double meeting = Double.POSITIVE_INFINITY;
+        for (int c = 0; c < count; c++) {
+            if (due[c] < n) {
+                next = Math.min(next, actors.get(due[c]).maxPropagationTime());
+                stale[due[c]] = true;
+            } else {
+                meeting = Math.min(meeting, meetings.earliestMeeting(due[c] - n));
+                staleEdges[staleEdgeCount] = due[c] - n;
+                staleEdgeCount += 1;
+            }
+        }
+        next = Math.min(next, meeting);
+        if (epsilon > 0) {
+            // Meetings that were not due are later than `next + epsilon`, so cannot limit this
+            double limit = Math.min(Math.min(next + epsilon, maxDt), meeting);
+            for (int c = 0; c < count; c++) {
+                if (due[c] < n) {
+                    double t = actors.get(due[c]).maxPropagationTime();
+                    if (t <= limit && t > next) {
+                        next = t;
+                    }
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Return whether `actor` is standing still even though it has a nonzero `edgeSpeed()` (that
+     * is, it is waiting in the ghost box or has reached the end of its edge).  The times of such an
+     * actor's events do not approach as time passes, so they must be predicted at every step.
+     */
+    private static boolean isFrozen(Actor actor) {
+        return actor.progress() == 1
+                || actor instanceof Ghost g && g.state() == GhostState.WAIT;
+    }
+
+    /**
+     * Add undirected edge `edgeId` to `staleEdges`, unless it was already added by this call to
+     * `timeToNextEvent()`.
+     */
+    private void markEdge(int edgeId) {
+        if (edgeStamps[edgeId] != stamp) {
+            edgeStamps[edgeId] = stamp;
+            staleEdges[staleEdgeCount] = edgeId;
+            staleEdgeCount += 1;
+        }
+    }
+
+    /**
+     * Schedule the earliest meeting between actors on undirected edge `edgeId`, or unschedule it
+     * if none of them will meet.
+     */
+    private void predictMeeting(int edgeId, double now) {
+        double s = meetings.earliestMeeting(edgeId);
+        if (s < Double.POSITIVE_INFINITY) {
+            events.addOrUpdate(actors.size() + edgeId, now + s);
+        } else {
+            events.remove(actors.size() + edgeId);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package model;
+
+import model.GameModel.GameState;
+
+/**
+ * Observes a `GameModel` through typed callbacks, which receive primitive values rather than
+ * boxed property values and so allocate nothing.  Every callback does nothing by default, so
+ * listeners only override the ones they care about.
+ * <p>
+ * A listener registered as coalesced (see `GameModel.addGameListener()`) is notified at most once
+ * per callback at the end of each call to `updateActors()`, with the net change over that call
+ * (for example, a single `scoreChanged()` from the score before the call to the score after it),
+ * rather than once per change.
+ */
+public interface GameListener {
+
+    /**
+     * Called after the score changes from `oldScore` to `newScore`.
+     */
+    default void scoreChanged(int oldScore, int newScore) {
+    }
+
+    /**
+     * Called after the number of remaining lives changes from `oldLives` to `newLives`.
+     */
+    default void livesChanged(int oldLives, int newLives) {
+    }
+
+    /**
+     * Called after the game transitions from `oldState` to `newState`.
+     */
+    default void stateChanged(GameState oldState, GameState newState) {
+    }
+
+    /**
+     * Called when the game ends with `result`: VICTORY or DEFEAT, or ABORTED if it exceeded the
+     * limits of its watchdog (see `GameModel.setWatchdog()`).
+     */
+    default void gameEnded(GameState result) {
+    }
+
+    /**
+     * Called at the end of each call to `updateActors()`, after the actors have moved.
+     */
+    default void boardUpdated() {
+    }
+}
@@ -7,14 +7,15 @@ import model.MazeGraph.MazeVertex;
 import util.ElevationGenerator;
 import util.MazeGenerator;
 import util.MazeGenerator.TileType;
-import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import javax.swing.event.SwingPropertyChangeSupport;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import model.Ghost.GhostState;
 import model.MazeGraph.Direction;
 import util.GameMap;
@@ -26,9 +27,10 @@ import util.Randomness;
 public class GameModel {
 
     /**
-     * During its lifetime, the game transitions from READY -> PLAYING -> either VICTORY/DEFEAT
+     * During its lifetime, the game transitions from READY -> PLAYING -> either VICTORY/DEFEAT, or
+     * ABORTED if it exceeds the limits of its watchdog (see `setWatchdog()`)
      */
-    public enum GameState {READY, PLAYING, VICTORY, DEFEAT}
+    public enum GameState {READY, PLAYING, VICTORY, DEFEAT, ABORTED}
 
     /**
      * The current state of this model
@@ -40,16 +42,48 @@ public class GameModel {
      */
     private final GameMap map;
 
+    /**
+     * Who controls PacMann: the player's commands (`PacMannManual`), a Monte Carlo Tree Search
+     * (`PacMannAI`), danger and item fields (`PacMannFieldAI`), or an expectimax search
+     * (`PacMannExpectimaxAI`).
+     */
+    public enum Player {MANUAL, SEARCH_AI, FIELD_AI, EXPECTIMAX_AI}
+
     /**
      * Each path tile contains a dot, contains a pellet, or is empty.
      */
     public enum Item {DOT, PELLET, NONE}
 
     /**
-     * A map from the vertices in the game graph to items positioned on these vertices. `item` only
-     * includes the vertices containing DOTs and PELLETs, not NONE.
+     * All items, cached to avoid cloning `Item.values()`.
+     */
+    private static final Item[] ITEMS = Item.values();
+
+    /**
+     * The ordinal of the item positioned on each vertex of the game graph, indexed by vertex id.
+     * Vertices added to the graph after this game was constructed (whose ids lie beyond the end of
+     * the array) hold no item.
+     */
+    private byte[] items;
+
+    /**
+     * The ids of the vertices holding a DOT or PELLET, for iterating over the remaining items, and
+     * the number of such vertices.
+     */
+    private BitSet itemVertices;
+    private int itemsRemaining;
+
+    /**
+     * Whether `items` and `itemVertices` may be shared with a fork of this game (or the game it
+     * was forked from), in which case they must be copied before they are modified.
      */
-    private final Map<MazeVertex, Item> items;
+    private boolean itemsShared;
+
+    /**
+     * The index of the nearest remaining item to each vertex, or null until it is first asked for
+     * (see `nearestDots()`).  Forks start without one, so forking costs nothing extra.
+     */
+    private NearestDotIndex nearestDots;
 
     /**
      * The graph representation of the game's maze
@@ -77,10 +111,87 @@ public class GameModel {
     private final int height;
 
     /**
-     * The actors in this game, PacMann will be in index 0 and the ghosts will be in indices 1-4
+     * The actors in this game, PacMann will be in index 0 and the ghosts will be in the following
+     * indices (1-4 for the usual four ghosts)
      */
     private final List<Actor> actors;
 
+    /**
+     * The locations, speeds, and states of the actors, indexed like `actors`.
+     */
+    private final ActorStore actorStore;
+
+    /**
+     * The undirected edge occupied by each actor, indexed by the actor's position in `actors`.
+     * Kept in sync with the actors' locations by `syncOccupancy()`.
+     */
+    private final EdgeOccupancy occupancy;
+
+    /**
+     * Finds the earliest meeting of the actors on each undirected edge.
+     */
+    private final MeetingFinder meetings;
+
+    /**
+     * The directed edge each actor was on when `occupancy` was last synchronized.
+     */
+    private final MazeEdge[] occupiedEdges;
+
+    /**
+     * Scratch space for the actors that might be colliding with PacMann.
+     */
+    private final int[] collisionCandidates;
+
+    /**
+     * Predicts the time of the next event when this game is event-driven, or null if the time of
+     * the next event is found by polling every actor (see `setEventDriven()`).
+     */
+    private EventScheduler scheduler;
+
+    /**
+     * Events that occur within this many ms of the next event are processed in the same step, or
+     * 0 if events are never coalesced (see `setEventCoalescing()`).
+     */
+    private double coalescing;
+
+    /**
+     * The pool on which the plan and propagate phases of each step run in parallel, or null if
+     * steps run serially (see `setPhaseParallel()`).
+     */
+    private ForkJoinPool phasePool;
+
+    /**
+     * The limits on how long this game may run, or null if it may run forever (see
+     * `setWatchdog()`).  Forks are not limited.
+     */
+    private GameWatchdog watchdog;
+
+    /**
+     * Scratch space for the edges chosen by the ghosts in the plan phase of a parallel step, or
+     * null at the ghosts that are not standing on a vertex.
+     */
+    private final MazeEdge[] plannedEdges;
+
+    /**
+     * The number of steps taken by the most recent call to `updateActors()`, the most taken by
+     * any call, and the total taken by all calls.
+     */
+    private int lastSubSteps;
+    private int maxSubSteps;
+    private long totalSubSteps;
+
+    /**
+     * The number of calls to `updateActors()` that took `n` steps, binned by the number of bits
+     * needed to represent `n`: bin 0 counts calls that took no steps, bin 1 those that took 1,
+     * bin 2 those that took 2-3, bin 3 those that took 4-7, and so on.
+     */
+    private final long[] subStepHistogram = new long[Integer.SIZE];
+
+    /**
+     * All directions, cached to avoid cloning `Direction.values()`.
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
     /**
      * The number of ghosts that were caught during the current FLEE cycle
      */
@@ -116,24 +227,93 @@ public class GameModel {
     }
 
     /**
-     * Helper object for managing property change notifications.
+     * The listeners registered for each property, as arrays that are replaced (never modified) when
+     * listeners are added or removed, so that listeners may add or remove listeners while being
+     * notified.
+     */
+    private final Map<String, ModelListener[]> listeners = new HashMap<>();
+
+    /**
+     * The typed listeners notified of each change as it happens, and those notified once per call
+     * to `updateActors()` (see `addGameListener()`).  Like the arrays in `listeners`, these arrays
+     * are replaced rather than modified.
      */
-    protected SwingPropertyChangeSupport propSupport;
+    private GameListener[] immediateListeners = NO_LISTENERS;
+    private GameListener[] coalescedListeners = NO_LISTENERS;
+
+    /**
+     * An empty array of typed listeners, shared by games that have none.
+     */
+    private static final GameListener[] NO_LISTENERS = new GameListener[0];
+
+    /**
+     * Whether changes are being held back from coalesced listeners until the current call to
+     * `updateActors()` ends, and the score, lives, and state when that call started.
+     * `updateResult` is the result of the game if it ended during that call, or null.
+     */
+    private boolean holdingUpdates;
+    private int scoreBeforeUpdate;
+    private int livesBeforeUpdate;
+    private GameState stateBeforeUpdate;
+    private GameState updateResult;
 
     /* ****************************************************************
      * Game construction                                              *
      **************************************************************** */
 
     /**
-     * Construct a new game model using the given arrays of tile types and elevations
+     * Construct a new game model using the given arrays of tile types and elevations.  The game's
+     * maze graph is shared with any other game on a map with the same contents (see
+     * `MazeGraphRegistry`), so `map` must not be modified afterwards.
      */
     public GameModel(GameMap map, Randomness randomness, boolean withAI) {
-        this.map = map;
+        this(map, randomness, withAI, 4);
+    }
+
+    /**
+     * Construct a new game model using the given arrays of tile types and elevations, with
+     * `numGhosts` ghosts (see `GameModel(MazeGraph, Randomness, boolean, int)`).  The game's maze
+     * graph is shared as in `GameModel(GameMap, Randomness, boolean)`.
+     */
+    public GameModel(GameMap map, Randomness randomness, boolean withAI, int numGhosts) {
+        this(MazeGraphRegistry.shared().graphFor(map), randomness, withAI, numGhosts);
+    }
+
+    /**
+     * Construct a new game model played on the maze graph `graph` with the usual four ghosts.
+     */
+    GameModel(MazeGraph graph, Randomness randomness, boolean withAI) {
+        this(graph, randomness, withAI, 4);
+    }
+
+    /**
+     * Construct a new game model played on the maze graph `graph` with `numGhosts` ghosts, which
+     * cycle through the behaviors of Blinky, Pinky, Inky, and Clyde in that order (so the first
+     * four are the usual ghosts).  Only the game's dynamic state (items, actors, score, etc.)
+     * belongs to it, so `graph` may be shared with other games if it is frozen.  Requires
+     * `numGhosts >= 0`; the accessors of the usual ghosts (e.g., `clyde()`) may only be used if
+     * the game has them.
+     */
+    GameModel(MazeGraph graph, Randomness randomness, boolean withAI, int numGhosts) {
+        this(graph, randomness, withAI ? Player.SEARCH_AI : Player.MANUAL, numGhosts);
+    }
+
+    /**
+     * Construct a new game model played on the maze graph `graph` with PacMann controlled by
+     * `player` and `numGhosts` ghosts (see `GameModel(MazeGraph, Randomness, boolean, int)`).
+     */
+    GameModel(MazeGraph graph, Randomness randomness, Player player, int numGhosts) {
+        if (numGhosts < 0) {
+            throw new IllegalArgumentException("Number of ghosts must be non-negative");
+        }
+        this.graph = graph;
+        map = graph.map();
         width = map.types().length;
         height = map.types()[0].length;
-        graph = new MazeGraph(map);
 
-        items = new HashMap<>();
+        items = new byte[graph.vertexCount()];
+        Arrays.fill(items, (byte) Item.NONE.ordinal());
+        itemVertices = new BitSet(graph.vertexCount());
         placeDotsAndPellets();
 
         score = 0;
@@ -141,30 +321,173 @@ public class GameModel {
         numLives = 3;
         state = GameState.READY;
 
+        actorStore = new ActorStore(numGhosts + 1);
         actors = new ArrayList<>();
-        actors.add(new PacMannManual(this));
-        //actors.add(withAI ? new PacMannAI(this) : new PacMannManual(this));
-        actors.add(new Blinky(this));
-        actors.add(new Pinky(this));
-        actors.add(new Inky(this));
-        actors.add(new Clyde(this, randomness.generatorFor("Clyde")));
+        actors.add(switch (player) {
+            case MANUAL -> new PacMannManual(this);
+            case SEARCH_AI -> new PacMannAI(this, randomness.copyableGeneratorFor("PacMannAI"));
+            case FIELD_AI -> new PacMannFieldAI(this);
+            case EXPECTIMAX_AI -> new PacMannExpectimaxAI(this);
+        });
+        for (int k = 0; k < numGhosts; k++) {
+            actors.add(newGhost(k, randomness));
+        }
+
+        occupancy = new EdgeOccupancy(graph.vertexCount(), actors.size());
+        meetings = new MeetingFinder(actors, occupancy);
+        occupiedEdges = new MazeEdge[actors.size()];
+        collisionCandidates = new int[actors.size()];
+        plannedEdges = new MazeEdge[actors.size()];
+
+        // Has no effect on a frozen (possibly shared) graph, which never changes
+        graph.addChangeListener(this::tileChanged);
+    }
+
+    /**
+     * Construct a fork of `original` (see `fork()`).  Forks do not observe changes to the graph,
+     * as they only live while their game is not being changed.
+     */
+    private GameModel(GameModel original, Function<GameModel, ? extends PacMann> player) {
+        graph = original.graph;
+        map = original.map;
+        width = original.width;
+        height = original.height;
+
+        items = original.items;
+        itemVertices = original.itemVertices;
+        itemsRemaining = original.itemsRemaining;
+        itemsShared = true;
+        original.itemsShared = true;
+
+        score = original.score;
+        time = original.time;
+        numLives = original.numLives;
+        numGhostsCaught = original.numGhostsCaught;
+        state = original.state;
+        playerDirection = original.playerDirection;
+        coalescing = original.coalescing;
+
+        actorStore = original.actorStore.copy();
+        actors = new ArrayList<>(original.actors.size());
+        for (int k = 0; k < original.actors.size(); k++) {
+            actors.add((k == 0 && player != null) ? player.apply(this)
+                    : original.actors.get(k).forkFor(this));
+        }
+
+        occupancy = new EdgeOccupancy(graph.vertexCount(), actors.size());
+        meetings = new MeetingFinder(actors, occupancy);
+        occupiedEdges = new MazeEdge[actors.size()];
+        collisionCandidates = new int[actors.size()];
+        plannedEdges = new MazeEdge[actors.size()];
+    }
+
+    /**
+     * Return a copy of this game that can be played independently of it, for example to look ahead
+     * when planning.  The copy shares this game's maze graph and map, and copies only the dynamic
+     * state: the actors' locations, states, and timers (including the state of Clyde's random
+     * number generator), the remaining items, the score, lives, time, and player command.  Items
+     * are copied lazily, when either game first eats one.  Played the same way, the copy and this
+     * game unfold identically.  The copy has no listeners, finds events by polling, and runs its
+     * steps serially (see `setEventDriven()` and `setPhaseParallel()`), none of which changes how
+     * it unfolds; its step statistics start from zero.
+     */
+    public GameModel fork() {
+        return new GameModel(this, null);
+    }
+
+    /**
+     * Return a fork of this game (see `fork()`) whose PacMann is `player.apply(fork)` instead of a
+     * copy of this game's PacMann.  The new PacMann must be constructed as a copy of this game's
+     * PacMann (with `PacMann`'s copy constructor), so that it starts in the same place.  Used by
+     * planners to play out moves of their own choosing.
+     */
+    GameModel fork(Function<GameModel, ? extends PacMann> player) {
+        return new GameModel(this, player);
+    }
 
-        boolean notifyOnEdt = false; // no threads, so false is okay
-        propSupport = new SwingPropertyChangeSupport(this, notifyOnEdt);
+    /**
+     * Return the `k`th ghost of a game with the randomness source `randomness`.  Ghosts cycle
+     * through the behaviors of Blinky, Pinky, Inky, and Clyde.  Each Clyde draws from its own
+     * generator; the first uses the same generator as in a game with four ghosts.
+     */
+    private Ghost newGhost(int k, Randomness randomness) {
+        return switch (k % 4) {
+            case 0 -> new Blinky(this);
+            case 1 -> new Pinky(this);
+            case 2 -> new Inky(this);
+            default -> new Clyde(this,
+                    randomness.copyableGeneratorFor(k < 4 ? "Clyde" : "Clyde" + k / 4));
+        };
     }
 
     /**
      * Static method to construct a GameModel object associated with a new random maze
      */
     public static GameModel newGame(int width, int height, boolean withAI, Randomness randomness) {
-        TileType[][] types = new MazeGenerator(width, height,
-                randomness.generatorFor("MazeGenerator")).generateMaze();
-        int tilesAcross = 3 * width + 2;
-        int tilesHigh = 3 * height + 2;
-        double[][] elevations = ElevationGenerator.generateElevations(tilesAcross, tilesHigh,
-                randomness.generatorFor("ElevationGenerator"));
-        return new GameModel(new GameMap(types, elevations), randomness.randomnessFor("GameModel"),
-                withAI);
+        return newGame(width, height, withAI, randomness, null);
+    }
+
+    /**
+     * Static method to construct a GameModel object associated with a new random maze, reusing the
+     * maze stored in `cache` for this size and `randomness` if there is one, and otherwise
+     * generating it and storing it there.  `cache` may be null, in which case the maze is always
+     * generated.
+     */
+    public static GameModel newGame(int width, int height, boolean withAI, Randomness randomness,
+            MazeCache cache) {
+        return newGame(width, height, withAI, randomness, cache, 4);
+    }
+
+    /**
+     * Static method to construct a GameModel object with `numGhosts` ghosts associated with a new
+     * random maze, reusing the maze stored in `cache` (which may be null) as in
+     * `newGame(int, int, boolean, Randomness, MazeCache)`.
+     */
+    public static GameModel newGame(int width, int height, boolean withAI, Randomness randomness,
+            MazeCache cache, int numGhosts) {
+        return newGame(width, height, withAI ? Player.SEARCH_AI : Player.MANUAL, randomness, cache,
+                numGhosts);
+    }
+
+    /**
+     * Static method to construct a GameModel object with PacMann controlled by `player` and
+     * `numGhosts` ghosts associated with a new random maze, reusing the maze stored in `cache`
+     * (which may be null) as in `newGame(int, int, boolean, Randomness, MazeCache)`.  The game's
+     * maze graph is frozen and shared with other games on the same maze (see
+     * `MazeGraphRegistry`).
+     */
+    public static GameModel newGame(int width, int height, Player player, Randomness randomness,
+            MazeCache cache, int numGhosts) {
+        return newGame(width, height, player, randomness, cache, numGhosts, true);
+    }
+
+    /**
+     * Static method to construct a GameModel object as in
+     * `newGame(int, int, Player, Randomness, MazeCache, int)`, except that if `shareGraph` is
+     * false, the game is given a private maze graph of its own that is not frozen, so that its
+     * tiles may be changed with `graph().setTile()` while it is played.
+     */
+    public static GameModel newGame(int width, int height, Player player, Randomness randomness,
+            MazeCache cache, int numGhosts, boolean shareGraph) {
+        MazeCache.Entry cached = cache == null ? null : cache.load(width, height, randomness);
+        MazeGraph graph;
+        if (cached != null) {
+            graph = shareGraph ? MazeGraphRegistry.shared().intern(cached.graph())
+                    : cached.graph();
+        } else {
+            TileType[][] types = new MazeGenerator(width, height,
+                    randomness.generatorFor("MazeGenerator")).generateMaze();
+            int tilesAcross = 3 * width + 2;
+            int tilesHigh = 3 * height + 2;
+            double[][] elevations = ElevationGenerator.generateElevations(tilesAcross, tilesHigh,
+                    randomness.generatorFor("ElevationGenerator"));
+            GameMap map = new GameMap(types, elevations);
+            graph = shareGraph ? MazeGraphRegistry.shared().graphFor(map) : new MazeGraph(map);
+            if (cache != null) {
+                cache.store(width, height, randomness, graph);
+            }
+        }
+        return new GameModel(graph, randomness.randomnessFor("GameModel"), player, numGhosts);
     }
 
     /**
@@ -184,7 +507,7 @@ public class GameModel {
 
         for (MazeVertex v : graph.vertices()) {
             if (pelletLocs.contains(v.loc())) {
-                items.put(v, Item.PELLET);
+                placeItem(v, Item.PELLET);
                 continue;
             }
 
@@ -193,11 +516,20 @@ public class GameModel {
 
             // place pellets at all interior vertices
             if (i >= 2 && i < width - 2 && j >= 2 && j < height - 2) {
-                items.put(v, Item.DOT);
+                placeItem(v, Item.DOT);
             }
         }
     }
 
+    /**
+     * Put `item` (a DOT or PELLET) on vertex `v`, which holds no item.
+     */
+    private void placeItem(MazeVertex v, Item item) {
+        items[v.id()] = (byte) item.ordinal();
+        itemVertices.set(v.id());
+        itemsRemaining += 1;
+    }
+
     /* ****************************************************************
      * Accessor methods                                               *
      **************************************************************** */
@@ -251,6 +583,27 @@ public class GameModel {
         return (Ghost) actors.get(1);
     }
 
+    /**
+     * Return the store holding the locations, speeds, and states of this game's actors.
+     */
+    ActorStore actorStore() {
+        return actorStore;
+    }
+
+    /**
+     * Return this game's `k`th ghost, counting from 0 (Blinky).  Requires `0 <= k < numGhosts()`.
+     */
+    public Ghost ghost(int k) {
+        return (Ghost) actors.get(k + 1);
+    }
+
+    /**
+     * Return the number of ghosts in this game
+     */
+    public int numGhosts() {
+        return actors.size() - 1;
+    }
+
     /**
      * Return a reference to this game instance's Pinky Actor object
      */
@@ -291,7 +644,37 @@ public class GameModel {
      * null.
      */
     public Item itemAt(MazeVertex v) {
-        return items.getOrDefault(v, Item.NONE);
+        int id = v.id();
+        return id < items.length ? ITEMS[items[id]] : Item.NONE;
+    }
+
+    /**
+     * Return the number of vertices still holding a DOT or PELLET.  The game is won when this
+     * reaches 0.
+     */
+    public int itemsRemaining() {
+        return itemsRemaining;
+    }
+
+    /**
+     * Return the smallest id of a vertex at or after id `fromId` that holds a DOT or PELLET, or -1
+     * if there is none.  The vertices holding items can be visited in order of increasing id by
+     * starting from 0 and continuing from one past each id returned.  Requires `fromId >= 0`.
+     */
+    public int nextItemVertex(int fromId) {
+        return itemVertices.nextSetBit(fromId);
+    }
+
+    /**
+     * Return the index of the nearest remaining DOT or PELLET to each vertex, building it the first
+     * time it is asked for (or after the graph has changed).  From then on it is updated whenever
+     * an item is removed, so it answers queries in constant time.
+     */
+    public NearestDotIndex nearestDots() {
+        if (nearestDots == null || !nearestDots.describes(graph)) {
+            nearestDots = new NearestDotIndex(this);
+        }
+        return nearestDots;
     }
 
 
@@ -319,7 +702,18 @@ public class GameModel {
     private void addToScore(int points) {
         int oldScore = score;
         score += points;
-        propSupport.firePropertyChange("score", oldScore, score);
+        // Avoid boxing the scores when no one is listening (as in headless games)
+        if (listeners.containsKey("score")) {
+            firePropertyChange("score", oldScore, score);
+        }
+        for (GameListener listener : immediateListeners) {
+            listener.scoreChanged(oldScore, score);
+        }
+        if (!holdingUpdates) {
+            for (GameListener listener : coalescedListeners) {
+                listener.scoreChanged(oldScore, score);
+            }
+        }
     }
 
     /**
@@ -331,6 +725,7 @@ public class GameModel {
         for (int i = 1; i < actors.size(); i++) {
             ((Ghost) actors.get(i)).startFlee();
         }
+        invalidateEvents();
     }
 
     /**
@@ -343,24 +738,114 @@ public class GameModel {
         Item itemAtVertex = itemAt(v);
 
         if (itemAtVertex == Item.DOT) {
-            items.remove(v);
+            removeItem(v);
             addToScore(10);
         }
 
         if (itemAtVertex == Item.PELLET) {
-            items.remove(v);
+            removeItem(v);
             addToScore(50);
             startFlee();
         }
     }
 
+    /**
+     * Remove the item (a DOT or PELLET) on vertex `v`.
+     */
+    private void removeItem(MazeVertex v) {
+        clearItem(v.id());
+        if (nearestDots != null) {
+            nearestDots.itemRemoved(v);
+        }
+    }
+
+    /**
+     * Remove the item (a DOT or PELLET) on the vertex with id `id`, leaving the nearest-item index
+     * to the caller.
+     */
+    private void clearItem(int id) {
+        if (itemsShared) {
+            items = items.clone();
+            itemVertices = (BitSet) itemVertices.clone();
+            itemsShared = false;
+        }
+        items[id] = (byte) Item.NONE.ordinal();
+        itemVertices.clear(id);
+        itemsRemaining -= 1;
+    }
+
+    /**
+     * Respond to the tile at `loc` of this game's graph changing to `type` (see
+     * `MazeGraph.ChangeListener`).  When a PATH tile becomes a WALL, its item (if any) is dropped
+     * without scoring, and each actor on a removed edge is moved off it, as if it had just arrived
+     * at the end of that edge still in the graph, so that it chooses a new edge at its next step.
+     * New vertices hold no items, and no actor is on a new edge, so opening a wall changes nothing.
+     * The nearest-item index is rebuilt when it is next asked for, since it no longer describes
+     * the graph, and a game left without items is won at its next step.
+     */
+    private void tileChanged(MazeGraph graph, IPair loc, TileType type, List<MazeEdge> removed,
+            List<MazeEdge> added) {
+        if (type != TileType.WALL) {
+            return;
+        }
+        if (!removed.isEmpty()) {
+            // The first edge removed leaves the tile's vertex
+            int id = removed.getFirst().src().id();
+            if (id < items.length && items[id] != (byte) Item.NONE.ordinal()) {
+                clearItem(id);
+            }
+        } else {
+            // The vertex had no edges, so look for it among those holding items
+            for (int id = itemVertices.nextSetBit(0); id >= 0;
+                    id = itemVertices.nextSetBit(id + 1)) {
+                if (graph.vertex(id) == null) {
+                    clearItem(id);
+                }
+            }
+        }
+
+        boolean moved = false;
+        for (Actor actor : actors) {
+            MazeEdge e = actor.currentEdge();
+            if (e != null && removed.contains(e)) {
+                MazeVertex v = (graph.vertex(e.dst().id()) != null) ? e.dst() : e.src();
+                // Directions are tried in a fixed order, so that the game stays reproducible
+                MazeEdge arrival = null;
+                for (int d = 0; d < DIRECTIONS.length && arrival == null; d++) {
+                    MazeEdge out = v.edgeInDirection(DIRECTIONS[d]);
+                    arrival = (out != null) ? out.reverse() : null;
+                }
+                if (arrival != null) {
+                    actor.setLocation(arrival, 1);
+                } else {
+                    // Nothing is left connected to `v`, so start over
+                    actor.reset();
+                }
+                moved = true;
+            }
+        }
+        if (moved) {
+            invalidateEvents();
+        }
+    }
+
     /**
      * Transition to `newState` and notify observers.
      */
     private void setState(GameState newState) {
         GameState oldState = state;
         state = newState;
-        propSupport.firePropertyChange("game_state", oldState, state);
+        firePropertyChange("game_state", oldState, state);
+        if (oldState != newState) {
+            for (GameListener listener : immediateListeners) {
+                listener.stateChanged(oldState, newState);
+            }
+            if (!holdingUpdates) {
+                for (GameListener listener : coalescedListeners) {
+                    listener.stateChanged(oldState, newState);
+                }
+            }
+        }
     }
 
     /**
@@ -371,6 +856,7 @@ public class GameModel {
         for (Actor a : actors) {
             a.reset();
         }
+        invalidateEvents();
         setState(GameState.READY);
     }
 
@@ -380,7 +866,17 @@ public class GameModel {
     public void useLife() {
         int oldLives = numLives;
         numLives -= 1;
-        propSupport.firePropertyChange("lives", oldLives, numLives);
+        if (listeners.containsKey("lives")) {
+            firePropertyChange("lives", oldLives, numLives);
+        }
+        for (GameListener listener : immediateListeners) {
+            listener.livesChanged(oldLives, numLives);
+        }
+        if (!holdingUpdates) {
+            for (GameListener listener : coalescedListeners) {
+                listener.livesChanged(oldLives, numLives);
+            }
+        }
     }
 
     /**
@@ -396,7 +892,8 @@ public class GameModel {
             resetActors();
         } else {
             setState(GameState.DEFEAT);
-            propSupport.firePropertyChange("game_result", null, GameState.DEFEAT);
+            firePropertyChange("game_result", null, GameState.DEFEAT);
+            notifyGameEnded(GameState.DEFEAT);
         }
     }
 
@@ -407,7 +904,35 @@ public class GameModel {
     private void victory() {
         assert state == GameState.PLAYING;
         setState(GameState.VICTORY);
-        propSupport.firePropertyChange("game_result", null, GameState.VICTORY);
+        firePropertyChange("game_result", null, GameState.VICTORY);
+        notifyGameEnded(GameState.VICTORY);
+    }
+
+    /**
+     * Handle a game that has exceeded the limits of its watchdog.  Transition to the ABORTED state
+     * and notify "game_result" observers.
+     */
+    private void abort() {
+        assert state == GameState.PLAYING;
+        setState(GameState.ABORTED);
+        firePropertyChange("game_result", null, GameState.ABORTED);
+        notifyGameEnded(GameState.ABORTED);
+    }
+
+    /**
+     * Notify typed listeners that the game has ended with `result`.
+     */
+    private void notifyGameEnded(GameState result) {
+        for (GameListener listener : immediateListeners) {
+            listener.gameEnded(result);
+        }
+        if (holdingUpdates) {
+            updateResult = result;
+        } else {
+            for (GameListener listener : coalescedListeners) {
+                listener.gameEnded(result);
+            }
+        }
     }
 
     /* ****************************************************************
@@ -418,8 +943,11 @@ public class GameModel {
      * Register `listener` to be notified whenever the property named `propertyName` of this model
      * is changed.
      */
-    public void addPropertyChangeListener(String propertyName, PropertyChangeListener listener) {
-        propSupport.addPropertyChangeListener(propertyName, listener);
+    public void addPropertyChangeListener(String propertyName, ModelListener listener) {
+        ModelListener[] old = listeners.getOrDefault(propertyName, new ModelListener[0]);
+        ModelListener[] updated = Arrays.copyOf(old, old.length + 1);
+        updated[old.length] = listener;
+        listeners.put(propertyName, updated);
     }
 
     /**
@@ -427,8 +955,90 @@ public class GameModel {
      * (assuming it was added no more than once).  Does not affect listeners who were not registered
      * with `propertyName`.
      */
-    public void removePropertyChangeListener(String propertyName, PropertyChangeListener listener) {
-        propSupport.removePropertyChangeListener(propertyName, listener);
+    public void removePropertyChangeListener(String propertyName, ModelListener listener) {
+        ModelListener[] old = listeners.get(propertyName);
+        if (old == null) {
+            return;
+        }
+        for (int i = 0; i < old.length; i++) {
+            if (old[i] == listener) {
+                if (old.length == 1) {
+                    listeners.remove(propertyName);
+                } else {
+                    ModelListener[] updated = new ModelListener[old.length - 1];
+                    System.arraycopy(old, 0, updated, 0, i);
+                    System.arraycopy(old, i + 1, updated, i, old.length - i - 1);
+                    listeners.put(propertyName, updated);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Register `listener` to be notified of changes to this model through its typed callbacks.  If
+     * `coalesced` is true, changes made during a call to `updateActors()` are summarized once at
+     * the end of that call (see `GameListener`); otherwise, each change is delivered as it happens.
+     * Listeners are notified in the order they were registered.
+     */
+    public void addGameListener(GameListener listener, boolean coalesced) {
+        if (coalesced) {
+            coalescedListeners = withListener(coalescedListeners, listener);
+        } else {
+            immediateListeners = withListener(immediateListeners, listener);
+        }
+    }
+
+    /**
+     * Stop notifying `listener` through its typed callbacks (assuming it was added no more than
+     * once).
+     */
+    public void removeGameListener(GameListener listener) {
+        immediateListeners = withoutListener(immediateListeners, listener);
+        coalescedListeners = withoutListener(coalescedListeners, listener);
+    }
+
+    /**
+     * Return a copy of `registered` with `listener` appended.
+     */
+    private static GameListener[] withListener(GameListener[] registered, GameListener listener) {
+        GameListener[] updated = Arrays.copyOf(registered, registered.length + 1);
+        updated[registered.length] = listener;
+        return updated;
+    }
+
+    /**
+     * Return a copy of `registered` without the first occurrence of `listener`, or `registered`
+     * itself if it does not contain `listener`.
+     */
+    private static GameListener[] withoutListener(GameListener[] registered,
+            GameListener listener) {
+        for (int i = 0; i < registered.length; i++) {
+            if (registered[i] == listener) {
+                GameListener[] updated = new GameListener[registered.length - 1];
+                System.arraycopy(registered, 0, updated, 0, i);
+                System.arraycopy(registered, i + 1, updated, i, registered.length - i - 1);
+                return updated;
+            }
+        }
+        return registered;
+    }
+
+    /**
+     * Notify the listeners of the property named `propertyName` that it has changed from
+     * `oldValue` to `newValue`, in the order they were registered.  As with
+     * `java.beans.PropertyChangeSupport`, nothing is fired if the values are equal and non-null.
+     */
+    private void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
+        if (oldValue != null && oldValue.equals(newValue)) {
+            return;
+        }
+        ModelListener[] registered = listeners.get(propertyName);
+        if (registered != null) {
+            for (ModelListener listener : registered) {
+                listener.propertyChanged(propertyName, oldValue, newValue);
+            }
+        }
     }
 
     /* ****************************************************************
@@ -461,6 +1071,7 @@ public class GameModel {
             numGhostsCaught += 1;
             addToScore((int) (100 * Math.pow(2, numGhostsCaught)));
             g.respawn();
+            invalidateEvents();
         } else if (g.state() == GhostState.CHASE) {
             throw new PacMannCaught();
         }
@@ -474,13 +1085,24 @@ public class GameModel {
      * has concluded.
      */
     public void updateActors(double totalDt) {
+        // Headless games with no coalesced listeners skip the bookkeeping entirely
+        holdingUpdates = coalescedListeners.length > 0;
+        if (holdingUpdates) {
+            scoreBeforeUpdate = score;
+            livesBeforeUpdate = numLives;
+            stateBeforeUpdate = state;
+            updateResult = null;
+        }
+
         if (state == GameState.READY) {
             setState(GameState.PLAYING);
         }
 
+        int steps = 0;
         try {
             double t = 0;
             while (t < totalDt) {
+                steps += 1;
                 navAndGuide();
                 double dt = nextDt(totalDt - t);
 //                System.err.println("Stepping " + dt + " from " + t + " (goal: " + ms + ")");
@@ -488,38 +1110,62 @@ public class GameModel {
                 // Propagate actors
                 t += dt;
                 time += dt;
-                for (Actor a : actors) {
-                    a.propagate(dt);
-                }
+                ParallelPhase.run(phasePool, 0, actors.size(), k -> actors.get(k).propagate(dt));
 
                 // Check for collisions
-                for (int i = 0; i < actors.size(); i += 1) {
-                    Actor a = actors.get(i);
-                    for (int j = i + 1; j < actors.size(); j += 1) {
-                        Actor b = actors.get(j);
-                        if (a.location().collidesWith(b.location())) {
-                            processCollision(a, b);
-                        }
-                    }
-                }
+                resolveCollisions();
 
                 // Vertex events
-                for (Actor a : actors) {
-                    if (a.location().progress() == 1) {
-                        a.visitVertex(a.location().edge().dst());
+                for (int k = 0; k < actors.size(); k++) {
+                    if (actorStore.progress(k) == 1) {
+                        actors.get(k).visitVertex(actorStore.edge(k).dst());
                     }
                 }
                 // Check for end game condition
-                if (items.isEmpty()) {
+                if (itemsRemaining == 0) {
                     victory();
                     break;
                 }
+                if (watchdog != null && watchdog.check(this)) {
+                    abort();
+                    break;
+                }
             }
         } catch (PacMannCaught e) {
             defeat();
         }
+        recordSubSteps(steps);
 
-        propSupport.firePropertyChange("board_state", null, null);
+        firePropertyChange("board_state", null, null);
+        for (GameListener listener : immediateListeners) {
+            listener.boardUpdated();
+        }
+        if (holdingUpdates) {
+            holdingUpdates = false;
+            notifyUpdateSummary();
+        }
+    }
+
+    /**
+     * Notify coalesced listeners of the net changes made by the call to `updateActors()` that just
+     * ended, followed by the end of the update.
+     */
+    private void notifyUpdateSummary() {
+        for (GameListener listener : coalescedListeners) {
+            if (score != scoreBeforeUpdate) {
+                listener.scoreChanged(scoreBeforeUpdate, score);
+            }
+            if (numLives != livesBeforeUpdate) {
+                listener.livesChanged(livesBeforeUpdate, numLives);
+            }
+            if (state != stateBeforeUpdate) {
+                listener.stateChanged(stateBeforeUpdate, state);
+            }
+            if (updateResult != null) {
+                listener.gameEnded(updateResult);
+            }
+            listener.boardUpdated();
+        }
     }
 
     /**
@@ -527,137 +1173,342 @@ public class GameModel {
      * next.  Enforces that their next edge starts at their current location.
      */
     private void navAndGuide() {
-        for (Actor a : actors) {
-            if (a.location().atVertex()) {
-                MazeVertex start = a.location().nearestVertex();
-                MazeEdge e = a.nextEdge();
-                if (e != null) {
-                    if (!e.src().equals(start)) {
-                        throw new RuntimeException("Illegal next edge");
-                    }
-                    a.traverseEdge(e);
+        if (phasePool == null) {
+            for (int k = 0; k < actors.size(); k++) {
+                Actor a = actors.get(k);
+                if (a.atVertex()) {
+                    guide(a, a.nextEdge());
                 }
             }
+            return;
+        }
+
+        // PacMann may choose its edge based on where the ghosts are, so it goes first, as in a
+        // serial step.  The ghosts' targets only depend on other actors' nearest vertices, which
+        // do not change when an actor standing on a vertex starts along an edge, so the ghosts
+        // can choose their edges concurrently and then start along them in order.
+        Actor pacMann = actors.getFirst();
+        if (pacMann.atVertex()) {
+            guide(pacMann, pacMann.nextEdge());
+        }
+        ParallelPhase.run(phasePool, 1, actors.size(), k -> {
+            Actor a = actors.get(k);
+            plannedEdges[k] = a.atVertex() ? a.nextEdge() : null;
+        });
+        for (int k = 1; k < actors.size(); k++) {
+            if (plannedEdges[k] != null) {
+                guide(actors.get(k), plannedEdges[k]);
+                plannedEdges[k] = null;
+            }
+        }
+    }
+
+    /**
+     * Start `actor`, which is standing on a vertex, along its chosen next edge `e`, unless `e` is
+     * null.  Enforces that `e` starts at the actor's current location.
+     */
+    private void guide(Actor actor, MazeEdge e) {
+        if (e != null) {
+            if (!e.src().equals(actor.nearestVertex())) {
+                throw new RuntimeException("Illegal next edge");
+            }
+            actor.traverseEdge(e);
         }
     }
 
+    /**
+     * Choose whether each step of `updateActors()` runs its phases in parallel on `pool`.  Each
+     * step plans the actors' next edges, propagates them, then resolves collisions and vertex
+     * visits; when `pool` is not null, the first two phases are spread across its workers (for
+     * games with enough actors to benefit), with a barrier after each.  Collisions and visits,
+     * which change the score and the remaining items, are always resolved serially in the order
+     * of the actors, so seeded games are identical to those played serially.  A null `pool`
+     * (the default) runs every phase serially.
+     */
+    public void setPhaseParallel(ForkJoinPool pool) {
+        phasePool = pool;
+    }
+
+    /**
+     * Return whether the phases of each step may run in parallel (see `setPhaseParallel()`).
+     */
+    public boolean isPhaseParallel() {
+        return phasePool != null;
+    }
+
     /**
      * Return the largest timestep that the engine can propagate the actors by, up to `maxDt`.
      * Timestep is constrained by actor vertex arrivals, actor state changes, and actor collisions.
      * A minimum timestep is imposed to ensure forward progress.
      */
     private double nextDt(double maxDt) {
-        double minDt = maxDt;
-        for (Actor a : actors) {
-            minDt = Math.min(minDt, a.maxPropagationTime());
+        double minDt;
+        if (scheduler != null) {
+            syncOccupancy();
+            minDt = scheduler.timeToNextEvent(time, maxDt, coalescing);
+            assert minDt == polledDt(maxDt) : "Event schedule diverged from polling";
+        } else {
+            minDt = polledDt(maxDt);
         }
-        minDt = Math.min(minDt, nextCollisionTime());
         final double minAllowedDt = 1e-7;
         return Math.max(minDt, minAllowedDt);
     }
 
     /**
-     * Return the earliest timestep at which two actors will collide, given their current
-     * trajectories.  Actors may cross each other along an edge or may meet at a vertex. Returns
-     * POSITIVE_INFINITY if no actors will collide along their current edge trajectories.
+     * Return the time until the next event, up to `maxDt`, by polling every actor and every pair
+     * of actors on the same edge.  If events are coalesced, this is extended to the latest vertex
+     * arrival or state change within `coalescing` of the next event, but never past `maxDt` or the
+     * next collision, which could otherwise be missed.
      */
-    private double nextCollisionTime() {
-        double minDt = Double.POSITIVE_INFINITY;
-
-        // The current location and velocity of each actor, associated with the _undirected_ edge
-        //  they are currently traversing.
-        Map<UnorderedPair<MazeVertex>, List<Trajectory>> movements = new HashMap<>();
-
-        for (Actor a : actors) {
-            // Determine the unordered edge that `a` is currently traversing, and query any
-            //  previously seen actors traversing that same edge (in either direction)
-            MazeEdge e = a.location().edge();
-            UnorderedPair<MazeVertex> ue = new UnorderedPair<>(e.src(), e.dst());
-            List<Trajectory> edgemates = movements.computeIfAbsent(ue,
-                    k -> new LinkedList<>());
-
-            // Compute the intersection time between this actor and any already-seen actor
-            //  traversing the same edge
-            var myAm = Trajectory.fromActor(a);
-            for (Trajectory am : edgemates) {
-                // Don't trigger if starting from the same place
-//                if (myAm.p() == am.p()) { continue; }
-                double s = (myAm.p() - am.p()) / (am.v() - myAm.v());
-                // Note: inequality skips NaNs
-                if (s > 0 && s < minDt) {
-                    minDt = s;
+    private double polledDt(double maxDt) {
+        double minDt = maxDt;
+        for (int k = 0; k < actors.size(); k++) {
+            minDt = Math.min(minDt, actors.get(k).maxPropagationTime());
+        }
+        double collisionDt = nextCollisionTime();
+        minDt = Math.min(minDt, collisionDt);
+        if (coalescing > 0) {
+            double limit = Math.min(Math.min(minDt + coalescing, maxDt), collisionDt);
+            for (int k = 0; k < actors.size(); k++) {
+                double t = actors.get(k).maxPropagationTime();
+                if (t <= limit && t > minDt) {
+                    minDt = t;
                 }
             }
-
-            // Add our trajectory to the map, to be seen by subsequent actors
-            edgemates.add(myAm);
         }
         return minDt;
     }
 
     /**
-     * The position and velocity of an actor on an associated _undirected_ edge.  RIGHT and DOWN are
-     * considered the "positive" directions.
+     * Process all events (vertex arrivals and ghost state changes) that occur within `epsilon` ms
+     * of each other in a single step, rather than in a burst of tiny steps.  Actors that arrive at
+     * a vertex early wait there for the rest of the step, so coalescing changes the course of a
+     * game slightly; collisions are never coalesced.  `epsilon` is 0 (no coalescing) by default.
+     * Requires `epsilon >= 0`.
      */
-    private record Trajectory(double p, double v) {
-
-        public static Trajectory fromActor(Actor actor) {
-            MazeEdge e = actor.location().edge();
-            if (e.direction() == Direction.RIGHT || e.direction() == Direction.DOWN) {
-                return new Trajectory(actor.location().progress(), actor.edgeSpeed());
-            } else {
-                return new Trajectory(1 - actor.location().progress(), -actor.edgeSpeed());
-            }
+    public void setEventCoalescing(double epsilon) {
+        if (!(epsilon >= 0)) {
+            throw new IllegalArgumentException("Coalescing window must be non-negative");
         }
+        coalescing = epsilon;
     }
 
     /**
-     * Indicates that a collision between PacMann and a CHASING ghost was detected, meaning that the
-     * current round should end.
+     * Return the window within which events are coalesced (see `setEventCoalescing()`).
      */
-    private static class PacMannCaught extends Exception {
+    public double eventCoalescing() {
+        return coalescing;
+    }
+
+    /**
+     * Limit how long this game may run: after every step of `updateActors()`, `watchdog` is
+     * checked, and the game ends in state ABORTED if it has exceeded a limit.  A null `watchdog`
+     * (the default) lets the game run until it is won or lost.
+     */
+    public void setWatchdog(GameWatchdog watchdog) {
+        this.watchdog = watchdog;
+    }
+
+    /**
+     * Return the watchdog limiting this game, or null if it is not limited.
+     */
+    public GameWatchdog watchdog() {
+        return watchdog;
+    }
+
+    /**
+     * Record that a call to `updateActors()` took `steps` steps.
+     */
+    private void recordSubSteps(int steps) {
+        lastSubSteps = steps;
+        maxSubSteps = Math.max(maxSubSteps, steps);
+        totalSubSteps += steps;
+        subStepHistogram[Integer.SIZE - Integer.numberOfLeadingZeros(steps)] += 1;
+    }
+
+    /**
+     * Return the number of steps taken by the most recent call to `updateActors()`.
+     */
+    public int lastSubSteps() {
+        return lastSubSteps;
+    }
 
+    /**
+     * Return the largest number of steps taken by any call to `updateActors()`.
+     */
+    public int maxSubSteps() {
+        return maxSubSteps;
     }
 
     /**
-     * An unordered pair of values of type `T`.  Equality and hash code are independent of the order
-     * of constructor parameters or fields.
+     * Return the total number of steps taken by all calls to `updateActors()`.
      */
-    private static final class UnorderedPair<T> {
+    public long totalSubSteps() {
+        return totalSubSteps;
+    }
 
-        // elem1.hashCode() <= elem2.hashCode()
-        private final T elem1;
-        private final T elem2;
+    /**
+     * Return a histogram of the number of steps taken by each call to `updateActors()`.  Element
+     * `b` counts the calls that took between `2^(b-1)` and `2^b - 1` steps (element 0 counts calls
+     * that took none).
+     */
+    public long[] subStepHistogram() {
+        return subStepHistogram.clone();
+    }
 
-        public UnorderedPair(T a, T b) {
-            // Impose a preferred ordering to make toString more consistent
-            if (a.hashCode() <= b.hashCode()) {
-                elem1 = a;
-                elem2 = b;
-            } else {
-                elem1 = b;
-                elem2 = a;
+    /**
+     * Choose how `updateActors()` finds the time of the next event.  When `eventDriven` is true,
+     * predicted event times are kept in a priority queue and only actors whose motion has changed
+     * are predicted again after each step; otherwise, every actor is polled at every step.  Both
+     * produce identical games.
+     */
+    public void setEventDriven(boolean eventDriven) {
+        scheduler = eventDriven ? new EventScheduler(actors, occupancy, meetings) : null;
+    }
+
+    /**
+     * Return whether this game predicts events with a priority queue (see `setEventDriven()`).
+     */
+    public boolean isEventDriven() {
+        return scheduler != null;
+    }
+
+    /**
+     * Require all scheduled events to be predicted again, if this game is event-driven.  Called
+     * whenever actors' timers or states change outside of their motion.
+     */
+    private void invalidateEvents() {
+        if (scheduler != null) {
+            scheduler.invalidateAll();
+        }
+    }
+
+    /**
+     * Update `occupancy` for every actor whose edge has changed since it was last synchronized.
+     * Actors change edges when they start traversing a new edge, turn around, or respawn, so
+     * comparing edges by identity catches every move.
+     */
+    private void syncOccupancy() {
+        for (int k = 0; k < actors.size(); k++) {
+            MazeEdge e = actorStore.edge(k);
+            if (e != occupiedEdges[k]) {
+                occupancy.place(k, actorStore.edgeId(k));
+                occupiedEdges[k] = e;
             }
         }
+    }
 
-        @Override
-        public boolean equals(Object other) {
-            if (other instanceof UnorderedPair<?> op) {
-                // Still need to check both orderings in case of hash collisions
-                return elem1.equals(op.elem1) && elem2.equals(op.elem2) ||
-                        elem1.equals(op.elem2) && elem2.equals(op.elem1);
+    /**
+     * Process every collision between PacMann and a ghost, in order of the ghosts' positions in
+     * `actors`.  Ghost-ghost collisions are ignored, so only the actors sharing an undirected edge
+     * with PacMann (or, if PacMann is standing on a vertex, an edge incident to that vertex) need
+     * to be checked.  Allocates no objects.
+     */
+    void resolveCollisions() throws PacMannCaught {
+        syncOccupancy();
+        Actor pacMann = actors.get(0);
+
+        // Gather the candidates, then sort them so that collisions are processed in a fixed order
+        int edgeId = actorStore.edgeId(0);
+        int count = gatherOccupants(edgeId, 0);
+        if (pacMann.atVertex()) {
+            MazeVertex v = pacMann.nearestVertex();
+            for (Direction d : DIRECTIONS) {
+                MazeEdge e = v.edgeInDirection(d);
+                // PacMann's own edge is incident to `v` too, but has been gathered already
+                if (e != null && EdgeOccupancy.undirectedId(e) != edgeId) {
+                    count = gatherOccupants(EdgeOccupancy.undirectedId(e), count);
+                }
             }
-            return false;
         }
+        Arrays.sort(collisionCandidates, 0, count);
 
-        @Override
-        public int hashCode() {
-            return elem1.hashCode() ^ elem2.hashCode();
+        for (int c = 0; c < count; c++) {
+            int k = collisionCandidates[c];
+            if (k == 0) {
+                continue;
+            }
+            Actor other = actors.get(k);
+            if (pacMann.collidesWith(other)) {
+                processCollision(pacMann, other);
+            }
         }
+    }
 
-        @Override
-        public String toString() {
-            return "{" + elem1 + "," + elem2 + "}";
+    /**
+     * Append the actors occupying undirected edge `edgeId` to `collisionCandidates`, starting at
+     * index `count`, and return the new number of candidates.  Since each actor occupies a single
+     * edge, gathering distinct edges never gathers an actor twice.
+     */
+    private int gatherOccupants(int edgeId, int count) {
+        for (int k = occupancy.first(edgeId); k >= 0; k = occupancy.next(k)) {
+            collisionCandidates[count] = k;
+            count += 1;
         }
+        return count;
+    }
+
+    /**
+     * Return the earliest timestep at which two actors will collide, given their current
+     * trajectories.  Actors may cross each other along an edge or may meet at a vertex. Returns
+     * POSITIVE_INFINITY if no actors will collide along their current edge trajectories.  Only
+     * pairs of actors on the same undirected edge are considered, so this takes time close to
+     * linear in the number of actors (see `MeetingFinder`).  Allocates no objects.
+     */
+    double nextCollisionTime() {
+        syncOccupancy();
+        double minDt = Double.POSITIVE_INFINITY;
+        for (int k = 0; k < actors.size(); k++) {
+            // Search each occupied undirected edge once, when visiting the first actor on it
+            if (occupancy.isFirst(k)) {
+                minDt = Math.min(minDt, meetings.earliestMeeting(occupancy.edgeOf(k)));
+            }
+        }
+        return minDt;
+    }
+
+    /**
+     * Return the time until actors `a` and `b`, which are on the same undirected edge, would meet
+     * if both kept moving at their current speeds.  The result is negative if they are moving
+     * apart, infinite if they are moving in parallel, and NaN if they are moving in parallel at the
+     * same position.
+     */
+    static double meetingTime(Actor a, Actor b) {
+        // Positions and velocities are measured along the edge's "positive" direction (RIGHT or
+        // DOWN)
+        return (positiveProgress(b) - positiveProgress(a)) / (positiveSpeed(a) - positiveSpeed(b));
+    }
+
+    /**
+     * Return whether `actor` is traversing its edge in a "positive" direction (RIGHT or DOWN).
+     */
+    static boolean movingPositively(Actor actor) {
+        Direction d = actor.currentEdge().direction();
+        return d == Direction.RIGHT || d == Direction.DOWN;
+    }
+
+    /**
+     * Return the position of `actor` along its undirected edge, measured from the end that the
+     * "positive" directions (RIGHT and DOWN) start from.
+     */
+    static double positiveProgress(Actor actor) {
+        double p = actor.progress();
+        return movingPositively(actor) ? p : 1 - p;
+    }
+
+    /**
+     * Return the velocity of `actor` along its undirected edge, which is positive if it is moving
+     * RIGHT or DOWN.
+     */
+    static double positiveSpeed(Actor actor) {
+        return movingPositively(actor) ? actor.edgeSpeed() : -actor.edgeSpeed();
+    }
+
+    /**
+     * Indicates that a collision between PacMann and a CHASING ghost was detected, meaning that the
+     * current round should end.
+     */
+    private static class PacMannCaught extends Exception {
+
     }
 }
@@ -0,0 +1,166 @@
+package model;
+
+import java.util.HashMap;
+import java.util.Map;
+import util.Randomness;
+
+/**
+ * Limits on how long a game may run, so that a game that never ends (for example, because its
+ * PacMann stands still where no ghost can reach it) cannot hang the program playing it.  Once
+ * installed with `GameModel.setWatchdog()`, the watchdog is checked after every step of
+ * `GameModel.updateActors()`, and the game is aborted (ending in state `ABORTED`) as soon as it
+ * exceeds a limit on its game time, its number of sub-steps, or the wall-clock time spent playing
+ * it, or as soon as it is found to be stalled.
+ * <p>
+ * A game is stalled when it keeps returning to the same state without making progress.  Every
+ * `SNAPSHOT_INTERVAL` sub-steps, the watchdog hashes a snapshot of the state that decides how a
+ * game unfolds (the score, lives, remaining items, and every actor's edge, progress, and ghost
+ * state, but not the time).  Snapshots are forgotten whenever the score or lives change, so a
+ * snapshot hash that is seen `STALL_REPEATS` times means the game has cycled through the same
+ * positions without eating anything.  Hidden state, such as ghosts' timers and random number
+ * generators, is not hashed, so a game that is about to break out of such a cycle may be
+ * reported as stalled; these games rarely finish anyway.
+ * <p>
+ * A watchdog describes one game; a new one must be installed for each game.
+ */
+public class GameWatchdog {
+
+    /**
+     * The reasons for aborting a game.
+     */
+    public enum Verdict {TIME_LIMIT, STEP_LIMIT, WALL_CLOCK_LIMIT, STALLED}
+
+    /**
+     * The number of sub-steps between snapshots.
+     */
+    static final int SNAPSHOT_INTERVAL = 256;
+
+    /**
+     * The number of times a snapshot must be seen for the game to be considered stalled.
+     */
+    static final int STALL_REPEATS = 3;
+
+    /**
+     * The number of snapshots remembered; older snapshots are forgotten, so only cycles shorter
+     * than `MAX_SNAPSHOTS * SNAPSHOT_INTERVAL` sub-steps are detected.
+     */
+    static final int MAX_SNAPSHOTS = 4096;
+
+    /**
+     * The number of sub-steps between readings of the wall clock.
+     */
+    private static final int CLOCK_INTERVAL = 64;
+
+    /**
+     * The limits on game time [ms], sub-steps, and wall-clock time [ns], and whether stalled games
+     * are detected.
+     */
+    private final double maxTime;
+    private final long maxSubSteps;
+    private final long maxNanos;
+    private final boolean detectStalls;
+
+    /**
+     * The number of sub-steps checked, and the wall-clock time of the first check [ns].
+     */
+    private long subSteps;
+    private long startNanos;
+
+    /**
+     * The number of times each snapshot hash has been seen since the game last made progress, and
+     * the score and lives at the time.
+     */
+    private final Map<Long, Integer> snapshots = new HashMap<>();
+    private int lastScore = -1;
+    private int lastLives = -1;
+
+    /**
+     * Why the game was aborted, or null if it has not exceeded any limit.
+     */
+    private Verdict verdict;
+
+    /**
+     * Create a watchdog that aborts a game after `maxTime` ms of game time, `maxSubSteps`
+     * sub-steps, or `maxMillis` ms of wall-clock time, and, if `detectStalls` is true, when the
+     * game is stalled.  Limits may be infinite (`Long.MAX_VALUE` for sub-steps).  Requires all
+     * limits to be positive.
+     */
+    public GameWatchdog(double maxTime, long maxSubSteps, double maxMillis,
+            boolean detectStalls) {
+        if (!(maxTime > 0) || maxSubSteps <= 0 || !(maxMillis > 0)) {
+            throw new IllegalArgumentException("Game limits must be positive");
+        }
+        this.maxTime = maxTime;
+        this.maxSubSteps = maxSubSteps;
+        maxNanos = (maxMillis >= Long.MAX_VALUE / 1e6) ? Long.MAX_VALUE : (long) (maxMillis * 1e6);
+        this.detectStalls = detectStalls;
+    }
+
+    /**
+     * Return why the game was aborted, or null if it has not been.
+     */
+    public Verdict verdict() {
+        return verdict;
+    }
+
+    /**
+     * Return the number of sub-steps checked.
+     */
+    public long subSteps() {
+        return subSteps;
+    }
+
+    /**
+     * Account for a sub-step of `model` that has just been taken, and return whether the game must
+     * be aborted.
+     */
+    boolean check(GameModel model) {
+        if (subSteps == 0) {
+            startNanos = System.nanoTime();
+        }
+        subSteps += 1;
+        if (model.time() > maxTime) {
+            verdict = Verdict.TIME_LIMIT;
+        } else if (subSteps > maxSubSteps) {
+            verdict = Verdict.STEP_LIMIT;
+        } else if (subSteps % CLOCK_INTERVAL == 0 && maxNanos != Long.MAX_VALUE
+                && System.nanoTime() - startNanos > maxNanos) {
+            verdict = Verdict.WALL_CLOCK_LIMIT;
+        } else if (detectStalls && subSteps % SNAPSHOT_INTERVAL == 0 && isStalled(model)) {
+            verdict = Verdict.STALLED;
+        }
+        return verdict != null;
+    }
+
+    /**
+     * Take a snapshot of `model` and return whether it has been seen `STALL_REPEATS` times since
+     * the game last made progress.
+     */
+    private boolean isStalled(GameModel model) {
+        if (model.score() != lastScore || model.numLives() != lastLives
+                || snapshots.size() >= MAX_SNAPSHOTS) {
+            snapshots.clear();
+            lastScore = model.score();
+            lastLives = model.numLives();
+        }
+        return snapshots.merge(snapshotHash(model), 1, Integer::sum) >= STALL_REPEATS;
+    }
+
+    /**
+     * Return a hash of the state of `model` that decides how it unfolds, apart from its time and
+     * hidden state such as timers.
+     */
+    static long snapshotHash(GameModel model) {
+        ActorStore store = model.actorStore();
+        long hash = Randomness.mix(model.score());
+        hash = Randomness.mix(hash ^ model.numLives());
+        hash = Randomness.mix(hash ^ model.itemsRemaining());
+        for (int k = 0; k < store.size(); k++) {
+            hash = Randomness.mix(hash ^ store.edge(k).src().id());
+            hash = Randomness.mix(hash ^ store.edge(k).dst().id());
+            hash = Randomness.mix(hash ^ Double.doubleToLongBits(store.progress(k)));
+            hash = Randomness.mix(hash ^ store.ghostState(k));
+        }
+        return hash;
+    }
+}
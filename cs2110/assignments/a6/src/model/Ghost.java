@@ -1,12 +1,10 @@
 package model;
 
-import java.awt.Color;
 import java.util.Collections;
 import java.util.List;
 import model.MazeGraph.MazeEdge;
 import model.MazeGraph.IPair;
 import model.MazeGraph.MazeVertex;
-import graph.Pathfinding;
 
 // TODO 13-16: Extend this class by defining (non-abstract) subclasses `Blinky`, `Pinky`, `Inky`,
 //  and `Clyde`, each in separate files "model/<Ghost name>.java", that model these ghosts unique
@@ -14,7 +12,7 @@ import graph.Pathfinding;
 
 /**
  * A ghost in the game. This abstract class models the common behaviors and attributes of all ghosts
- * including their appearance and different behavioral states:
+ * including their different behavioral states (their appearance is left to the user interface):
  * <p>
  * - WAIT: The ghost is not currently present in the maze, its `delay` specifies how long before it
  * enters.
@@ -35,9 +33,9 @@ public abstract class Ghost extends Actor {
     public enum GhostState {WAIT, CHASE, FLEE}
 
     /**
-     * The current behavioral state of this ghost
+     * All ghost states, cached to avoid cloning `GhostState.values()`.
      */
-    protected GhostState state;
+    private static final GhostState[] GHOST_STATES = GhostState.values();
 
     /**
      * The total number of milliseconds before this ghost enters the maze in its CHASE state
@@ -57,26 +55,47 @@ public abstract class Ghost extends Actor {
     protected double fleeTimeRemaining;
 
     /**
-     * The color of this ghost in its CHASE state
+     * The edges comprising the most recently calculated path to this ghosts' `target()` (empty if
+     * the ghost is at its target or no path was found)
      */
-    private final Color ghostColor;
+    private List<MazeEdge> guidancePath;
 
     /**
-     * The edges comprising the most recently calculated path to this ghosts' `target()`
+     * The starting vertex, previous edge, and target of the search that produced `guidancePath`,
+     * and the version of the graph it searched, so that the search is only repeated when one of
+     * them changes.  `plannedFrom` is null if `guidancePath` was not produced by a search.
      */
-    private List<MazeEdge> guidancePath;
+    private MazeVertex plannedFrom;
+    private MazeEdge plannedAfter;
+    private MazeVertex plannedTo;
+    private int plannedVersion;
 
     /**
-     * Construct a ghost associated to the given `model` with specified color and initial delay
+     * Construct a ghost associated to the given `model` with specified initial delay
      */
-    public Ghost(GameModel model, Color ghostColor, int initialDelay) {
+    public Ghost(GameModel model, int initialDelay) {
         super(model);
-        this.ghostColor = ghostColor;
         this.initialDelay = initialDelay;
         guidancePath = List.of(); // initially empty
         reset();
     }
 
+    /**
+     * Construct a copy of `original` associated with `model`, a fork of the original's model.
+     */
+    protected Ghost(GameModel model, Ghost original) {
+        super(model, original);
+        initialDelay = original.initialDelay;
+        waitTimeRemaining = original.waitTimeRemaining;
+        fleeTimeRemaining = original.fleeTimeRemaining;
+        // Paths are immutable, so the memoized plan can be shared
+        guidancePath = original.guidancePath;
+        plannedFrom = original.plannedFrom;
+        plannedAfter = original.plannedAfter;
+        plannedTo = original.plannedTo;
+        plannedVersion = original.plannedVersion;
+    }
+
     /* ****************************************************************
      * Abstract Ghost method                                          *
      **************************************************************** */
@@ -94,14 +113,16 @@ public abstract class Ghost extends Actor {
      * Return the current state of this ghost
      */
     public GhostState state() {
-        return state;
+        return GHOST_STATES[model.actorStore().ghostState(slot)];
     }
 
     /**
-     * Return this ghost's color (for painting)
+     * Transition this ghost to state `newState`, which may change its speed.  The state is kept in
+     * the model's `ActorStore` alongside the ghost's location.
      */
-    public Color color() {
-        return ghostColor;
+    private void setState(GhostState newState) {
+        model.actorStore().setGhostState(slot, (byte) newState.ordinal());
+        speedChanged();
     }
 
     /**
@@ -120,17 +141,28 @@ public abstract class Ghost extends Actor {
 
     /**
      * In their WAIT state, the ghosts move from side to side in their box, otherwise, their
-     * bounding box location is delegated up to `Actor.getBoundingBoxUL`.
+     * bounding box location is delegated up to `Actor.boundingBoxI`.
      */
     @Override
-    public DPair getBoundingBoxUL() {
-        if (state == GhostState.WAIT) {
-            IPair gStartLoc = location.edge().src().loc();
-            double x = gStartLoc.i() + 0.25 + (1.5 * Math.sin(waitTimeRemaining() / 500));
-            double y = gStartLoc.j() + 2.75;
-            return new DPair(x, y);
+    public double boundingBoxI() {
+        if (state() == GhostState.WAIT) {
+            IPair gStartLoc = currentEdge().src().loc();
+            return gStartLoc.i() + 0.25 + (1.5 * Math.sin(waitTimeRemaining() / 500));
+        } else {
+            return super.boundingBoxI();
+        }
+    }
+
+    /**
+     * In their WAIT state, the ghosts stay at a fixed height in their box, otherwise, their
+     * bounding box location is delegated up to `Actor.boundingBoxJ`.
+     */
+    @Override
+    public double boundingBoxJ() {
+        if (state() == GhostState.WAIT) {
+            return currentEdge().src().loc().j() + 2.75;
         } else {
-            return super.getBoundingBoxUL();
+            return super.boundingBoxJ();
         }
     }
 
@@ -147,14 +179,28 @@ public abstract class Ghost extends Actor {
 
     /**
      * Returns the first edge along the shortest path from this ghost's `currentVertex()` to its
-     * `target()`.
+     * `target()`.  The path is only looked up again if its start, previous edge, or target (or
+     * the graph) has changed since the last lookup; this is common while the ghost is waiting in
+     * its box, where it is asked for its next edge on every step.  Paths are shared with other
+     * ghosts through the graph's `PathCache`.
      */
     @Override
     public MazeEdge nextEdge() {
-        MazeEdge prevEdge = (location.progress() == 1) ? location.edge() : null;
-        guidancePath = Pathfinding.shortestNonBacktrackingPath(nearestVertex(), target(),
-                prevEdge);
-        return guidancePath == null || guidancePath.isEmpty() ? null : guidancePath.getFirst();
+        MazeEdge prevEdge = (progress() == 1) ? currentEdge() : null;
+        MazeVertex start = nearestVertex();
+        MazeVertex target = target();
+        int version = model.graph().version();
+        if (start != plannedFrom || prevEdge != plannedAfter || target != plannedTo
+                || version != plannedVersion) {
+            List<MazeEdge> path = model.graph().paths().shortestNonBacktrackingPath(start, target,
+                    prevEdge);
+            guidancePath = (path == null) ? List.of() : path;
+            plannedFrom = start;
+            plannedAfter = prevEdge;
+            plannedTo = target;
+            plannedVersion = version;
+        }
+        return guidancePath.isEmpty() ? null : guidancePath.getFirst();
     }
 
     @Override
@@ -168,16 +214,17 @@ public abstract class Ghost extends Actor {
      */
     @Override
     public void reset() {
-        state = GhostState.WAIT;
+        setState(GhostState.WAIT);
         waitTimeRemaining = initialDelay;
-        location = new Location(model.graph().ghostStartingEdge(), 0);
+        setLocation(model.graph().ghostStartingEdge(), 0);
         guidancePath = List.of();
+        plannedFrom = null;
     }
 
     @Override
     public double baseSpeed() {
         double baseSpeed = 1.0 / 200.0;
-        if (state == GhostState.FLEE) {
+        if (state() == GhostState.FLEE) {
             return 0.5 * baseSpeed;
         }
         return baseSpeed;
@@ -192,11 +239,11 @@ public abstract class Ghost extends Actor {
      * the ghost is in its WAIT state.
      */
     public void startFlee() {
-        if (state != GhostState.WAIT) {
-            state = GhostState.FLEE;
+        if (state() != GhostState.WAIT) {
+            setState(GhostState.FLEE);
             fleeTimeRemaining = 8000;
 
-            location = location.reversed();
+            setLocation(currentEdge().reverse(), 1.0 - progress());
         }
     }
 
@@ -205,11 +252,11 @@ public abstract class Ghost extends Actor {
      * `waitTimeRemaining`. Requires that this ghost is currently in the FLEE state.
      */
     public void respawn() {
-        assert state == GhostState.FLEE;
-        state = GhostState.WAIT;
+        assert state() == GhostState.FLEE;
+        setState(GhostState.WAIT);
         waitTimeRemaining = 3000;
         fleeTimeRemaining = 0;
-        location = new Location(model.graph().ghostStartingEdge(), 0);
+        setLocation(model.graph().ghostStartingEdge(), 0);
     }
 
     /* ****************************************************************
@@ -225,19 +272,19 @@ public abstract class Ghost extends Actor {
      */
     @Override
     public void propagate(double dt) {
-        if (state == GhostState.WAIT) {
+        if (state() == GhostState.WAIT) {
             waitTimeRemaining -= dt;
             if (waitTimeRemaining > 0) {
                 return; // no location update is necessary yet
             }
-            state = GhostState.CHASE;
-            location = new Location(model.graph().ghostStartingEdge(), 0);
+            setState(GhostState.CHASE);
+            setLocation(model.graph().ghostStartingEdge(), 0);
             dt = -1 * waitTimeRemaining;
         }
-        if (state == GhostState.FLEE) {
+        if (state() == GhostState.FLEE) {
             fleeTimeRemaining -= dt;
             if (fleeTimeRemaining <= 0) {
-                state = GhostState.CHASE;
+                setState(GhostState.CHASE);
             }
         }
 
@@ -247,6 +294,7 @@ public abstract class Ghost extends Actor {
     @Override
     public double maxPropagationTime() {
         double ans = super.maxPropagationTime();
+        GhostState state = state();
         if (state == GhostState.WAIT) {
             return Math.min(ans, waitTimeRemaining());
         } else if (state == GhostState.FLEE) {
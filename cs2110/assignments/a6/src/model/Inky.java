@@ -20,7 +20,19 @@ public class Inky extends Ghost {
      * @param model the game model that provides access to the maze, PacMann, and other ghosts.
      */
     public Inky(GameModel model) {
-        super(model, java.awt.Color.CYAN, 6);
+        super(model, 6);
+    }
+
+    /**
+     * Creates a copy of `original` in `model`, a fork of the original's model.
+     */
+    private Inky(GameModel model, Inky original) {
+        super(model, original);
+    }
+
+    @Override
+    public Inky forkFor(GameModel model) {
+        return new Inky(model, this);
     }
 
     /**
@@ -32,7 +44,7 @@ public class Inky extends Ghost {
      */
     @Override
     protected MazeVertex target() {
-        if (state == GhostState.CHASE) {
+        if (state() == GhostState.CHASE) {
             MazeVertex pacVertex = model.pacMann().nearestVertex();
             MazeVertex blinkyVertex = model.blinky().nearestVertex();
 
@@ -0,0 +1,274 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import model.MazeGraph.Direction;
+import util.GameMap;
+import util.MazeGenerator.TileType;
+import util.Randomness;
+
+/**
+ * An on-disk cache of generated mazes, so that replaying a seed does not need to regenerate its
+ * maze, terrain, and graph.  Each entry is a versioned binary file keyed by the maze's size (in
+ * maze cells, as passed to `GameModel.newGame()`) and the seed of the `Randomness` it was generated
+ * from.  Entries are read back through a memory mapping, and corrupt or mismatched files are
+ * detected by their header and CRC-32 checksum and treated as absent.
+ * <p>
+ * File layout (big-endian): a fixed header (see `HEADER_BYTES`) followed by the payload, which
+ * holds one tile type ordinal (byte) per tile, one elevation (double) per tile, and the flattened
+ * graph: the tile index (int) and edge mask (byte) of each vertex, in order of vertex id.  Tiles
+ * are stored column by column.
+ */
+public class MazeCache {
+
+    /**
+     * Identifies a maze cache file ("PMAZ").
+     */
+    private static final int MAGIC = 0x504D415A;
+
+    /**
+     * The version of the file layout; files with any other version are ignored.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Size of the header: magic, version, width, height (ints), seed (long), tiles across, tiles
+     * high, vertex count (ints), and payload checksum (long).
+     */
+    private static final int HEADER_BYTES = 4 * 4 + 8 + 3 * 4 + 8;
+
+    /**
+     * The directory holding this cache's files.
+     */
+    private final Path directory;
+
+    /**
+     * Create a cache storing its entries in `directory`, which will be created when the first entry
+     * is stored if it does not already exist.
+     */
+    public MazeCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * A cached maze: its map along with the flattened form of its graph, which is read directly
+     * from the file's mapping.
+     */
+    record Entry(GameMap map, IntBuffer vertexTiles, ByteBuffer edgeMasks) {
+
+        /**
+         * Return the maze graph described by this entry.
+         */
+        MazeGraph graph() {
+            return new MazeGraph(map, vertexTiles, edgeMasks);
+        }
+    }
+
+    /**
+     * Return the file holding the entry for a `width` x `height` maze generated from `randomness`.
+     */
+    Path fileFor(int width, int height, Randomness randomness) {
+        return directory.resolve("maze-" + width + "x" + height + "-" + randomness.seed() + ".bin");
+    }
+
+    /**
+     * Return the cached entry for a `width` x `height` maze generated from `randomness`, or null if
+     * there is no such entry or its file is unreadable, corrupt, or describes a different maze.
+     */
+    Entry load(int width, int height, Randomness randomness) {
+        Path file = fileFor(width, height, randomness);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                return null;
+            }
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION || buf.getInt() != width
+                    || buf.getInt() != height || buf.getLong() != randomness.seed()) {
+                return null;
+            }
+            int tilesAcross = buf.getInt();
+            int tilesHigh = buf.getInt();
+            int vertexCount = buf.getInt();
+            long checksum = buf.getLong();
+            long tiles = (long) tilesAcross * tilesHigh;
+            if (tilesAcross <= 0 || tilesHigh <= 0 || vertexCount < 0 || vertexCount > tiles
+                    || channel.size() != HEADER_BYTES + payloadBytes(tiles, vertexCount)) {
+                return null;
+            }
+
+            ByteBuffer payload = buf.slice(HEADER_BYTES, buf.limit() - HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if (crc.getValue() != checksum) {
+                return null;
+            }
+            return decode(payload, tilesAcross, tilesHigh, vertexCount);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | IndexOutOfBoundsException e) {
+            // An unreadable entry is no worse than a missing one
+            return null;
+        }
+    }
+
+    /**
+     * Store `graph` (and its map) as the entry for a `width` x `height` maze generated from
+     * `randomness`, replacing any existing entry.  The file is written to a temporary name and then
+     * moved into place, so concurrent readers never observe a partially-written entry.  Storing is
+     * best-effort: if the entry cannot be written (say, because the directory is read-only or
+     * full), the temporary file is deleted and the cache is left as it was.  Return whether the
+     * entry was stored.
+     */
+    boolean store(int width, int height, Randomness randomness, MazeGraph graph) {
+        GameMap map = graph.map();
+        int tilesAcross = map.types().length;
+        int tilesHigh = map.types()[0].length;
+        int[] vertexTiles = graph.vertexTiles();
+        byte[] edgeMasks = graph.edgeMasks();
+
+        ByteBuffer payload = ByteBuffer.allocate(Math.toIntExact(
+                payloadBytes((long) tilesAcross * tilesHigh, vertexTiles.length)));
+        for (TileType[] column : map.types()) {
+            for (TileType type : column) {
+                payload.put((byte) type.ordinal());
+            }
+        }
+        for (double[] column : map.elevations()) {
+            payload.asDoubleBuffer().put(column);
+            payload.position(payload.position() + column.length * Double.BYTES);
+        }
+        payload.asIntBuffer().put(vertexTiles);
+        payload.position(payload.position() + vertexTiles.length * Integer.BYTES);
+        payload.put(edgeMasks);
+        payload.flip();
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height)
+                .putLong(randomness.seed()).putInt(tilesAcross).putInt(tilesHigh)
+                .putInt(vertexTiles.length).putLong(crc.getValue());
+        header.flip();
+
+        Path tmp = null;
+        try {
+            Files.createDirectories(directory);
+            tmp = Files.createTempFile(directory, "maze-", ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                while (header.hasRemaining() || payload.hasRemaining()) {
+                    channel.write(new ByteBuffer[]{header, payload});
+                }
+            }
+            Files.move(tmp, fileFor(width, height, randomness),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            // A missing entry is no worse than the maze not being cached at all
+            return false;
+        } finally {
+            deleteQuietly(tmp);
+        }
+    }
+
+    /**
+     * Delete `file` if it is not null and still exists, ignoring any failure to do so.
+     */
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Nothing more can be done about a temporary file that cannot be deleted
+        }
+    }
+
+    /**
+     * Return the number of payload bytes in an entry with `tiles` tiles and `vertexCount` vertices.
+     */
+    private static long payloadBytes(long tiles, int vertexCount) {
+        return tiles * (1 + Double.BYTES) + (long) vertexCount * (Integer.BYTES + 1);
+    }
+
+    /**
+     * Return the entry held by a `payload` whose size and checksum have been validated, or null if
+     * its graph does not fit its map: a vertex off the grid, on a non-PATH tile, or sharing a tile
+     * with another vertex, or an edge leading to a tile without a vertex.  The map's tiles and
+     * elevations are copied into the arrays of a `GameMap`, while the graph's sections are views of
+     * `payload`.
+     */
+    private static Entry decode(ByteBuffer payload, int tilesAcross, int tilesHigh,
+            int vertexCount) {
+        TileType[] tileTypes = TileType.values();
+        TileType[][] types = new TileType[tilesAcross][tilesHigh];
+        for (TileType[] column : types) {
+            for (int j = 0; j < tilesHigh; j++) {
+                column[j] = tileTypes[payload.get()];
+            }
+        }
+
+        double[][] elevations = new double[tilesAcross][tilesHigh];
+        DoubleBuffer elevationSection = payload.asDoubleBuffer();
+        for (double[] column : elevations) {
+            elevationSection.get(column);
+        }
+        payload.position(payload.position() + tilesAcross * tilesHigh * Double.BYTES);
+
+        IntBuffer vertexTiles = payload.slice(payload.position(), vertexCount * Integer.BYTES)
+                .asIntBuffer();
+        payload.position(payload.position() + vertexCount * Integer.BYTES);
+        ByteBuffer edgeMasks = payload.slice(payload.position(), vertexCount);
+
+        // Every vertex must sit on a distinct PATH tile, and every edge must lead to a vertex
+        int tiles = tilesAcross * tilesHigh;
+        boolean[] isVertex = new boolean[tiles];
+        for (int id = 0; id < vertexCount; id++) {
+            int tile = vertexTiles.get(id);
+            if (tile < 0 || tile >= tiles || isVertex[tile]
+                    || types[tile / tilesHigh][tile % tilesHigh] != TileType.PATH) {
+                return null;
+            }
+            isVertex[tile] = true;
+        }
+        for (int id = 0; id < vertexCount; id++) {
+            int mask = edgeMasks.get(id);
+            if ((mask & ~((1 << Direction.values().length) - 1)) != 0) {
+                return null;
+            }
+            int i = vertexTiles.get(id) / tilesHigh;
+            int j = vertexTiles.get(id) % tilesHigh;
+            for (Direction d : Direction.values()) {
+                if ((mask & (1 << d.ordinal())) != 0
+                        && !isVertex[neighborTile(i, j, d, tilesAcross, tilesHigh)]) {
+                    return null;
+                }
+            }
+        }
+        return new Entry(new GameMap(types, elevations), vertexTiles, edgeMasks);
+    }
+
+    /**
+     * Return the index of the tile adjacent to tile `(i, j)` in direction `d` of a `tilesAcross` x
+     * `tilesHigh` grid, wrapping around its boundaries as `MazeGraph`'s tunnel edges do.
+     */
+    private static int neighborTile(int i, int j, Direction d, int tilesAcross, int tilesHigh) {
+        return switch (d) {
+            case LEFT -> ((i - 1 + tilesAcross) % tilesAcross) * tilesHigh + j;
+            case RIGHT -> ((i + 1) % tilesAcross) * tilesHigh + j;
+            case UP -> i * tilesHigh + (j - 1 + tilesHigh) % tilesHigh;
+            case DOWN -> i * tilesHigh + (j + 1) % tilesHigh;
+        };
+    }
+}
@@ -3,13 +3,21 @@ package model;
 import graph.Edge;
 import graph.Vertex;
 import util.MazeGenerator.TileType;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import util.GameMap;
 
 /**
  * A graph representing a game's maze, connecting the "path" tiles of a tile grid.
  */
-public class MazeGraph {
+public final class MazeGraph {
 
     /* ****************************************************************
      * Helper types (defined here as nested types to avoid writing    *
@@ -51,6 +59,11 @@ public class MazeGraph {
      */
     public static class MazeVertex implements Vertex<MazeEdge> {
 
+        /**
+         * The dense index of this vertex within its graph, in `[0..vertexCount())`.
+         */
+        private final int id;
+
         /**
          * The location of this vertex's tile within the tile grid.
          */
@@ -63,9 +76,10 @@ public class MazeGraph {
 
 
         /**
-         * Construct a new vertex at location `loc` with no outgoing edges.
+         * Construct a new vertex with id `id` at location `loc` with no outgoing edges.
          */
-        public MazeVertex(IPair loc) {
+        MazeVertex(int id, IPair loc) {
+            this.id = id;
             this.loc = loc;
             edgeMap = new HashMap<>();
         }
@@ -79,6 +93,13 @@ public class MazeGraph {
             return edgeMap.get(direction);
         }
 
+        /**
+         * Return this vertex's dense index within its graph.
+         */
+        public int id() {
+            return id;
+        }
+
         /**
          * Return the coordinates of this vertex's tile in the tile grid.
          */
@@ -102,6 +123,15 @@ public class MazeGraph {
             assert !edgeMap.containsKey(edge.direction());
             edgeMap.put(edge.direction(), edge);
         }
+
+        /**
+         * Remove and return the outgoing edge from this vertex in direction `direction`, or return
+         * null if there is no such edge.  Only meant to be called when changing a `MazeGraph`'s
+         * tiles.
+         */
+        MazeEdge removeOutgoingEdge(Direction direction) {
+            return edgeMap.remove(direction);
+        }
     }
 
     /**
@@ -120,15 +150,62 @@ public class MazeGraph {
         }
     }
 
+    /**
+     * Observes changes to the tiles of a `MazeGraph`.  Structures derived from a graph (such as
+     * caches of paths or distances) register as listeners so that they can invalidate just the
+     * parts of themselves affected by a change, rather than being rebuilt.
+     */
+    public interface ChangeListener {
+
+        /**
+         * Called after the tile at `loc` changed to type `type`.  `removed` contains every edge
+         * that was removed from the graph (in both directions, including tunnel edges) and `added`
+         * contains every edge that was added.  When a PATH tile becomes a WALL, its vertex is no
+         * longer part of the graph; when a WALL becomes a PATH, its new vertex is
+         * `graph.vertexAt(loc.i(), loc.j())`.
+         */
+        void tileChanged(MazeGraph graph, IPair loc, TileType type, List<MazeEdge> removed,
+                List<MazeEdge> added);
+    }
+
     /* ****************************************************************
      * Fields of MazeGraph                                            *
      **************************************************************** */
 
     /**
-     * The vertices of this graph, each associated with the location of its corresponding path tile
-     * in the tile grid.
+     * The order in which a vertex's outgoing edges are connected during construction.  Bit
+     * `d.ordinal()` of a vertex's "edge mask" is set when it has an outgoing edge in direction `d`.
+     */
+    private static final Direction[] CONNECT_ORDER = {Direction.RIGHT, Direction.LEFT,
+            Direction.DOWN, Direction.UP};
+
+    /**
+     * The map this graph was constructed from.
+     */
+    private final GameMap map;
+
+    /**
+     * The current type of each tile.  Aliases `map.types()` until the first call to `setTile()`,
+     * which copies it so that the map itself is never modified.
      */
-    private final HashMap<IPair, MazeVertex> vertices;
+    private TileType[][] types;
+
+    /**
+     * The vertices of this graph, indexed by their `id()`.  Entries in `[vertexCount..)` are
+     * spare capacity, and the entries of vertices removed by `setTile()` are null.
+     */
+    private MazeVertex[] vertices;
+
+    /**
+     * The number of vertex ids that have been assigned.
+     */
+    private int vertexCount;
+
+    /**
+     * The id of the vertex on each tile of the tile grid (indexed by `tileIndex(i, j)`), or -1 if
+     * that tile is not a path tile.
+     */
+    private final int[] vertexIds;
 
     /**
      * The width of the tile grid defining this maze.
@@ -140,6 +217,34 @@ public class MazeGraph {
      */
     private final int height;
 
+    /**
+     * The id of the vertex returned by `closestTo(i, j)` for each clamped target `(i, j)`, stored
+     * at index `i * (height - 1) + j`, or -1 if there is no such vertex (which only happens on
+     * maps that were not produced by the maze generator).
+     */
+    private final int[] closestIds;
+
+    /**
+     * The number of changes that have been made to this graph's tiles since its construction.
+     */
+    private int version;
+
+    /**
+     * Whether this graph may no longer be changed.  A frozen graph is never modified, so it may be
+     * read by multiple threads once it has been safely published.
+     */
+    private boolean frozen;
+
+    /**
+     * The observers of changes to this graph's tiles.
+     */
+    private final List<ChangeListener> listeners;
+
+    /**
+     * The shortest paths that have been found in this graph.
+     */
+    private final PathCache paths;
+
 
     /**
      * Construct the maze graph corresponding to the tile grid `map`. Requires `map.types()[2][2]`
@@ -148,96 +253,118 @@ public class MazeGraph {
      * index corresponding to columns and the second index corresponding to rows.
      */
     public MazeGraph(GameMap map) {
+        this(map, IntBuffer.wrap(pathTiles(map)), null);
+    }
+
+    /**
+     * Construct the maze graph corresponding to the tile grid `map` from its flattened form (see
+     * `vertexTiles()` and `edgeMasks()`), which may be read directly from a file mapping.  Entry
+     * `k` of `vertexTiles` is the tile index of the vertex with id `k`, and entry `k` of
+     * `edgeMasks` records the directions of its outgoing edges.  If `edgeMasks` is null, the masks
+     * are derived from the tile types of `map`.  Only absolute reads are used, so the buffers are
+     * unchanged.
+     */
+    MazeGraph(GameMap map, IntBuffer vertexTiles, ByteBuffer edgeMasks) {
+        this.map = map;
+        types = map.types();
         width = map.types().length;
         height = map.types()[0].length;
-        vertices = new HashMap<>();
+        listeners = new ArrayList<>();
 
         // Step 1: First create vertices for all PATH tiles
-        for (int i = 0; i < width; i++) {
-            for (int j = 0; j < height; j++) {
-                if (map.types()[i][j] == TileType.PATH) {
-                    IPair loc = new IPair(i, j);
-                    MazeVertex vertex = new MazeVertex(loc);
-                    vertices.put(loc, vertex);
-                }
-            }
+        vertexCount = vertexTiles.limit();
+        vertices = new MazeVertex[vertexCount];
+        vertexIds = new int[width * height];
+        Arrays.fill(vertexIds, -1);
+        for (int id = 0; id < vertexCount; id++) {
+            int tile = vertexTiles.get(id);
+            vertices[id] = new MazeVertex(id, new IPair(tile / height, tile % height));
+            vertexIds[tile] = id;
         }
 
-        // Step 2: Then create edges between adjacent PATH tiles
-        for (int i = 0; i < width; i++) {
-            for (int j = 0; j < height; j++) {
-                if (map.types()[i][j] != TileType.PATH) {
+        // Step 2: Then create edges between adjacent PATH tiles (a neighbor across the grid's
+        // boundary is reached through a wraparound "tunnel" edge)
+        for (MazeVertex curr : vertices) {
+            int mask = edgeMasks == null ? edgeMask(curr.loc()) : edgeMasks.get(curr.id());
+            for (Direction d : CONNECT_ORDER) {
+                if ((mask & (1 << d.ordinal())) == 0) {
                     continue;
                 }
-                MazeVertex curr = vertices.get(new IPair(i, j));
-
-                // RIGHT edge (normal horizontal connection)
-                if (i + 1 < width && map.types()[i + 1][j] == TileType.PATH) {
-                    IPair neighborLoc = new IPair(i + 1, j);
-                    MazeVertex neighbor = vertices.get(neighborLoc);
-                    double weight = edgeWeight(map.elevations()[i][j], map.elevations()[i + 1][j]);
-                    curr.addOutgoingEdge(new MazeEdge(curr, neighbor, Direction.RIGHT, weight));
-                }
-
-                // RIGHT edge (tunnel from rightmost column to leftmost column, wraparound)
-                if (i == width - 1 && map.types()[0][j] == TileType.PATH) {
-                    IPair neighborLoc = new IPair(0, j);
-                    MazeVertex neighbor = vertices.get(neighborLoc);
-                    double weight = edgeWeight(map.elevations()[i][j], map.elevations()[0][j]);
-                    curr.addOutgoingEdge(new MazeEdge(curr, neighbor, Direction.RIGHT, weight));
-                }
+                IPair neighborLoc = neighborLoc(curr.loc(), d);
+                curr.addOutgoingEdge(newEdge(curr, vertexAt(neighborLoc.i(), neighborLoc.j()), d));
+            }
+        }
 
-                // LEFT edge (normal horizontal connection)
-                if (i - 1 >= 0 && map.types()[i - 1][j] == TileType.PATH) {
-                    IPair neighborLoc = new IPair(i - 1, j);
-                    MazeVertex neighbor = vertices.get(neighborLoc);
-                    double weight = edgeWeight(map.elevations()[i][j], map.elevations()[i - 1][j]);
-                    curr.addOutgoingEdge(new MazeEdge(curr, neighbor, Direction.LEFT, weight));
-                }
+        // Step 3: Tabulate `closestTo()` for every target in its clamped range
+        closestIds = new int[Math.max(0, (width - 1) * (height - 1))];
+        updateClosestIds(0, width - 2, 0, height - 2);
 
-                // LEFT edge (tunnel from leftmost column to rightmost column, wraparound)
-                if (i == 0 && map.types()[width - 1][j] == TileType.PATH) {
-                    IPair neighborLoc = new IPair(width - 1, j);
-                    MazeVertex neighbor = vertices.get(neighborLoc);
-                    double weight = edgeWeight(map.elevations()[i][j],
-                            map.elevations()[width - 1][j]);
-                    curr.addOutgoingEdge(new MazeEdge(curr, neighbor, Direction.LEFT, weight));
-                }
+        paths = new PathCache(this);
+    }
 
-                // DOWN edge (normal vertical connection)
-                if (j + 1 < height && map.types()[i][j + 1] == TileType.PATH) {
-                    IPair neighborLoc = new IPair(i, j + 1);
-                    MazeVertex neighbor = vertices.get(neighborLoc);
-                    double weight = edgeWeight(map.elevations()[i][j], map.elevations()[i][j + 1]);
-                    curr.addOutgoingEdge(new MazeEdge(curr, neighbor, Direction.DOWN, weight));
-                }
+    /**
+     * Return a new edge from `src` to its neighbor `dst` in direction `d`, weighted by their
+     * elevations.
+     */
+    private MazeEdge newEdge(MazeVertex src, MazeVertex dst, Direction d) {
+        double weight = edgeWeight(map.elevations()[src.loc().i()][src.loc().j()],
+                map.elevations()[dst.loc().i()][dst.loc().j()]);
+        return new MazeEdge(src, dst, d, weight);
+    }
 
-                // DOWN edge (tunnel from bottommost row to topmost row, wraparound)
-                if (j == height - 1 && map.types()[i][0] == TileType.PATH) {
-                    IPair neighborLoc = new IPair(i, 0);
-                    MazeVertex neighbor = vertices.get(neighborLoc);
-                    double weight = edgeWeight(map.elevations()[i][j], map.elevations()[i][0]);
-                    curr.addOutgoingEdge(new MazeEdge(curr, neighbor, Direction.DOWN, weight));
+    /**
+     * Return the tile indices of the PATH tiles of `map`, in the order in which vertex ids are
+     * assigned (column by column).
+     */
+    private static int[] pathTiles(GameMap map) {
+        int w = map.types().length;
+        int h = map.types()[0].length;
+        int[] tiles = new int[w * h];
+        int count = 0;
+        for (int i = 0; i < w; i++) {
+            for (int j = 0; j < h; j++) {
+                if (map.types()[i][j] == TileType.PATH) {
+                    tiles[count] = i * h + j;
+                    count += 1;
                 }
+            }
+        }
+        return Arrays.copyOf(tiles, count);
+    }
 
-                // UP edge (normal vertical connection)
-                if (j - 1 >= 0 && map.types()[i][j - 1] == TileType.PATH) {
-                    IPair neighborLoc = new IPair(i, j - 1);
-                    MazeVertex neighbor = vertices.get(neighborLoc);
-                    double weight = edgeWeight(map.elevations()[i][j], map.elevations()[i][j - 1]);
-                    curr.addOutgoingEdge(new MazeEdge(curr, neighbor, Direction.UP, weight));
-                }
+    /**
+     * Return the location of the tile adjacent to `loc` in direction `d`, wrapping around the
+     * boundaries of the tile grid.
+     */
+    private IPair neighborLoc(IPair loc, Direction d) {
+        return switch (d) {
+            case LEFT -> new IPair((loc.i() - 1 + width) % width, loc.j());
+            case RIGHT -> new IPair((loc.i() + 1) % width, loc.j());
+            case UP -> new IPair(loc.i(), (loc.j() - 1 + height) % height);
+            case DOWN -> new IPair(loc.i(), (loc.j() + 1) % height);
+        };
+    }
 
-                // UP edge (tunnel from topmost row to bottommost row, wraparound)
-                if (j == 0 && map.types()[i][height - 1] == TileType.PATH) {
-                    IPair neighborLoc = new IPair(i, height - 1);
-                    MazeVertex neighbor = vertices.get(neighborLoc);
-                    double weight = edgeWeight(map.elevations()[i][j],
-                            map.elevations()[i][height - 1]);
-                    curr.addOutgoingEdge(new MazeEdge(curr, neighbor, Direction.UP, weight));
-                }
+    /**
+     * Return the edge mask of the PATH tile at `loc`, determined by which of its (possibly
+     * wrapped-around) neighbors are also PATH tiles.
+     */
+    private int edgeMask(IPair loc) {
+        int mask = 0;
+        for (Direction d : CONNECT_ORDER) {
+            IPair n = neighborLoc(loc, d);
+            if (types[n.i()][n.j()] == TileType.PATH) {
+                mask |= 1 << d.ordinal();
             }
         }
+        return mask;
+    }
+
+    /**
+     * Return the index of tile `(i, j)` in the flattened (column-major) tile grid.
+     */
+    private int tileIndex(int i, int j) {
+        return i * height + j;
     }
 
     /**
@@ -259,55 +386,335 @@ public class MazeGraph {
      * ignored.)
      */
     public MazeVertex closestTo(int i, int j) {
+        int id = closestIdTo(i, j);
+        assert id >= 0;
+        return vertices[id];
+    }
+
+    /**
+     * Return the id of the vertex `closestTo(i, j)`, using a single table lookup.
+     */
+    public int closestIdTo(int i, int j) {
         // clamp i,j within maze bounds
         i = Math.clamp(i, 0, width - 2);
         j = Math.clamp(j, 0, height - 2);
+        return closestIds[i * (height - 1) + j];
+    }
+
+    /**
+     * Recompute the entries of `closestIds` for the clamped targets `(i, j)` with `iMin <= i <=
+     * iMax` and `jMin <= j <= jMax` (these bounds are clamped to the table's range).
+     */
+    private void updateClosestIds(int iMin, int iMax, int jMin, int jMax) {
+        for (int i = Math.max(iMin, 0); i <= Math.min(iMax, width - 2); i++) {
+            for (int j = Math.max(jMin, 0); j <= Math.min(jMax, height - 2); j++) {
+                closestIds[i * (height - 1) + j] = findClosestId(i, j);
+            }
+        }
+    }
 
+    /**
+     * Return the id of a vertex close to the clamped target `(i, j)` by probing the tiles near it
+     * (see `closestTo()`), or -1 if none of those tiles is a path tile.
+     */
+    private int findClosestId(int i, int j) {
         // The maze generator guarantees that tiles with coordinates (3x+2,3y+2) are path tiles.
         // (ip,jp) is the closest such coordinates to (i,j).
         int ip = (((i - 1) / 3) * 3 + 2);
         int jp = (((j - 1) / 3) * 3 + 2);
 
         for (IPair loc : new IPair[]{new IPair(i, j), new IPair(i, jp), new IPair(ip, j),
-                new IPair(ip, jp)}) {
-            if (vertices.containsKey(loc)) {
-                return vertices.get(loc);
+                new IPair(ip, jp), new IPair(ip, jp + 3)}) {
+            // the last probe is only reached if (ip,jp) is inside the ghost box. In this case,
+            // (ip,jp+3) is guaranteed to be a path tile outside the ghost box.
+            if (loc.i() < width && loc.j() < height && vertexAt(loc.i(), loc.j()) != null) {
+                return vertexAt(loc.i(), loc.j()).id();
             }
         }
+        return -1;
+    }
 
-        // the only time we reach here is if (ip,jp) is inside the ghost box. In this case,
-        // (ip,jp+3) is guaranteed to be a path tile outside the ghost box.
-        assert (vertices.get(new IPair(ip, jp + 3)) != null);
-        return vertices.get(new IPair(ip, jp + 3));
+    /**
+     * Return the vertex on tile `(i, j)`, or null if that tile is not a path tile.  Requires
+     * `0 <= i < width` and `0 <= j < height`.
+     */
+    public MazeVertex vertexAt(int i, int j) {
+        int id = vertexIds[tileIndex(i, j)];
+        return id < 0 ? null : vertices[id];
     }
 
     /**
-     * Return the full collection of vertices in this graph.
+     * Return the vertex with id `id`, or null if that vertex has been removed by `setTile()`.
+     * Requires `0 <= id < vertexCount()`.
+     */
+    public MazeVertex vertex(int id) {
+        return vertices[id];
+    }
+
+    /**
+     * Return the number of vertex ids that have been assigned in this graph; vertex ids lie in
+     * `[0..vertexCount())`.  Until `setTile()` is called, this is the number of vertices.
+     */
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Return the full collection of vertices in this graph, in order of increasing id.
      */
     public Iterable<MazeVertex> vertices() {
-        return vertices.values();
+        return () -> new Iterator<>() {
+            private int next = advance(0);
+
+            private int advance(int id) {
+                while (id < vertexCount && vertices[id] == null) {
+                    id += 1;
+                }
+                return id;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < vertexCount;
+            }
+
+            @Override
+            public MazeVertex next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                MazeVertex v = vertices[next];
+                next = advance(next + 1);
+                return v;
+            }
+        };
+    }
+
+    /**
+     * Return the map this graph was constructed from.  Changes made by `setTile()` are not
+     * reflected in the map; see `tileType()`.
+     */
+    public GameMap map() {
+        return map;
     }
 
     /**
-     * Return the first edge that PacMann will traverse at the start of a game.
+     * Return the cache of shortest paths in this graph, which may be shared by all the actors
+     * planning paths in it.
+     */
+    public PathCache paths() {
+        return paths;
+    }
+
+    /**
+     * Return the current type of tile `(i, j)`.
+     */
+    public TileType tileType(int i, int j) {
+        return types[i][j];
+    }
+
+    /**
+     * Return the number of changes that have been made to this graph's tiles since it was
+     * constructed.  Data derived from this graph (e.g., by `DistanceOracle`) describes it only
+     * while its version is unchanged.
+     */
+    public int version() {
+        return version;
+    }
+
+    /**
+     * Prevent any further changes to this graph's tiles, so that it may be shared between games
+     * (see `MazeGraphRegistry`).  Afterwards, `setTile()` throws an IllegalStateException and
+     * change listeners are no longer retained, since they would never be notified.
+     */
+    public void freeze() {
+        frozen = true;
+        listeners.clear();
+    }
+
+    /**
+     * Return whether this graph has been frozen.
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /* ****************************************************************
+     * Changing the maze                                              *
+     **************************************************************** */
+
+    /**
+     * Register `listener` to be notified of each change to this graph's tiles.  Has no effect if
+     * this graph is frozen.
+     */
+    public void addChangeListener(ChangeListener listener) {
+        if (!frozen) {
+            listeners.add(listener);
+        }
+    }
+
+    /**
+     * Stop notifying `listener` of changes to this graph's tiles (assuming it was added no more
+     * than once).
+     */
+    public void removeChangeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Change the tile at `(i, j)` to a PATH if it is a WALL, or to a WALL if it is a PATH.  See
+     * `setTile()`.
+     */
+    public void toggleTile(int i, int j) {
+        setTile(i, j, types[i][j] == TileType.PATH ? TileType.WALL : TileType.PATH);
+    }
+
+    /**
+     * Change the tile at `(i, j)` to `type`, which must be PATH or WALL, updating this graph's
+     * edges and notifying its change listeners.  A new PATH tile is connected (in both directions)
+     * to each neighboring PATH tile, including through tunnels at the grid's boundary; a PATH tile
+     * that becomes a WALL loses its vertex and every edge to or from it.  Only the changed tile and
+     * its (at most four) neighbors are touched.  Has no effect if the tile is already of type
+     * `type`.  Requires that the current tile is not a GHOSTBOX tile.  A game played on this graph
+     * moves any actor off the edges that are removed (see `GameModel`), but it is the caller's
+     * responsibility to keep the maze connected.  Throws IllegalStateException if this graph is
+     * frozen.
+     */
+    public void setTile(int i, int j, TileType type) {
+        if (frozen) {
+            throw new IllegalStateException("Cannot change a frozen graph");
+        }
+        if (type == TileType.GHOSTBOX || types[i][j] == TileType.GHOSTBOX) {
+            throw new IllegalArgumentException("Cannot change ghost box tiles");
+        }
+        if (types[i][j] == type) {
+            return;
+        }
+        if (types == map.types()) {
+            // Copy on first write, so that the map (which may be shared) is left unchanged
+            types = new TileType[width][];
+            for (int col = 0; col < width; col++) {
+                types[col] = map.types()[col].clone();
+            }
+        }
+        types[i][j] = type;
+
+        IPair loc = new IPair(i, j);
+        List<MazeEdge> removed = new ArrayList<>();
+        List<MazeEdge> added = new ArrayList<>();
+        if (type == TileType.WALL) {
+            MazeVertex v = vertexAt(i, j);
+            for (Direction d : CONNECT_ORDER) {
+                MazeEdge out = v.removeOutgoingEdge(d);
+                if (out != null) {
+                    removed.add(out);
+                    removed.add(out.dst().removeOutgoingEdge(d.reverse()));
+                }
+            }
+            vertices[v.id()] = null;
+            vertexIds[tileIndex(i, j)] = -1;
+        } else {
+            if (vertexCount == vertices.length) {
+                vertices = Arrays.copyOf(vertices, Math.max(1, 2 * vertexCount));
+            }
+            MazeVertex v = new MazeVertex(vertexCount, loc);
+            vertices[vertexCount] = v;
+            vertexIds[tileIndex(i, j)] = vertexCount;
+            vertexCount += 1;
+            for (Direction d : CONNECT_ORDER) {
+                IPair neighborLoc = neighborLoc(loc, d);
+                MazeVertex neighbor = vertexAt(neighborLoc.i(), neighborLoc.j());
+                if (neighbor != null) {
+                    MazeEdge out = newEdge(v, neighbor, d);
+                    MazeEdge in = newEdge(neighbor, v, d.reverse());
+                    v.addOutgoingEdge(out);
+                    neighbor.addOutgoingEdge(in);
+                    added.add(out);
+                    added.add(in);
+                }
+            }
+        }
+        // Only targets that probe tile (i, j) can change; see `findClosestId()`
+        updateClosestIds(i - 2, i + 1, j - 5, j + 1);
+        version += 1;
+
+        for (ChangeListener listener : List.copyOf(listeners)) {
+            listener.tileChanged(this, loc, type, Collections.unmodifiableList(removed),
+                    Collections.unmodifiableList(added));
+        }
+    }
+
+    /**
+     * Return the tile index (`i * height + j`) of each vertex of this graph, indexed by vertex id.
+     * Together with `edgeMasks()`, this is a flattened form of the graph from which it can be
+     * rebuilt without examining its map's tiles.
+     */
+    int[] vertexTiles() {
+        assert version == 0 : "flattened form requires dense vertex ids";
+        int[] tiles = new int[vertexCount];
+        for (MazeVertex v : vertices()) {
+            tiles[v.id()] = tileIndex(v.loc().i(), v.loc().j());
+        }
+        return tiles;
+    }
+
+    /**
+     * Return the edge mask of each vertex of this graph, indexed by vertex id.  Bit
+     * `d.ordinal()` of a mask is set if that vertex has an outgoing edge in direction `d`.
+     */
+    byte[] edgeMasks() {
+        assert version == 0 : "flattened form requires dense vertex ids";
+        byte[] masks = new byte[vertexCount];
+        for (MazeVertex v : vertices()) {
+            for (MazeEdge e : v.outgoingEdges()) {
+                masks[v.id()] |= (byte) (1 << e.direction().ordinal());
+            }
+        }
+        return masks;
+    }
+
+    /**
+     * Return the first edge that PacMann will traverse at the start of a game.  If his starting
+     * tile (or both of the tiles he may enter it from) has been closed by `setTile()`, he starts
+     * by entering the vertex `closestTo()` that tile instead.
      */
     public MazeEdge pacMannStartingEdge() {
         IPair startingLoc = new IPair((width - 1) / 2, 3 * ((3 * (height / 3) - 1) / 4) + 2);
-        MazeVertex t = vertices.get(startingLoc);
-        if (t.edgeMap.containsKey(Direction.LEFT)) {
+        MazeVertex t = vertexAt(startingLoc.i(), startingLoc.j());
+        if (t != null && t.edgeMap.containsKey(Direction.LEFT)) {
             return t.edgeMap.get(Direction.LEFT).reverse();
-        } else {
+        } else if (t != null && t.edgeMap.containsKey(Direction.UP)) {
             return t.edgeMap.get(Direction.UP).reverse();
+        } else {
+            return firstEdge(closestTo(startingLoc.i(), startingLoc.j())).reverse();
         }
     }
 
     /**
      * Return the first edge that a ghost will traverse upon transitioning from the WAIT to the
-     * CHASE state.
+     * CHASE state.  If that edge has been removed by `setTile()`, ghosts leave along an edge of
+     * the vertex `closestTo()` its source instead.
      */
     public MazeEdge ghostStartingEdge() {
         IPair startingLoc = new IPair((width - 1) / 2, 3 * ((height - 3) / 6) - 1);
-        MazeVertex s = vertices.get(startingLoc);
-        return s.edgeMap.get(Direction.RIGHT);
+        MazeVertex s = vertexAt(startingLoc.i(), startingLoc.j());
+        if (s != null && s.edgeMap.containsKey(Direction.RIGHT)) {
+            return s.edgeMap.get(Direction.RIGHT);
+        } else {
+            return firstEdge(closestTo(startingLoc.i(), startingLoc.j()));
+        }
+    }
+
+    /**
+     * Return the edge leaving `v` in the first direction of `CONNECT_ORDER` that has one.  Throws
+     * IllegalStateException if `v` has no edges.
+     */
+    private static MazeEdge firstEdge(MazeVertex v) {
+        for (Direction d : CONNECT_ORDER) {
+            if (v.edgeMap.containsKey(d)) {
+                return v.edgeMap.get(d);
+            }
+        }
+        throw new IllegalStateException("No edges leave the starting tile");
     }
 }
@@ -0,0 +1,139 @@
+package model;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import util.GameMap;
+
+/**
+ * A thread-safe registry of frozen `MazeGraph`s, so that concurrent games played on identical maps
+ * share one graph (and everything derived from it) instead of each building their own.  Graphs
+ * are keyed by the contents of their maps, not by identity, and are held weakly: once no game
+ * refers to a graph any longer it may be garbage collected, after which its entry is dropped.
+ * <p>
+ * Maps must not be modified after their graph has been registered.
+ */
+public class MazeGraphRegistry {
+
+    /**
+     * The registry used by `GameModel` unless it is given a graph explicitly.
+     */
+    private static final MazeGraphRegistry SHARED = new MazeGraphRegistry();
+
+    /**
+     * Identifies a map by its contents.  `fingerprint` is the map's fingerprint, which is compared
+     * first so that the contents of unequal maps rarely need to be compared.
+     */
+    private record Key(long fingerprint, GameMap map) {
+
+        Key(GameMap map) {
+            this(map.fingerprint(), map);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && fingerprint == other.fingerprint
+                    && (map == other.map
+                    || Arrays.deepEquals(map.types(), other.map.types())
+                    && Arrays.deepEquals(map.elevations(), other.map.elevations()));
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(fingerprint);
+        }
+    }
+
+    /**
+     * A weak reference to a registered graph that remembers its key, so that its entry can be
+     * removed once the graph has been collected.
+     */
+    private static class GraphRef extends WeakReference<MazeGraph> {
+
+        final Key key;
+
+        GraphRef(Key key, MazeGraph graph, ReferenceQueue<MazeGraph> queue) {
+            super(graph, queue);
+            this.key = key;
+        }
+    }
+
+    /**
+     * The registered graphs.  An entry whose referent has been cleared is stale and will be removed
+     * by `expungeStale()`.
+     */
+    private final ConcurrentHashMap<Key, GraphRef> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Receives the references of registered graphs once they have been collected.
+     */
+    private final ReferenceQueue<MazeGraph> collected = new ReferenceQueue<>();
+
+    /**
+     * Return the registry shared by all games in this process.
+     */
+    public static MazeGraphRegistry shared() {
+        return SHARED;
+    }
+
+    /**
+     * Return the frozen graph of a map with the same contents as `map`, constructing and
+     * registering it if there is none.
+     */
+    public MazeGraph graphFor(GameMap map) {
+        return register(new Key(map), null);
+    }
+
+    /**
+     * Return the frozen graph registered for a map with the same contents as `graph.map()`.  If
+     * there is none, `graph` is frozen and registered.  Requires that the tiles of `graph` have
+     * not been changed (its `version()` is 0).
+     */
+    public MazeGraph intern(MazeGraph graph) {
+        if (graph.version() != 0) {
+            throw new IllegalArgumentException("Graph differs from its map");
+        }
+        return register(new Key(graph.map()), graph);
+    }
+
+    /**
+     * Return the number of graphs currently registered.  Graphs that have been collected may
+     * still be counted until the registry is next accessed.
+     */
+    public int size() {
+        expungeStale();
+        return entries.size();
+    }
+
+    /**
+     * Return the graph registered under `key`, registering `graph` (or, if it is null, a new graph
+     * of `key.map()`) if no live graph is.
+     */
+    private MazeGraph register(Key key, MazeGraph graph) {
+        expungeStale();
+        // Hold the result strongly so that it cannot be collected before it is returned
+        MazeGraph[] result = new MazeGraph[1];
+        entries.compute(key, (k, ref) -> {
+            MazeGraph registered = (ref == null) ? null : ref.get();
+            if (registered == null) {
+                registered = (graph == null) ? new MazeGraph(k.map()) : graph;
+                registered.freeze();
+                ref = new GraphRef(k, registered, collected);
+            }
+            result[0] = registered;
+            return ref;
+        });
+        return result[0];
+    }
+
+    /**
+     * Remove the entries of graphs that have been garbage collected.
+     */
+    private void expungeStale() {
+        GraphRef ref;
+        while ((ref = (GraphRef) collected.poll()) != null) {
+            entries.remove(ref.key, ref);
+        }
+    }
+}
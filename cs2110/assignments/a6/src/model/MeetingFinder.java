@@ -0,0 +1,173 @@
+package model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the earliest time at which two actors on the same undirected edge will meet, in time
+ * close to linear in the number of actors on the edge.  Actors on an edge move at only a handful
+ * of distinct velocities (one per direction and speed), and actors with equal velocities never
+ * meet, so for each pair of velocity classes only the closest pair of positions in the right order
+ * can produce the earliest meeting; sorting each class's positions finds it in a single merge.
+ * The times found are exactly those computed by `GameModel.meetingTime()` for the pairs of actors
+ * involved.  No objects are allocated.
+ */
+class MeetingFinder {
+
+    /**
+     * Edges holding at most this many actors are searched by comparing every pair of actors, which
+     * is faster for so few.
+     */
+    private static final int PAIRWISE_LIMIT = 16;
+
+    /**
+     * The most velocity classes that are searched for by merging positions; edges with more
+     * (which does not happen with the existing actors) are searched pairwise.
+     */
+    private static final int MAX_CLASSES = 8;
+
+    /**
+     * The actors in the game, indexed by slot.
+     */
+    private final List<Actor> actors;
+
+    /**
+     * The undirected edges that the actors occupy.
+     */
+    private final EdgeOccupancy occupancy;
+
+    /**
+     * Scratch space: the slots on the edge being searched, their positions grouped by velocity
+     * class, and each class's velocity and range `[classStart[c]..classStart[c + 1])` of positions.
+     */
+    private final int[] slots;
+    private final double[] positions;
+    private final double[] classVelocity = new double[MAX_CLASSES];
+    private final int[] classStart = new int[MAX_CLASSES + 1];
+    private final int[] classOf;
+
+    /**
+     * Create a finder for the meetings of `actors`, whose edges are tracked by `occupancy`.
+     */
+    MeetingFinder(List<Actor> actors, EdgeOccupancy occupancy) {
+        this.actors = actors;
+        this.occupancy = occupancy;
+        slots = new int[actors.size()];
+        positions = new double[actors.size()];
+        classOf = new int[actors.size()];
+    }
+
+    /**
+     * Return the time until the earliest meeting of two actors on undirected edge `edgeId` (a
+     * positive `GameModel.meetingTime()` for some pair of them), or POSITIVE_INFINITY if no two of
+     * them will meet.  Requires that `occupancy` is synchronized.
+     */
+    double earliestMeeting(int edgeId) {
+        int count = 0;
+        for (int k = occupancy.first(edgeId); k >= 0; k = occupancy.next(k)) {
+            slots[count] = k;
+            count += 1;
+        }
+        if (count < 2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (count <= PAIRWISE_LIMIT) {
+            return pairwise(count);
+        }
+
+        // Assign each actor to the class of its velocity
+        int classes = 0;
+        for (int i = 0; i < count; i++) {
+            double v = GameModel.positiveSpeed(actors.get(slots[i]));
+            int c = 0;
+            while (c < classes && classVelocity[c] != v) {
+                c += 1;
+            }
+            if (c == classes) {
+                if (classes == MAX_CLASSES) {
+                    return pairwise(count);
+                }
+                classVelocity[c] = v;
+                classes += 1;
+            }
+            classOf[i] = c;
+        }
+
+        // Group the positions by class (a counting sort), then sort each class's positions
+        Arrays.fill(classStart, 0, classes + 1, 0);
+        for (int i = 0; i < count; i++) {
+            classStart[classOf[i] + 1] += 1;
+        }
+        for (int c = 0; c < classes; c++) {
+            classStart[c + 1] += classStart[c];
+        }
+        for (int i = 0; i < count; i++) {
+            int c = classOf[i];
+            positions[classStart[c]] = GameModel.positiveProgress(actors.get(slots[i]));
+            classStart[c] += 1;
+        }
+        for (int c = classes; c > 0; c--) {
+            classStart[c] = classStart[c - 1];
+        }
+        classStart[0] = 0;
+        for (int c = 0; c < classes; c++) {
+            Arrays.sort(positions, classStart[c], classStart[c + 1]);
+        }
+
+        // An actor in a faster class `x` meets an actor in a slower class `y` if it is behind it;
+        // the earliest such meeting is between the closest such pair
+        double min = Double.POSITIVE_INFINITY;
+        for (int x = 0; x < classes; x++) {
+            for (int y = 0; y < classes; y++) {
+                if (classVelocity[x] > classVelocity[y]) {
+                    double gap = closestGap(x, y);
+                    double s = gap / (classVelocity[x] - classVelocity[y]);
+                    if (s > 0 && s < min) {
+                        min = s;
+                    }
+                }
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Return the smallest positive difference `py - px` between a position `py` of class `y` and a
+     * position `px` of class `x`, or POSITIVE_INFINITY if every position of class `y` is at or
+     * behind every position of class `x`.
+     */
+    private double closestGap(int x, int y) {
+        double min = Double.POSITIVE_INFINITY;
+        int i = classStart[x];
+        int xEnd = classStart[x + 1];
+        for (int j = classStart[y]; j < classStart[y + 1]; j++) {
+            double py = positions[j];
+            // Advance to the last position of class `x` that is strictly behind `py`
+            while (i + 1 < xEnd && positions[i + 1] < py) {
+                i += 1;
+            }
+            if (positions[i] < py) {
+                min = Math.min(min, py - positions[i]);
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Return the earliest meeting among the first `count` actors in `slots` by comparing every pair
+     * of them.
+     */
+    private double pairwise(int count) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            for (int j = i + 1; j < count; j++) {
+                double s = GameModel.meetingTime(actors.get(slots[i]), actors.get(slots[j]));
+                // Note: inequality skips NaNs
+                if (s > 0 && s < min) {
+                    min = s;
+                }
+            }
+        }
+        return min;
+    }
+}
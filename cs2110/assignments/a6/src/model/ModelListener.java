@@ -0,0 +1,17 @@
+package model;
+
+/**
+ * Observes changes to the properties of a `GameModel` (such as "score" or "game_state").  Unlike
+ * `java.beans.PropertyChangeListener`, this only depends on `java.base`, so games can be simulated
+ * without loading the desktop modules; user interfaces adapt it to their own event types.
+ */
+@FunctionalInterface
+public interface ModelListener {
+
+    /**
+     * Called after the property named `propertyName` of a model changes from `oldValue` to
+     * `newValue`.  Either value may be null if it is not meaningful for the property (for example,
+     * "board_state" carries no values).
+     */
+    void propertyChanged(String propertyName, Object oldValue, Object newValue);
+}
@@ -0,0 +1,104 @@
+package model;
+
+import model.MazeGraph.Direction;
+import model.MazeGraph.MazeVertex;
+
+/**
+ * For every vertex of a game's graph, the cost (total edge weight) of the cheapest path to the
+ * nearest vertex still holding a DOT or PELLET, and the direction of the first edge of that path.
+ * Both are answered in constant time from an `ArrivalField` whose sources are the items.
+ * <p>
+ * Items are only ever removed, so the index is decremental: when an item is eaten, only the
+ * vertices that were nearest to it are searched again, starting from the values of the vertices
+ * around them (see `ArrivalField.repair()`).  The index keeps statistics on these updates so that
+ * their amortized cost can be reported.  It describes its game's graph only while the graph's
+ * version is unchanged; `GameModel.nearestDots()` rebuilds it when the graph changes.
+ */
+public class NearestDotIndex {
+
+    /**
+     * The cost of reaching the nearest item from each vertex; sources are numbered by the ids of
+     * the items' vertices.
+     */
+    private final ArrivalField field;
+
+    /**
+     * The version of the graph this index was built for.
+     */
+    private final int graphVersion;
+
+    /**
+     * Statistics about the updates made since this index was built.
+     */
+    private long updates;
+    private long searchedVertices;
+    private long updateNanos;
+
+    /**
+     * Build an index of the items remaining in `model`.
+     */
+    NearestDotIndex(GameModel model) {
+        MazeGraph graph = model.graph();
+        field = new ArrivalField(graph, graph.vertexCount(), true);
+        graphVersion = graph.version();
+        for (int id = model.nextItemVertex(0); id >= 0; id = model.nextItemVertex(id + 1)) {
+            field.setSource(id, id, 0, 1);
+        }
+        field.repair();
+    }
+
+    /**
+     * Return whether this index describes the current version of `graph`.
+     */
+    boolean describes(MazeGraph graph) {
+        return field.graph() == graph && graphVersion == graph.version();
+    }
+
+    /**
+     * Update this index after the item on vertex `v` has been removed.
+     */
+    void itemRemoved(MazeVertex v) {
+        long start = System.nanoTime();
+        field.clearSource(v.id());
+        searchedVertices += field.repair();
+        updates += 1;
+        updateNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Return the cost of the cheapest path from `v` to a vertex holding an item (0 if `v` holds
+     * one), or infinity if no item can be reached from `v`.
+     */
+    public double distance(MazeVertex v) {
+        return field.value(v.id());
+    }
+
+    /**
+     * Return the direction of the first edge of the cheapest path from `v` to a vertex holding an
+     * item, or null if `v` holds an item or no item can be reached from it.
+     */
+    public Direction direction(MazeVertex v) {
+        return field.towardSource(v.id());
+    }
+
+    /**
+     * Return the number of item removals this index has been updated for.
+     */
+    public long updates() {
+        return updates;
+    }
+
+    /**
+     * Return the total number of vertices searched again by updates.
+     */
+    public long searchedVertices() {
+        return searchedVertices;
+    }
+
+    /**
+     * Return the total wall-clock time spent on updates [ns].
+     */
+    public long updateNanos() {
+        return updateNanos;
+    }
+}
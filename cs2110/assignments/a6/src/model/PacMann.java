@@ -1,6 +1,9 @@
 package model;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.List;
+import model.MazeGraph.Direction;
 import model.MazeGraph.MazeEdge;
 import model.MazeGraph.MazeVertex;
 
@@ -21,6 +24,13 @@ public abstract class PacMann extends Actor {
         reset();
     }
 
+    /**
+     * Construct a copy of `original` associated with `model`, a fork of the original's model.
+     */
+    protected PacMann(GameModel model, PacMann original) {
+        super(model, original);
+    }
+
     /**
      * Alert the model that PacMann has arrived at a vertex so it can update its state accordingly.
      */
@@ -37,7 +47,7 @@ public abstract class PacMann extends Actor {
     public void reset() {
         // Starting at the end allows PacMann to begin the game walking along any outgoing edge
         // from its `dst` vertex.
-        location = new Location(model.graph().pacMannStartingEdge(), 1);
+        setLocation(model.graph().pacMannStartingEdge(), 1);
     }
 
     /**
@@ -47,11 +57,55 @@ public abstract class PacMann extends Actor {
     public List<MazeEdge> guidancePath() {
         // Note: If you attempt the challenge extension, you may wish to override this in
         // PacMannAI to help visualize the behavior of your AI as you develop it.
-        return List.of(location.edge());
+        return List.of(currentEdge());
     }
 
     @Override
     public double baseSpeed() {
         return 1.0 / 200.0;
     }
+
+    /**
+     * Return the number of edges between each vertex of the graph and the nearest vertex holding an
+     * item, or infinity if no item can be reached from it.
+     */
+    protected double[] itemDistances() {
+        MazeGraph graph = model.graph();
+        double[] dist = new double[graph.vertexCount()];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        ArrayDeque<MazeVertex> frontier = new ArrayDeque<>();
+        for (int id = model.nextItemVertex(0); id >= 0; id = model.nextItemVertex(id + 1)) {
+            dist[id] = 0;
+            frontier.add(graph.vertex(id));
+        }
+        // Edges come in opposing pairs, so searching outwards from the items finds the distances
+        // to them
+        while (!frontier.isEmpty()) {
+            MazeVertex u = frontier.remove();
+            for (MazeEdge e : u.outgoingEdges()) {
+                int w = e.dst().id();
+                if (dist[w] == Double.POSITIVE_INFINITY) {
+                    dist[w] = dist[u.id()] + 1;
+                    frontier.add(e.dst());
+                }
+            }
+        }
+        return dist;
+    }
+
+    /**
+     * Return the edges leaving `v`, in the order of `Direction`'s values.
+     */
+    protected static MazeEdge[] movesFrom(MazeVertex v) {
+        MazeEdge[] moves = new MazeEdge[Direction.values().length];
+        int count = 0;
+        for (Direction d : Direction.values()) {
+            MazeEdge e = v.edgeInDirection(d);
+            if (e != null) {
+                moves[count] = e;
+                count += 1;
+            }
+        }
+        return Arrays.copyOf(moves, count);
+    }
 }
@@ -0,0 +1,619 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import model.GameModel.GameState;
+import model.MazeGraph.Direction;
+import model.MazeGraph.MazeEdge;
+import model.MazeGraph.MazeVertex;
+import util.CopyableRandom;
+
+/**
+ * A PacMann that chooses each edge by Monte Carlo Tree Search over forks of its game (see
+ * `GameModel.fork()`).  Each rollout forks the game, plays PacMann's moves down the search tree
+ * (choosing among them by UCB1) and then randomly, while the ghosts play as they would in the real
+ * game, until PacMann is caught, wins, or `HORIZON` ms have passed.  The rollout is scored by the
+ * points PacMann gained, how close he ended to the nearest remaining item, and whether he
+ * survived; PacMann then takes the move that was explored most.
+ * <p>
+ * Each decision is limited to a number of rollouts and optionally to a wall-clock budget.  Rollouts
+ * may run on a fork/join pool, either building a fixed number of independent trees whose root
+ * statistics are summed ("root-parallel"), or sharing one tree whose statistics are updated under
+ * per-node locks, with a virtual loss steering concurrent rollouts apart ("tree-parallel").  Serial
+ * searches, and root-parallel searches with the same number of trees, make the same decisions in
+ * the same situations when limited only by rollouts, whatever the size of their pool, so seeded
+ * games are reproducible; a wall-clock budget or tree-parallel search trades that for speed.
+ */
+public class PacMannAI extends PacMann {
+
+    /**
+     * How rollouts are spread across threads.
+     */
+    public enum Parallelism {SERIAL, ROOT, TREE}
+
+    /**
+     * The default number of rollouts per decision.
+     */
+    public static final int DEFAULT_ROLLOUTS = 48;
+
+    /**
+     * The default number of independent trees built by a root-parallel search.
+     */
+    public static final int DEFAULT_ROOT_TREES = 4;
+
+    /**
+     * How long each rollout plays the game for [ms], unless it ends sooner.
+     */
+    static final double HORIZON = 2000;
+
+    /**
+     * The weight of exploration in UCB1.
+     */
+    private static final double EXPLORATION = 0.7;
+
+    /**
+     * The points that earn a rollout half of the value available for points.
+     */
+    private static final double HALF_GAIN = 50;
+
+    /**
+     * How long building the route planner (when the graph has changed) and planning a route may
+     * take together [ms] (see `setRouteGuidance()`).  Building is not bounded (see
+     * `RoutePlanner`), so planning gets whatever the build leaves.  This stays a few ms below the
+     * 50 ms a route should take, to cover the work after the planning deadline.
+     */
+    static final double ROUTE_BUDGET = 45;
+
+    /**
+     * The number of clusters of items of the planned route that the guidance path shows.
+     */
+    private static final int ROUTE_CLUSTERS_SHOWN = 6;
+
+    /**
+     * The source of the seeds of each decision's rollouts.
+     */
+    private final CopyableRandom random;
+
+    /**
+     * How rollouts are spread across threads, the pool they run on (null when SERIAL), and the
+     * number of trees a root-parallel search builds.
+     */
+    private Parallelism parallelism;
+    private ForkJoinPool pool;
+    private int rootTrees;
+
+    /**
+     * The most rollouts per decision, and the wall-clock budget per decision [ns] (or
+     * Long.MAX_VALUE for none).
+     */
+    private int maxRollouts;
+    private long budgetNanos;
+
+    /**
+     * The search statistics accumulated over this PacMann's decisions.
+     */
+    private long decisions;
+    private long rollouts;
+    private long searchNanos;
+
+    /**
+     * The most visited line of play found by the latest search, starting with the edge it chose.
+     */
+    private List<MazeEdge> principalVariation = List.of();
+
+    /**
+     * Whether the guidance path shows a route planned to clear the board, that route (null until
+     * the first decision after route guidance is turned on, or after the graph has changed), and
+     * the index of the first of its clusters that may still hold items.
+     */
+    private boolean routeGuidance;
+    private RoutePlanner.Route route;
+    private int routeProgress;
+
+    /**
+     * The planner routes are planned with, or null if none has been built.  It is replaced when it
+     * no longer describes the graph, and is not shared with copies, since planning is not
+     * thread-safe.
+     */
+    private RoutePlanner planner;
+
+    /**
+     * The number of routes this PacMann has planned, and the time spent planning them [ns].
+     */
+    private long routePlans;
+    private long routePlanNanos;
+
+    /**
+     * Construct a PacMannAI in `model` that draws the seeds of its rollouts from `random`.  It
+     * searches serially, with `DEFAULT_ROLLOUTS` rollouts per decision and no wall-clock budget.
+     */
+    public PacMannAI(GameModel model, CopyableRandom random) {
+        super(model);
+        this.random = random;
+        parallelism = Parallelism.SERIAL;
+        rootTrees = DEFAULT_ROOT_TREES;
+        maxRollouts = DEFAULT_ROLLOUTS;
+        budgetNanos = Long.MAX_VALUE;
+    }
+
+    /**
+     * Construct a copy of `original` in `model`, a fork of the original's model, with the same
+     * search settings and a copy of its random number generator.  Its statistics start from zero.
+     */
+    private PacMannAI(GameModel model, PacMannAI original) {
+        super(model, original);
+        random = original.random.copy();
+        parallelism = original.parallelism;
+        pool = original.pool;
+        rootTrees = original.rootTrees;
+        maxRollouts = original.maxRollouts;
+        budgetNanos = original.budgetNanos;
+        routeGuidance = original.routeGuidance;
+        route = original.route;
+        routeProgress = original.routeProgress;
+    }
+
+    @Override
+    public PacMannAI forkFor(GameModel model) {
+        return new PacMannAI(model, this);
+    }
+
+    /**
+     * Spread rollouts across the workers of `pool` as `parallelism` says.  Requires `pool` to be
+     * non-null unless `parallelism` is SERIAL (in which case it is ignored).  The size of `pool`
+     * only decides how many rollouts run at once, not which are played.
+     */
+    public void setParallelism(Parallelism parallelism, ForkJoinPool pool) {
+        if (parallelism != Parallelism.SERIAL && pool == null) {
+            throw new IllegalArgumentException("Parallel search requires a pool");
+        }
+        this.parallelism = parallelism;
+        this.pool = (parallelism == Parallelism.SERIAL) ? null : pool;
+    }
+
+    /**
+     * Build `trees` independent trees in each root-parallel search (or one per rollout, if there
+     * are fewer rollouts).  Requires `trees > 0`.
+     */
+    public void setRootTrees(int trees) {
+        if (trees <= 0) {
+            throw new IllegalArgumentException("Number of root trees must be positive");
+        }
+        rootTrees = trees;
+    }
+
+    /**
+     * Limit each decision to at most `maxRollouts` rollouts and `budgetMillis` ms of wall-clock
+     * time (which may be infinite).  At least one rollout is always played.  Requires
+     * `maxRollouts > 0` and `budgetMillis > 0`.
+     */
+    public void setBudget(int maxRollouts, double budgetMillis) {
+        if (maxRollouts <= 0 || !(budgetMillis > 0)) {
+            throw new IllegalArgumentException("Search budget must be positive");
+        }
+        this.maxRollouts = maxRollouts;
+        budgetNanos = (budgetMillis >= Long.MAX_VALUE / 1e6) ? Long.MAX_VALUE
+                : (long) (budgetMillis * 1e6);
+    }
+
+    /**
+     * Show, as PacMann's guidance path, the route planned to clear the board (see `RoutePlanner`)
+     * if `enabled` is true, and otherwise the line of play expected by the search.  The route is
+     * planned at the next decision, and again whenever the graph changes; it only guides what is
+     * shown, not the search.
+     */
+    public void setRouteGuidance(boolean enabled) {
+        routeGuidance = enabled;
+    }
+
+    /**
+     * Return the number of routes this PacMann has planned.
+     */
+    public long routePlans() {
+        return routePlans;
+    }
+
+    /**
+     * Return the total wall-clock time this PacMann has spent planning routes [ns], including
+     * building the planners' distance matrices.
+     */
+    public long routePlanNanos() {
+        return routePlanNanos;
+    }
+
+    /**
+     * Return the number of decisions this PacMann has searched for.
+     */
+    public long decisions() {
+        return decisions;
+    }
+
+    /**
+     * Return the total number of rollouts this PacMann has played.
+     */
+    public long rollouts() {
+        return rollouts;
+    }
+
+    /**
+     * Return the total wall-clock time this PacMann has spent searching [ns].
+     */
+    public long searchNanos() {
+        return searchNanos;
+    }
+
+    /**
+     * Return the number of rollouts this PacMann has played per second of searching, or 0 if it has
+     * not searched yet.
+     */
+    public double rolloutsPerSecond() {
+        return (searchNanos == 0) ? 0 : rollouts * 1e9 / searchNanos;
+    }
+
+    /**
+     * Search for and return the edge PacMann should traverse next from his current vertex.
+     */
+    @Override
+    public MazeEdge nextEdge() {
+        if (routeGuidance && (route == null || !route.describes(model.graph()))) {
+            planRoute();
+        }
+        long start = System.nanoTime();
+        long deadline = (budgetNanos == Long.MAX_VALUE) ? Long.MAX_VALUE : start + budgetNanos;
+        MazeVertex v = nearestVertex();
+        double[] itemDistances = itemDistances();
+        long seed = random.nextLong();
+
+        Node root;
+        int played;
+        if (parallelism == Parallelism.SERIAL) {
+            root = new Node(v);
+            played = search(model.fork(), root, new SplittableRandom(seed), itemDistances,
+                    new AtomicInteger(), maxRollouts, deadline);
+        } else if (parallelism == Parallelism.ROOT) {
+            // The trees and their quotas do not depend on the pool, which only schedules them
+            int trees = Math.min(rootTrees, maxRollouts);
+            Node[] roots = new Node[trees];
+            List<ForkJoinTask<Integer>> tasks = new ArrayList<>(trees);
+            for (int w = 0; w < trees; w++) {
+                // Each tree gets its own base game, so that workers never fork the same game
+                GameModel base = model.fork();
+                Node tree = new Node(v);
+                SplittableRandom rng = new SplittableRandom(seed + w);
+                int quota = (maxRollouts + trees - 1 - w) / trees;
+                roots[w] = tree;
+                tasks.add(pool.submit(ForkJoinTask.adapt(() -> search(base, tree, rng,
+                        itemDistances, new AtomicInteger(), quota, deadline))));
+            }
+            played = 0;
+            for (ForkJoinTask<Integer> task : tasks) {
+                played += task.join();
+            }
+            root = roots[0];
+            for (int w = 1; w < trees; w++) {
+                root.absorb(roots[w]);
+            }
+        } else {
+            int workers = pool.getParallelism();
+            root = new Node(v);
+            AtomicInteger started = new AtomicInteger();
+            SplittableRandom parent = new SplittableRandom(seed);
+            List<ForkJoinTask<Integer>> tasks = new ArrayList<>(workers);
+            for (int w = 0; w < workers; w++) {
+                GameModel base = model.fork();
+                SplittableRandom rng = parent.split();
+                tasks.add(pool.submit(ForkJoinTask.adapt(() -> search(base, root, rng,
+                        itemDistances, started, maxRollouts, deadline))));
+            }
+            played = 0;
+            for (ForkJoinTask<Integer> task : tasks) {
+                played += task.join();
+            }
+        }
+
+        principalVariation = root.principalVariation();
+        decisions += 1;
+        rollouts += played;
+        searchNanos += System.nanoTime() - start;
+        return root.moves[root.mostVisited()];
+    }
+
+    /**
+     * Play rollouts from `base`, whose PacMann is at the vertex of `root`, updating the tree below
+     * `root`, while fewer than `maxRollouts` have been started (as counted by `started`, which may
+     * be shared with other searches of the same tree) and before `deadline` (in `System.nanoTime()`
+     * terms); at least one rollout is played.  Return the number of rollouts played.
+     */
+    private static int search(GameModel base, Node root, SplittableRandom rng,
+            double[] itemDistances, AtomicInteger started, int maxRollouts, long deadline) {
+        int played = 0;
+        while (started.getAndIncrement() < maxRollouts || played == 0) {
+            Rollout[] player = new Rollout[1];
+            GameModel sim = base.fork(m -> {
+                player[0] = new Rollout(m, base.pacMann(), root, rng, itemDistances);
+                return player[0];
+            });
+            double value = player[0].play(sim);
+            player[0].backPropagate(value);
+            played += 1;
+            if (deadline != Long.MAX_VALUE && System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+        return played;
+    }
+
+    /**
+     * Plan a route that clears the items remaining on the board, rebuilding the planner first if
+     * the graph has changed.  Planning stops `ROUTE_BUDGET` after this starts, or as soon as any
+     * route has been found if rebuilding the planner alone took longer than that.
+     */
+    private void planRoute() {
+        long start = System.nanoTime();
+        if (planner == null || !planner.describes(model.graph())) {
+            planner = new RoutePlanner(model.graph());
+        }
+        double elapsed = (System.nanoTime() - start) / 1e6;
+        route = planner.plan(model, Math.max(ROUTE_BUDGET - elapsed, 0));
+        routeProgress = 0;
+        routePlans += 1;
+        routePlanNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Show the next few clusters of the planned route, if route guidance is on and a route has been
+     * planned, or else the line of play PacMann currently expects, if he is following it.
+     */
+    @Override
+    public List<MazeEdge> guidancePath() {
+        RoutePlanner.Route planned = route;
+        if (routeGuidance && planned != null && planned.describes(model.graph())) {
+            routeProgress = planned.firstUncleared(model, routeProgress);
+            return planned.edgesFrom(model, currentEdge(), routeProgress, ROUTE_CLUSTERS_SHOWN);
+        }
+        List<MazeEdge> line = principalVariation;
+        if (!line.isEmpty() && line.getFirst().equals(currentEdge())) {
+            return line;
+        }
+        return super.guidancePath();
+    }
+
+    /**
+     * A decision of PacMann's in the search tree: the moves available at its vertex, and for each
+     * move, how many rollouts took it (including those still in progress, as a virtual loss), the
+     * sum of their values, and the decision that follows it (once it has been taken twice).  Its
+     * statistics are only accessed while holding its lock.
+     */
+    private static final class Node {
+
+        final MazeEdge[] moves;
+        private final int[] visits;
+        private final double[] values;
+        private final Node[] children;
+        private int totalVisits;
+
+        Node(MazeVertex v) {
+            moves = movesFrom(v);
+            visits = new int[moves.length];
+            values = new double[moves.length];
+            children = new Node[moves.length];
+        }
+
+        /**
+         * Choose a move for a rollout by UCB1, trying every move once first, and count the rollout
+         * as a visit to it.  Return its index.
+         */
+        synchronized int select() {
+            int best = 0;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            double logTotal = Math.log(Math.max(totalVisits, 1));
+            for (int i = 0; i < moves.length; i++) {
+                if (visits[i] == 0) {
+                    best = i;
+                    break;
+                }
+                double score = values[i] / visits[i]
+                        + EXPLORATION * Math.sqrt(logTotal / visits[i]);
+                if (score > bestScore) {
+                    best = i;
+                    bestScore = score;
+                }
+            }
+            visits[best] += 1;
+            totalVisits += 1;
+            return best;
+        }
+
+        /**
+         * Return the decision following move `i`, which a rollout just selected, creating it if
+         * necessary, or null if the rollout is the first to take that move (and so should leave
+         * the tree).
+         */
+        synchronized Node next(int i) {
+            if (visits[i] == 1) {
+                return null;
+            }
+            if (children[i] == null) {
+                children[i] = new Node(moves[i].dst());
+            }
+            return children[i];
+        }
+
+        /**
+         * Add the value of a rollout that took move `i`.
+         */
+        synchronized void update(int i, double value) {
+            values[i] += value;
+        }
+
+        /**
+         * Add the root statistics of `other`, a tree searched from the same vertex, to this one's.
+         */
+        void absorb(Node other) {
+            for (int i = 0; i < moves.length; i++) {
+                visits[i] += other.visits[i];
+                values[i] += other.values[i];
+            }
+            totalVisits += other.totalVisits;
+        }
+
+        /**
+         * Return the index of the most visited move (the first such move if there is a tie).
+         */
+        synchronized int mostVisited() {
+            int best = 0;
+            for (int i = 1; i < moves.length; i++) {
+                if (visits[i] > visits[best]) {
+                    best = i;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Return the line of play following the most visited move from each decision.
+         */
+        List<MazeEdge> principalVariation() {
+            List<MazeEdge> line = new ArrayList<>();
+            for (Node node = this; node != null && node.moves.length > 0; ) {
+                int i = node.mostVisited();
+                if (node.visits[i] == 0) {
+                    break;
+                }
+                line.add(node.moves[i]);
+                node = node.children[i];
+            }
+            return line;
+        }
+    }
+
+    /**
+     * The PacMann of a rollout's game, which plays moves chosen by the search tree while it is in
+     * the tree, and random moves after leaving it, preferring edges that lead to an item and not
+     * turning back.
+     */
+    private static final class Rollout extends PacMann {
+
+        private final SplittableRandom rng;
+        private final double[] itemDistances;
+
+        /**
+         * The decision the next move is chosen by, or null after leaving the tree.
+         */
+        private Node node;
+
+        /**
+         * The decisions made in the tree, and the moves chosen at them.
+         */
+        private final List<Node> path = new ArrayList<>();
+        private int[] pathMoves = new int[8];
+
+        Rollout(GameModel model, PacMann original, Node root, SplittableRandom rng,
+                double[] itemDistances) {
+            super(model, original);
+            node = root;
+            this.rng = rng;
+            this.itemDistances = itemDistances;
+        }
+
+        /**
+         * Construct a copy of `original` in `model`, a fork of the original's model, that continues
+         * from the same decision with a generator split from the original's.  The copy shares the
+         * search tree, so playing it also counts its visits there.
+         */
+        private Rollout(GameModel model, Rollout original) {
+            super(model, original);
+            node = original.node;
+            rng = original.rng.split();
+            itemDistances = original.itemDistances;
+            path.addAll(original.path);
+            pathMoves = original.pathMoves.clone();
+        }
+
+        @Override
+        public Rollout forkFor(GameModel model) {
+            return new Rollout(model, this);
+        }
+
+        /**
+         * Play `sim`, this PacMann's game, until PacMann is caught, the game ends, or `HORIZON` ms
+         * have passed, and return the value of the outcome, between 0 and 1.
+         */
+        double play(GameModel sim) {
+            int scoreBefore = sim.score();
+            int livesBefore = sim.numLives();
+            sim.updateActors(HORIZON);
+            if (sim.numLives() < livesBefore) {
+                return 0;
+            }
+            if (sim.state() == GameState.VICTORY) {
+                return 1;
+            }
+            double gain = sim.score() - scoreBefore;
+            double distance = itemDistances[nearestVertex().id()];
+            return 0.25 + 0.5 * gain / (gain + HALF_GAIN) + 0.25 / (1 + distance);
+        }
+
+        /**
+         * Add `value` to the statistics of the moves this rollout chose in the tree.
+         */
+        void backPropagate(double value) {
+            for (int k = 0; k < path.size(); k++) {
+                path.get(k).update(pathMoves[k], value);
+            }
+        }
+
+        @Override
+        public MazeEdge nextEdge() {
+            if (node != null) {
+                int i = node.select();
+                if (path.size() == pathMoves.length) {
+                    pathMoves = Arrays.copyOf(pathMoves, 2 * pathMoves.length);
+                }
+                pathMoves[path.size()] = i;
+                path.add(node);
+                MazeEdge move = node.moves[i];
+                node = node.next(i);
+                return move;
+            }
+            return randomMove();
+        }
+
+        /**
+         * Return a random edge from PacMann's vertex, preferring edges leading to an item, and
+         * otherwise edges that do not turn back.
+         */
+        private MazeEdge randomMove() {
+            MazeVertex v = nearestVertex();
+            MazeEdge back = currentEdge().reverse();
+            MazeEdge[] candidates = new MazeEdge[4];
+            int count = 0;
+            int forward = 0;
+            for (Direction d : Direction.values()) {
+                MazeEdge e = v.edgeInDirection(d);
+                if (e == null) {
+                    continue;
+                }
+                if (model.itemAt(e.dst()) != GameModel.Item.NONE) {
+                    // Move items to the front
+                    candidates[count] = candidates[forward];
+                    candidates[forward] = e;
+                    forward += 1;
+                    count += 1;
+                } else if (!e.equals(back)) {
+                    candidates[count] = e;
+                    count += 1;
+                }
+            }
+            if (forward > 0) {
+                return candidates[rng.nextInt(forward)];
+            }
+            return (count > 0) ? candidates[rng.nextInt(count)] : back;
+        }
+    }
+}
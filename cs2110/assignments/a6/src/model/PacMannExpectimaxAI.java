@@ -0,0 +1,439 @@
+package model;
+
+import model.GameModel.GameState;
+import model.MazeGraph.MazeEdge;
+import model.MazeGraph.MazeVertex;
+import util.CopyableRandom;
+import util.Randomness;
+
+/**
+ * A PacMann that chooses each edge by a depth-limited expectimax search over forks of its game
+ * (see `GameModel.fork()`).  Each level of the search is one of PacMann's moves: the game is
+ * played forward until he reaches the end of the edge he chose, scoring the points he gained, and
+ * ending the line if he is caught or wins.  Beyond the search depth, positions are scored by how
+ * far PacMann is from the nearest item.  The ghosts play as in the real game, except that
+ * `Clyde`'s random targets are a chance node: when Clyde picks a random target during a move, the
+ * move is played once for each quadrant of the board, with Clyde targeting its center, and the
+ * outcomes are averaged.
+ * <p>
+ * Search results are kept in a fixed-size `TranspositionTable` keyed by a Zobrist hash of the
+ * game state (each actor's edge and bucketed progress, each ghost's state and bucketed timer,
+ * and the set of remaining items), so positions reached by different orders of moves, or again
+ * at a later decision, are only searched once.  The search deepens iteratively, one move at a
+ * time, until it reaches its maximum depth or its per-decision wall-clock deadline passes, and
+ * then takes the best move of the deepest completed search.  Searches limited only by depth make
+ * the same decisions in the same situations, so seeded games are reproducible.
+ */
+public class PacMannExpectimaxAI extends PacMann {
+
+    /**
+     * The default maximum search depth [moves].
+     */
+    public static final int DEFAULT_DEPTH = 3;
+
+    /**
+     * The default capacity of the transposition table, as a power of 2.
+     */
+    static final int DEFAULT_TABLE_BITS = 16;
+
+    /**
+     * The value of being caught, and of winning [points].
+     */
+    private static final double CAUGHT = -1000;
+    private static final double VICTORY = 1000;
+
+    /**
+     * The points a position loses per edge between PacMann and the nearest item.
+     */
+    private static final double ITEM_DISTANCE_PENALTY = 5;
+
+    /**
+     * The number of buckets an edge's progress is divided into, and the length of the buckets
+     * that ghost timers are divided into [ms], when hashing a state.
+     */
+    private static final int PROGRESS_BUCKETS = 8;
+    private static final double TIMER_BUCKET = 1000;
+
+    /**
+     * The number of outcomes of Clyde's random targeting (the quadrants of the board).
+     */
+    private static final int CHANCE_OUTCOMES = 4;
+
+    /**
+     * Thrown (without a stack trace) to abandon a search whose deadline has passed.
+     */
+    private static final RuntimeException DEADLINE_PASSED =
+            new RuntimeException("Search deadline passed", null, false, false) {
+            };
+
+    /**
+     * The results of earlier searches.
+     */
+    private final TranspositionTable table;
+
+    /**
+     * The maximum search depth, and the wall-clock budget per decision [ns] (or Long.MAX_VALUE
+     * for none).
+     */
+    private int maxDepth;
+    private long budgetNanos;
+
+    /**
+     * The deadline of the current search, in `System.nanoTime()` terms.
+     */
+    private long deadline;
+
+    /**
+     * The number of edges between each vertex and the nearest item, as of the current decision.
+     */
+    private double[] itemDistances;
+
+    /**
+     * The search statistics accumulated over this PacMann's decisions.
+     */
+    private long decisions;
+    private long nodes;
+    private long depthsCompleted;
+    private long searchNanos;
+
+    /**
+     * Construct a PacMannExpectimaxAI in `model`, searching to `DEFAULT_DEPTH` moves with no
+     * wall-clock budget.
+     */
+    public PacMannExpectimaxAI(GameModel model) {
+        super(model);
+        table = new TranspositionTable(DEFAULT_TABLE_BITS);
+        maxDepth = DEFAULT_DEPTH;
+        budgetNanos = Long.MAX_VALUE;
+    }
+
+    /**
+     * Construct a copy of `original` in `model`, a fork of the original's model, with the same
+     * settings and an empty transposition table.  Its statistics start from zero.
+     */
+    private PacMannExpectimaxAI(GameModel model, PacMannExpectimaxAI original) {
+        super(model, original);
+        table = new TranspositionTable(Integer.numberOfTrailingZeros(original.table.capacity()));
+        maxDepth = original.maxDepth;
+        budgetNanos = original.budgetNanos;
+    }
+
+    @Override
+    public PacMannExpectimaxAI forkFor(GameModel model) {
+        return new PacMannExpectimaxAI(model, this);
+    }
+
+    /**
+     * Limit each decision to searching `maxDepth` moves ahead and to `budgetMillis` ms of
+     * wall-clock time (which may be infinite).  A search one move deep is always completed.
+     * Requires `1 <= maxDepth <= 100` and `budgetMillis > 0`.
+     */
+    public void setBudget(int maxDepth, double budgetMillis) {
+        if (maxDepth < 1 || maxDepth > 100 || !(budgetMillis > 0)) {
+            throw new IllegalArgumentException("Search budget must be positive");
+        }
+        this.maxDepth = maxDepth;
+        budgetNanos = (budgetMillis >= Long.MAX_VALUE / 1e6) ? Long.MAX_VALUE
+                : (long) (budgetMillis * 1e6);
+    }
+
+    /**
+     * Return the number of decisions this PacMann has searched for.
+     */
+    public long decisions() {
+        return decisions;
+    }
+
+    /**
+     * Return the number of positions this PacMann has searched (including those whose values were
+     * found in the transposition table).
+     */
+    public long nodes() {
+        return nodes;
+    }
+
+    /**
+     * Return the mean depth of the deepest search completed per decision, or 0 if this PacMann has
+     * not searched yet.
+     */
+    public double meanDepth() {
+        return (decisions == 0) ? 0 : (double) depthsCompleted / decisions;
+    }
+
+    /**
+     * Return the fraction of transposition table lookups that found their position.
+     */
+    public double tableHitRate() {
+        return (table.probes() == 0) ? 0 : (double) table.hits() / table.probes();
+    }
+
+    /**
+     * Return the total wall-clock time this PacMann has spent searching [ns].
+     */
+    public long searchNanos() {
+        return searchNanos;
+    }
+
+    /**
+     * Search for and return the edge PacMann should traverse next from his current vertex.
+     */
+    @Override
+    public MazeEdge nextEdge() {
+        long start = System.nanoTime();
+        deadline = (budgetNanos == Long.MAX_VALUE) ? Long.MAX_VALUE : start + budgetNanos;
+        itemDistances = itemDistances();
+        table.newSearch();
+
+        GameModel root = model.fork(m -> new Scripted(m, this, null));
+        long itemsHash = itemsHash(root);
+        MazeEdge[] moves = movesFrom(nearestVertex());
+        int best = 0;
+        int completed = 0;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            try {
+                best = searchRoot(root, itemsHash, moves, depth, best);
+                completed = depth;
+            } catch (RuntimeException e) {
+                if (e != DEADLINE_PASSED) {
+                    throw e;
+                }
+                break;
+            }
+        }
+
+        decisions += 1;
+        depthsCompleted += completed;
+        searchNanos += System.nanoTime() - start;
+        return moves[best];
+    }
+
+    /**
+     * Return the index in `moves` of the best move from `root` when searching `depth` moves ahead,
+     * trying move `first` (the best move of a shallower search) first.
+     */
+    private int searchRoot(GameModel root, long itemsHash, MazeEdge[] moves, int depth,
+            int first) {
+        int best = first;
+        double bestValue = moveValue(root, itemsHash, moves[first], depth);
+        for (int i = 0; i < moves.length; i++) {
+            if (i == first) {
+                continue;
+            }
+            double value = moveValue(root, itemsHash, moves[i], depth);
+            if (value > bestValue) {
+                best = i;
+                bestValue = value;
+            }
+        }
+        table.store(hash(root, itemsHash), depth, bestValue, best);
+        return best;
+    }
+
+    /**
+     * Return the value of the position `state`, in which PacMann is waiting at a vertex to choose
+     * his next move and whose remaining items hash to `itemsHash`, searching `depth` moves ahead.
+     */
+    private double value(GameModel state, long itemsHash, int depth) {
+        nodes += 1;
+        if (depth == 0) {
+            double distance = itemDistances[state.pacMann().nearestVertex().id()];
+            return -ITEM_DISTANCE_PENALTY * Math.min(distance, itemDistances.length);
+        }
+        if (System.nanoTime() >= deadline) {
+            throw DEADLINE_PASSED;
+        }
+
+        long key = hash(state, itemsHash);
+        int entry = table.find(key);
+        int first = 0;
+        if (entry >= 0) {
+            if (table.depth(entry) >= depth) {
+                return table.value(entry);
+            }
+            first = table.move(entry);
+        }
+
+        MazeEdge[] moves = movesFrom(state.pacMann().nearestVertex());
+        first = Math.min(first, moves.length - 1);
+        int best = first;
+        double bestValue = moveValue(state, itemsHash, moves[first], depth);
+        for (int i = 0; i < moves.length; i++) {
+            if (i != first) {
+                double value = moveValue(state, itemsHash, moves[i], depth);
+                if (value > bestValue) {
+                    best = i;
+                    bestValue = value;
+                }
+            }
+        }
+        table.store(key, depth, bestValue, best);
+        return bestValue;
+    }
+
+    /**
+     * Return the expected value of PacMann taking `move` from the position `state`, searching
+     * `depth` moves ahead (including this one).  If Clyde picks a random target during the move,
+     * this averages over the quadrant Clyde targets.
+     */
+    private double moveValue(GameModel state, long itemsHash, MazeEdge move, int depth) {
+        double total = 0;
+        for (int outcome = 0; outcome < CHANCE_OUTCOMES; outcome++) {
+            GameModel next = state.fork(m -> new Scripted(m, state.pacMann(), move));
+            boolean[] consulted = new boolean[1];
+            for (int k = 0; k < next.numGhosts(); k++) {
+                if (next.ghost(k) instanceof Clyde clyde) {
+                    clyde.setRandom(new ChanceRandom(outcome, consulted));
+                }
+            }
+
+            int scoreBefore = next.score();
+            int livesBefore = next.numLives();
+            int itemsBefore = next.itemsRemaining();
+            double value = play(next, livesBefore);
+            if (!Double.isNaN(value)) {
+                total += value;
+            } else {
+                long nextItems = itemsHash;
+                if (next.itemsRemaining() < itemsBefore) {
+                    nextItems ^= itemKey(move.dst().id());
+                }
+                total += (next.score() - scoreBefore) + value(next, nextItems, depth - 1);
+            }
+            if (!consulted[0]) {
+                // Clyde made no random choice, so every outcome is the same
+                return total;
+            }
+        }
+        return total / CHANCE_OUTCOMES;
+    }
+
+    /**
+     * Play `state` until its PacMann, who has been given his move, reaches the end of it, and
+     * return NaN; or, if the game ends first or PacMann is caught (losing one of `livesBefore`
+     * lives), return the value of that outcome, including the points gained.
+     */
+    private static double play(GameModel state, int livesBefore) {
+        int scoreBefore = state.score();
+        Scripted player = (Scripted) state.pacMann();
+        while (true) {
+            double remaining = (player.move != null) ? player.move.weight() / player.baseSpeed()
+                    : (1 - player.progress()) * player.currentEdge().weight() / player.baseSpeed();
+            state.updateActors(remaining);
+            if (state.numLives() < livesBefore) {
+                return CAUGHT;
+            }
+            if (state.state() == GameState.VICTORY) {
+                return VICTORY + (state.score() - scoreBefore);
+            }
+            if (player.move == null && player.atVertex()) {
+                return Double.NaN;
+            }
+        }
+    }
+
+    /**
+     * Return the Zobrist hash of `state`, whose remaining items hash to `itemsHash`.
+     */
+    private static long hash(GameModel state, long itemsHash) {
+        long h = itemsHash;
+        ActorStore store = state.actorStore();
+        for (int slot = 0; slot < store.size(); slot++) {
+            MazeEdge e = store.edge(slot);
+            long feature = ((long) slot << 40)
+                    ^ ((long) (e.src().id() * 4 + e.direction().ordinal()) << 8)
+                    ^ Math.min((int) (store.progress(slot) * PROGRESS_BUCKETS),
+                    PROGRESS_BUCKETS - 1);
+            if (slot > 0) {
+                Ghost g = state.ghost(slot - 1);
+                double timer = Math.max(g.waitTimeRemaining(), g.fleeTimeRemaining());
+                feature ^= ((long) store.ghostState(slot) << 4)
+                        ^ ((long) Math.min((int) (timer / TIMER_BUCKET), 255) << 56);
+            }
+            h ^= Randomness.mix(feature * 0x9E3779B97F4A7C15L + 1);
+        }
+        return h;
+    }
+
+    /**
+     * Return the Zobrist hash of the items remaining in `state`.
+     */
+    private static long itemsHash(GameModel state) {
+        long h = 0;
+        for (int id = state.nextItemVertex(0); id >= 0; id = state.nextItemVertex(id + 1)) {
+            h ^= itemKey(id);
+        }
+        return h;
+    }
+
+    /**
+     * Return the Zobrist key of an item on the vertex with id `vertexId`.  Zobrist keys are derived
+     * by mixing the index of their feature, rather than stored in tables, so they cost no memory.
+     */
+    private static long itemKey(int vertexId) {
+        return Randomness.mix(vertexId * 0xC2B2AE3D27D4EB4FL + 2);
+    }
+
+    /**
+     * The PacMann of a searched position, who takes the move he was given (if any) and then waits
+     * at the vertex it leads to.
+     */
+    private static final class Scripted extends PacMann {
+
+        /**
+         * The move to take next, or null once it has been taken.
+         */
+        private MazeEdge move;
+
+        Scripted(GameModel model, PacMann original, MazeEdge move) {
+            super(model, original);
+            this.move = move;
+        }
+
+        @Override
+        public Scripted forkFor(GameModel model) {
+            return new Scripted(model, this, null);
+        }
+
+        @Override
+        public MazeEdge nextEdge() {
+            MazeEdge e = move;
+            move = null;
+            return e;
+        }
+    }
+
+    /**
+     * Clyde's random number generator in a searched position, which makes every random target
+     * the center of one quadrant of the board (Clyde draws a column, then a row), and notes that
+     * Clyde consulted it.
+     */
+    private static final class ChanceRandom extends CopyableRandom {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int outcome;
+        private final boolean[] consulted;
+        private boolean drawingRow;
+
+        ChanceRandom(int outcome, boolean[] consulted) {
+            super(0);
+            this.outcome = outcome;
+            this.consulted = consulted;
+        }
+
+        @Override
+        public int nextInt(int bound) {
+            consulted[0] = true;
+            int half = drawingRow ? outcome / 2 : outcome % 2;
+            drawingRow = !drawingRow;
+            return (2 * half + 1) * bound / 4;
+        }
+
+        @Override
+        public ChanceRandom copy() {
+            ChanceRandom copy = new ChanceRandom(outcome, consulted);
+            copy.drawingRow = drawingRow;
+            return copy;
+        }
+    }
+}
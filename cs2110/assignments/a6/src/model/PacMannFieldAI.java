@@ -0,0 +1,216 @@
+package model;
+
+import model.Ghost.GhostState;
+import model.MazeGraph.Direction;
+import model.MazeGraph.MazeEdge;
+import model.MazeGraph.MazeVertex;
+
+/**
+ * A lightweight PacMann that chooses each edge by reading two fields over the maze graph rather
+ * than by searching: the earliest time at which any chasing ghost could reach each vertex (the
+ * "danger" field), and the cost of reaching the nearest item from each vertex (the game's
+ * `NearestDotIndex`).  Among the edges that leave him time to spare at their far vertex and one
+ * vertex beyond, and that no ghost is coming along head-on, he takes the one closest to an item;
+ * if none is safe, he takes the one with the most time to spare.
+ * <p>
+ * The danger field is a multi-source Dijkstra search seeded with each chasing ghost at the end
+ * of its current edge, at the time it will get there, paying its ms per unit of edge weight (from
+ * `Ghost.baseSpeed()`), up to `DANGER_HORIZON` ms ahead.  Since its values are absolute game
+ * times, they stay correct while the ghosts move along their edges, so only the neighborhoods of
+ * the ghosts that started a new edge or changed state since the last decision are searched again
+ * (see `ArrivalField`).
+ */
+public class PacMannFieldAI extends PacMann {
+
+    /**
+     * The time to spare [ms] at the vertices an edge leads to for it to count as safe.
+     */
+    static final double SAFE_MARGIN = 100;
+
+    /**
+     * How far ahead of the current time [ms] the danger field is searched.  PacMann only looks two
+     * edges ahead (at most 700 ms), and a chasing ghost is seeded again whenever it starts an
+     * edge (at most 350 ms apart), so arrivals later than this never decide whether an edge is
+     * safe.
+     */
+    static final double DANGER_HORIZON = 1500;
+
+    /**
+     * All directions, cached to avoid cloning `Direction.values()`.
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * The earliest time at which a chasing ghost could reach each vertex (sources are ghosts,
+     * numbered from 0 in the order of the model's actors).  Null until the first decision, or
+     * after the graph has changed.
+     */
+    private ArrivalField danger;
+
+    /**
+     * The edge and state of each ghost when it was last seeded into `danger`.
+     */
+    private MazeEdge[] seededEdges;
+    private GhostState[] seededStates;
+
+    /**
+     * The version of the graph the fields were built for.
+     */
+    private int graphVersion;
+
+    /**
+     * Decision statistics accumulated over this PacMann's decisions.
+     */
+    private long decisions;
+    private long decisionNanos;
+
+    /**
+     * Construct a PacMannFieldAI in `model`.
+     */
+    public PacMannFieldAI(GameModel model) {
+        super(model);
+    }
+
+    /**
+     * Construct a copy of `original` in `model`, a fork of the original's model, with a copy of
+     * its danger field.  Its statistics start from zero.
+     */
+    private PacMannFieldAI(GameModel model, PacMannFieldAI original) {
+        super(model, original);
+        if (original.danger != null) {
+            danger = original.danger.copy();
+            seededEdges = original.seededEdges.clone();
+            seededStates = original.seededStates.clone();
+            graphVersion = original.graphVersion;
+        }
+    }
+
+    @Override
+    public PacMannFieldAI forkFor(GameModel model) {
+        return new PacMannFieldAI(model, this);
+    }
+
+    /**
+     * Return the number of decisions this PacMann has made.
+     */
+    public long decisions() {
+        return decisions;
+    }
+
+    /**
+     * Return the total wall-clock time this PacMann has spent deciding [ns], including updating
+     * its danger field.
+     */
+    public long decisionNanos() {
+        return decisionNanos;
+    }
+
+    /**
+     * Return the edge leaving PacMann's vertex that is closest to an item among those that are
+     * safe, or the safest edge if none is.
+     */
+    @Override
+    public MazeEdge nextEdge() {
+        long start = System.nanoTime();
+        updateDanger();
+        NearestDotIndex items = model.nearestDots();
+
+        MazeVertex v = nearestVertex();
+        double msPerWeight = 1 / baseSpeed();
+        MazeEdge best = null;
+        boolean bestSafe = false;
+        double bestSpare = Double.NEGATIVE_INFINITY;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for (Direction d : DIRECTIONS) {
+            MazeEdge e = v.edgeInDirection(d);
+            if (e == null) {
+                continue;
+            }
+            double spare = spareTime(e, msPerWeight);
+            double cost = e.weight() + items.distance(e.dst());
+            boolean safe = spare >= SAFE_MARGIN;
+            boolean better;
+            if (safe != bestSafe) {
+                better = safe;
+            } else if (safe) {
+                better = cost < bestCost || (cost == bestCost && spare > bestSpare);
+            } else {
+                better = spare > bestSpare;
+            }
+            if (best == null || better) {
+                best = e;
+                bestSafe = safe;
+                bestSpare = spare;
+                bestCost = cost;
+            }
+        }
+
+        decisions += 1;
+        decisionNanos += System.nanoTime() - start;
+        return best;
+    }
+
+    /**
+     * Return how much time [ms] PacMann would have to spare before the nearest chasing ghost if he
+     * took `e`: the least of the spare time at its far vertex and the most spare time at any vertex
+     * one edge beyond, or negative infinity if a chasing ghost is coming along `e` towards him.
+     */
+    private double spareTime(MazeEdge e, double msPerWeight) {
+        MazeEdge reverse = e.reverse();
+        for (int k = 0; k < model.numGhosts(); k++) {
+            Ghost g = model.ghost(k);
+            if (g.state() == GhostState.CHASE && g.currentEdge() == reverse) {
+                return Double.NEGATIVE_INFINITY;
+            }
+        }
+
+        double arrival = model.time() + e.weight() * msPerWeight;
+        MazeVertex w = e.dst();
+        double spare = danger.value(w.id()) - arrival;
+        double escape = Double.NEGATIVE_INFINITY;
+        for (Direction d : DIRECTIONS) {
+            MazeEdge next = w.edgeInDirection(d);
+            if (next != null) {
+                escape = Math.max(escape,
+                        danger.value(next.dst().id()) - (arrival + next.weight() * msPerWeight));
+            }
+        }
+        return Math.min(spare, escape);
+    }
+
+    /**
+     * Bring the danger field up to date with the ghosts, rebuilding it if the graph has changed.
+     */
+    private void updateDanger() {
+        MazeGraph graph = model.graph();
+        int numGhosts = model.numGhosts();
+        if (danger == null || danger.graph() != graph || graphVersion != graph.version()
+                || seededEdges.length != numGhosts) {
+            danger = new ArrivalField(graph, numGhosts, false);
+            seededEdges = new MazeEdge[numGhosts];
+            seededStates = new GhostState[numGhosts];
+            graphVersion = graph.version();
+        }
+
+        // Only ghosts that started a new edge or changed state need to be seeded again
+        for (int k = 0; k < numGhosts; k++) {
+            Ghost g = model.ghost(k);
+            MazeEdge edge = g.currentEdge();
+            GhostState state = g.state();
+            if (edge == seededEdges[k] && state == seededStates[k]) {
+                continue;
+            }
+            seededEdges[k] = edge;
+            seededStates[k] = state;
+            if (state == GhostState.CHASE) {
+                double msPerWeight = 1 / g.baseSpeed();
+                double arrival = model.time() + (1 - g.progress()) * edge.weight() * msPerWeight;
+                danger.setSource(k, edge.dst().id(), arrival, msPerWeight);
+            } else {
+                danger.clearSource(k);
+            }
+        }
+        danger.setLimit(model.time() + DANGER_HORIZON);
+        danger.repair();
+    }
+}
@@ -18,6 +18,19 @@ public class PacMannManual extends PacMann {
         super(model);  // Call the constructor of the superclass (PacMann)
     }
 
+    /**
+     * Constructs a copy of `original` in `model`, a fork of the original's model.  Player input
+     * is read from the model, so the copy follows the commands given to the fork.
+     */
+    private PacMannManual(GameModel model, PacMannManual original) {
+        super(model, original);
+    }
+
+    @Override
+    public PacMannManual forkFor(GameModel model) {
+        return new PacMannManual(model, this);
+    }
+
     /**
      * Determines the next edge for PacMann to traverse based on player input. First tries to move
      * in the direction of the most recent player command. If that's not possible, tries to continue
@@ -0,0 +1,70 @@
+package model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * One phase of a game step (for example, propagating every actor) applied to a range of actor
+ * slots on a fork/join pool.  The range is split in halves until each piece holds at most `GRAIN`
+ * slots, which are processed in order by one worker.  The body must only touch the state of the
+ * slot it is given (and thread-safe shared state), so that the result does not depend on how the
+ * slots are scheduled.
+ */
+class ParallelPhase extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The most slots processed by a single task.  Phases over fewer slots than this are not worth
+     * forking and run on the calling thread.
+     */
+    static final int GRAIN = 16;
+
+    /**
+     * The work to do for each slot.  Tasks are never serialized, so it need not be serializable.
+     */
+    private final transient IntConsumer body;
+
+    /**
+     * The slots `[from..to)` processed by this task.
+     */
+    private final int from;
+    private final int to;
+
+    /**
+     * Create a task applying `body` to each slot in `[from..to)`.
+     */
+    private ParallelPhase(IntConsumer body, int from, int to) {
+        this.body = body;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Apply `body` to each slot in `[from..to)`, on `pool` if it is not null and there are enough
+     * slots to be worth splitting, and otherwise in order on the calling thread.  Returns once
+     * every slot has been processed (a barrier); an exception thrown by `body` is rethrown.
+     */
+    static void run(ForkJoinPool pool, int from, int to, IntConsumer body) {
+        if (pool == null || to - from <= GRAIN) {
+            for (int k = from; k < to; k++) {
+                body.accept(k);
+            }
+        } else {
+            pool.invoke(new ParallelPhase(body, from, to));
+        }
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= GRAIN) {
+            for (int k = from; k < to; k++) {
+                body.accept(k);
+            }
+        } else {
+            int mid = (from + to) >>> 1;
+            invokeAll(new ParallelPhase(body, from, mid), new ParallelPhase(body, mid, to));
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package model;
+
+import graph.IndexMinPQueue;
+import graph.Pathfinding;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import model.MazeGraph.MazeEdge;
+import model.MazeGraph.MazeVertex;
+import util.MazeGenerator.TileType;
+
+/**
+ * A thread-safe cache of the shortest non-backtracking paths in a `MazeGraph`, so that ghosts
+ * planning from the same vertex and edge towards the same target (which is common when many
+ * ghosts chase PacMann, possibly in several games sharing a graph) search for their path only
+ * once.  Paths are keyed by their start vertex, previous edge, and destination.  When the graph's
+ * tiles change, only the paths that may have changed are forgotten: those using a removed edge
+ * (found through an index of the paths using each edge), and, when a tile is opened, those whose
+ * start is no farther from the new vertex than their destination (found by one search from the
+ * new vertex, which goes no farther than the longest path cached).
+ */
+public class PathCache implements MazeGraph.ChangeListener {
+
+    /**
+     * Once this many paths are cached, the cache is cleared before adding another, bounding its
+     * memory use.
+     */
+    private static final int CAPACITY = 1 << 16;
+
+    /**
+     * Stands for the absence of a path in `paths`, which cannot hold null values.  It is compared
+     * by identity, so it must be a list that no cached path (not even an empty one) can be.
+     */
+    private static final List<MazeEdge> NO_PATH = Collections.unmodifiableList(new ArrayList<>());
+
+    /**
+     * The margin [weight] by which a new vertex must be farther from a path's start than the
+     * path's destination for the path to be kept, covering rounding in the sums of weights.
+     */
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * The graph whose paths are cached.
+     */
+    private final MazeGraph graph;
+
+    /**
+     * The cached paths, keyed by `key()`.  The paths are unmodifiable.
+     */
+    private final ConcurrentHashMap<Long, List<MazeEdge>> paths = new ConcurrentHashMap<>();
+
+    /**
+     * The keys of the cached paths using each undirected edge (see
+     * `EdgeOccupancy.undirectedId()`).  Kept only while the graph may change, since the paths of a
+     * frozen graph are never forgotten.  Keys of paths that have since been forgotten or replaced
+     * may linger, which at worst forgets a path needlessly.
+     */
+    private final ConcurrentHashMap<Integer, Set<Long>> keysByEdge = new ConcurrentHashMap<>();
+
+    /**
+     * Create an empty cache of paths in `graph`, which will be notified of changes to the graph.
+     */
+    PathCache(MazeGraph graph) {
+        this.graph = graph;
+        graph.addChangeListener(this);
+    }
+
+    /**
+     * Return an unmodifiable list of the edges of the shortest non-backtracking path from `src` to
+     * `dst` whose first edge does not backtrack `previousEdge` (which may be null), or null if
+     * there is no such path.  This is the path found by
+     * `Pathfinding.shortestNonBacktrackingPath()`.
+     */
+    public List<MazeEdge> shortestNonBacktrackingPath(MazeVertex src, MazeVertex dst,
+            MazeEdge previousEdge) {
+        Long key = key(src, dst, previousEdge);
+        List<MazeEdge> path = paths.get(key);
+        if (path == null) {
+            List<MazeEdge> found = Pathfinding.shortestNonBacktrackingPath(src, dst, previousEdge);
+            path = (found == null) ? NO_PATH : List.copyOf(found);
+            if (paths.size() >= CAPACITY) {
+                paths.clear();
+                keysByEdge.clear();
+            }
+            paths.put(key, path);
+            if (!graph.isFrozen()) {
+                for (MazeEdge e : path) {
+                    keysByEdge.computeIfAbsent(EdgeOccupancy.undirectedId(e),
+                            id -> ConcurrentHashMap.newKeySet()).add(key);
+                }
+            }
+        }
+        return path == NO_PATH ? null : path;
+    }
+
+    /**
+     * Return the number of paths currently cached.
+     */
+    public int size() {
+        return paths.size();
+    }
+
+    /**
+     * Forget the cached paths that may have changed because of a change to the graph's tiles.
+     * Removing edges only invalidates the paths that use them (a missing path stays missing).
+     * Every edge added leaves or enters the new vertex, and a search only changes if it settles
+     * that vertex before its destination, which requires the vertex to be no farther from the
+     * search's start than its destination is; a missing path may appear.
+     */
+    @Override
+    public void tileChanged(MazeGraph graph, MazeGraph.IPair loc, TileType type,
+            List<MazeEdge> removed, List<MazeEdge> added) {
+        for (MazeEdge e : removed) {
+            Set<Long> keys = keysByEdge.remove(EdgeOccupancy.undirectedId(e));
+            if (keys != null) {
+                for (Long key : keys) {
+                    paths.remove(key);
+                }
+            }
+        }
+        if (added.isEmpty()) {
+            return;
+        }
+
+        double longest = 0;
+        for (List<MazeEdge> path : paths.values()) {
+            if (path != NO_PATH) {
+                longest = Math.max(longest, cost(path));
+            }
+        }
+        // The first edge added leaves the new vertex
+        double[] toNew = distancesTo(added.getFirst().src(), longest);
+        paths.entrySet().removeIf(entry -> entry.getValue() == NO_PATH
+                || !(toNew[sourceId(entry.getKey())] > cost(entry.getValue()) + EPSILON));
+    }
+
+    /**
+     * Return the total weight of the edges of `path`, summed in order as a search sums them.
+     */
+    private static double cost(List<MazeEdge> path) {
+        double cost = 0;
+        for (MazeEdge e : path) {
+            cost += e.weight();
+        }
+        return cost;
+    }
+
+    /**
+     * Return the distance from each vertex of the graph to `v`, indexed by vertex id, as found by
+     * a search backwards from `v` that stops once `limit` is exceeded.  The distances of the
+     * vertices it does not settle are only known to exceed `limit`.
+     */
+    private double[] distancesTo(MazeVertex v, double limit) {
+        double[] dist = new double[graph.vertexCount()];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        boolean[] settled = new boolean[dist.length];
+        IndexMinPQueue frontier = new IndexMinPQueue(dist.length);
+        dist[v.id()] = 0;
+        frontier.addOrUpdate(v.id(), 0);
+        while (!frontier.isEmpty() && frontier.minPriority() <= limit) {
+            int u = frontier.remove();
+            settled[u] = true;
+            // Edges come in opposing pairs, so the edges entering `u` reverse those leaving it
+            for (MazeEdge out : graph.vertex(u).outgoingEdges()) {
+                MazeEdge in = out.reverse();
+                int w = in.src().id();
+                double dw = dist[u] + in.weight();
+                if (!settled[w] && dw < dist[w]) {
+                    dist[w] = dw;
+                    frontier.addOrUpdate(w, dw);
+                }
+            }
+        }
+        return dist;
+    }
+
+    /**
+     * Return the key of the path from `src` to `dst` after `previousEdge`.  Vertex ids fit in 28
+     * bits for any maze that fits in memory, and the previous edge is identified by its
+     * direction, since its destination is `src`.
+     */
+    private static Long key(MazeVertex src, MazeVertex dst, MazeEdge previousEdge) {
+        long prev = (previousEdge == null) ? 0 : previousEdge.direction().ordinal() + 1;
+        return ((long) src.id() << 31) ^ ((long) dst.id() << 3) ^ prev;
+    }
+
+    /**
+     * Return the id of the start vertex of the path with key `key`.
+     */
+    private static int sourceId(long key) {
+        return (int) (key >>> 31);
+    }
+}
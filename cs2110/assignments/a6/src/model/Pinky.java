@@ -21,7 +21,19 @@ public class Pinky extends Ghost {
      * @param model the game model that provides access to the maze and PacMann.
      */
     public Pinky(GameModel model) {
-        super(model, java.awt.Color.PINK, 4);
+        super(model, 4);
+    }
+
+    /**
+     * Creates a copy of `original` in `model`, a fork of the original's model.
+     */
+    private Pinky(GameModel model, Pinky original) {
+        super(model, original);
+    }
+
+    @Override
+    public Pinky forkFor(GameModel model) {
+        return new Pinky(model, this);
     }
 
     /**
@@ -33,7 +45,7 @@ public class Pinky extends Ghost {
      */
     @Override
     protected MazeVertex target() {
-        if (state == GhostState.CHASE) {
+        if (state() == GhostState.CHASE) {
             MazeVertex pacVertex = model.pacMann().nearestVertex();
             Direction facing = model.playerCommand();
 
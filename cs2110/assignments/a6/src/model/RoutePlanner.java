@@ -0,0 +1,942 @@
+package model;
+
+import graph.IndexMinPQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import model.MazeGraph.Direction;
+import model.MazeGraph.MazeEdge;
+import model.MazeGraph.MazeVertex;
+
+/**
+ * Plans routes that clear the items from a game's board, treating the job as a travelling salesman
+ * problem over clusters of items.  Most vertices of a maze lie on corridors (chains of vertices
+ * with two edges each) between junctions, and a corridor is best cleared in one pass, so the items
+ * inside each corridor form one cluster, which the route traverses from one end to the other, and
+ * an item on a junction forms a cluster of its own.  Routes then only need distances between
+ * junctions, which are far fewer than vertices.
+ * <p>
+ * Since a route mostly moves between nearby clusters, the junction distance matrix is sparse: each
+ * row holds the `NEIGHBORS` junctions nearest to its junction, found by Dijkstra searches over the
+ * graph of junctions and corridors, which run in parallel.  A route is built by repeatedly moving
+ * to the nearest cluster not yet visited (searching the whole junction graph only when none is in
+ * the current junction's row), and is then improved by Or-opt moves, which move a run of up to
+ * three clusters elsewhere in the route (turning a single corridor around if that helps), until
+ * no move helps or a time budget runs out.  If the budget runs out while the route is still being
+ * built, the clusters not yet visited are appended without searching.  Segments are never
+ * reversed as in 2-opt, since uphill edges cost more than downhill ones, so reversing a segment
+ * would change the cost of every corridor in it.
+ * <p>
+ * Only planning is bounded by the budget, not building the planner, which is linear in the size of
+ * the graph plus one small search per junction.  On a 100x100 board (about 5000 junctions), on one
+ * core, building takes about 8 ms once the JIT has warmed up, but about 100 ms in a fresh JVM.
+ * <p>
+ * A planner describes its graph only while the graph's version is unchanged.  Planning is not
+ * thread-safe, but the routes it returns are immutable.
+ */
+class RoutePlanner {
+
+    /**
+     * The number of junctions in each row of the sparse distance matrix.
+     */
+    static final int NEIGHBORS = 8;
+
+    /**
+     * The number of rows of the distance matrix searched for by each parallel task.
+     */
+    private static final int ROW_BATCH = 256;
+
+    /**
+     * The improvement [weight] below which a move is not worth making.
+     */
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * All directions, cached to avoid cloning `Direction.values()`.
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * The graph this planner covers, and its version when the planner was built.
+     */
+    private final MazeGraph graph;
+    private final int graphVersion;
+
+    /**
+     * The index of each vertex among the junctions (-1 if it is not a junction), and the vertex id
+     * of each junction.
+     */
+    private final int[] junctionOf;
+    private final int[] junctionVertex;
+
+    /**
+     * For each "leg", the corridor leaving junction `leg / 4` in direction `leg % 4`: the junction
+     * it ends at (-1 if there is no such edge), its total weight, and the leg traversing it the
+     * other way.
+     */
+    private final int[] legEnd;
+    private final double[] legWeight;
+    private final int[] legReverse;
+
+    /**
+     * The ids of the vertices inside the corridor of each leg, in order along the leg, for legs
+     * that are the lower-numbered of their pair (`interiorStart` has an extra entry at the end).
+     */
+    private final int[] interiorStart;
+    private final int[] interior;
+
+    /**
+     * The sparse distance matrix: row `j` lists up to `NEIGHBORS` junctions, nearest first, at
+     * `rowTarget[j * NEIGHBORS + i]`, with their distances from junction `j` in `rowDist`.
+     */
+    private final int[] rowLength;
+    private final int[] rowTarget;
+    private final double[] rowDist;
+
+    /**
+     * The time spent building this planner, and the time spent by its latest plan [ns].
+     */
+    private final long buildNanos;
+    private long planNanos;
+
+    /**
+     * Build a planner for `graph`, finding its junctions and corridors and computing the sparse
+     * distance matrix.
+     */
+    RoutePlanner(MazeGraph graph) {
+        long start = System.nanoTime();
+        this.graph = graph;
+        graphVersion = graph.version();
+        int n = graph.vertexCount();
+
+        junctionOf = new int[n];
+        int numJunctions = 0;
+        for (int v = 0; v < n; v++) {
+            junctionOf[v] = (degree(graph.vertex(v)) != 2) ? numJunctions++ : -1;
+        }
+        if (numJunctions == 0 && n > 0) {
+            // A maze that is one big loop still needs somewhere to start
+            junctionOf[0] = numJunctions++;
+        }
+        junctionVertex = new int[numJunctions];
+        for (int v = 0; v < n; v++) {
+            if (junctionOf[v] >= 0) {
+                junctionVertex[junctionOf[v]] = v;
+            }
+        }
+
+        // Walk each corridor once, from its lower-numbered leg, filling in both of its legs
+        int numLegs = 4 * numJunctions;
+        legEnd = new int[numLegs];
+        legWeight = new double[numLegs];
+        legReverse = new int[numLegs];
+        Arrays.fill(legReverse, -1);
+        interiorStart = new int[numLegs + 1];
+        int[] interiorIds = new int[n];
+        int numInterior = 0;
+        for (int leg = 0; leg < numLegs; leg++) {
+            interiorStart[leg] = numInterior;
+            if (legReverse[leg] >= 0) {
+                continue;
+            }
+            MazeEdge e = graph.vertex(junctionVertex[leg / 4]).edgeInDirection(DIRECTIONS[leg % 4]);
+            if (e == null) {
+                legEnd[leg] = -1;
+                continue;
+            }
+            double weight = e.weight();
+            double reverseWeight = e.reverse().weight();
+            while (junctionOf[e.dst().id()] < 0) {
+                interiorIds[numInterior] = e.dst().id();
+                numInterior += 1;
+                e = onward(e);
+                weight += e.weight();
+                reverseWeight += e.reverse().weight();
+            }
+            int reverse = junctionOf[e.dst().id()] * 4 + e.direction().reverse().ordinal();
+            legEnd[leg] = junctionOf[e.dst().id()];
+            legWeight[leg] = weight;
+            legReverse[leg] = reverse;
+            legEnd[reverse] = leg / 4;
+            legWeight[reverse] = reverseWeight;
+            legReverse[reverse] = leg;
+        }
+        interiorStart[numLegs] = numInterior;
+        interior = Arrays.copyOf(interiorIds, numInterior);
+
+        // Rows are independent, so search for them concurrently, in batches sharing scratch space
+        rowLength = new int[numJunctions];
+        rowTarget = new int[numJunctions * NEIGHBORS];
+        rowDist = new double[numJunctions * NEIGHBORS];
+        int numBatches = (numJunctions + ROW_BATCH - 1) / ROW_BATCH;
+        IntStream.range(0, numBatches).parallel().forEach(b -> searchRows(b * ROW_BATCH,
+                Math.min((b + 1) * ROW_BATCH, junctionVertex.length)));
+        buildNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Return whether this planner describes the current version of `graph`.
+     */
+    boolean describes(MazeGraph graph) {
+        return this.graph == graph && graphVersion == graph.version();
+    }
+
+    /**
+     * Return the number of junctions in this planner's graph.
+     */
+    int junctionCount() {
+        return junctionVertex.length;
+    }
+
+    /**
+     * Return the time spent building this planner [ns].
+     */
+    long buildNanos() {
+        return buildNanos;
+    }
+
+    /**
+     * Return the time spent by the latest call to `plan()` [ns].
+     */
+    long planNanos() {
+        return planNanos;
+    }
+
+    /**
+     * Return the number of edges leaving `v`.
+     */
+    private static int degree(MazeVertex v) {
+        int degree = 0;
+        for (Direction d : DIRECTIONS) {
+            if (v.edgeInDirection(d) != null) {
+                degree += 1;
+            }
+        }
+        return degree;
+    }
+
+    /**
+     * Return the edge continuing a corridor after `e`, whose destination has exactly two edges.
+     */
+    private static MazeEdge onward(MazeEdge e) {
+        for (Direction d : DIRECTIONS) {
+            MazeEdge next = e.dst().edgeInDirection(d);
+            if (next != null && d != e.direction().reverse()) {
+                return next;
+            }
+        }
+        throw new IllegalStateException("Corridor has a dead end");
+    }
+
+    /**
+     * Fill rows `[from..to)` of the distance matrix, each with the `NEIGHBORS` junctions nearest to
+     * its junction (including itself), by Dijkstra searches over the junction graph that stop once
+     * they are settled.
+     */
+    private void searchRows(int from, int to) {
+        int numJunctions = junctionVertex.length;
+        IndexMinPQueue frontier = new IndexMinPQueue(numJunctions);
+        double[] dist = new double[numJunctions];
+        // The row whose search last reached each junction, plus 1
+        int[] reachedBy = new int[numJunctions];
+        for (int j = from; j < to; j++) {
+            frontier.clear();
+            frontier.addOrUpdate(j, 0);
+            dist[j] = 0;
+            reachedBy[j] = j + 1;
+            int base = j * NEIGHBORS;
+            int settled = 0;
+            while (settled < NEIGHBORS && !frontier.isEmpty()) {
+                int u = frontier.remove();
+                rowTarget[base + settled] = u;
+                rowDist[base + settled] = dist[u];
+                settled += 1;
+                for (int leg = 4 * u; leg < 4 * u + 4; leg++) {
+                    int w = legEnd[leg];
+                    if (w < 0) {
+                        continue;
+                    }
+                    double dw = dist[u] + legWeight[leg];
+                    if (reachedBy[w] != j + 1 || (frontier.contains(w) && dw < dist[w])) {
+                        reachedBy[w] = j + 1;
+                        dist[w] = dw;
+                        frontier.addOrUpdate(w, dw);
+                    }
+                }
+            }
+            rowLength[j] = settled;
+        }
+    }
+
+    /**
+     * Return the first index in `[from..to)` at which `a` holds `x`, or -1 if there is none.
+     */
+    private static int indexOf(int[] a, int from, int to, int x) {
+        for (int k = from; k < to; k++) {
+            if (a[k] == x) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Return the distance from junction `x` to junction `y` if `y` is in row `x` of the distance
+     * matrix, and infinity otherwise.
+     */
+    private double distance(int x, int y) {
+        int base = x * NEIGHBORS;
+        int k = indexOf(rowTarget, base, base + rowLength[x], y);
+        return (k < 0) ? Double.POSITIVE_INFINITY : rowDist[k];
+    }
+
+    /**
+     * Add to `path` the edges from the end of `e` along its corridor to the junction at its end
+     * (none if `e` ends at a junction), and return that junction.
+     */
+    private int continueToJunction(MazeEdge e, List<MazeEdge> path) {
+        while (junctionOf[e.dst().id()] < 0) {
+            e = onward(e);
+            path.add(e);
+        }
+        return junctionOf[e.dst().id()];
+    }
+
+    /**
+     * Add the edges of `leg` to `path`.
+     */
+    private void addLeg(int leg, List<MazeEdge> path) {
+        MazeEdge e = graph.vertex(junctionVertex[leg / 4]).edgeInDirection(DIRECTIONS[leg % 4]);
+        path.add(e);
+        continueToJunction(e, path);
+    }
+
+    /**
+     * Plan a route that visits every cluster of the items remaining in `model`, starting from the
+     * end of PacMann's corridor, and improve it until `budgetMillis` ms after planning started.
+     * Apart from finding the clusters, which is linear in the size of the graph, planning stops
+     * at that deadline even if the route has not been fully built.  Requires that this planner
+     * describes the model's graph.
+     */
+    Route plan(GameModel model, double budgetMillis) {
+        long start = System.nanoTime();
+        long deadline = start + (long) Math.min(budgetMillis * 1e6, Long.MAX_VALUE / 2);
+        Tour tour = new Tour(model);
+        tour.buildNearestNeighbor(
+                continueToJunction(model.pacMann().currentEdge(), new ArrayList<>()), deadline);
+        double initialLength = tour.length();
+        tour.improve(deadline);
+        Route route = tour.toRoute(initialLength);
+        planNanos = System.nanoTime() - start;
+        return route;
+    }
+
+    /**
+     * The clusters of a board's items, and a route through them being planned.  Each cluster may
+     * be traversed in two orientations (0 and 1); for a corridor, orientation 0 follows its
+     * lower-numbered leg, and for a junction, both are the same.  The route is a linked list
+     * starting at a sentinel cluster (numbered `size`) that stands for PacMann's starting point.
+     */
+    private final class Tour {
+
+        /**
+         * The number of clusters, and the number of them that are corridors (numbered first).
+         */
+        private final int size;
+        private final int numCorridors;
+
+        /**
+         * The lower-numbered leg of each corridor cluster, and the junction of each junction
+         * cluster, indexed by cluster.
+         */
+        private final int[] clusterLeg;
+
+        /**
+         * The entry and exit junctions and traversal cost of each cluster in each orientation,
+         * indexed by `2 * cluster + orientation`.
+         */
+        private final int[] entry;
+        private final int[] exit;
+        private final double[] cost;
+
+        /**
+         * The clusters (as `2 * cluster + orientation`) whose exit is each junction, as lists
+         * `exitsAt[exitsStart[x]..exitsStart[x + 1])`, and likewise for entries.
+         */
+        private final int[] exitsStart;
+        private final int[] exitsAt;
+        private final int[] entriesStart;
+        private final int[] entriesAt;
+
+        /**
+         * For each cluster in the route: its orientation, the clusters before and after it (-1
+         * after the last one), and the distance from the exit of the one before to its entry.
+         */
+        private final byte[] orientation;
+        private final int[] prev;
+        private final int[] next;
+        private final double[] gapIn;
+
+        Tour(GameModel model) {
+            int numLegs = legEnd.length;
+            int corridors = 0;
+            int junctions = 0;
+            for (int leg = 0; leg < numLegs; leg++) {
+                if (legEnd[leg] >= 0 && leg < legReverse[leg] && hasItem(model, leg)) {
+                    corridors += 1;
+                }
+            }
+            for (int v : junctionVertex) {
+                if (model.itemAt(graph.vertex(v)) != GameModel.Item.NONE) {
+                    junctions += 1;
+                }
+            }
+            numCorridors = corridors;
+            size = corridors + junctions;
+
+            clusterLeg = new int[size];
+            entry = new int[2 * size + 2];
+            exit = new int[2 * size + 2];
+            cost = new double[2 * size + 2];
+            int c = 0;
+            for (int leg = 0; leg < numLegs; leg++) {
+                if (legEnd[leg] >= 0 && leg < legReverse[leg] && hasItem(model, leg)) {
+                    clusterLeg[c] = leg;
+                    setOrientation(c, 0, leg / 4, legEnd[leg], legWeight[leg]);
+                    setOrientation(c, 1, legEnd[leg], leg / 4, legWeight[legReverse[leg]]);
+                    c += 1;
+                }
+            }
+            for (int j = 0; j < junctionVertex.length; j++) {
+                if (model.itemAt(graph.vertex(junctionVertex[j])) != GameModel.Item.NONE) {
+                    clusterLeg[c] = j;
+                    setOrientation(c, 0, j, j, 0);
+                    setOrientation(c, 1, j, j, 0);
+                    c += 1;
+                }
+            }
+
+            int numJunctions = junctionVertex.length;
+            exitsStart = new int[numJunctions + 1];
+            entriesStart = new int[numJunctions + 1];
+            exitsAt = new int[2 * size];
+            entriesAt = new int[2 * size];
+            index(exit, exitsStart, exitsAt);
+            index(entry, entriesStart, entriesAt);
+
+            orientation = new byte[size + 1];
+            prev = new int[size + 1];
+            next = new int[size + 1];
+            gapIn = new double[size + 1];
+        }
+
+        /**
+         * Return whether any vertex inside the corridor of `leg` holds an item in `model`.
+         */
+        private boolean hasItem(GameModel model, int leg) {
+            for (int k = interiorStart[leg]; k < interiorStart[leg + 1]; k++) {
+                if (model.itemAt(graph.vertex(interior[k])) != GameModel.Item.NONE) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void setOrientation(int c, int o, int from, int to, double weight) {
+            entry[2 * c + o] = from;
+            exit[2 * c + o] = to;
+            cost[2 * c + o] = weight;
+        }
+
+        /**
+         * Fill `start` and `at` with the lists of cluster orientations whose `junctions` entry is
+         * each junction.  A junction cluster is listed only in orientation 0.
+         */
+        private void index(int[] junctions, int[] start, int[] at) {
+            for (int co = 0; co < 2 * size; co++) {
+                if (co % 2 == 0 || co / 2 < numCorridors) {
+                    start[junctions[co] + 1] += 1;
+                }
+            }
+            for (int x = 0; x < start.length - 1; x++) {
+                start[x + 1] += start[x];
+            }
+            int[] fill = Arrays.copyOf(start, start.length - 1);
+            for (int co = 0; co < 2 * size; co++) {
+                if (co % 2 == 0 || co / 2 < numCorridors) {
+                    at[fill[junctions[co]]] = co;
+                    fill[junctions[co]] += 1;
+                }
+            }
+        }
+
+        private int entryOf(int c) {
+            return entry[2 * c + orientation[c]];
+        }
+
+        private int exitOf(int c) {
+            return exit[2 * c + orientation[c]];
+        }
+
+        private double costOf(int c) {
+            return cost[2 * c + orientation[c]];
+        }
+
+        /**
+         * Build the route by repeatedly going to the nearest cluster not yet visited, starting
+         * from junction `from`.  If `deadline` passes first, the remaining clusters are appended
+         * by `appendUnvisited()` instead.
+         */
+        void buildNearestNeighbor(int from, long deadline) {
+            int sentinel = size;
+            exit[2 * sentinel] = from;
+            orientation[sentinel] = 0;
+            prev[sentinel] = -1;
+            next[sentinel] = -1;
+
+            boolean[] visited = new boolean[size];
+            int numJunctions = junctionVertex.length;
+            double[] dist = new double[numJunctions];
+            int[] stamp = new int[numJunctions];
+            int search = 0;
+            IndexMinPQueue frontier = new IndexMinPQueue(numJunctions);
+
+            int last = sentinel;
+            for (int count = 0; count < size; count++) {
+                if (count % 64 == 0 && System.nanoTime() >= deadline) {
+                    appendUnvisited(last, visited);
+                    return;
+                }
+                int x = exitOf(last);
+                int found = -1;
+                double foundDist = 0;
+                int base = x * NEIGHBORS;
+                for (int k = base; k < base + rowLength[x] && found < 0; k++) {
+                    found = unvisitedEntry(rowTarget[k], visited);
+                    foundDist = rowDist[k];
+                }
+                if (found < 0) {
+                    if (System.nanoTime() >= deadline) {
+                        appendUnvisited(last, visited);
+                        return;
+                    }
+                    // No cluster nearby: search the junction graph for the nearest one
+                    search += 1;
+                    frontier.clear();
+                    frontier.addOrUpdate(x, 0);
+                    dist[x] = 0;
+                    stamp[x] = search;
+                    while (found < 0 && !frontier.isEmpty()) {
+                        int u = frontier.remove();
+                        found = unvisitedEntry(u, visited);
+                        foundDist = dist[u];
+                        for (int leg = 4 * u; leg < 4 * u + 4 && found < 0; leg++) {
+                            int w = legEnd[leg];
+                            if (w < 0) {
+                                continue;
+                            }
+                            double dw = dist[u] + legWeight[leg];
+                            if (stamp[w] != search || dw < dist[w]) {
+                                stamp[w] = search;
+                                dist[w] = dw;
+                                frontier.addOrUpdate(w, dw);
+                            }
+                        }
+                    }
+                    if (found < 0) {
+                        throw new IllegalStateException("Items cannot all be reached");
+                    }
+                }
+                int c = found / 2;
+                visited[c] = true;
+                orientation[c] = (byte) (found % 2);
+                prev[c] = last;
+                next[c] = -1;
+                next[last] = c;
+                gapIn[c] = foundDist;
+                last = c;
+            }
+        }
+
+        /**
+         * Append the clusters not in `visited` to the route after `last`, in the order they are
+         * numbered (corridors, then junctions, each sweeping the board column by column), without
+         * searching.  Each corridor is entered at its end nearer to the previous cluster's exit
+         * according to the distance matrix.  The stretch to a cluster that is not in the previous
+         * exit's row is recorded as infinitely long, since it has not been measured.
+         */
+        private void appendUnvisited(int last, boolean[] visited) {
+            for (int c = 0; c < size; c++) {
+                if (visited[c]) {
+                    continue;
+                }
+                int x = exitOf(last);
+                orientation[c] = (byte) ((c < numCorridors
+                        && distance(x, entry[2 * c + 1]) < distance(x, entry[2 * c])) ? 1 : 0);
+                prev[c] = last;
+                next[c] = -1;
+                next[last] = c;
+                gapIn[c] = distance(x, entryOf(c));
+                last = c;
+            }
+        }
+
+        /**
+         * Return a cluster orientation (as `2 * cluster + orientation`) entering at junction `y`
+         * whose cluster has not been visited, or -1 if there is none.
+         */
+        private int unvisitedEntry(int y, boolean[] visited) {
+            for (int k = entriesStart[y]; k < entriesStart[y + 1]; k++) {
+                if (!visited[entriesAt[k] / 2]) {
+                    return entriesAt[k];
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Return the total length of the route.
+         */
+        double length() {
+            double length = 0;
+            for (int c = next[size]; c >= 0; c = next[c]) {
+                length += gapIn[c] + costOf(c);
+            }
+            return length;
+        }
+
+        /**
+         * Apply Or-opt moves until none shortens the route or `deadline` passes.
+         */
+        void improve(long deadline) {
+            boolean improved = true;
+            int checked = 0;
+            while (improved) {
+                improved = false;
+                for (int s = next[size]; s >= 0; ) {
+                    if (checked % 64 == 0 && System.nanoTime() >= deadline) {
+                        return;
+                    }
+                    checked += 1;
+                    int following = next[s];
+                    int t = s;
+                    for (int len = 1; len <= 3 && t >= 0; len++) {
+                        if (tryMove(s, t, len)) {
+                            improved = true;
+                            break;
+                        }
+                        t = next[t];
+                    }
+                    s = following;
+                }
+            }
+        }
+
+        /**
+         * Move the run of `len` clusters from `s` to `t` to the place in the route where it
+         * shortens the route most, or turn it around in place if it is a single corridor and that
+         * is better; return whether the route changed.
+         */
+        private boolean tryMove(int s, int t, int len) {
+            int p = prev[s];
+            int n = next[t];
+            double join = (n < 0) ? 0 : distance(exitOf(p), entryOf(n));
+            double gapOut = (n < 0) ? 0 : gapIn[n];
+            boolean corridor = len == 1 && s < numCorridors;
+
+            if (corridor) {
+                int flipped = 2 * s + 1 - orientation[s];
+                double in = distance(exitOf(p), entry[flipped]);
+                double out = (n < 0) ? 0 : distance(exit[flipped], entryOf(n));
+                if (in + out + cost[flipped] < gapIn[s] + gapOut + costOf(s) - EPSILON) {
+                    orientation[s] ^= 1;
+                    gapIn[s] = in;
+                    if (n >= 0) {
+                        gapIn[n] = out;
+                    }
+                    return true;
+                }
+            }
+
+            double removed = gapIn[s] + gapOut - join;
+            if (!(removed > EPSILON)) {
+                return false;
+            }
+            int mid = (len == 3) ? next[s] : s;
+            int bestAfter = -1;
+            int bestOrientation = orientation[s];
+            double bestGain = EPSILON;
+            double bestIn = 0;
+            double bestOut = 0;
+            for (int flip = 0; flip < (corridor ? 2 : 1); flip++) {
+                int o = orientation[s] ^ flip;
+                int a = entry[2 * s + o];
+                int b = (len == 1) ? exit[2 * s + o] : exitOf(t);
+                double extra = (len == 1) ? cost[2 * s + o] - costOf(s) : 0;
+                int base = a * NEIGHBORS;
+                for (int k = base; k < base + rowLength[a]; k++) {
+                    int x = rowTarget[k];
+                    double in = distance(x, a);
+                    if (in == Double.POSITIVE_INFINITY) {
+                        continue;
+                    }
+                    int from = exitsStart[x];
+                    int to = exitsStart[x + 1];
+                    // The sentinel exits at the route's start, and is not listed
+                    for (int i = from - 1; i < to; i++) {
+                        int q;
+                        if (i < from) {
+                            if (exit[2 * size] != x) {
+                                continue;
+                            }
+                            q = size;
+                        } else {
+                            q = exitsAt[i] / 2;
+                            if (q < numCorridors && orientation[q] != exitsAt[i] % 2) {
+                                continue;
+                            }
+                        }
+                        if (q == p || q == s || q == mid || q == t) {
+                            continue;
+                        }
+                        int r = next[q];
+                        double out = (r < 0) ? 0 : distance(b, entryOf(r));
+                        double added = in + out - ((r < 0) ? 0 : gapIn[r]) + extra;
+                        double gain = removed - added;
+                        if (gain > bestGain) {
+                            bestGain = gain;
+                            bestAfter = q;
+                            bestOrientation = o;
+                            bestIn = in;
+                            bestOut = out;
+                        }
+                    }
+                }
+            }
+            if (bestAfter < 0) {
+                return false;
+            }
+
+            // Unlink the run, then link it in after `bestAfter`
+            next[p] = n;
+            if (n >= 0) {
+                prev[n] = p;
+                gapIn[n] = join;
+            }
+            int r = next[bestAfter];
+            next[bestAfter] = s;
+            prev[s] = bestAfter;
+            next[t] = r;
+            if (r >= 0) {
+                prev[r] = t;
+                gapIn[r] = bestOut;
+            }
+            orientation[s] = (byte) bestOrientation;
+            gapIn[s] = bestIn;
+            return true;
+        }
+
+        /**
+         * Return the planned route, whose length before improvement was `initialLength`.
+         */
+        Route toRoute(double initialLength) {
+            int[] legs = new int[size];
+            int[] entries = new int[size];
+            int k = 0;
+            for (int c = next[size]; c >= 0; c = next[c]) {
+                if (c < numCorridors) {
+                    legs[k] = (orientation[c] == 0) ? clusterLeg[c] : legReverse[clusterLeg[c]];
+                } else {
+                    legs[k] = -1;
+                }
+                entries[k] = entryOf(c);
+                k += 1;
+            }
+            return new Route(RoutePlanner.this, legs, entries, initialLength, length());
+        }
+    }
+
+    /**
+     * A search for shortest paths over the junction graph, for expanding the stretches of a route
+     * between clusters into edges.  Each search allocates its own scratch space, so searches may
+     * run concurrently.
+     */
+    private final class PathSearch {
+
+        private final IndexMinPQueue frontier = new IndexMinPQueue(junctionVertex.length);
+        private final double[] dist = new double[junctionVertex.length];
+        private final int[] viaLeg = new int[junctionVertex.length];
+        private final int[] reachedBy = new int[junctionVertex.length];
+        private int searches;
+
+        /**
+         * Add to `path` the edges of a shortest path from junction `from` to junction `to`, and
+         * return whether there is one.
+         */
+        boolean addPath(int from, int to, List<MazeEdge> path) {
+            searches += 1;
+            frontier.clear();
+            frontier.addOrUpdate(from, 0);
+            dist[from] = 0;
+            viaLeg[from] = -1;
+            reachedBy[from] = searches;
+            while (!frontier.isEmpty()) {
+                int u = frontier.remove();
+                if (u == to) {
+                    int[] legs = new int[16];
+                    int count = 0;
+                    for (int leg = viaLeg[to]; leg >= 0; leg = viaLeg[leg / 4]) {
+                        if (count == legs.length) {
+                            legs = Arrays.copyOf(legs, 2 * count);
+                        }
+                        legs[count] = leg;
+                        count += 1;
+                    }
+                    for (int k = count - 1; k >= 0; k--) {
+                        addLeg(legs[k], path);
+                    }
+                    return true;
+                }
+                for (int leg = 4 * u; leg < 4 * u + 4; leg++) {
+                    int w = legEnd[leg];
+                    if (w < 0) {
+                        continue;
+                    }
+                    double dw = dist[u] + legWeight[leg];
+                    if (reachedBy[w] != searches || (frontier.contains(w) && dw < dist[w])) {
+                        reachedBy[w] = searches;
+                        dist[w] = dw;
+                        viaLeg[w] = leg;
+                        frontier.addOrUpdate(w, dw);
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A planned route through the clusters of a board's items, in the order they are to be
+     * cleared.
+     */
+    static final class Route {
+
+        private final RoutePlanner planner;
+
+        /**
+         * For each cluster in order, the leg it is traversed along, or -1 if it is a junction.
+         */
+        private final int[] legs;
+
+        /**
+         * For each cluster in order, the junction at which the route enters it.
+         */
+        private final int[] entries;
+
+        /**
+         * The length of the route before and after improvement.
+         */
+        private final double initialLength;
+        private final double length;
+
+        private Route(RoutePlanner planner, int[] legs, int[] entries, double initialLength,
+                double length) {
+            this.planner = planner;
+            this.legs = legs;
+            this.entries = entries;
+            this.initialLength = initialLength;
+            this.length = length;
+        }
+
+        /**
+         * Return whether this route was planned over the current version of `graph`.
+         */
+        boolean describes(MazeGraph graph) {
+            return planner.describes(graph);
+        }
+
+        /**
+         * Return the number of clusters this route visits.
+         */
+        int size() {
+            return legs.length;
+        }
+
+        /**
+         * Return the length of this route when built by going to the nearest cluster each time
+         * (infinite under the same conditions as `length()`).
+         */
+        double initialLength() {
+            return initialLength;
+        }
+
+        /**
+         * Return the length of this route (the total weight of the edges it traverses from the
+         * junction it starts at), or infinity if planning ran out of time before every stretch
+         * between its clusters was measured.
+         */
+        double length() {
+            return length;
+        }
+
+        /**
+         * Return whether cluster `k` holds no more items in `model`.
+         */
+        boolean isCleared(GameModel model, int k) {
+            if (legs[k] < 0) {
+                MazeVertex v = planner.graph.vertex(planner.junctionVertex[entries[k]]);
+                return model.itemAt(v) == GameModel.Item.NONE;
+            }
+            int leg = Math.min(legs[k], planner.legReverse[legs[k]]);
+            for (int i = planner.interiorStart[leg]; i < planner.interiorStart[leg + 1]; i++) {
+                if (model.itemAt(planner.graph.vertex(planner.interior[i]))
+                        != GameModel.Item.NONE) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Return the index of the first cluster at or after `from` that still holds items in
+         * `model`, or `size()` if there is none.
+         */
+        int firstUncleared(GameModel model, int from) {
+            while (from < legs.length && isCleared(model, from)) {
+                from += 1;
+            }
+            return from;
+        }
+
+        /**
+         * Return the edges of this route from `current` (the edge PacMann is traversing) through
+         * the next `maxClusters` clusters at or after `from` that still hold items in `model`,
+         * starting with `current` and continuing along its corridor.  The stretches between
+         * clusters follow shortest paths.
+         */
+        List<MazeEdge> edgesFrom(GameModel model, MazeEdge current, int from, int maxClusters) {
+            List<MazeEdge> path = new ArrayList<>();
+            path.add(current);
+            int at = planner.continueToJunction(current, path);
+            PathSearch search = planner.new PathSearch();
+            int shown = 0;
+            for (int k = from; k < legs.length && shown < maxClusters; k++) {
+                if (isCleared(model, k)) {
+                    continue;
+                }
+                if (!search.addPath(at, entries[k], path)) {
+                    break;
+                }
+                if (legs[k] >= 0) {
+                    planner.addLeg(legs[k], path);
+                    at = planner.legEnd[legs[k]];
+                } else {
+                    at = entries[k];
+                }
+                shown += 1;
+            }
+            return path;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size table of search results keyed by 64-bit (Zobrist) hashes of game states, stored in
+ * parallel primitive arrays so that its memory use stays flat however long it is used.  Each key
+ * may live in either entry of a two-entry bucket.  When both are taken by other keys, the new
+ * result replaces the entry from an older search, or else the one searched to a lesser depth, so
+ * that deep results from the current search survive longest.
+ * <p>
+ * Keys are compared in full, but distinct states with equal keys are indistinguishable, so a
+ * result may occasionally belong to a different state; searches treat results as advice.
+ */
+class TranspositionTable {
+
+    /**
+     * Marks an empty entry of `keys` (a key equal to it is stored as `EMPTY + 1`).
+     */
+    private static final long EMPTY = 0;
+
+    /**
+     * The key, value, remaining search depth, best move, and search generation of each entry.
+     */
+    private final long[] keys;
+    private final double[] values;
+    private final byte[] depths;
+    private final byte[] moves;
+    private final byte[] generations;
+
+    /**
+     * `keys.length - 1`, which masks a hash to an index of the table (with the last bit cleared,
+     * the index of a bucket).
+     */
+    private final int mask;
+
+    /**
+     * The generation of the current search.
+     */
+    private byte generation;
+
+    /**
+     * Statistics about lookups since this table was created.
+     */
+    private long probes;
+    private long hits;
+
+    /**
+     * Create an empty table with room for `1 << log2Capacity` entries.  Requires
+     * `1 <= log2Capacity <= 30`.
+     */
+    TranspositionTable(int log2Capacity) {
+        if (log2Capacity < 1 || log2Capacity > 30) {
+            throw new IllegalArgumentException("Capacity must be between 2^1 and 2^30 entries");
+        }
+        int capacity = 1 << log2Capacity;
+        keys = new long[capacity];
+        values = new double[capacity];
+        depths = new byte[capacity];
+        moves = new byte[capacity];
+        generations = new byte[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Return the number of entries this table can hold.
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Start a new search, whose results take precedence over those of earlier searches.
+     */
+    void newSearch() {
+        generation += 1;
+    }
+
+    /**
+     * Return the index of the entry holding `key`, or -1 if it is not in this table.
+     */
+    int find(long key) {
+        key = normalize(key);
+        probes += 1;
+        int bucket = (int) key & mask & ~1;
+        for (int i = bucket; i < bucket + 2; i++) {
+            if (keys[i] == key) {
+                hits += 1;
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Return the value stored in entry `index`.
+     */
+    double value(int index) {
+        return values[index];
+    }
+
+    /**
+     * Return the depth to which the value in entry `index` was searched.
+     */
+    int depth(int index) {
+        return depths[index];
+    }
+
+    /**
+     * Return the best move stored in entry `index`.
+     */
+    int move(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Record that the state with hash `key`, searched to depth `depth`, has value `value` and best
+     * move `move`, unless this table already holds a deeper result for it.  Requires `depth` and
+     * `move` to fit in a byte.
+     */
+    void store(long key, int depth, double value, int move) {
+        key = normalize(key);
+        int bucket = (int) key & mask & ~1;
+        int victim = -1;
+        for (int i = bucket; i < bucket + 2; i++) {
+            if (keys[i] == key) {
+                if (depths[i] > depth && generations[i] == generation) {
+                    return;
+                }
+                victim = i;
+                break;
+            }
+        }
+        if (victim < 0) {
+            victim = bucket;
+            if (keys[bucket] != EMPTY && (keys[bucket + 1] == EMPTY
+                    || preferToKeep(bucket, bucket + 1))) {
+                victim = bucket + 1;
+            }
+        }
+        keys[victim] = key;
+        values[victim] = value;
+        depths[victim] = (byte) depth;
+        moves[victim] = (byte) move;
+        generations[victim] = generation;
+    }
+
+    /**
+     * Return whether entry `a` should be kept rather than entry `b`: it is from the current search
+     * while `b` is not, or they are from equally recent searches and `a` was searched deeper.
+     */
+    private boolean preferToKeep(int a, int b) {
+        boolean aCurrent = generations[a] == generation;
+        boolean bCurrent = generations[b] == generation;
+        if (aCurrent != bCurrent) {
+            return aCurrent;
+        }
+        return depths[a] >= depths[b];
+    }
+
+    /**
+     * Return the number of lookups made in this table.
+     */
+    long probes() {
+        return probes;
+    }
+
+    /**
+     * Return the number of lookups that found their key.
+     */
+    long hits() {
+        return hits;
+    }
+
+    /**
+     * Remove every entry.
+     */
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Return `key`, or another key if it equals `EMPTY`.
+     */
+    private static long normalize(long key) {
+        return (key == EMPTY) ? EMPTY + 1 : key;
+    }
+}
@@ -1,8 +1,28 @@
 package ui;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import model.GameModel;
 import model.GameModel.GameState;
+import model.GameModel.Player;
+import model.GameWatchdog;
+import model.MazeCache;
+import model.NearestDotIndex;
+import model.PacMannAI;
+import model.PacMannAI.Parallelism;
+import model.PacMannExpectimaxAI;
+import model.PacMannFieldAI;
+import util.QuantileSketch;
 import util.Randomness;
+import util.RunningStats;
 
 /**
  * Run a sequence of non-interactive PacMan games and report final scores and other metrics.
@@ -25,13 +45,87 @@ public class BatchApp {
     }
 
     public GameModel.GameState play() {
-        while (model.state() != GameState.VICTORY && model.state() != GameState.DEFEAT) {
+        while (model.state() == GameState.READY || model.state() == GameState.PLAYING) {
             model.updateActors(Double.POSITIVE_INFINITY);
         }
         return model.state();
     }
 
-    public static void main(String[] args) {
+    /**
+     * The configuration shared by every game of a batch.
+     */
+    record Settings(int width, int height, Player player, MazeCache cache, int numGhosts,
+            boolean eventDriven, double coalescing, ForkJoinPool phasePool, Parallelism search,
+            ForkJoinPool searchPool, int rootTrees, int rollouts, int depth, double budget,
+            boolean routeGuidance, boolean indexDots, double maxTime, long maxSubSteps,
+            double maxMillis, boolean detectStalls) {
+
+        /**
+         * Return the settings that may affect the games' results, as recorded in result files.
+         */
+        BatchResults.Config config() {
+            return new BatchResults.Config(width, height, numGhosts, player.ordinal(),
+                    search.ordinal(), rootTrees, rollouts, depth, eventDriven, routeGuidance,
+                    detectStalls, coalescing, budget, maxTime, maxMillis, maxSubSteps);
+        }
+
+        /**
+         * Create a game from `randomness`, play it to completion, and return its model.
+         */
+        GameModel play(Randomness randomness) {
+            var controller = new BatchApp(GameModel.newGame(width, height, player, randomness,
+                    cache, numGhosts));
+            controller.model().setEventDriven(eventDriven);
+            controller.model().setEventCoalescing(coalescing);
+            controller.model().setPhaseParallel(phasePool);
+            controller.model().setWatchdog(new GameWatchdog(maxTime, maxSubSteps, maxMillis,
+                    detectStalls));
+            if (indexDots) {
+                // Build the nearest-item index up front, so that its updates are measured even if
+                // the player does not use it
+                controller.model().nearestDots();
+            }
+            if (controller.model().pacMann() instanceof PacMannAI ai) {
+                ai.setParallelism(search, searchPool);
+                ai.setRootTrees(rootTrees);
+                ai.setBudget(rollouts, budget);
+                ai.setRouteGuidance(routeGuidance);
+            } else if (controller.model().pacMann() instanceof PacMannExpectimaxAI ai) {
+                ai.setBudget(depth, budget);
+            }
+            controller.play();
+            return controller.model();
+        }
+    }
+
+    /**
+     * A game that has been started: the source of randomness it was created from and its finished
+     * model, once it has been played.
+     */
+    private record Game(Randomness randomness, Future<GameModel> result) {
+
+        /**
+         * Wait for this game to finish and return its model, rethrowing any exception thrown while
+         * it was being played.
+         */
+        GameModel finished() {
+            try {
+                return result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a game", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                } else if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
 
         // Default configuration parameters
         int width = 10;
@@ -39,6 +133,43 @@ public class BatchApp {
         int numGames = 20;
         // Default to a different seed every time
         long seed = System.currentTimeMillis();
+        // Default to generating every maze from scratch
+        MazeCache cache = null;
+        // Default to the event-driven engine (both engines play identical games)
+        boolean eventDriven = true;
+        // Default to processing every event in its own step
+        double coalescing = 0;
+        // Default to the usual four ghosts
+        int numGhosts = 4;
+        // Default to running every phase of a step serially
+        ForkJoinPool phasePool = null;
+        // Default to the search AI, searching serially with its default budget
+        Player player = Player.SEARCH_AI;
+        Parallelism search = Parallelism.SERIAL;
+        int rootTrees = PacMannAI.DEFAULT_ROOT_TREES;
+        int rollouts = PacMannAI.DEFAULT_ROLLOUTS;
+        int depth = PacMannExpectimaxAI.DEFAULT_DEPTH;
+        double budget = Double.POSITIVE_INFINITY;
+        boolean routeGuidance = false;
+        // Default to only maintaining the nearest-item index for players that use it
+        boolean indexDots = false;
+        // Default to playing one game at a time
+        int jobs = 1;
+        boolean virtualThreads = false;
+        // Default to playing every game of the batch, without recording results
+        int shardIndex = 0;
+        int numShards = 1;
+        int rangeFirst = -1;
+        int rangeLast = -1;
+        Path resultFile = null;
+        // Default to listing every game, without storing results for analysis
+        Path storeDirectory = null;
+        boolean listGames = true;
+        // Default to letting games run as long as they make progress
+        double maxTime = Double.POSITIVE_INFINITY;
+        long stepLimit = Long.MAX_VALUE;
+        double maxMillis = Double.POSITIVE_INFINITY;
+        boolean detectStalls = true;
 
         for (String arg : args) {
             if (arg.startsWith("w=")) {
@@ -55,51 +186,435 @@ public class BatchApp {
                 seed = Long.parseLong(arg.substring(5));
             } else if (arg.startsWith("n=")) {
                 numGames = Integer.parseInt(arg.substring(2));
+            } else if (arg.startsWith("cache=")) {
+                cache = new MazeCache(Path.of(arg.substring(6)));
+            } else if (arg.startsWith("coalesce=")) {
+                coalescing = Double.parseDouble(arg.substring(9));
+            } else if (arg.startsWith("ghosts=")) {
+                numGhosts = Integer.parseInt(arg.substring(7));
+                if (numGhosts < 0) {
+                    throw new IllegalArgumentException("Number of ghosts must be non-negative.");
+                }
+            } else if (arg.startsWith("threads=")) {
+                int threads = Integer.parseInt(arg.substring(8));
+                if (threads < 1) {
+                    throw new IllegalArgumentException("Number of threads must be at least 1.");
+                }
+                phasePool = (threads == 1) ? null : new ForkJoinPool(threads);
+            } else if (arg.startsWith("ai=")) {
+                player = switch (arg.substring(3)) {
+                    case "field" -> Player.FIELD_AI;
+                    case "expectimax" -> Player.EXPECTIMAX_AI;
+                    case "none" -> Player.MANUAL;
+                    default -> Player.SEARCH_AI;
+                };
+                search = switch (arg.substring(3)) {
+                    case "serial", "field", "expectimax", "none" -> Parallelism.SERIAL;
+                    case "root" -> Parallelism.ROOT;
+                    case "tree" -> Parallelism.TREE;
+                    default -> throw new IllegalArgumentException(
+                            "AI must be serial, root, tree, field, expectimax, or none.");
+                };
+            } else if (arg.startsWith("trees=")) {
+                rootTrees = Integer.parseInt(arg.substring(6));
+                if (rootTrees < 1) {
+                    throw new IllegalArgumentException("Number of trees must be at least 1.");
+                }
+            } else if (arg.startsWith("rollouts=")) {
+                rollouts = Integer.parseInt(arg.substring(9));
+                if (rollouts < 1) {
+                    throw new IllegalArgumentException("Number of rollouts must be at least 1.");
+                }
+            } else if (arg.startsWith("depth=")) {
+                depth = Integer.parseInt(arg.substring(6));
+                if (depth < 1 || depth > 100) {
+                    throw new IllegalArgumentException("Search depth must be from 1 to 100.");
+                }
+            } else if (arg.startsWith("budget=")) {
+                budget = Double.parseDouble(arg.substring(7));
+                if (!(budget > 0)) {
+                    throw new IllegalArgumentException("Search budget must be positive.");
+                }
+            } else if (arg.equals("jobs=virtual")) {
+                virtualThreads = true;
+                jobs = Runtime.getRuntime().availableProcessors();
+            } else if (arg.startsWith("jobs=")) {
+                jobs = Integer.parseInt(arg.substring(5));
+                virtualThreads = false;
+                if (jobs < 1) {
+                    throw new IllegalArgumentException("Number of jobs must be at least 1.");
+                }
+            } else if (arg.startsWith("shard=")) {
+                String[] parts = arg.substring(6).split("/", 2);
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Shard must be given as <k>/<n>.");
+                }
+                shardIndex = Integer.parseInt(parts[0]);
+                numShards = Integer.parseInt(parts[1]);
+                rangeFirst = -1;
+                if (numShards < 1 || shardIndex < 0 || shardIndex >= numShards) {
+                    throw new IllegalArgumentException("Shard must satisfy 0 <= k < n.");
+                }
+            } else if (arg.startsWith("range=")) {
+                String[] parts = arg.substring(6).split("-", 2);
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Range must be given as <first>-<last>.");
+                }
+                rangeFirst = Integer.parseInt(parts[0]);
+                rangeLast = Integer.parseInt(parts[1]);
+                numShards = 1;
+                if (rangeFirst < 0 || rangeLast < rangeFirst) {
+                    throw new IllegalArgumentException("Range must satisfy 0 <= first <= last.");
+                }
+            } else if (arg.startsWith("out=")) {
+                resultFile = Path.of(arg.substring(4));
+            } else if (arg.startsWith("store=")) {
+                storeDirectory = Path.of(arg.substring(6));
+            } else if (arg.startsWith("maxtime=")) {
+                maxTime = 1000 * Double.parseDouble(arg.substring(8));
+                if (!(maxTime > 0)) {
+                    throw new IllegalArgumentException("Game time limit must be positive.");
+                }
+            } else if (arg.startsWith("maxsteps=")) {
+                stepLimit = Long.parseLong(arg.substring(9));
+                if (stepLimit < 1) {
+                    throw new IllegalArgumentException("Step limit must be at least 1.");
+                }
+            } else if (arg.startsWith("maxwall=")) {
+                maxMillis = Double.parseDouble(arg.substring(8));
+                if (!(maxMillis > 0)) {
+                    throw new IllegalArgumentException("Wall-clock limit must be positive.");
+                }
+            } else if (arg.equals("stalls=on") || arg.equals("stalls=off")) {
+                detectStalls = arg.equals("stalls=on");
+            } else if (arg.equals("quiet")) {
+                listGames = false;
+            } else if (arg.equals("route")) {
+                routeGuidance = true;
+            } else if (arg.equals("dotindex")) {
+                indexDots = true;
+            } else if (arg.equals("engine=events") || arg.equals("engine=steps")) {
+                eventDriven = arg.equals("engine=events");
             } else {
                 throw new IllegalArgumentException("Unable to interpret argument: " + arg +
-                        "\n Usage: java PacMannApp [h=<##>] [w=<##>] [seed=<##>] [ai_on] [paths_on]");
+                        "\n Usage: java BatchApp [h=<##>] [w=<##>] [seed=<##>] [n=<##>]"
+                        + " [cache=<dir>] [engine=<events|steps>] [coalesce=<ms>]"
+                        + " [ghosts=<##>] [threads=<##>]"
+                        + " [ai=<serial|root|tree|field|expectimax|none>] [trees=<##>]"
+                        + " [rollouts=<##>] [depth=<##>] [budget=<ms>] [route] [dotindex]"
+                        + " [jobs=<##|virtual>] [shard=<k>/<n> | range=<first>-<last>]"
+                        + " [out=<file>] [store=<dir>] [quiet] [maxtime=<s>] [maxsteps=<##>]"
+                        + " [maxwall=<ms>] [stalls=<on|off>]");
             }
         }
 
+        // Games `first` (inclusive) to `end` (exclusive) of the batch belong to this process
+        int first = (int) ((long) numGames * shardIndex / numShards);
+        int end = (int) ((long) numGames * (shardIndex + 1) / numShards);
+        if (rangeFirst >= 0) {
+            if (rangeLast >= numGames) {
+                throw new IllegalArgumentException("Range must end before game " + numGames + ".");
+            }
+            first = rangeFirst;
+            end = rangeLast + 1;
+        }
+
         // Print randomness seed, so an "interesting" game can be reproduced
         System.out.println("Randomness seed: " + seed);
 
-        Randomness randomness = new Randomness(seed);
-        var controller = new BatchApp(null);
-
-        // Track statistics
-        int numWins = 0;
-        int totalScore = 0;
-        int maxScore = 0;
-        long bestSeed = randomness.seed();
-
-        System.out.printf("%4s  %7s  %5s  %8s  %5s\n",
-                "Game", "Result", "Score", "Time [s]", "Lives");
-        for (int i = 0; i < numGames; i += 1) {
-            controller.setModel(GameModel.newGame(10, 10, true, randomness));
-            controller.play();
-            var model = controller.model();
+        // Parallel searches share the phase pool, if there is one; the pool only schedules their
+        // rollouts, so the number of threads does not change the games' results
+        ForkJoinPool searchPool = (phasePool != null) ? phasePool : ForkJoinPool.commonPool();
+        var settings = new Settings(width, height, player, cache, numGhosts, eventDriven,
+                coalescing, phasePool, search, searchPool, rootTrees, rollouts, depth, budget,
+                routeGuidance, indexDots, maxTime, stepLimit, maxMillis, detectStalls);
 
-            // Update statistics
-            if (model.state() == GameState.VICTORY) {
-                numWins += 1;
-            }
-            totalScore += model.score();
-            if (model.score() > maxScore) {
-                maxScore = model.score();
-                bestSeed = randomness.seed();
+        // Resume after the games whose results were already recorded, reporting them along with
+        // the games played now
+        var stats = new Statistics(settings);
+        BatchResults results = null;
+        if (resultFile != null) {
+            results = new BatchResults(resultFile, new BatchResults.Shard(seed, numGames, first,
+                    end, settings.config()));
+            if (results.recorded() > 0) {
+                System.out.printf("Resuming games %d to %d after %d recorded results\n",
+                        first, end - 1, results.recorded());
+                stats.addRecorded(BatchResults.read(resultFile));
             }
-            System.out.printf("%4d  %7s  %5d  %8.3f  %5d\n",
-                    i, model.state(), model.score(), model.time() / 1000.0, model.numLives());
+            first += results.recorded();
+        }
+        ResultStore store = (storeDirectory != null) ? new ResultStore(storeDirectory) : null;
 
+        // Each game's randomness is the next in the sequence starting from the batch's seed
+        Randomness randomness = new Randomness(seed);
+        for (int i = 0; i < first; i += 1) {
             randomness = randomness.next();
         }
+        if (store != null && results != null) {
+            // A run stopped between storing a game's result and recording it leaves that game in
+            // the store, and this run is about to store it again
+            long dropped = dropReplayedGames(store, randomness, first, end);
+            if (dropped > 0) {
+                System.out.printf("Dropping %d stored results of games to be played again\n",
+                        dropped);
+            }
+        }
+
+        playGames(settings, randomness, first, end, jobs, virtualThreads, results, store,
+                listGames, stats);
+        if (results != null) {
+            results.close();
+        }
+        if (store != null) {
+            store.close();
+        }
 
         // Report statistics
         System.out.println();
-        System.out.printf("Number of wins: %d / %d (%.1f %%)\n",
-                numWins, numGames, 100.0 * numWins / numGames);
-        System.out.printf("Average score: %.1f\n", (double) totalScore / numGames);
-        System.out.printf("Best score: %d (seed: %d)\n", maxScore, bestSeed);
+        stats.print(player);
+    }
+
+    /**
+     * Remove from the end of `store` the rows of games `first` (inclusive) to `end` (exclusive) of
+     * a batch whose game `first` is created from `randomness`, and return the number of rows
+     * removed.  Rows of the same game indices from other batches are kept, as their seeds differ.
+     */
+    static long dropReplayedGames(ResultStore store, Randomness randomness, int first, int end)
+            throws IOException {
+        long kept = store.rows();
+        while (kept > 0) {
+            int game = store.game(kept - 1);
+            if (game < first || game >= end) {
+                break;
+            }
+            Randomness gameRandomness = randomness;
+            for (int i = first; i < game; i += 1) {
+                gameRandomness = gameRandomness.next();
+            }
+            if (store.seed(kept - 1) != gameRandomness.seed()) {
+                break;
+            }
+            kept -= 1;
+        }
+        long dropped = store.rows() - kept;
+        if (dropped > 0) {
+            store.truncate(kept);
+        }
+        return dropped;
+    }
+
+    /**
+     * Play games `first` (inclusive) to `end` (exclusive) of a batch with `settings`, game `first`
+     * being created from `randomness` and each following game from the next randomness in the
+     * sequence, and add their statistics to `stats`.  Games are played `jobs` at a time (on
+     * virtual threads if `virtualThreads` is true), but their results are recorded in `results`
+     * and `store` (either of which may be null), listed (if `listGames` is true), and added to
+     * `stats` in game order, so that nothing depends on the number of jobs.
+     */
+    static void playGames(Settings settings, Randomness randomness, int first, int end, int jobs,
+            boolean virtualThreads, BatchResults results, ResultStore store, boolean listGames,
+            Statistics stats) throws IOException {
+        // Games are played on their own threads when there are several jobs
+        ExecutorService pool = null;
+        if (virtualThreads) {
+            pool = Executors.newVirtualThreadPerTaskExecutor();
+        } else if (jobs > 1) {
+            // Daemon threads, so that a failed game does not keep the others running
+            pool = Executors.newFixedThreadPool(jobs, Thread.ofPlatform().daemon().factory());
+        }
+        // Bound the number of unreported games, so that memory use does not grow with `numGames`
+        int window = (pool != null) ? 2 * jobs : 1;
+        var games = new ArrayDeque<Game>(window);
+
+        if (listGames) {
+            System.out.printf("%4s  %7s  %5s  %8s  %5s\n",
+                    "Game", "Result", "Score", "Time [s]", "Lives");
+        }
+        try {
+            int started = first;
+            for (int i = first; i < end; i += 1) {
+                while (started < end && games.size() < window) {
+                    Randomness gameRandomness = randomness;
+                    var task = new FutureTask<>(() -> settings.play(gameRandomness));
+                    if (pool != null) {
+                        pool.execute(task);
+                    } else {
+                        task.run();
+                    }
+                    games.add(new Game(randomness, task));
+                    randomness = randomness.next();
+                    started += 1;
+                }
+                Game game = games.remove();
+                var model = game.finished();
+
+                // Record the result and update statistics
+                var result = new BatchResults.Result(i, game.randomness().seed(), model.state(),
+                        model.score(), model.time(), model.numLives());
+                if (store != null) {
+                    store.append(i, result.seed(), result.state(), result.score(),
+                            result.time(), result.lives(), model.totalSubSteps());
+                    if (results != null) {
+                        // A resumed batch skips every recorded game, so the store must hold them
+                        store.commit();
+                    }
+                }
+                if (results != null) {
+                    results.append(result);
+                }
+                stats.add(result, model);
+                if (listGames) {
+                    System.out.printf("%4d  %7s  %5d  %8.3f  %5d\n",
+                            i, model.state(), model.score(), model.time() / 1000.0,
+                            model.numLives());
+                }
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * The statistics of the games of a batch, accumulated in game order: the outcome statistics
+     * reported for every batch (see `BatchSummary`), and measurements of the engine, the
+     * nearest-item index, and PacMann's decisions.
+     */
+    static class Statistics {
+
+        private final BatchSummary summary = new BatchSummary();
+        private final RunningStats subSteps = new RunningStats();
+        private final QuantileSketch subStepQuantiles = new QuantileSketch();
+        private int maxSubSteps;
+        private long totalDecisions;
+        private long totalRollouts;
+        private long totalSearchNanos;
+        private long totalNodes;
+        private long totalRoutePlans;
+        private long totalRoutePlanNanos;
+        private long totalIndexUpdates;
+        private long totalIndexSearched;
+        private long totalIndexNanos;
+        private double totalDepth;
+        private final int[] abortVerdicts = new int[GameWatchdog.Verdict.values().length];
+
+        /**
+         * Whether the games' nearest-item indexes are measured; they only exist in games that built
+         * them.
+         */
+        private final boolean reportIndex;
+
+        /**
+         * Create empty statistics for games played with `settings`.
+         */
+        Statistics(Settings settings) {
+            reportIndex = settings.indexDots() || settings.player() == Player.FIELD_AI;
+        }
+
+        /**
+         * Return the outcome statistics of the games added.
+         */
+        BatchSummary summary() {
+            return summary;
+        }
+
+        /**
+         * Add the outcomes of the games in `recorded`, recorded by an earlier run of the batch and
+         * preceding every game added afterwards.  Only their outcomes are known, so the
+         * measurements of the engine and of PacMann's decisions only cover games added by `add()`.
+         */
+        void addRecorded(BatchResults.Contents recorded) {
+            for (int i = 0; i < recorded.size(); i += 1) {
+                summary.add(recorded.result(i));
+            }
+        }
+
+        /**
+         * Add the next game, which finished with `result` and whose final state is `model`.
+         */
+        void add(BatchResults.Result result, GameModel model) {
+            summary.add(result);
+            if (model.state() == GameState.ABORTED) {
+                abortVerdicts[model.watchdog().verdict().ordinal()] += 1;
+            }
+            subSteps.add(model.totalSubSteps());
+            subStepQuantiles.add(model.totalSubSteps());
+            maxSubSteps = Math.max(maxSubSteps, model.maxSubSteps());
+            if (reportIndex) {
+                NearestDotIndex index = model.nearestDots();
+                totalIndexUpdates += index.updates();
+                totalIndexSearched += index.searchedVertices();
+                totalIndexNanos += index.updateNanos();
+            }
+            if (model.pacMann() instanceof PacMannAI ai) {
+                totalDecisions += ai.decisions();
+                totalRollouts += ai.rollouts();
+                totalSearchNanos += ai.searchNanos();
+                totalRoutePlans += ai.routePlans();
+                totalRoutePlanNanos += ai.routePlanNanos();
+            } else if (model.pacMann() instanceof PacMannFieldAI ai) {
+                totalDecisions += ai.decisions();
+                totalSearchNanos += ai.decisionNanos();
+            } else if (model.pacMann() instanceof PacMannExpectimaxAI ai) {
+                totalDecisions += ai.decisions();
+                totalNodes += ai.nodes();
+                totalDepth += ai.meanDepth() * ai.decisions();
+                totalSearchNanos += ai.searchNanos();
+            }
+        }
+
+        /**
+         * Print the statistics of games in which PacMann was controlled by `player`.
+         */
+        void print(Player player) {
+            summary.print();
+            long played = subSteps.count();
+            if (played == 0) {
+                return;
+            }
+            if (played < summary.numGames()) {
+                System.out.printf("The measurements below cover the %d games played by this run\n",
+                        played);
+            }
+            if (Arrays.stream(abortVerdicts).sum() > 0) {
+                StringBuilder verdicts = new StringBuilder("Abort reasons:");
+                String separator = " ";
+                for (GameWatchdog.Verdict verdict : GameWatchdog.Verdict.values()) {
+                    if (abortVerdicts[verdict.ordinal()] > 0) {
+                        verdicts.append(String.format("%s%d %s", separator,
+                                abortVerdicts[verdict.ordinal()],
+                                verdict.toString().toLowerCase().replace('_', ' ')));
+                        separator = ", ";
+                    }
+                }
+                System.out.println(verdicts);
+            }
+            System.out.printf("Steps: %.1f per game, at most %d per update\n",
+                    subSteps.mean(), maxSubSteps);
+            BatchSummary.printDistribution("Steps per game", subSteps, subStepQuantiles);
+            if (reportIndex) {
+                System.out.printf("Nearest items: %.1f vertices searched, %.2f us per eaten item\n",
+                        (double) totalIndexSearched / Math.max(totalIndexUpdates, 1),
+                        totalIndexNanos / 1e3 / Math.max(totalIndexUpdates, 1));
+            }
+            if (player == Player.SEARCH_AI) {
+                System.out.printf("Search: %.1f rollouts per decision, %.0f rollouts per second\n",
+                        (double) totalRollouts / Math.max(totalDecisions, 1),
+                        totalRollouts * 1e9 / Math.max(totalSearchNanos, 1));
+                if (totalRoutePlans > 0) {
+                    System.out.printf("Routes: %d planned, %.2f ms each\n", totalRoutePlans,
+                            totalRoutePlanNanos / 1e6 / totalRoutePlans);
+                }
+            } else if (player == Player.EXPECTIMAX_AI) {
+                System.out.printf("Search: %.1f nodes per decision, depth %.2f, %.2f ms each\n",
+                        (double) totalNodes / Math.max(totalDecisions, 1),
+                        totalDepth / Math.max(totalDecisions, 1),
+                        totalSearchNanos / 1e6 / Math.max(totalDecisions, 1));
+            } else {
+                System.out.printf("Decisions: %d, %.2f us each\n", totalDecisions,
+                        totalSearchNanos / 1e3 / Math.max(totalDecisions, 1));
+            }
+        }
     }
 }
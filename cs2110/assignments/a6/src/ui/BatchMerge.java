@@ -0,0 +1,97 @@
+package ui;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import ui.BatchResults.Contents;
+import ui.BatchResults.Result;
+
+/**
+ * Combine the result files written by the shards of a batch (see `BatchApp`'s `out=` argument)
+ * and report the same outcome statistics as a single `BatchApp` process playing the whole batch.
+ * Shards may be given in any order; their results are combined in game order.  Games that no
+ * shard has recorded yet are counted and reported, so that an incomplete batch can be inspected.
+ */
+public class BatchMerge {
+
+    public static void main(String[] args) throws IOException {
+        boolean listGames = false;
+        List<Contents> shards = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("games")) {
+                listGames = true;
+            } else {
+                shards.add(BatchResults.read(Path.of(arg)));
+            }
+        }
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Usage: java BatchMerge [games] <result file> [<result file> ...]");
+        }
+
+        BatchResults.Shard batch = sortShards(shards);
+        System.out.println("Randomness seed: " + batch.seed());
+        if (listGames) {
+            System.out.printf("%4s  %7s  %5s  %8s  %5s\n",
+                    "Game", "Result", "Score", "Time [s]", "Lives");
+        }
+        BatchSummary summary = summarize(shards, listGames);
+
+        System.out.println();
+        System.out.printf("Shards: %d, games %d / %d recorded\n", shards.size(),
+                summary.numGames(), batch.numGames());
+        summary.print();
+    }
+
+    /**
+     * Sort `shards` into game order and return the first one's shard.  Throws
+     * `IllegalArgumentException` unless every shard belongs to the same batch and no two shards
+     * share a game.  Requires `shards` to be nonempty.
+     */
+    static BatchResults.Shard sortShards(List<Contents> shards) {
+        shards.sort(Comparator.comparingInt(contents -> contents.shard().first()));
+        BatchResults.Shard batch = shards.getFirst().shard();
+        for (int k = 1; k < shards.size(); k += 1) {
+            BatchResults.Shard shard = shards.get(k).shard();
+            if (!shard.sameBatch(batch)) {
+                throw new IllegalArgumentException("Shards belong to different batches: " + batch
+                        + " and " + shard);
+            }
+            if (shard.first() < shards.get(k - 1).shard().end()) {
+                throw new IllegalArgumentException("Shards overlap: " + shards.get(k - 1).shard()
+                        + " and " + shard);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Return the summary of the results in `shards`, which must have been sorted by
+     * `sortShards()`, and print each result if `listGames` is true.  Throws
+     * `IllegalArgumentException` if a result is not for the game it should be.
+     */
+    static BatchSummary summarize(List<Contents> shards, boolean listGames) {
+        // Each shard is summarized on its own, and the summaries are merged in game order
+        var summary = new BatchSummary();
+        for (Contents contents : shards) {
+            var shardSummary = new BatchSummary();
+            for (int i = 0; i < contents.size(); i += 1) {
+                Result result = contents.result(i);
+                if (result.game() != contents.shard().first() + i) {
+                    throw new IllegalArgumentException("Corrupt result for game "
+                            + (contents.shard().first() + i));
+                }
+                shardSummary.add(result);
+                if (listGames) {
+                    System.out.printf("%4d  %7s  %5d  %8.3f  %5d\n", result.game(),
+                            result.state(), result.score(), result.time() / 1000.0,
+                            result.lives());
+                }
+            }
+            summary.merge(shardSummary);
+        }
+        return summary;
+    }
+}
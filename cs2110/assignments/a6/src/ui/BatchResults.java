@@ -0,0 +1,262 @@
+package ui;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import model.GameModel.GameState;
+
+/**
+ * A file of the results of one shard of a batch: a contiguous range of the batch's games, played
+ * by one `BatchApp` process.  Results are appended in game order as each game is reported, so a
+ * process that is killed leaves a valid prefix of its shard behind (at worst followed by part of a
+ * record, which is discarded).  Reopening the file for the same shard resumes after the last
+ * complete result.  Shard files are combined by `BatchMerge`.
+ * <p>
+ * File layout (big-endian): a fixed header (see `HEADER_BYTES`) followed by one fixed-size record
+ * per game (see `RECORD_BYTES`).
+ */
+public class BatchResults implements AutoCloseable {
+
+    /**
+     * Identifies a batch result file ("PMBR").
+     */
+    private static final int MAGIC = 0x504D4252;
+
+    /**
+     * The version of the file layout; files with any other version are rejected.
+     */
+    private static final int VERSION = 3;
+
+    /**
+     * Size of the header: magic, version (ints), batch seed (long), number of games in the batch,
+     * first game and end game (exclusive) of the shard (ints), and the batch's configuration:
+     * board width and height, number of ghosts, player and search ordinals, root-parallel trees,
+     * rollouts, and depth (ints), whether the engine is event-driven, route guidance is used, and
+     * stalls are detected (bytes), event coalescing, search budget, and time and wall-clock limits
+     * (doubles), and step limit (long).
+     */
+    static final int HEADER_BYTES = 2 * 4 + 8 + 3 * 4 + 8 * 4 + 3 + 4 * 8 + 8;
+
+    /**
+     * Size of a record: game index (int), seed (long), state ordinal (byte), score (int), time
+     * (double), and remaining lives (int).
+     */
+    static final int RECORD_BYTES = 4 + 8 + 1 + 4 + 8 + 4;
+
+    /**
+     * The settings shared by every game of a batch that may affect the games' results (see
+     * `BatchApp`'s arguments).  `player` and `search` are the ordinals of the player and of the
+     * search AI's parallelism, and `rootTrees` is the number of trees of a root-parallel search.
+     */
+    public record Config(int width, int height, int numGhosts, int player, int search,
+                         int rootTrees, int rollouts, int depth, boolean eventDriven,
+                         boolean routeGuidance, boolean detectStalls, double coalescing,
+                         double budget, double maxTime, double maxMillis, long maxSubSteps) {}
+
+    /**
+     * The batch and shard a result file belongs to.  Games `first` (inclusive) to `end`
+     * (exclusive) of a batch of `numGames` games starting from seed `seed`, all played with
+     * configuration `config`, belong to the shard.
+     */
+    public record Shard(long seed, int numGames, int first, int end, Config config) {
+
+        /**
+         * Return whether this shard and `other` belong to the same batch.
+         */
+        boolean sameBatch(Shard other) {
+            return seed == other.seed && numGames == other.numGames
+                    && config.equals(other.config);
+        }
+    }
+
+    /**
+     * The outcome of one game: its index in the batch, the seed of the randomness it was created
+     * from, and its final state, score, time [ms], and number of lives.
+     */
+    public record Result(int game, long seed, GameState state, int score, double time,
+                         int lives) {}
+
+    /**
+     * The shard this file holds results for.
+     */
+    private final Shard shard;
+
+    /**
+     * The open file, positioned after its last complete record.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The number of complete records in the file.
+     */
+    private int recorded;
+
+    /**
+     * Open the result file `file` for `shard`, creating it if it does not exist.  If it exists, it
+     * must hold results for the same shard; any partial record at its end is discarded.  A file
+     * shorter than a header (left by a process killed while creating it) is started afresh.
+     * Throws `IllegalArgumentException` if the file belongs to another shard or is not a result
+     * file.
+     */
+    public BatchResults(Path file, Shard shard) throws IOException {
+        this.shard = shard;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < HEADER_BYTES) {
+                channel.truncate(0);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                putHeader(header, shard);
+                header.flip();
+                writeFully(header, 0);
+            } else {
+                Shard existing = readHeader(file, channel);
+                if (!existing.equals(shard)) {
+                    throw new IllegalArgumentException(
+                            "Result file " + file + " belongs to another shard: " + existing);
+                }
+            }
+            long complete = (channel.size() - HEADER_BYTES) / RECORD_BYTES;
+            recorded = (int) Math.min(complete, shard.end() - shard.first());
+            channel.truncate(HEADER_BYTES + (long) recorded * RECORD_BYTES);
+            channel.position(HEADER_BYTES + (long) recorded * RECORD_BYTES);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Return the number of results already in the file; the next result must be for game
+     * `shard().first() + recorded()`.
+     */
+    public int recorded() {
+        return recorded;
+    }
+
+    /**
+     * Return the shard this file holds results for.
+     */
+    public Shard shard() {
+        return shard;
+    }
+
+    /**
+     * Append `result` to the file.  Requires `result` to be for the shard's next unrecorded game.
+     */
+    public void append(Result result) throws IOException {
+        assert result.game() == shard.first() + recorded;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        putRecord(record, result);
+        record.flip();
+        writeFully(record, channel.position());
+        channel.position(channel.position() + RECORD_BYTES);
+        recorded += 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * The complete results in a shard's result file, read back through a memory mapping.
+     */
+    public record Contents(Shard shard, ByteBuffer records) {
+
+        /**
+         * Return the number of results.
+         */
+        public int size() {
+            return records.limit() / RECORD_BYTES;
+        }
+
+        /**
+         * Return result `i`, the result for game `shard().first() + i`.
+         */
+        public Result result(int i) {
+            int at = i * RECORD_BYTES;
+            GameState[] states = GameState.values();
+            return new Result(records.getInt(at), records.getLong(at + 4),
+                    states[records.get(at + 12)], records.getInt(at + 13),
+                    records.getDouble(at + 17), records.getInt(at + 25));
+        }
+    }
+
+    /**
+     * Read the complete results in result file `file`.  Throws `IllegalArgumentException` if it is
+     * not a result file.
+     */
+    public static Contents read(Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            Shard shard = readHeader(file, in);
+            long complete = Math.min((in.size() - HEADER_BYTES) / RECORD_BYTES,
+                    shard.end() - shard.first());
+            MappedByteBuffer records = in.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES,
+                    complete * RECORD_BYTES);
+            return new Contents(shard, records);
+        }
+    }
+
+    /**
+     * Return the shard described by the header of `file`, open as `in`.  Throws
+     * `IllegalArgumentException` if the header is missing or not that of a result file.
+     */
+    private static Shard readHeader(Path file, FileChannel in) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining() && in.read(header, header.position()) > 0) {
+            // Keep reading until the header is complete or the file ends
+        }
+        header.flip();
+        if (header.limit() < HEADER_BYTES || header.getInt() != MAGIC
+                || header.getInt() != VERSION) {
+            throw new IllegalArgumentException("Not a batch result file: " + file);
+        }
+        Shard shard = new Shard(header.getLong(), header.getInt(), header.getInt(),
+                header.getInt(), new Config(header.getInt(), header.getInt(), header.getInt(),
+                header.getInt(), header.getInt(), header.getInt(), header.getInt(),
+                header.getInt(), header.get() != 0, header.get() != 0, header.get() != 0,
+                header.getDouble(), header.getDouble(), header.getDouble(), header.getDouble(),
+                header.getLong()));
+        if (shard.first() < 0 || shard.first() > shard.end() || shard.end() > shard.numGames()) {
+            throw new IllegalArgumentException("Corrupt batch result file: " + file);
+        }
+        return shard;
+    }
+
+    /**
+     * Write the header describing `shard` to `buf`.
+     */
+    private static void putHeader(ByteBuffer buf, Shard shard) {
+        Config config = shard.config();
+        buf.putInt(MAGIC).putInt(VERSION).putLong(shard.seed()).putInt(shard.numGames())
+                .putInt(shard.first()).putInt(shard.end());
+        buf.putInt(config.width()).putInt(config.height()).putInt(config.numGhosts())
+                .putInt(config.player()).putInt(config.search()).putInt(config.rootTrees())
+                .putInt(config.rollouts()).putInt(config.depth());
+        buf.put((byte) (config.eventDriven() ? 1 : 0)).put((byte) (config.routeGuidance() ? 1 : 0))
+                .put((byte) (config.detectStalls() ? 1 : 0));
+        buf.putDouble(config.coalescing()).putDouble(config.budget()).putDouble(config.maxTime())
+                .putDouble(config.maxMillis()).putLong(config.maxSubSteps());
+    }
+
+    /**
+     * Write the record of `result` to `buf`.
+     */
+    private static void putRecord(ByteBuffer buf, Result result) {
+        buf.putInt(result.game()).putLong(result.seed()).put((byte) result.state().ordinal())
+                .putInt(result.score()).putDouble(result.time()).putInt(result.lives());
+    }
+
+    /**
+     * Write all of `buf` to this file at `position`.
+     */
+    private void writeFully(ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            position += channel.write(buf, position);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package ui;
+
+import java.util.Arrays;
+import model.GameModel.GameState;
+import ui.BatchResults.Result;
+import util.QuantileSketch;
+import util.RunningStats;
+
+/**
+ * The outcome statistics of a batch of games, accumulated from their results in game order: the
+ * number of wins, the average score, and the best score along with the seed of the first game to
+ * reach it, as well as the spread and quantiles of scores and game times and a histogram of the
+ * lives left.  Memory use does not grow with the number of games.  Summaries of consecutive parts
+ * of a batch can be merged.  Shared by `BatchApp` and `BatchMerge`, so that a merged batch is
+ * summarized exactly like one played by a single process.
+ */
+class BatchSummary {
+
+    private int numGames;
+    private int numWins;
+    private int numAborted;
+    private long totalScore;
+    private int maxScore;
+    private long bestSeed;
+
+    /**
+     * The distributions of scores and of game times [s].
+     */
+    private final RunningStats scores = new RunningStats();
+    private final QuantileSketch scoreQuantiles = new QuantileSketch();
+    private final RunningStats times = new RunningStats();
+    private final QuantileSketch timeQuantiles = new QuantileSketch();
+
+    /**
+     * The number of games ending with each number of lives left.
+     */
+    private long[] livesLeft = new long[0];
+
+    /**
+     * Add the result of the next game.
+     */
+    void add(Result result) {
+        if (numGames == 0) {
+            bestSeed = result.seed();
+        }
+        numGames += 1;
+        if (result.state() == GameState.VICTORY) {
+            numWins += 1;
+        } else if (result.state() == GameState.ABORTED) {
+            numAborted += 1;
+        }
+        totalScore += result.score();
+        if (result.score() > maxScore) {
+            maxScore = result.score();
+            bestSeed = result.seed();
+        }
+        scores.add(result.score());
+        scoreQuantiles.add(result.score());
+        times.add(result.time() / 1000.0);
+        timeQuantiles.add(result.time() / 1000.0);
+        countLives(result.lives(), 1);
+    }
+
+    /**
+     * Add the results summarized by `other`, which must be for games following those already
+     * added.  `other` is unchanged.
+     */
+    void merge(BatchSummary other) {
+        if (other.numGames == 0) {
+            return;
+        }
+        if (numGames == 0 || other.maxScore > maxScore) {
+            bestSeed = other.bestSeed;
+        }
+        numGames += other.numGames;
+        numWins += other.numWins;
+        numAborted += other.numAborted;
+        totalScore += other.totalScore;
+        maxScore = Math.max(maxScore, other.maxScore);
+        scores.merge(other.scores);
+        scoreQuantiles.merge(other.scoreQuantiles);
+        times.merge(other.times);
+        timeQuantiles.merge(other.timeQuantiles);
+        for (int lives = 0; lives < other.livesLeft.length; lives++) {
+            countLives(lives, other.livesLeft[lives]);
+        }
+    }
+
+    /**
+     * Record `games` more games ending with `lives` lives left.
+     */
+    private void countLives(int lives, long games) {
+        if (lives >= livesLeft.length) {
+            livesLeft = Arrays.copyOf(livesLeft, lives + 1);
+        }
+        livesLeft[lives] += games;
+    }
+
+    /**
+     * Return the number of games added.
+     */
+    int numGames() {
+        return numGames;
+    }
+
+    /**
+     * Return the number of games that were aborted for exceeding their limits.
+     */
+    int numAborted() {
+        return numAborted;
+    }
+
+    /**
+     * Print the statistics, or just say that there are none if no games have been added.
+     */
+    void print() {
+        if (numGames == 0) {
+            System.out.println("Number of games: 0");
+            return;
+        }
+        System.out.printf("Number of wins: %d / %d (%.1f %%)\n",
+                numWins, numGames, 100.0 * numWins / numGames);
+        if (numAborted > 0) {
+            System.out.printf("Number aborted: %d / %d (%.1f %%)\n",
+                    numAborted, numGames, 100.0 * numAborted / numGames);
+        }
+        System.out.printf("Average score: %.1f\n", (double) totalScore / numGames);
+        System.out.printf("Best score: %d (seed: %d)\n", maxScore, bestSeed);
+        printDistribution("Score", scores, scoreQuantiles);
+        printDistribution("Time [s]", times, timeQuantiles);
+        StringBuilder histogram = new StringBuilder("Lives left:");
+        String separator = " ";
+        for (int lives = 0; lives < livesLeft.length; lives++) {
+            if (livesLeft[lives] > 0) {
+                histogram.append(String.format("%s%d in %d games", separator, lives,
+                        livesLeft[lives]));
+                separator = ", ";
+            }
+        }
+        System.out.println(histogram);
+    }
+
+    /**
+     * Print the mean, standard deviation, and median and 99th percentile of a quantity, labelled
+     * `label`.
+     */
+    static void printDistribution(String label, RunningStats stats, QuantileSketch quantiles) {
+        System.out.printf("%s: mean %.1f, sd %.1f, p50 %.1f, p99 %.1f\n", label, stats.mean(),
+                stats.standardDeviation(), quantiles.quantile(0.5), quantiles.quantile(0.99));
+    }
+}
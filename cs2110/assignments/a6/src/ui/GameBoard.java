@@ -1,6 +1,5 @@
 package ui;
 
-import java.beans.PropertyChangeListener;
 import model.GameModel.Item;
 import model.MazeGraph.MazeVertex;
 import util.MazeGenerator;
@@ -18,7 +17,7 @@ import java.awt.geom.Path2D;
 import java.util.List;
 import javax.swing.JPanel;
 import model.Actor;
-import model.Actor.DPair;
+import model.GameListener;
 import model.GameModel;
 import model.Ghost;
 import model.Ghost.GhostState;
@@ -54,9 +53,10 @@ public class GameBoard extends JPanel {
     private final boolean showPaths;
 
     /**
-     * Listener to register with model to respond to board state changes.
+     * Listener to register with model to respond to board state changes.  It is coalesced, so the
+     * board is repainted once per update.
      */
-    private final PropertyChangeListener boardListener;
+    private final GameListener boardListener;
 
     public GameBoard(GameModel model, boolean showPaths) {
         setBackground(Color.BLACK);
@@ -70,7 +70,12 @@ public class GameBoard extends JPanel {
             }
         });
 
-        boardListener = e -> repaint();
+        boardListener = new GameListener() {
+            @Override
+            public void boardUpdated() {
+                repaint();
+            }
+        };
 
         this.showPaths = showPaths;
 
@@ -89,12 +94,12 @@ public class GameBoard extends JPanel {
 
     public void setModel(GameModel newModel) {
         if (model != null) {
-            model.removePropertyChangeListener("board_state", boardListener);
+            model.removeGameListener(boardListener);
         }
 
         this.model = newModel;
         if (model != null) {
-            model.addPropertyChangeListener("board_state", boardListener);
+            model.addGameListener(boardListener, true);
 
             int width = model.width();
             int height = model.height();
@@ -149,9 +154,9 @@ public class GameBoard extends JPanel {
             }
         }
 
-        // dots and pellets
-        for (MazeVertex v : model.graph().vertices()) {
-            paintVertex(v, g2);
+        // dots and pellets (vertices without items need no painting)
+        for (int id = model.nextItemVertex(0); id >= 0; id = model.nextItemVertex(id + 1)) {
+            paintVertex(model.graph().vertex(id), g2);
         }
 
         // actors
@@ -159,7 +164,7 @@ public class GameBoard extends JPanel {
             if (actor instanceof Ghost ghost) {
                 paintGhost(ghost, g2);
 
-                g2.setColor(ghost.color());
+                g2.setColor(GhostColors.colorOf(ghost));
             } else if (actor instanceof PacMann player) {
                 paintPacMann(player, g2);
 
@@ -187,9 +192,8 @@ public class GameBoard extends JPanel {
 
         // body
         g2.setColor(ghostColor(ghost));
-        DPair bb = ghost.getBoundingBoxUL();
-        double i = bb.i();
-        double j = bb.j();
+        double i = ghost.boundingBoxI();
+        double j = ghost.boundingBoxJ();
         g2.fill(new Arc2D.Double(i + 0.1, j, 1.3, 1.3, 0, 180, Arc2D.PIE));
         Path2D.Double ghostBottom = new Path2D.Double(Path2D.WIND_NON_ZERO);
         ghostBottom.moveTo(i + 0.1, j + 0.65);
@@ -205,7 +209,7 @@ public class GameBoard extends JPanel {
         g2.fill(ghostBottom);
 
         // eye whites
-        g2.setColor(ghost.state() == GhostState.FLEE ? ghost.color() : Color.WHITE);
+        g2.setColor(ghost.state() == GhostState.FLEE ? GhostColors.colorOf(ghost) : Color.WHITE);
         double eyeX = i + switch (ghost.currentEdge().direction()) {
             case Direction.LEFT -> 0.2;
             case Direction.RIGHT -> 0.4;
@@ -238,7 +242,7 @@ public class GameBoard extends JPanel {
 
         // scared mouth (during FLEE)
         if (ghost.state() == GhostState.FLEE) {
-            g2.setColor(ghost.color());
+            g2.setColor(GhostColors.colorOf(ghost));
             Path2D.Double mouth = new Path2D.Double();
             mouth.moveTo(i + 0.25, j + 1.075);
             mouth.lineTo(i + 0.35, j + 1.15);
@@ -254,11 +258,12 @@ public class GameBoard extends JPanel {
     public void paintPacMann(PacMann player, Graphics2D g2) {
         g2.setColor(Color.YELLOW);
 
-        DPair bb = player.getBoundingBoxUL();
+        double i = player.boundingBoxI();
+        double j = player.boundingBoxJ();
 
         // at the start of a life, PacMann shouldn't point in a particular direction
         if (controller.state() == GameState.LIFESTART) {
-            g2.fill(new Ellipse2D.Double(bb.i(), bb.j(), 1.5, 1.5));
+            g2.fill(new Ellipse2D.Double(i, j, 1.5, 1.5));
             return;
         }
 
@@ -269,7 +274,7 @@ public class GameBoard extends JPanel {
             case Direction.DOWN -> 300;
         };
 
-        g2.fill(new Arc2D.Double(bb.i(), bb.j(), 1.5, 1.5, startAngle, 300, Arc2D.PIE));
+        g2.fill(new Arc2D.Double(i, j, 1.5, 1.5, startAngle, 300, Arc2D.PIE));
     }
 
     public void paintPath(Graphics2D g2, List<MazeEdge> path) {
@@ -374,7 +379,7 @@ public class GameBoard extends JPanel {
 
     private Color ghostColor(Ghost ghost) {
         if (ghost.state() != GhostState.FLEE) {
-            return ghost.color();
+            return GhostColors.colorOf(ghost);
         }
         if (ghost.fleeTimeRemaining() > 2000) {
             return Color.BLUE;
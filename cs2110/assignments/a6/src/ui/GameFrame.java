@@ -2,14 +2,13 @@ package ui;
 
 import java.awt.BorderLayout;
 import java.awt.Color;
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import model.GameModel;
 import model.GameModel.GameState;
+import model.GameListener;
 import util.Randomness;
 
 /**
@@ -17,7 +16,7 @@ import util.Randomness;
  * buttons for pausing the current game and creating a new game, and a game board view that supports
  * keyboard input.
  */
-public class GameFrame extends JFrame implements PropertyChangeListener {
+public class GameFrame extends JFrame implements GameListener {
 
     /**
      * The state and logic of the current game being played in this window.
@@ -77,7 +76,7 @@ public class GameFrame extends JFrame implements PropertyChangeListener {
 
         // Create initial game
         model = GameModel.newGame(width, height, withAI, randomness);
-        model.addPropertyChangeListener("game_result", this);
+        model.addGameListener(this, false);
 
         // Create and arrange widgets
         scoreLabel = new ScoreLabel(model);
@@ -117,15 +116,15 @@ public class GameFrame extends JFrame implements PropertyChangeListener {
 
     /**
      * Update all UI widgets to reflect the new game model `newModel` instead of any previous game.
-     * The model is expected to publish a "game_result" property.
+     * We are notified when the new game ends.
      */
     private void setGameModel(GameModel newModel) {
         if (model != null) {
-            model.removePropertyChangeListener("game_result", this);
+            model.removeGameListener(this);
         }
         model = newModel;
         if (newModel != null) {
-            model.addPropertyChangeListener("game_result", this);
+            model.addGameListener(this, false);
         }
         scoreLabel.setModel(newModel);
         gameBoard.setModel(newModel);
@@ -160,16 +159,16 @@ public class GameFrame extends JFrame implements PropertyChangeListener {
         newGame();
     }
 
-
+    /**
+     * Show the dialog for how the game ended. Interactive games have no watchdog, so they are never
+     * aborted and an ABORTED result shows nothing.
+     */
     @Override
-    public void propertyChange(PropertyChangeEvent evt) {
-        if ("game_result".equals(evt.getPropertyName())) {
-            GameState result = (GameState) evt.getNewValue();
-            if (result == GameModel.GameState.VICTORY) {
-                showWinMessage();
-            } else if (result == GameModel.GameState.DEFEAT) {
-                showLoseMessage();
-            }
+    public void gameEnded(GameState result) {
+        if (result == GameModel.GameState.VICTORY) {
+            showWinMessage();
+        } else if (result == GameModel.GameState.DEFEAT) {
+            showLoseMessage();
         }
     }
 }
@@ -0,0 +1,28 @@
+package ui;
+
+import java.awt.Color;
+import model.Blinky;
+import model.Clyde;
+import model.Ghost;
+import model.Inky;
+import model.Pinky;
+
+/**
+ * Assigns each kind of ghost the color it is painted in while in its CHASE state.  Colors are a
+ * presentation concern, so they are kept out of the model (which must not depend on AWT).
+ */
+public class GhostColors {
+
+    /**
+     * Return the color of `ghost` in its CHASE state.  Ghosts of unknown kinds are gray.
+     */
+    public static Color colorOf(Ghost ghost) {
+        return switch (ghost) {
+            case Blinky b -> Color.RED;
+            case Pinky p -> Color.PINK;
+            case Inky i -> Color.CYAN;
+            case Clyde c -> Color.ORANGE;
+            default -> Color.GRAY;
+        };
+    }
+}
@@ -5,6 +5,7 @@ import java.awt.event.KeyListener;
 import java.beans.PropertyChangeListener;
 import javax.swing.Timer;
 import javax.swing.event.SwingPropertyChangeSupport;
+import model.GameListener;
 import model.GameModel;
 import model.MazeGraph.Direction;
 
@@ -34,11 +35,14 @@ public class InteractiveGameController implements KeyListener {
     public void setModel(GameModel newModel) {
         reset();
         model = newModel;
-        model.addPropertyChangeListener("game_state", e -> {
-            if (model.state() != GameModel.GameState.PLAYING) {
-                stopGame();
+        model.addGameListener(new GameListener() {
+            @Override
+            public void stateChanged(GameModel.GameState oldState, GameModel.GameState newState) {
+                if (model.state() != GameModel.GameState.PLAYING) {
+                    stopGame();
+                }
             }
-        });
+        }, false);
     }
 
     private void stopGame() {
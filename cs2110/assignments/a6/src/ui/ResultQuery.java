@@ -0,0 +1,189 @@
+package ui;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import model.GameModel.GameState;
+import ui.ResultStore.Column;
+import util.QuantileSketch;
+import util.RunningStats;
+
+/**
+ * Filter and aggregate the games in a `ResultStore`.  Filters compare a column with a value (such
+ * as `score>=3000` or `result=VICTORY`); the distributions of the chosen columns over the matching
+ * games are reported, optionally for each distinct value of a grouping column (such as `by=lives`).
+ * Filters are evaluated a column at a time over the whole store, so each column is scanned at most
+ * once per filter.
+ */
+public class ResultQuery {
+
+    /**
+     * The comparison operators a filter may use, longest first so that they are parsed greedily.
+     */
+    private static final String[] OPERATORS = {"<=", ">=", "!=", "=", "<", ">"};
+
+    /**
+     * A condition on the value of `column`, comparing it with `operator` to `value` (or, for times,
+     * `time`).  Results are compared by their state's ordinal.
+     */
+    record Filter(Column column, String operator, long value, double time) {
+
+        /**
+         * Return whether row `row` of `store` satisfies this filter.
+         */
+        boolean test(ResultStore.Snapshot store, int row) {
+            int cmp = (column == Column.TIME)
+                    ? Double.compare(store.doubleValue(column, row), time)
+                    : Long.compare(store.longValue(column, row), value);
+            return switch (operator) {
+                case "<=" -> cmp <= 0;
+                case ">=" -> cmp >= 0;
+                case "!=" -> cmp != 0;
+                case "=" -> cmp == 0;
+                case "<" -> cmp < 0;
+                default -> cmp > 0;
+            };
+        }
+
+        /**
+         * Parse a filter of the form `<column><operator><value>`, or return null if `arg` does not
+         * contain an operator.
+         */
+        static Filter parse(String arg) {
+            for (String operator : OPERATORS) {
+                int at = arg.indexOf(operator);
+                if (at > 0) {
+                    Column column = parseColumn(arg.substring(0, at));
+                    String value = arg.substring(at + operator.length());
+                    return switch (column) {
+                        case TIME -> new Filter(column, operator, 0, Double.parseDouble(value));
+                        case RESULT -> new Filter(column, operator,
+                                GameState.valueOf(value.toUpperCase()).ordinal(), 0);
+                        default -> new Filter(column, operator, Long.parseLong(value), 0);
+                    };
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The distribution of one column over a group of games.
+     */
+    private record Aggregate(RunningStats stats, QuantileSketch quantiles) {
+
+        Aggregate() {
+            this(new RunningStats(), new QuantileSketch());
+        }
+
+        void add(double x) {
+            stats.add(x);
+            quantiles.add(x);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Usage: java ResultQuery <store>"
+                    + " [<column>{=|!=|<|<=|>|>=}<value> ...] [by=<column>]"
+                    + " [show=<column>,...]\n"
+                    + " Columns: game, seed, result, score, time, lives, steps");
+        }
+        Path directory = Path.of(args[0]);
+        List<Filter> filters = new ArrayList<>();
+        Column groupBy = null;
+        List<Column> shown = List.of(Column.SCORE, Column.TIME, Column.STEPS);
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("by=")) {
+                groupBy = parseColumn(arg.substring(3));
+            } else if (arg.startsWith("show=")) {
+                shown = new ArrayList<>();
+                for (String name : arg.substring(5).split(",")) {
+                    shown.add(parseColumn(name));
+                }
+                if (shown.isEmpty()) {
+                    throw new IllegalArgumentException("At least one column must be shown.");
+                }
+            } else {
+                Filter filter = Filter.parse(arg);
+                if (filter == null) {
+                    throw new IllegalArgumentException("Unable to interpret argument: " + arg);
+                }
+                filters.add(filter);
+            }
+        }
+
+        long start = System.nanoTime();
+        var store = new ResultStore.Snapshot(directory);
+        int rows = store.rows();
+
+        // Narrow the selection one filter (and so one column) at a time
+        boolean[] selected = new boolean[rows];
+        Arrays.fill(selected, true);
+        for (Filter filter : filters) {
+            for (int row = 0; row < rows; row++) {
+                if (selected[row]) {
+                    selected[row] = filter.test(store, row);
+                }
+            }
+        }
+
+        // Aggregate the shown columns over each group of selected rows
+        Map<Long, Aggregate[]> groups = new TreeMap<>();
+        int matched = 0;
+        for (int row = 0; row < rows; row++) {
+            if (!selected[row]) {
+                continue;
+            }
+            matched += 1;
+            long key = (groupBy == null) ? 0 : store.longValue(groupBy, row);
+            Aggregate[] aggregates = groups.get(key);
+            if (aggregates == null) {
+                aggregates = new Aggregate[shown.size()];
+                for (int c = 0; c < aggregates.length; c++) {
+                    aggregates[c] = new Aggregate();
+                }
+                groups.put(key, aggregates);
+            }
+            for (int c = 0; c < aggregates.length; c++) {
+                aggregates[c].add(store.doubleValue(shown.get(c), row));
+            }
+        }
+
+        System.out.printf("Rows: %d of %d match (%.1f ms)\n", matched, rows,
+                (System.nanoTime() - start) / 1e6);
+        for (Map.Entry<Long, Aggregate[]> group : groups.entrySet()) {
+            Aggregate[] aggregates = group.getValue();
+            if (groupBy != null) {
+                String value = (groupBy == Column.RESULT)
+                        ? GameState.values()[(int) (long) group.getKey()].toString()
+                        : group.getKey().toString();
+                System.out.printf("\n%s=%s: %d rows\n", name(groupBy), value,
+                        aggregates[0].stats().count());
+            }
+            for (int c = 0; c < aggregates.length; c++) {
+                BatchSummary.printDistribution(name(shown.get(c)), aggregates[c].stats(),
+                        aggregates[c].quantiles());
+            }
+        }
+    }
+
+    /**
+     * Return the column named `name` (ignoring case).
+     */
+    private static Column parseColumn(String name) {
+        return Column.valueOf(name.toUpperCase());
+    }
+
+    /**
+     * Return the name of `column` as it is written in queries.
+     */
+    private static String name(Column column) {
+        return column.name().toLowerCase();
+    }
+}
@@ -0,0 +1,348 @@
+package ui;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import model.GameModel.GameState;
+
+/**
+ * An append-only store of game results laid out by column, for analysing large batches without
+ * parsing text.  A store is a directory holding one file per column, each a packed array of
+ * fixed-width big-endian values (one per game), and a small "rows" file holding the number of
+ * committed rows.  Columns are written through memory mappings of fixed-size segments, and are
+ * forced to disk and committed every `FLUSH_ROWS` rows, when the store is closed, and whenever
+ * `commit()` is called (`BatchApp` commits each game it also records in a result file).  Rows
+ * past the committed count (left by a process that was killed) are ignored and overwritten when
+ * the store is reopened, so every column always holds the same games.  Column files grow a whole
+ * segment at a time, so they may be longer than their committed rows.  Each row records the index
+ * of its game in its batch, so that a resumed batch can drop the rows of games it plays again
+ * (see `truncate()`).
+ * <p>
+ * Stores are queried with `ResultQuery`.  A column is mapped as a whole when read, so a store can
+ * hold at most `Integer.MAX_VALUE / 8` rows.
+ */
+public final class ResultStore implements AutoCloseable {
+
+    /**
+     * The columns of a store, with the width of their values [bytes].
+     */
+    public enum Column {
+        GAME(Integer.BYTES), SEED(Long.BYTES), RESULT(1), SCORE(Integer.BYTES),
+        TIME(Double.BYTES), LIVES(Integer.BYTES), STEPS(Long.BYTES);
+
+        /**
+         * The width of this column's values [bytes].
+         */
+        final int width;
+
+        Column(int width) {
+            this.width = width;
+        }
+
+        /**
+         * Return the name of this column's file in a store.
+         */
+        String fileName() {
+            return name().toLowerCase() + ".col";
+        }
+    }
+
+    /**
+     * Identifies a store's row count file ("PMRS").
+     */
+    private static final int MAGIC = 0x504D5253;
+
+    /**
+     * The version of the store layout; stores with any other version are rejected.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * Size of the row count file: magic, version (ints), and committed row count (long).
+     */
+    private static final int ROWS_BYTES = 2 * 4 + 8;
+
+    /**
+     * The name of a store's row count file.
+     */
+    private static final String ROWS_FILE = "rows";
+
+    /**
+     * The number of rows in each mapped segment of a column.
+     */
+    private static final int SEGMENT_ROWS = 1 << 16;
+
+    /**
+     * The number of rows appended between commits.
+     */
+    static final int FLUSH_ROWS = SEGMENT_ROWS;
+
+    private static final Column[] COLUMNS = Column.values();
+
+    /**
+     * The open file of each column, and the mapping of its current segment.
+     */
+    private final FileChannel[] channels;
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * The open row count file.
+     */
+    private final FileChannel rowsChannel;
+
+    /**
+     * The number of rows appended, and the number of those that have been committed.
+     */
+    private long rows;
+    private long committed;
+
+    /**
+     * Open the store in `directory` for appending, creating it if it does not exist.  Throws
+     * `IllegalArgumentException` if the directory holds something other than a store.
+     */
+    public ResultStore(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        channels = new FileChannel[COLUMNS.length];
+        segments = new MappedByteBuffer[COLUMNS.length];
+        rowsChannel = FileChannel.open(directory.resolve(ROWS_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            committed = (rowsChannel.size() == 0) ? 0 : readRows(directory, rowsChannel);
+            rows = committed;
+            for (Column column : COLUMNS) {
+                channels[column.ordinal()] = FileChannel.open(
+                        directory.resolve(column.fileName()), StandardOpenOption.CREATE,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            commit();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Return the number of rows in this store, including those not committed yet.
+     */
+    public long rows() {
+        return rows;
+    }
+
+    /**
+     * Append the result of a game: its index in its batch, the seed of the randomness it was
+     * created from, its final state, score, time [ms], and lives, and the number of sub-steps it
+     * took.
+     */
+    public void append(int game, long seed, GameState state, int score, double time, int lives,
+            long steps) throws IOException {
+        int offset = (int) (rows % SEGMENT_ROWS);
+        if (offset == 0 || segments[0] == null) {
+            mapSegment(rows / SEGMENT_ROWS);
+        }
+        segments[Column.GAME.ordinal()].putInt(offset * Integer.BYTES, game);
+        segments[Column.SEED.ordinal()].putLong(offset * Long.BYTES, seed);
+        segments[Column.RESULT.ordinal()].put(offset, (byte) state.ordinal());
+        segments[Column.SCORE.ordinal()].putInt(offset * Integer.BYTES, score);
+        segments[Column.TIME.ordinal()].putDouble(offset * Double.BYTES, time);
+        segments[Column.LIVES.ordinal()].putInt(offset * Integer.BYTES, lives);
+        segments[Column.STEPS.ordinal()].putLong(offset * Long.BYTES, steps);
+        rows += 1;
+        if (rows - committed >= FLUSH_ROWS) {
+            commit();
+        }
+    }
+
+    /**
+     * Return the index of the game in row `row` (which need not be committed yet) in its batch.
+     * Requires `row < rows()`.
+     */
+    public int game(long row) throws IOException {
+        return read(Column.GAME, row).getInt();
+    }
+
+    /**
+     * Return the seed of the game in row `row` (which need not be committed yet).  Requires
+     * `row < rows()`.
+     */
+    public long seed(long row) throws IOException {
+        return read(Column.SEED, row).getLong();
+    }
+
+    /**
+     * Return the value of `column` in row `row`, read from its file (which the segments' mappings
+     * write through to).
+     */
+    private ByteBuffer read(Column column, long row) throws IOException {
+        if (row < 0 || row >= rows) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + rows);
+        }
+        ByteBuffer value = ByteBuffer.allocate(column.width);
+        FileChannel channel = channels[column.ordinal()];
+        while (value.hasRemaining()
+                && channel.read(value, row * column.width + value.position()) > 0) {
+            // Keep reading until the value is complete or the file ends
+        }
+        return value.flip();
+    }
+
+    /**
+     * Remove the rows from row `rows` on, and commit the rows that remain.  Requires `rows` to be
+     * in `[0..rows()]`.
+     */
+    public void truncate(long rows) throws IOException {
+        if (rows < 0 || rows > this.rows) {
+            throw new IndexOutOfBoundsException("Row " + rows + " of " + this.rows);
+        }
+        // Like uncommitted rows, the removed rows are left in the column files to be overwritten
+        this.rows = rows;
+        Arrays.fill(segments, null);
+        commit();
+    }
+
+    /**
+     * Force the appended rows to disk and then record them as committed.
+     */
+    public void commit() throws IOException {
+        for (MappedByteBuffer segment : segments) {
+            if (segment != null) {
+                segment.force();
+            }
+        }
+        ByteBuffer header = ByteBuffer.allocate(ROWS_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putLong(rows);
+        header.flip();
+        while (header.hasRemaining()) {
+            rowsChannel.write(header, header.position());
+        }
+        rowsChannel.force(false);
+        committed = rows;
+    }
+
+    /**
+     * Commit the appended rows and close the store.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (rowsChannel.isOpen() && committed < rows) {
+                commit();
+            }
+        } finally {
+            for (int c = 0; c < channels.length; c++) {
+                segments[c] = null;
+                if (channels[c] != null) {
+                    channels[c].close();
+                }
+            }
+            rowsChannel.close();
+        }
+    }
+
+    /**
+     * Map segment `segment` of every column for writing, growing the column files as needed.
+     */
+    private void mapSegment(long segment) throws IOException {
+        for (Column column : COLUMNS) {
+            long bytes = (long) SEGMENT_ROWS * column.width;
+            segments[column.ordinal()] = channels[column.ordinal()].map(
+                    FileChannel.MapMode.READ_WRITE, segment * bytes, bytes);
+        }
+    }
+
+    /**
+     * Return the committed row count recorded in `in`, the row count file of the store in
+     * `directory`.  Throws `IllegalArgumentException` if it is not a store's row count file.
+     */
+    private static long readRows(Path directory, FileChannel in) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(ROWS_BYTES);
+        while (header.hasRemaining() && in.read(header, header.position()) > 0) {
+            // Keep reading until the header is complete or the file ends
+        }
+        header.flip();
+        if (header.limit() < ROWS_BYTES || header.getInt() != MAGIC
+                || header.getInt() != VERSION) {
+            throw new IllegalArgumentException("Not a result store: " + directory);
+        }
+        long rows = header.getLong();
+        if (rows < 0 || rows > Integer.MAX_VALUE / Long.BYTES) {
+            throw new IllegalArgumentException("Corrupt result store: " + directory);
+        }
+        return rows;
+    }
+
+    /**
+     * The committed rows of a store, read through memory mappings of its columns.
+     */
+    public static class Snapshot {
+
+        /**
+         * The number of rows.
+         */
+        private final int rows;
+
+        /**
+         * The values of each column.
+         */
+        private final ByteBuffer[] columns;
+
+        /**
+         * Map the committed rows of the store in `directory`.  Throws `IllegalArgumentException`
+         * if it is not a store or a column is missing rows.
+         */
+        public Snapshot(Path directory) throws IOException {
+            try (FileChannel in = FileChannel.open(directory.resolve(ROWS_FILE),
+                    StandardOpenOption.READ)) {
+                rows = (int) readRows(directory, in);
+            }
+            columns = new ByteBuffer[COLUMNS.length];
+            for (Column column : COLUMNS) {
+                try (FileChannel in = FileChannel.open(directory.resolve(column.fileName()),
+                        StandardOpenOption.READ)) {
+                    long bytes = (long) rows * column.width;
+                    if (in.size() < bytes) {
+                        throw new IllegalArgumentException("Column " + column + " of " + directory
+                                + " is missing rows");
+                    }
+                    columns[column.ordinal()] = in.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+                }
+            }
+        }
+
+        /**
+         * Return the number of rows.
+         */
+        public int rows() {
+            return rows;
+        }
+
+        /**
+         * Return the value of `column` in row `row`, as a long.  Times are truncated to whole
+         * milliseconds, and results are given by their state's ordinal.
+         */
+        public long longValue(Column column, int row) {
+            ByteBuffer values = columns[column.ordinal()];
+            return switch (column) {
+                case SEED, STEPS -> values.getLong(row * Long.BYTES);
+                case RESULT -> values.get(row);
+                case GAME, SCORE, LIVES -> values.getInt(row * Integer.BYTES);
+                case TIME -> (long) values.getDouble(row * Double.BYTES);
+            };
+        }
+
+        /**
+         * Return the value of `column` in row `row`, as a double.  Results are given by their
+         * state's ordinal.
+         */
+        public double doubleValue(Column column, int row) {
+            if (column == Column.TIME) {
+                return columns[column.ordinal()].getDouble(row * Double.BYTES);
+            }
+            return longValue(column, row);
+        }
+    }
+}
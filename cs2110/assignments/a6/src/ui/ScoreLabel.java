@@ -1,17 +1,16 @@
 package ui;
 
 import java.awt.Color;
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
 import javax.swing.JLabel;
 import javax.swing.SwingConstants;
 import javax.swing.border.EmptyBorder;
 import model.GameModel;
+import model.GameListener;
 
 /**
  * A label that displays the current score and number of lives remaining in a game of PacMann.
  */
-public class ScoreLabel extends JLabel implements PropertyChangeListener {
+public class ScoreLabel extends JLabel implements GameListener {
 
     /**
      * The model whose score and lives remaining we should display.  May be null, in which case no
@@ -37,33 +36,34 @@ public class ScoreLabel extends JLabel implements PropertyChangeListener {
 
     /**
      * Start displaying the state of `newModel`, instead of any model we may have been displaying
-     * before.  Model must publish PropertyChangeEvents for "score" and "lives" properties.
+     * before.
      * `newModel` may be null, in which case no score or lives values are displayed.
      */
     public void setModel(GameModel newModel) {
         // Stop listening to old model
         if (model != null) {
-            model.removePropertyChangeListener("score", this);
-            model.removePropertyChangeListener("lives", this);
+            model.removeGameListener(this);
         }
 
         model = newModel;
 
         // Start observing new model
         if (model != null) {
-            model.addPropertyChangeListener("score", this);
-            model.addPropertyChangeListener("lives", this);
+            // Coalesced, so the text is updated at most once per update
+            model.addGameListener(this, true);
         }
 
         showModelState();
     }
 
     @Override
-    public void propertyChange(PropertyChangeEvent evt) {
-        if ("score".equals(evt.getPropertyName()) ||
-                "lives".equals(evt.getPropertyName())) {
-            showModelState();
-        }
+    public void scoreChanged(int oldScore, int newScore) {
+        showModelState();
+    }
+
+    @Override
+    public void livesChanged(int oldLives, int newLives) {
+        showModelState();
     }
 
     /**
@@ -0,0 +1,88 @@
+package util;
+
+import java.util.Random;
+
+/**
+ * A random number generator whose state can be copied, so that a copy produces exactly the same
+ * values as the original from then on.  It generates the same sequence of values as
+ * `java.util.Random` with the same seed (it uses the same linear congruential generator), but
+ * keeps its state in plain fields.  Unlike `Random`, it is not safe for use by multiple threads.
+ */
+public class CopyableRandom extends Random {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The constants of the linear congruential generator used by `java.util.Random`.
+     */
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    // Note: these fields are set by `setSeed()`, which `Random`'s constructor calls before this
+    // class's fields would be initialized, so they must not have initializers.
+
+    /**
+     * The 48-bit state of the generator.
+     */
+    private long state;
+
+    /**
+     * The second of the last pair of Gaussian values generated, if it has not been returned yet.
+     */
+    private double nextNextGaussian;
+    private boolean haveNextNextGaussian;
+
+    /**
+     * Create a generator with seed `seed`.
+     */
+    public CopyableRandom(long seed) {
+        super(seed);
+    }
+
+    /**
+     * Return a new generator in the same state as this one.
+     */
+    public CopyableRandom copy() {
+        CopyableRandom copy = new CopyableRandom(0);
+        copy.state = state;
+        copy.nextNextGaussian = nextNextGaussian;
+        copy.haveNextNextGaussian = haveNextNextGaussian;
+        return copy;
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        state = (seed ^ MULTIPLIER) & MASK;
+        haveNextNextGaussian = false;
+    }
+
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+
+    /**
+     * Return the next Gaussian value, computed as by `java.util.Random.nextGaussian()`.
+     */
+    @Override
+    public double nextGaussian() {
+        if (haveNextNextGaussian) {
+            haveNextNextGaussian = false;
+            return nextNextGaussian;
+        }
+        double v1;
+        double v2;
+        double s;
+        do {
+            v1 = 2 * nextDouble() - 1;
+            v2 = 2 * nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+        double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+        nextNextGaussian = v2 * multiplier;
+        haveNextNextGaussian = true;
+        return v1 * multiplier;
+    }
+}
@@ -6,4 +6,28 @@ package util;
  */
 public record GameMap(MazeGenerator.TileType[][] types, double[][] elevations) {
 
+    /**
+     * Return a 64-bit hash of this map's dimensions, tile types, and elevations.  Maps with equal
+     * contents have equal fingerprints (unlike `hashCode()`, which depends on the identities of
+     * the arrays), so a fingerprint can key data derived from a map's contents.
+     */
+    public long fingerprint() {
+        long h = mix(types.length, types[0].length);
+        for (int i = 0; i < types.length; i++) {
+            for (int j = 0; j < types[i].length; j++) {
+                h = mix(h, types[i][j].ordinal());
+                h = mix(h, Double.doubleToLongBits(elevations[i][j]));
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Combine hash `h` with the value `x`.
+     */
+    private static long mix(long h, long x) {
+        h ^= x * 0x9E3779B97F4A7C15L;
+        h = Long.rotateLeft(h, 29) * 0xBF58476D1CE4E5B9L;
+        return h ^ (h >>> 32);
+    }
 }
@@ -0,0 +1,256 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * An approximate summary of the distribution of a stream of values that answers quantile queries
+ * (such as the median or the 99th percentile) in memory that grows only logarithmically with the
+ * length of the stream.  It is a KLL sketch (Karnin, Lang & Liberty): values are kept in a stack of
+ * compactors, where a value in level `h` stands for `2^h` values of the stream.  When the sketch
+ * holds more values than its capacity, the lowest full level is sorted and every other value
+ * (starting from a random one of the first two) is promoted to the next level, while the rest are
+ * discarded.  Lower levels get geometrically smaller capacities, so most of the sketch's memory
+ * holds the heavily-weighted values that decide ranks.
+ * <p>
+ * With parameter `k`, the rank of a returned quantile is typically within about `1.7 / k` of the
+ * requested one (about 1% for the default `k`).  Two sketches can be merged, so that parts of a
+ * stream can be summarized separately and then combined.  The "random" choices come from a
+ * generator with a fixed seed, so the same sequence of additions and merges always produces the
+ * same sketch.
+ */
+public class QuantileSketch {
+
+    /**
+     * The default accuracy parameter: the capacity of the highest level.
+     */
+    public static final int DEFAULT_K = 200;
+
+    /**
+     * The ratio of the capacity of each level to that of the level above it.
+     */
+    private static final double DECAY = 2.0 / 3.0;
+
+    /**
+     * The capacity of the highest level.
+     */
+    private final int k;
+
+    /**
+     * The values held in each level, and the number of values in each level (the rest of each
+     * array is unused).
+     */
+    private double[][] levels;
+    private int[] sizes;
+
+    /**
+     * The number of levels in use.
+     */
+    private int numLevels;
+
+    /**
+     * The capacity of each level in use, and their sum; they change whenever a level is added.
+     */
+    private int[] capacities;
+    private int totalCapacity;
+
+    /**
+     * The number of values held, over all levels.
+     */
+    private int size;
+
+    /**
+     * The number of values in the stream.
+     */
+    private long count;
+
+    /**
+     * The least and greatest values in the stream.
+     */
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * The state of the (xorshift) generator choosing which values compactions promote.
+     */
+    private long coin = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Create an empty sketch with accuracy parameter `DEFAULT_K`.
+     */
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Create an empty sketch with accuracy parameter `k`.  Requires `k >= 8`.
+     */
+    public QuantileSketch(int k) {
+        if (k < 8) {
+            throw new IllegalArgumentException("Sketch parameter must be at least 8");
+        }
+        this.k = k;
+        levels = new double[0][];
+        sizes = new int[0];
+        addLevel();
+    }
+
+    /**
+     * Add `x` to the stream.  Requires `x` is not NaN.
+     */
+    public void add(double x) {
+        if (Double.isNaN(x)) {
+            throw new IllegalArgumentException("Cannot add NaN to a sketch");
+        }
+        append(0, x);
+        count += 1;
+        min = Math.min(min, x);
+        max = Math.max(max, x);
+        compress();
+    }
+
+    /**
+     * Add every value summarized by `other` to the stream.  `other` is unchanged.
+     */
+    public void merge(QuantileSketch other) {
+        for (int h = 0; h < other.numLevels; h++) {
+            while (numLevels <= h) {
+                addLevel();
+            }
+            for (int i = 0; i < other.sizes[h]; i++) {
+                append(h, other.levels[h][i]);
+            }
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        compress();
+    }
+
+    /**
+     * Return the number of values in the stream.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Return the number of values this sketch holds to summarize the stream.
+     */
+    public int retained() {
+        return size;
+    }
+
+    /**
+     * Return an approximation of the `q`-quantile of the stream: a value of the stream such that
+     * about a fraction `q` of the stream is at most it.  Quantiles 0 and 1 are exactly the least
+     * and greatest values.  Returns NaN if the stream is empty.  Requires `0 <= q <= 1`.
+     */
+    public double quantile(double q) {
+        if (!(q >= 0 && q <= 1)) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        } else if (q == 0) {
+            return min;
+        } else if (q == 1) {
+            return max;
+        }
+
+        // Visit the held values in increasing order, merging the sorted levels, until their total
+        // weight reaches the requested rank
+        double[][] sorted = new double[numLevels][];
+        int[] next = new int[numLevels];
+        for (int h = 0; h < numLevels; h++) {
+            sorted[h] = Arrays.copyOf(levels[h], sizes[h]);
+            Arrays.sort(sorted[h]);
+        }
+        double rank = q * count;
+        long weight = 0;
+        while (true) {
+            int least = -1;
+            for (int h = 0; h < numLevels; h++) {
+                if (next[h] < sorted[h].length
+                        && (least < 0 || sorted[h][next[h]] < sorted[least][next[least]])) {
+                    least = h;
+                }
+            }
+            if (least < 0) {
+                return max;
+            }
+            double value = sorted[least][next[least]];
+            next[least] += 1;
+            weight += 1L << least;
+            if (weight >= rank) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Add `x` to the values held in level `h`.
+     */
+    private void append(int h, double x) {
+        if (sizes[h] == levels[h].length) {
+            levels[h] = Arrays.copyOf(levels[h], 2 * levels[h].length);
+        }
+        levels[h][sizes[h]] = x;
+        sizes[h] += 1;
+        size += 1;
+    }
+
+    /**
+     * Compact levels until this sketch holds no more values than its capacity.
+     */
+    private void compress() {
+        while (size > totalCapacity) {
+            // Some level must be over its capacity; compact the lowest
+            int h = 0;
+            while (sizes[h] < capacities[h]) {
+                h += 1;
+            }
+            compact(h);
+        }
+    }
+
+    /**
+     * Promote every other value held in level `h` to level `h + 1`, discarding the rest.  If the
+     * level holds an odd number of values, its greatest value stays behind.
+     */
+    private void compact(int h) {
+        if (h + 1 == numLevels) {
+            addLevel();
+        }
+        double[] level = levels[h];
+        int n = sizes[h];
+        Arrays.sort(level, 0, n);
+        int kept = n % 2;
+        coin ^= coin << 13;
+        coin ^= coin >>> 7;
+        coin ^= coin << 17;
+        for (int i = (int) (coin >>> 63); i < n - kept; i += 2) {
+            append(h + 1, level[i]);
+        }
+        if (kept == 1) {
+            level[0] = level[n - 1];
+        }
+        sizes[h] = kept;
+        size -= n - kept;
+    }
+
+    /**
+     * Add an empty level above the others, and update the capacities of the levels.
+     */
+    private void addLevel() {
+        levels = Arrays.copyOf(levels, numLevels + 1);
+        sizes = Arrays.copyOf(sizes, numLevels + 1);
+        levels[numLevels] = new double[8];
+        numLevels += 1;
+        capacities = new int[numLevels];
+        totalCapacity = 0;
+        for (int h = 0; h < numLevels; h++) {
+            capacities[h] = Math.max(2, (int) Math.ceil(k * Math.pow(DECAY, numLevels - 1 - h)));
+            totalCapacity += capacities[h];
+        }
+    }
+}
@@ -42,4 +42,22 @@ public record Randomness(long seed) {
     public Random generatorFor(String id) {
         return new Random(seed ^ id.hashCode());
     }
+
+    /**
+     * Return a random number generator to be used by a submodel with ID `id` whose state can be
+     * copied.  It generates the same values as `generatorFor(id)`.
+     */
+    public CopyableRandom copyableGeneratorFor(String id) {
+        return new CopyableRandom(seed ^ id.hashCode());
+    }
+
+    /**
+     * Return a well-mixed function of `x` (the finalizer of SplitMix64), for deriving hash keys
+     * that look random from structured values.
+     */
+    public static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
 }
@@ -0,0 +1,98 @@
+package util;
+
+/**
+ * The count, mean, variance, minimum, and maximum of a stream of values, kept in constant memory.
+ * Values are accumulated with Welford's method, which avoids the cancellation suffered by summing
+ * squares.  Two accumulators can be merged (using the pairwise update of Chan et al.), so that
+ * parts of a stream can be summarized separately and then combined.
+ */
+public class RunningStats {
+
+    /**
+     * The number of values added.
+     */
+    private long count;
+
+    /**
+     * The mean of the values added, and the sum of their squared differences from it.
+     */
+    private double mean;
+    private double sumSquares;
+
+    /**
+     * The least and greatest values added.
+     */
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Add `x` to the stream.
+     */
+    public void add(double x) {
+        count += 1;
+        double delta = x - mean;
+        mean += delta / count;
+        sumSquares += delta * (x - mean);
+        min = Math.min(min, x);
+        max = Math.max(max, x);
+    }
+
+    /**
+     * Add every value summarized by `other` to the stream.  `other` is unchanged.
+     */
+    public void merge(RunningStats other) {
+        if (other.count == 0) {
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        sumSquares += other.sumSquares + delta * delta * ((double) count * other.count / total);
+        count = total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Return the number of values added.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Return the mean of the values added, or NaN if there are none.
+     */
+    public double mean() {
+        return (count == 0) ? Double.NaN : mean;
+    }
+
+    /**
+     * Return the sample variance of the values added, or NaN if there are fewer than two.
+     */
+    public double variance() {
+        return (count < 2) ? Double.NaN : sumSquares / (count - 1);
+    }
+
+    /**
+     * Return the sample standard deviation of the values added, or NaN if there are fewer than
+     * two.
+     */
+    public double standardDeviation() {
+        return Math.sqrt(variance());
+    }
+
+    /**
+     * Return the least value added, or positive infinity if there are none.
+     */
+    public double min() {
+        return min;
+    }
+
+    /**
+     * Return the greatest value added, or negative infinity if there are none.
+     */
+    public double max() {
+        return max;
+    }
+}
@@ -0,0 +1,156 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class IndexMinPQueueTest {
+
+    @DisplayName("WHEN a new IndexMinPQueue is created, THEN its size will be 0 AND it will be "
+            + "empty AND it will not contain any element of its capacity")
+    @Test
+    void testNew() {
+        IndexMinPQueue q = new IndexMinPQueue(8);
+
+        assertEquals(8, q.capacity());
+        assertEquals(0, q.size());
+        assertTrue(q.isEmpty());
+        for (int e = 0; e < 8; e++) {
+            assertFalse(q.contains(e));
+        }
+    }
+
+    @DisplayName("GIVEN an IndexMinPQueue containing an element x whose priority is not the "
+            + "minimum, WHEN x's priority is lowered to become the unique minimum, "
+            + "THEN the queue's size will not change "
+            + "AND peeking will return x "
+            + "AND the minimum priority will be x's updated priority")
+    @Test
+    void testUpdateLower() {
+        IndexMinPQueue q = new IndexMinPQueue(8);
+        q.addOrUpdate(1, 10);
+        q.addOrUpdate(2, 5);
+        q.addOrUpdate(3, 30);
+        q.addOrUpdate(4, 20);
+        assertEquals(2, q.peek());
+
+        q.addOrUpdate(4, 3);
+
+        assertEquals(4, q.size());
+        assertEquals(4, q.peek());
+        assertEquals(3, q.minPriority());
+        assertEquals(3, q.priority(4));
+    }
+
+    @DisplayName("GIVEN an IndexMinPQueue whose minimum-priority element is x, WHEN x's priority "
+            + "is raised above every other priority, "
+            + "THEN the queue's size will not change "
+            + "AND peeking will return the element with the next-smallest priority "
+            + "AND x will be removed last")
+    @Test
+    void testUpdateRaise() {
+        IndexMinPQueue q = new IndexMinPQueue(8);
+        q.addOrUpdate(1, 10);
+        q.addOrUpdate(2, 5);
+        q.addOrUpdate(3, 30);
+        q.addOrUpdate(4, 20);
+        assertEquals(2, q.peek());
+
+        q.addOrUpdate(2, 40);
+
+        assertEquals(4, q.size());
+        assertEquals(1, q.peek());
+        assertEquals(10, q.minPriority());
+        assertEquals(40, q.priority(2));
+        assertEquals(1, q.remove());
+        assertEquals(4, q.remove());
+        assertEquals(3, q.remove());
+        assertEquals(2, q.remove());
+        assertTrue(q.isEmpty());
+    }
+
+    @DisplayName("GIVEN an IndexMinPQueue, WHEN an element in the middle of its heap is removed, "
+            + "THEN its size will decrease by 1 AND it will no longer contain that element "
+            + "AND the remaining elements will be removed in ascending order of priority")
+    @Test
+    void testRemoveFromMiddle() {
+        int nElem = 20;
+        IndexMinPQueue q = new IndexMinPQueue(nElem);
+        // Add elements in a random order, with each element's priority equal to itself
+        Random rng = new Random(1);
+        int[] order = new int[nElem];
+        for (int i = 0; i < nElem; i++) {
+            order[i] = i;
+        }
+        for (int i = nElem - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+        }
+        for (int e : order) {
+            q.addOrUpdate(e, e);
+        }
+
+        // Neither the minimum nor (with 20 elements) the last leaf of the heap
+        q.remove(7);
+        q.remove(13);
+        // Removing an absent element does nothing
+        q.remove(7);
+
+        assertEquals(nElem - 2, q.size());
+        assertFalse(q.contains(7));
+        assertFalse(q.contains(13));
+        int prev = -1;
+        while (!q.isEmpty()) {
+            int e = q.remove();
+            assertTrue(e > prev);
+            assertNotEquals(7, e);
+            assertNotEquals(13, e);
+            prev = e;
+        }
+    }
+
+    @DisplayName("GIVEN a non-empty IndexMinPQueue, WHEN it is cleared, THEN it will be empty "
+            + "AND it will contain none of its former elements AND it may be refilled")
+    @Test
+    void testClear() {
+        IndexMinPQueue q = new IndexMinPQueue(8);
+        q.addOrUpdate(1, 10);
+        q.addOrUpdate(5, 5);
+        q.addOrUpdate(6, 30);
+
+        q.clear();
+
+        assertEquals(0, q.size());
+        assertTrue(q.isEmpty());
+        assertFalse(q.contains(1));
+        assertFalse(q.contains(5));
+        assertFalse(q.contains(6));
+
+        q.addOrUpdate(6, 2);
+        q.addOrUpdate(1, 1);
+        assertEquals(2, q.size());
+        assertEquals(1, q.remove());
+        assertEquals(6, q.remove());
+    }
+
+    @DisplayName("GIVEN an empty IndexMinPQueue, WHEN attempting to query the next element "
+            + "OR query the minimum priority OR remove the next element "
+            + "THEN a NoSuchElementException will be thrown")
+    @Test
+    void testExceptions() {
+        IndexMinPQueue q = new IndexMinPQueue(4);
+        assertThrows(NoSuchElementException.class, () -> q.peek());
+        assertThrows(NoSuchElementException.class, () -> q.minPriority());
+        assertThrows(NoSuchElementException.class, () -> q.remove());
+
+        // A queue that has been emptied behaves the same way
+        q.addOrUpdate(2, 1);
+        q.remove();
+        assertThrows(NoSuchElementException.class, () -> q.peek());
+    }
+}
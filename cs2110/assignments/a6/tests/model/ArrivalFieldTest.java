@@ -0,0 +1,50 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import util.Randomness;
+
+public class ArrivalFieldTest {
+
+    @DisplayName("WHEN the sources of an arrival field move repeatedly, THEN the repaired field "
+            + "matches a field built from scratch with the same sources.")
+    @Test
+    void testRepairMatchesRebuild() {
+        MazeGraph graph = GameModel.newGame(10, 10, false, new Randomness(2110)).graph();
+        int n = graph.vertexCount();
+        Random random = new Random(2110);
+        for (boolean towardSources : new boolean[]{false, true}) {
+            ArrivalField repaired = new ArrivalField(graph, 6, towardSources);
+            int[] vertices = new int[6];
+            double[] starts = new double[6];
+            Arrays.fill(vertices, -1);
+            for (int round = 0; round < 200; round++) {
+                int s = random.nextInt(6);
+                if (random.nextInt(4) == 0) {
+                    vertices[s] = -1;
+                    repaired.clearSource(s);
+                } else {
+                    vertices[s] = random.nextInt(n);
+                    starts[s] = random.nextInt(1000);
+                    repaired.setSource(s, vertices[s], starts[s], 200);
+                }
+                repaired.repair();
+
+                ArrivalField rebuilt = new ArrivalField(graph, 6, towardSources);
+                for (int k = 0; k < 6; k++) {
+                    if (vertices[k] >= 0) {
+                        rebuilt.setSource(k, vertices[k], starts[k], 200);
+                    }
+                }
+                rebuilt.repair();
+                for (int v = 0; v < n; v++) {
+                    assertEquals(rebuilt.value(v), repaired.value(v), 1e-6);
+                }
+            }
+        }
+    }
+}
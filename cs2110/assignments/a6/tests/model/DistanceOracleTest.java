@@ -0,0 +1,129 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import model.MazeGraph.MazeEdge;
+import model.MazeGraph.MazeVertex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import util.GameMap;
+
+public class DistanceOracleTest {
+
+    // A ring of path tiles below a corridor that wraps around through a tunnel
+    static final String ringTemplate = """
+            wwwww
+            wwwww
+            ppppp
+            wpwpw
+            wpppw
+            wwwww""";
+
+    /**
+     * Return the all-pairs shortest-path distances of `graph`, computed with the Floyd-Warshall
+     * algorithm.
+     */
+    static double[][] floydWarshall(MazeGraph graph) {
+        int n = graph.vertexCount();
+        double[][] d = new double[n][n];
+        for (int u = 0; u < n; u++) {
+            for (int v = 0; v < n; v++) {
+                d[u][v] = (u == v) ? 0 : Double.POSITIVE_INFINITY;
+            }
+            for (MazeEdge e : graph.vertex(u).outgoingEdges()) {
+                d[u][e.dst().id()] = Math.min(d[u][e.dst().id()], e.weight());
+            }
+        }
+        for (int k = 0; k < n; k++) {
+            for (int u = 0; u < n; u++) {
+                for (int v = 0; v < n; v++) {
+                    d[u][v] = Math.min(d[u][v], d[u][k] + d[k][v]);
+                }
+            }
+        }
+        return d;
+    }
+
+    @DisplayName("WHEN an all-pairs table is written and reopened, THEN its distances match the "
+            + "lengths of shortest paths in the graph.")
+    @Test
+    void testAllPairsRoundTrip(@TempDir Path directory) throws IOException {
+        GameMap map = MazeGraphTest.createMap(ringTemplate);
+        MazeGraph graph = new MazeGraph(map);
+        Path file = directory.resolve("table.bin");
+        DistanceOracle.writeAllPairs(file, graph);
+
+        DistanceOracle oracle = DistanceOracle.open(file, map);
+        assertTrue(oracle.verify());
+        assertEquals(graph.vertexCount(), oracle.vertexCount());
+        double[][] expected = floydWarshall(graph);
+        for (MazeVertex u : graph.vertices()) {
+            assertTrue(oracle.isSource(u.id()));
+            for (MazeVertex v : graph.vertices()) {
+                assertEquals(expected[u.id()][v.id()], oracle.distance(u.id(), v.id()), 1e-9);
+            }
+        }
+    }
+
+    @DisplayName("WHEN a table only stores distances from landmarks, THEN `lowerBound` never "
+            + "exceeds the true distance between two vertices.")
+    @Test
+    void testLandmarkLowerBound(@TempDir Path directory) throws IOException {
+        GameMap map = MazeGraphTest.createMap(ringTemplate);
+        MazeGraph graph = new MazeGraph(map);
+        Path file = directory.resolve("table.bin");
+        int[] landmarks = DistanceOracle.landmarks(graph, 2);
+        assertEquals(2, landmarks.length);
+        assertNotEquals(landmarks[0], landmarks[1]);
+        DistanceOracle.write(file, graph, landmarks);
+
+        DistanceOracle oracle = DistanceOracle.open(file, map);
+        double[][] expected = floydWarshall(graph);
+        for (MazeVertex u : graph.vertices()) {
+            for (MazeVertex v : graph.vertices()) {
+                assertTrue(oracle.lowerBound(u.id(), v.id()) <= expected[u.id()][v.id()] + 1e-9);
+            }
+        }
+    }
+
+    @DisplayName("GIVEN a generated maze with uneven edge weights, WHEN distances are looked up, "
+            + "THEN they are exactly those found by Dijkstra's algorithm, AND landmark bounds never "
+            + "exceed them.")
+    @Test
+    void testExactDistancesOnGeneratedMaze(@TempDir Path directory) throws IOException {
+        MazeGraph graph = GameModel.newGame(10, 10, false, new util.Randomness(2110)).graph();
+        Path allPairs = directory.resolve("all.bin");
+        DistanceOracle.writeAllPairs(allPairs, graph);
+        DistanceOracle exact = DistanceOracle.open(allPairs, graph.map());
+        Path landmarkFile = directory.resolve("landmarks.bin");
+        DistanceOracle.write(landmarkFile, graph, DistanceOracle.landmarks(graph, 8));
+        DistanceOracle landmarks = DistanceOracle.open(landmarkFile, graph.map());
+
+        int n = graph.vertexCount();
+        double[] dist = new double[n];
+        for (int u = 0; u < n; u++) {
+            DistanceOracle.distancesFrom(graph, u, dist, new graph.IndexMinPQueue(n));
+            for (int v = 0; v < n; v++) {
+                assertEquals(dist[v], exact.distance(u, v));
+                assertEquals(dist[v], exact.lowerBound(u, v));
+                assertTrue(landmarks.lowerBound(u, v) <= dist[v]);
+            }
+        }
+    }
+
+    @DisplayName("WHEN a table is opened for a map other than the one it was computed for, THEN "
+            + "an IOException is thrown.")
+    @Test
+    void testMismatchedMap(@TempDir Path directory) throws IOException {
+        GameMap map = MazeGraphTest.createMap(ringTemplate);
+        Path file = directory.resolve("table.bin");
+        DistanceOracle.writeAllPairs(file, new MazeGraph(map));
+
+        GameMap other = MazeGraphTest.createMap(ringTemplate);
+        other.elevations()[2][2] += 1;
+        assertThrows(IOException.class, () -> DistanceOracle.open(file, other));
+    }
+}
@@ -0,0 +1,620 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import model.MazeGraph.MazeEdge;
+import model.MazeGraph.MazeVertex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import util.MazeGenerator.TileType;
+import util.Randomness;
+
+public class GameModelTest {
+
+    @DisplayName("WHEN collision times are predicted and collisions are resolved repeatedly, THEN "
+            + "no objects are allocated.")
+    @Test
+    void testCollisionDetectionAllocatesNothing() throws Exception {
+        com.sun.management.ThreadMXBean threads = assumeAllocationCounting();
+
+        // At the start of a game, all four ghosts share an edge, so every pair of them is checked
+        GameModel model = GameModel.newGame(10, 10, false, new Randomness(2110));
+
+        double expected = model.nextCollisionTime();
+        model.resolveCollisions();
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        double sum = 0;
+        for (int k = 0; k < 10000; k++) {
+            sum += model.nextCollisionTime();
+            model.resolveCollisions();
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals(10000 * expected, sum);
+        // Allow for a little noise from the measurement itself, but not one object per step
+        assertTrue(allocated < 10000, "Allocated " + allocated + " bytes");
+    }
+
+    @DisplayName("WHEN an actor is propagated along its edge and its bounding box is read "
+            + "repeatedly, THEN no objects are allocated, and its location is materialized on "
+            + "demand.")
+    @Test
+    void testActorMotionAllocatesNothing() {
+        com.sun.management.ThreadMXBean threads = assumeAllocationCounting();
+
+        GameModel model = GameModel.newGame(10, 10, false, new Randomness(2110));
+        PacMann pacMann = model.pacMann();
+        // PacMann starts at the end of its starting edge, so it may turn around
+        pacMann.traverseEdge(pacMann.currentEdge().reverse());
+        assertTrue(pacMann.atVertex());
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        double sum = 0;
+        for (int k = 0; k < 10000; k++) {
+            pacMann.propagate(1e-3);
+            sum += pacMann.maxPropagationTime() + pacMann.boundingBoxI()
+                    + pacMann.boundingBoxJ();
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertTrue(allocated < 10000, "Allocated " + allocated + " bytes");
+        assertTrue(sum > 0);
+
+        assertFalse(pacMann.atVertex());
+        Actor.Location location = pacMann.location();
+        assertEquals(new Actor.Location(pacMann.currentEdge(), pacMann.progress()), location);
+        assertSame(location, pacMann.location());
+        assertEquals(pacMann.getBoundingBoxUL(),
+                new Actor.DPair(pacMann.boundingBoxI(), pacMann.boundingBoxJ()));
+        pacMann.propagate(1);
+        assertNotEquals(location, pacMann.location());
+    }
+
+    @DisplayName("WHEN items are eaten during a game, THEN the remaining count and the vertices "
+            + "iterated by `nextItemVertex()` agree with `itemAt()` for every vertex.")
+    @Test
+    void testItemIndex() {
+        GameModel model = GameModel.newGame(10, 10, false, new Randomness(2110));
+        int initial = model.itemsRemaining();
+        assertTrue(initial > 0);
+        assertItemIndexConsistent(model);
+
+        for (int k = 0; k < 1000 && model.itemsRemaining() == initial; k++) {
+            model.updateActors(16);
+        }
+        assertTrue(model.itemsRemaining() < initial);
+        assertItemIndexConsistent(model);
+    }
+
+    /**
+     * Assert that the vertices of `model` visited by `nextItemVertex()` are exactly those whose
+     * `itemAt()` is not NONE, and that there are `itemsRemaining()` of them.
+     */
+    private static void assertItemIndexConsistent(GameModel model) {
+        int count = 0;
+        int next = model.nextItemVertex(0);
+        for (MazeGraph.MazeVertex v : model.graph().vertices()) {
+            boolean hasItem = model.itemAt(v) != GameModel.Item.NONE;
+            assertEquals(hasItem, v.id() == next, "Vertex " + v.id());
+            if (hasItem) {
+                count += 1;
+                next = model.nextItemVertex(next + 1);
+            }
+        }
+        assertEquals(-1, next);
+        assertEquals(model.itemsRemaining(), count);
+    }
+
+    @DisplayName("WHEN a game is played with immediate and coalesced typed listeners, THEN the "
+            + "immediate listener sees every change, and the coalesced listener sees one summary "
+            + "per update with the same net changes.")
+    @Test
+    void testGameListenerCoalescing() {
+        GameModel model = GameModel.newGame(10, 10, false, new Randomness(2110));
+        RecordingListener immediate = new RecordingListener();
+        RecordingListener coalesced = new RecordingListener();
+        model.addGameListener(immediate, false);
+        model.addGameListener(coalesced, true);
+
+        int updates = 0;
+        while (model.state() != GameModel.GameState.VICTORY
+                && model.state() != GameModel.GameState.DEFEAT) {
+            int scoreChanges = coalesced.scoreChanges;
+            model.updateActors(16);
+            updates += 1;
+            assertEquals(updates, coalesced.boardUpdates);
+            assertTrue(coalesced.scoreChanges - scoreChanges <= 1);
+        }
+
+        assertEquals(updates, immediate.boardUpdates);
+        assertEquals(model.score(), immediate.score);
+        assertEquals(model.score(), coalesced.score);
+        assertTrue(immediate.scoreChanges >= coalesced.scoreChanges);
+        assertEquals(3, immediate.livesChanges);
+        assertEquals(0, immediate.lives);
+        assertEquals(0, coalesced.lives);
+        assertEquals(model.state(), immediate.result);
+        assertEquals(model.state(), coalesced.result);
+        assertEquals(model.state(), coalesced.state);
+
+
+        GameModel next = GameModel.newGame(10, 10, false, new Randomness(2110));
+        RecordingListener removed = new RecordingListener();
+        next.addGameListener(removed, true);
+        next.removeGameListener(removed);
+        next.updateActors(16);
+        assertEquals(0, removed.boardUpdates);
+    }
+
+    /**
+     * Records the notifications received by a `GameListener`.
+     */
+    private static class RecordingListener implements GameListener {
+
+        int score;
+        int scoreChanges;
+        int lives = 3;
+        int livesChanges;
+        GameModel.GameState state = GameModel.GameState.READY;
+        GameModel.GameState result;
+        int boardUpdates;
+
+        @Override
+        public void scoreChanged(int oldScore, int newScore) {
+            assertEquals(score, oldScore);
+            score = newScore;
+            scoreChanges += 1;
+        }
+
+        @Override
+        public void livesChanged(int oldLives, int newLives) {
+            assertEquals(lives, oldLives);
+            lives = newLives;
+            livesChanges += 1;
+        }
+
+        @Override
+        public void stateChanged(GameModel.GameState oldState, GameModel.GameState newState) {
+            assertEquals(state, oldState);
+            state = newState;
+        }
+
+        @Override
+        public void gameEnded(GameModel.GameState result) {
+            assertNull(this.result);
+            this.result = result;
+        }
+
+        @Override
+        public void boardUpdated() {
+            boardUpdates += 1;
+        }
+    }
+
+    @DisplayName("WHEN a game is forked mid-game, THEN the fork unfolds exactly like the "
+            + "original, and playing the fork does not change the original.")
+    @Test
+    void testFork() {
+        // Clyde only makes random choices close to PacMann, so use a large board with many ghosts
+        GameModel model = GameModel.newGame(40, 40, false, new Randomness(2110), null, 12);
+        for (int k = 0; k < 200; k++) {
+            model.updateActors(16);
+        }
+        int score = model.score();
+        int items = model.itemsRemaining();
+        double time = model.time();
+
+        GameModel fork = model.fork();
+        assertSame(model.graph(), fork.graph());
+        assertEquals(model.pacMann().location(), fork.pacMann().location());
+        for (int k = 0; k < 300 && fork.state() != GameModel.GameState.DEFEAT
+                && fork.state() != GameModel.GameState.VICTORY; k++) {
+            fork.updateActors(16);
+        }
+        assertEquals(score, model.score());
+        assertEquals(items, model.itemsRemaining());
+        assertEquals(time, model.time());
+
+        GameModel replay = model.fork();
+        for (int k = 0; k < 300 && model.state() != GameModel.GameState.DEFEAT
+                && model.state() != GameModel.GameState.VICTORY; k++) {
+            model.updateActors(16);
+            replay.updateActors(16);
+            assertEquals(model.time(), replay.time());
+            assertEquals(model.score(), replay.score());
+            assertEquals(model.itemsRemaining(), replay.itemsRemaining());
+            assertEquals(model.pacMann().location(), replay.pacMann().location());
+            assertEquals(model.clyde().location(), replay.clyde().location());
+        }
+        assertEquals(model.state(), fork.state());
+        assertEquals(model.score(), fork.score());
+    }
+
+    @DisplayName("WHEN seeded games are played to completion by the event-driven engine, THEN "
+            + "their results are identical to those of the polling engine.")
+    @Test
+    void testEventDrivenMatchesPolling() {
+        Randomness randomness = new Randomness(2110);
+        for (int i = 0; i < 3; i++) {
+            GameModel polled = GameModel.newGame(10, 10, false, randomness);
+            GameModel evented = GameModel.newGame(10, 10, false, randomness);
+            evented.setEventDriven(true);
+            assertTrue(evented.isEventDriven());
+            while (polled.state() != GameModel.GameState.VICTORY
+                    && polled.state() != GameModel.GameState.DEFEAT) {
+                polled.updateActors(Double.POSITIVE_INFINITY);
+                evented.updateActors(Double.POSITIVE_INFINITY);
+                assertEquals(polled.time(), evented.time());
+            }
+            assertEquals(polled.state(), evented.state());
+            assertEquals(polled.score(), evented.score());
+            assertEquals(polled.numLives(), evented.numLives());
+            randomness = randomness.next();
+        }
+    }
+
+    @DisplayName("WHEN a game is played by a swarm of ghosts, more than fit pairwise on one edge, "
+            + "THEN the event-driven engine matches the polling engine.")
+    @Test
+    void testSwarmEventDrivenMatchesPolling() {
+        Randomness randomness = new Randomness(2110);
+        GameModel polled = GameModel.newGame(10, 10, false, randomness, null, 64);
+        GameModel evented = GameModel.newGame(10, 10, false, randomness, null, 64);
+        evented.setEventDriven(true);
+        assertEquals(64, polled.numGhosts());
+        assertSame(polled.graph().paths(), evented.graph().paths());
+
+        int updates = 0;
+        while (updates < 2000 && polled.state() != GameModel.GameState.VICTORY
+                && polled.state() != GameModel.GameState.DEFEAT) {
+            polled.updateActors(16);
+            evented.updateActors(16);
+            assertEquals(polled.time(), evented.time());
+            updates += 1;
+        }
+        assertEquals(polled.state(), evented.state());
+        assertEquals(polled.score(), evented.score());
+        assertEquals(polled.numLives(), evented.numLives());
+        assertTrue(polled.graph().paths().size() > 0);
+    }
+
+    @DisplayName("GIVEN a ghost at its target, WHEN its path is looked up, THEN the cache returns an "
+            + "empty path AND every actor's guidance path stays non-null as the game is played")
+    @Test
+    void testGuidancePathAtTarget() {
+        GameModel model = GameModel.newGame(10, 10, true, new Randomness(1));
+        MazeGraph.MazeVertex v = model.blinky().nearestVertex();
+        List<MazeGraph.MazeEdge> path = model.graph().paths().shortestNonBacktrackingPath(v, v,
+                null);
+        assertNotNull(path);
+        assertTrue(path.isEmpty());
+        assertSame(path, model.graph().paths().shortestNonBacktrackingPath(v, v, null));
+
+        // Seed 1 puts a ghost on its target after a few hundred updates
+        for (int updates = 0; updates < 600
+                && model.state() != GameModel.GameState.VICTORY
+                && model.state() != GameModel.GameState.DEFEAT; updates++) {
+            model.updateActors(16);
+            for (Actor actor : model.actors()) {
+                assertNotNull(actor.guidancePath());
+            }
+        }
+    }
+
+    @DisplayName("GIVEN a Clyde created with a plain `java.util.Random`, WHEN he is forked, THEN "
+            + "he is copied, AND so is his copy.")
+    @Test
+    void testClydeWithPlainRandomCanFork() {
+        GameModel model = GameModel.newGame(10, 10, false, new Randomness(2110));
+        Clyde clyde = new Clyde(model, new Random(5));
+        GameModel fork = model.fork();
+        Clyde copy = clyde.forkFor(fork);
+        assertNotSame(clyde, copy);
+        assertEquals(clyde.location(), copy.location());
+        assertNotSame(copy, copy.forkFor(fork.fork()));
+    }
+
+    @DisplayName("WHEN a game is created without sharing its graph, THEN its graph is private and "
+            + "not frozen, AND its walls can be opened while the game is played, AND closing a "
+            + "tile drops its item and moves any actor heading into it back where it came from.")
+    @Test
+    void testUnsharedGraphIsEditable() {
+        Randomness randomness = new Randomness(2110);
+        GameModel shared = GameModel.newGame(10, 10, false, randomness);
+        for (GameModel.Player player : GameModel.Player.values()) {
+            GameModel model = GameModel.newGame(10, 10, player, randomness, null, 4, false);
+            MazeGraph graph = model.graph();
+            assertTrue(shared.graph().isFrozen());
+            assertFalse(graph.isFrozen());
+            assertNotSame(shared.graph(), graph);
+
+            // Open every interior wall; opening a wall never removes an edge an actor may be on
+            int opened = 0;
+            for (int i = 2; i < model.width() - 2; i++) {
+                for (int j = 2; j < model.height() - 2; j++) {
+                    if (graph.tileType(i, j) == TileType.WALL) {
+                        graph.toggleTile(i, j);
+                        assertNotNull(graph.vertexAt(i, j));
+                        opened += 1;
+                    }
+                }
+            }
+            assertTrue(opened > 0);
+            assertEquals(opened, graph.version());
+            assertEquals(0, shared.graph().version());
+
+            // Close the tile of an item away from PacMann
+            MazeEdge heading = model.pacMann().currentEdge();
+            int id = model.nextItemVertex(0);
+            while (id == heading.src().id() || id == heading.dst().id()) {
+                id = model.nextItemVertex(id + 1);
+            }
+            MazeVertex itemVertex = graph.vertex(id);
+            int items = model.itemsRemaining();
+            graph.toggleTile(itemVertex.loc().i(), itemVertex.loc().j());
+            assertEquals(items - 1, model.itemsRemaining());
+            assertEquals(GameModel.Item.NONE, model.itemAt(itemVertex));
+            int listed = 0;
+            for (id = model.nextItemVertex(0); id >= 0; id = model.nextItemVertex(id + 1)) {
+                assertNotNull(graph.vertex(id));
+                listed += 1;
+            }
+            assertEquals(model.itemsRemaining(), listed);
+            assertTrue(model.nearestDots().distance(heading.src()) < Double.POSITIVE_INFINITY);
+
+            // Close the tile PacMann is heading into, which is also his starting tile
+            graph.toggleTile(heading.dst().loc().i(), heading.dst().loc().j());
+            MazeEdge reseated = model.pacMann().currentEdge();
+            assertNotSame(heading, reseated);
+            assertEquals(heading.src(), model.pacMann().nearestVertex());
+            assertTrue(model.pacMann().atVertex());
+            assertSame(reseated, reseated.src().edgeInDirection(reseated.direction()));
+            assertNotNull(graph.vertex(graph.pacMannStartingEdge().dst().id()));
+
+            for (int updates = 0; updates < 200 && model.state() != GameModel.GameState.VICTORY
+                    && model.state() != GameModel.GameState.DEFEAT; updates++) {
+                model.updateActors(16);
+            }
+        }
+    }
+
+    @DisplayName("WHEN a seeded swarm game is played with its phases in parallel, THEN every "
+            + "step is identical to that of the same game played serially.")
+    @Test
+    void testPhaseParallelMatchesSerial() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Randomness randomness = new Randomness(2110);
+            GameModel serial = GameModel.newGame(10, 10, false, randomness, null, 64);
+            GameModel parallel = GameModel.newGame(10, 10, false, randomness, null, 64);
+            parallel.setPhaseParallel(pool);
+            assertTrue(parallel.isPhaseParallel());
+
+            int updates = 0;
+            while (updates < 2000 && serial.state() != GameModel.GameState.VICTORY
+                    && serial.state() != GameModel.GameState.DEFEAT) {
+                serial.updateActors(16);
+                parallel.updateActors(16);
+                assertEquals(serial.time(), parallel.time());
+                assertEquals(serial.score(), parallel.score());
+                assertEquals(serial.pacMann().location(), parallel.pacMann().location());
+                updates += 1;
+            }
+            assertEquals(serial.state(), parallel.state());
+            assertEquals(serial.numLives(), parallel.numLives());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @DisplayName("WHEN a game is updated in short frames, THEN every update is counted once in the "
+            + "histogram of steps per update, in the bin for its number of steps.")
+    @Test
+    void testSubStepHistogram() {
+        GameModel model = GameModel.newGame(10, 10, false, new Randomness(2110));
+        model.setEventCoalescing(0.5);
+        assertThrows(IllegalArgumentException.class, () -> model.setEventCoalescing(-1));
+        assertEquals(0.5, model.eventCoalescing());
+
+        int updates = 0;
+        long steps = 0;
+        while (updates < 1000 && model.state() != GameModel.GameState.DEFEAT
+                && model.state() != GameModel.GameState.VICTORY) {
+            model.updateActors(16);
+            updates += 1;
+            steps += model.lastSubSteps();
+            assertTrue(model.lastSubSteps() >= 1);
+            assertTrue(model.lastSubSteps() <= model.maxSubSteps());
+        }
+        assertEquals(steps, model.totalSubSteps());
+
+        long[] histogram = model.subStepHistogram();
+        long counted = 0;
+        for (long calls : histogram) {
+            counted += calls;
+        }
+        assertEquals(updates, counted);
+        assertEquals(0, histogram[0]);
+        assertTrue(histogram[Integer.SIZE - Integer.numberOfLeadingZeros(model.maxSubSteps())]
+                > 0);
+    }
+
+    @DisplayName("WHEN seeded games are played by the search AI, serially or with root-parallel "
+            + "search, THEN they are reproducible, AND tree-parallel search plays legal moves "
+            + "within its rollout budget.")
+    @Test
+    void testPacMannAI() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            for (PacMannAI.Parallelism parallelism : PacMannAI.Parallelism.values()) {
+                GameModel first = newAIGame(parallelism, pool);
+                GameModel second = newAIGame(parallelism, pool);
+                int updates = 0;
+                while (updates < 300 && first.state() != GameModel.GameState.VICTORY
+                        && first.state() != GameModel.GameState.DEFEAT) {
+                    first.updateActors(16);
+                    second.updateActors(16);
+                    if (parallelism != PacMannAI.Parallelism.TREE) {
+                        assertEquals(first.score(), second.score());
+                        assertEquals(first.pacMann().location(), second.pacMann().location());
+                    }
+                    updates += 1;
+                }
+                PacMannAI ai = (PacMannAI) first.pacMann();
+                assertTrue(first.score() > 0);
+                assertTrue(ai.decisions() > 0);
+                assertTrue(ai.rollouts() >= 8 * ai.decisions());
+                assertTrue(ai.rollouts() <= (8 + 2) * ai.decisions());
+                assertTrue(ai.rolloutsPerSecond() > 0);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @DisplayName("WHEN a seeded game is played by the root-parallel search AI on pools of different "
+            + "sizes, THEN it is played identically.")
+    @Test
+    void testPacMannAIRootTreesIgnorePoolSize() {
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool triple = new ForkJoinPool(3);
+        try {
+            GameModel first = newAIGame(PacMannAI.Parallelism.ROOT, single);
+            GameModel second = newAIGame(PacMannAI.Parallelism.ROOT, triple);
+            int updates = 0;
+            while (updates < 300 && first.state() != GameModel.GameState.VICTORY
+                    && first.state() != GameModel.GameState.DEFEAT) {
+                first.updateActors(16);
+                second.updateActors(16);
+                assertEquals(first.score(), second.score());
+                assertEquals(first.pacMann().location(), second.pacMann().location());
+                updates += 1;
+            }
+            assertTrue(first.score() > 0);
+            assertEquals(((PacMannAI) first.pacMann()).rollouts(),
+                    ((PacMannAI) second.pacMann()).rollouts());
+        } finally {
+            single.shutdown();
+            triple.shutdown();
+        }
+    }
+
+    @DisplayName("WHEN a game is played by the field AI, THEN it makes decisions and scores "
+            + "points.")
+    @Test
+    void testPacMannFieldAI() {
+        GameModel model = GameModel.newGame(10, 10, GameModel.Player.FIELD_AI,
+                new Randomness(2110), null, 4);
+        int updates = 0;
+        while (updates < 1000 && model.state() != GameModel.GameState.VICTORY
+                && model.state() != GameModel.GameState.DEFEAT) {
+            model.updateActors(16);
+            updates += 1;
+        }
+        PacMannFieldAI ai = (PacMannFieldAI) model.pacMann();
+        assertTrue(ai.decisions() > 0);
+        assertTrue(model.score() > 0);
+    }
+
+    @DisplayName("WHEN the search AI plays with route guidance, THEN it plans one route and shows "
+            + "it as a connected guidance path.")
+    @Test
+    void testRouteGuidance() {
+        GameModel model = GameModel.newGame(10, 10, true, new Randomness(2110));
+        PacMannAI ai = (PacMannAI) model.pacMann();
+        ai.setBudget(8, Double.POSITIVE_INFINITY);
+        ai.setRouteGuidance(true);
+        for (int updates = 0; updates < 100; updates++) {
+            model.updateActors(16);
+        }
+        assertEquals(1, ai.routePlans());
+        List<MazeGraph.MazeEdge> guidance = ai.guidancePath();
+        assertEquals(ai.currentEdge(), guidance.getFirst());
+        assertTrue(guidance.size() > 1);
+        for (int k = 1; k < guidance.size(); k++) {
+            assertEquals(guidance.get(k - 1).dst(), guidance.get(k).src());
+        }
+    }
+
+    @DisplayName("WHEN seeded games are played by the expectimax AI, THEN they are reproducible.")
+    @Test
+    void testPacMannExpectimaxAI() {
+        GameModel first = GameModel.newGame(10, 10, GameModel.Player.EXPECTIMAX_AI,
+                new Randomness(2110), null, 4);
+        GameModel second = GameModel.newGame(10, 10, GameModel.Player.EXPECTIMAX_AI,
+                new Randomness(2110), null, 4);
+        int updates = 0;
+        while (updates < 500 && first.state() != GameModel.GameState.VICTORY
+                && first.state() != GameModel.GameState.DEFEAT) {
+            first.updateActors(16);
+            second.updateActors(16);
+            assertEquals(first.score(), second.score());
+            assertEquals(first.pacMann().location(), second.pacMann().location());
+            updates += 1;
+        }
+        PacMannExpectimaxAI ai = (PacMannExpectimaxAI) first.pacMann();
+        assertTrue(first.score() > 0);
+        assertTrue(ai.decisions() > 0);
+        assertEquals(PacMannExpectimaxAI.DEFAULT_DEPTH, ai.meanDepth(), 1e-9);
+        assertTrue(ai.tableHitRate() > 0);
+    }
+
+    @DisplayName("GIVEN a game whose PacMann never moves and that has no ghosts, WHEN it is played "
+            + "with a watchdog, THEN it is aborted as stalled; AND a game over its step limit is "
+            + "aborted once it exceeds the limit")
+    @Test
+    void testGameWatchdog() {
+        GameModel idle = GameModel.newGame(10, 10, GameModel.Player.MANUAL, new Randomness(2110),
+                null, 0);
+        idle.setWatchdog(new GameWatchdog(Double.POSITIVE_INFINITY, Long.MAX_VALUE,
+                Double.POSITIVE_INFINITY, true));
+        for (int updates = 0; updates < 100_000
+                && idle.state() != GameModel.GameState.ABORTED; updates++) {
+            idle.updateActors(16);
+        }
+        assertEquals(GameModel.GameState.ABORTED, idle.state());
+        assertEquals(GameWatchdog.Verdict.STALLED, idle.watchdog().verdict());
+        assertEquals(GameWatchdog.STALL_REPEATS * GameWatchdog.SNAPSHOT_INTERVAL,
+                idle.watchdog().subSteps());
+
+        GameModel limited = GameModel.newGame(10, 10, GameModel.Player.FIELD_AI,
+                new Randomness(2110), null, 4);
+        limited.setWatchdog(new GameWatchdog(Double.POSITIVE_INFINITY, 50,
+                Double.POSITIVE_INFINITY, true));
+        limited.updateActors(Double.POSITIVE_INFINITY);
+        assertEquals(GameModel.GameState.ABORTED, limited.state());
+        assertEquals(GameWatchdog.Verdict.STEP_LIMIT, limited.watchdog().verdict());
+        assertEquals(51, limited.totalSubSteps());
+        assertNull(limited.fork().watchdog());
+    }
+
+    /**
+     * Return a seeded game played by the search AI with 8 rollouts per decision, spread across
+     * `pool` as `parallelism` says.
+     */
+    private static GameModel newAIGame(PacMannAI.Parallelism parallelism, ForkJoinPool pool) {
+        GameModel model = GameModel.newGame(10, 10, true, new Randomness(2110));
+        PacMannAI ai = (PacMannAI) model.pacMann();
+        ai.setParallelism(parallelism, pool);
+        ai.setBudget(8, Double.POSITIVE_INFINITY);
+        return model;
+    }
+
+    /**
+     * Enable allocation counting on this JVM's threads and return their management bean, or skip
+     * the calling test if this JVM does not support it.
+     */
+    private static com.sun.management.ThreadMXBean assumeAllocationCounting() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean t
+                && t.isThreadAllocatedMemorySupported());
+        var threads = (com.sun.management.ThreadMXBean) bean;
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+}
@@ -0,0 +1,168 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import util.Randomness;
+
+public class MazeCacheTest {
+
+    /**
+     * Return the names of the files in `directory`.
+     */
+    static List<String> fileNames(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    @DisplayName("WHEN a game's maze is stored in a cache, THEN loading it gives back the same map "
+            + "and graph, AND a game created from the cache plays on an identical maze.")
+    @Test
+    void testRoundTrip(@TempDir Path directory) throws IOException {
+        MazeCache cache = new MazeCache(directory);
+        Randomness randomness = new Randomness(2110);
+        GameModel generated = GameModel.newGame(8, 6, false, randomness, cache);
+        assertEquals(List.of("maze-8x6-2110.bin"), fileNames(directory));
+
+        MazeCache.Entry entry = cache.load(8, 6, randomness);
+        assertNotNull(entry);
+        assertTrue(Arrays.deepEquals(generated.map().types(), entry.map().types()));
+        assertTrue(Arrays.deepEquals(generated.map().elevations(), entry.map().elevations()));
+        MazeGraph graph = entry.graph();
+        assertArrayEquals(generated.graph().vertexTiles(), graph.vertexTiles());
+        assertTrue(Arrays.equals(generated.graph().edgeMasks(), graph.edgeMasks()));
+
+        GameModel cached = GameModel.newGame(8, 6, false, randomness, cache);
+        assertSame(generated.graph(), cached.graph());
+    }
+
+    @DisplayName("WHEN a cache file is corrupt, truncated, or for another maze, THEN it is treated "
+            + "as absent.")
+    @Test
+    void testRejectsBadFiles(@TempDir Path directory) throws IOException {
+        MazeCache cache = new MazeCache(directory);
+        Randomness randomness = new Randomness(2110);
+        GameModel.newGame(8, 6, false, randomness, cache);
+        Path file = cache.fileFor(8, 6, randomness);
+        byte[] good = Files.readAllBytes(file);
+        assertNull(cache.load(8, 6, new Randomness(2111)));
+
+        // A flipped bit in the payload fails the checksum
+        byte[] corrupt = good.clone();
+        corrupt[corrupt.length / 2] ^= 1;
+        Files.write(file, corrupt);
+        assertNull(cache.load(8, 6, randomness));
+
+        // A file missing its end, or with extra bytes, has the wrong size
+        Files.write(file, Arrays.copyOf(good, good.length - 1));
+        assertNull(cache.load(8, 6, randomness));
+        Files.write(file, Arrays.copyOf(good, good.length + 1));
+        assertNull(cache.load(8, 6, randomness));
+        Files.write(file, Arrays.copyOf(good, 10));
+        assertNull(cache.load(8, 6, randomness));
+
+        // The entry of another maze, or of another seed, does not describe this one
+        Files.write(cache.fileFor(6, 8, randomness), good);
+        assertNull(cache.load(6, 8, randomness));
+        Files.write(cache.fileFor(8, 6, new Randomness(7)), good);
+        assertNull(cache.load(8, 6, new Randomness(7)));
+
+        Files.write(file, good);
+        assertNotNull(cache.load(8, 6, randomness));
+    }
+
+    @DisplayName("WHEN a cache file has a valid checksum but its graph does not fit its map, THEN "
+            + "it is treated as absent.")
+    @Test
+    void testRejectsInconsistentGraphs(@TempDir Path directory) throws IOException {
+        MazeCache cache = new MazeCache(directory);
+        Randomness randomness = new Randomness(2110);
+        MazeGraph graph = GameModel.newGame(8, 6, false, randomness, cache).graph();
+        Path file = cache.fileFor(8, 6, randomness);
+        byte[] good = Files.readAllBytes(file);
+        int vertexCount = graph.vertexTiles().length;
+        int masksStart = good.length - vertexCount;
+        int tilesStart = masksStart - vertexCount * Integer.BYTES;
+
+        // An edge out of a vertex towards a wall
+        int dead = 0;
+        while (Integer.bitCount(graph.edgeMasks()[dead]) == 4) {
+            dead += 1;
+        }
+        byte[] badMask = good.clone();
+        badMask[masksStart + dead] = 0b1111;
+        Files.write(file, withChecksum(badMask));
+        assertNull(cache.load(8, 6, randomness));
+
+        // A vertex on a wall tile (the grid's corner is always a wall)
+        byte[] badTile = good.clone();
+        ByteBuffer.wrap(badTile).putInt(tilesStart, 0);
+        Files.write(file, withChecksum(badTile));
+        assertNull(cache.load(8, 6, randomness));
+
+        // Two vertices on the same tile
+        byte[] duplicate = good.clone();
+        ByteBuffer.wrap(duplicate).putInt(tilesStart, graph.vertexTiles()[1]);
+        Files.write(file, withChecksum(duplicate));
+        assertNull(cache.load(8, 6, randomness));
+
+        // The files above were rejected for their graphs, not their checksums
+        Files.write(file, withChecksum(good));
+        assertNotNull(cache.load(8, 6, randomness));
+    }
+
+    /**
+     * Return a copy of the cache file `bytes` whose header checksum matches its (edited) payload.
+     */
+    private static byte[] withChecksum(byte[] bytes) {
+        // The checksum is the last field of the 44-byte header
+        int headerBytes = 44;
+        CRC32 crc = new CRC32();
+        crc.update(bytes, headerBytes, bytes.length - headerBytes);
+        byte[] result = bytes.clone();
+        ByteBuffer.wrap(result).putLong(headerBytes - Long.BYTES, crc.getValue());
+        return result;
+    }
+
+    @DisplayName("WHEN an entry cannot be moved into place, THEN storing it fails AND no temporary "
+            + "file is left behind.")
+    @Test
+    void testFailedStoreLeavesNoTemporaryFile(@TempDir Path directory) throws IOException {
+        MazeCache cache = new MazeCache(directory);
+        Randomness randomness = new Randomness(2110);
+        MazeGraph graph = GameModel.newGame(8, 6, false, randomness).graph();
+
+        // A non-empty directory where the entry belongs cannot be replaced
+        Path file = cache.fileFor(8, 6, randomness);
+        Files.createDirectories(file.resolve("blocker"));
+        assertFalse(cache.store(8, 6, randomness, graph));
+        assertEquals(List.of(file.getFileName().toString()), fileNames(directory));
+    }
+
+    @DisplayName("GIVEN a cache that cannot be written, WHEN a game is created with it, THEN the game "
+            + "is created from a freshly generated maze.")
+    @Test
+    void testUnwritableCacheStillCreatesGames(@TempDir Path directory) throws IOException {
+        // A regular file where the cache's directory belongs cannot hold entries
+        Path blocker = Files.createFile(directory.resolve("blocker"));
+        MazeCache cache = new MazeCache(blocker);
+        GameModel cached = GameModel.newGame(8, 6, GameModel.Player.MANUAL, new Randomness(2110),
+                cache, 4);
+        GameModel fresh = GameModel.newGame(8, 6, GameModel.Player.MANUAL, new Randomness(2110),
+                null, 4);
+        assertEquals(fresh.graph().vertexCount(), cached.graph().vertexCount());
+        assertTrue(Arrays.equals(fresh.graph().vertexTiles(), cached.graph().vertexTiles()));
+        assertTrue(Files.isRegularFile(blocker));
+    }
+}
@@ -2,8 +2,10 @@ package model;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import graph.Pathfinding;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 import model.MazeGraph.Direction;
@@ -536,4 +538,235 @@ public class MazeGraphTest {
         assertNull(v2.edgeInDirection(Direction.UP));
         assertNull(v2.edgeInDirection(Direction.DOWN));
     }
+
+    /**
+     * Assert that `graph` has the same vertex locations and edges (with weights) as a graph newly
+     * constructed from the current types of its tiles.
+     */
+    static void assertMatchesRebuild(MazeGraph graph) {
+        GameMap map = graph.map();
+        int width = map.types().length;
+        int height = map.types()[0].length;
+        TileType[][] types = new TileType[width][height];
+        for (int i = 0; i < width; i++) {
+            for (int j = 0; j < height; j++) {
+                types[i][j] = graph.tileType(i, j);
+            }
+        }
+        MazeGraph rebuilt = new MazeGraph(new GameMap(types, map.elevations()));
+        for (int i = 0; i < width; i++) {
+            for (int j = 0; j < height; j++) {
+                MazeVertex expected = rebuilt.vertexAt(i, j);
+                MazeVertex actual = graph.vertexAt(i, j);
+                assertEquals(expected == null, actual == null);
+                if (expected == null) {
+                    continue;
+                }
+                for (Direction d : Direction.values()) {
+                    MazeEdge e = expected.edgeInDirection(d);
+                    MazeEdge a = actual.edgeInDirection(d);
+                    assertEquals(e == null, a == null);
+                    if (e != null) {
+                        assertEquals(e.dst().loc(), a.dst().loc());
+                        assertEquals(e.weight(), a.weight());
+                    }
+                }
+            }
+        }
+        // Including the table of closest vertices to each target
+        for (int i = -1; i < width; i++) {
+            for (int j = -1; j < height; j++) {
+                int expected = rebuilt.closestIdTo(i, j);
+                int actual = graph.closestIdTo(i, j);
+                assertEquals(expected < 0, actual < 0);
+                if (expected >= 0) {
+                    assertEquals(rebuilt.vertex(expected).loc(), graph.vertex(actual).loc());
+                }
+            }
+        }
+    }
+
+    @DisplayName("WHEN tiles are toggled between PATH and WALL, including tiles at the end of a "
+            + "tunnel, THEN the graph's edges match those of a graph built from the new tiles, "
+            + "and the original map is unchanged.")
+    @Test
+    void testToggleTile() {
+        GameMap map = createMap("""
+                wwwww
+                ppppp
+                wpwpw
+                wpppw
+                wwwww""");
+        MazeGraph graph = new MazeGraph(map);
+        int vertexCount = graph.vertexCount();
+
+        graph.toggleTile(0, 1);  // close one end of the tunnel
+        assertEquals(TileType.WALL, graph.tileType(0, 1));
+        assertEquals(TileType.PATH, map.types()[0][1]);
+        assertNull(graph.vertexAt(0, 1));
+        assertNull(graph.vertexAt(4, 1).edgeInDirection(Direction.RIGHT));
+        assertMatchesRebuild(graph);
+
+        graph.toggleTile(2, 2);  // open a wall in the middle of the ring
+        assertNotNull(graph.vertexAt(2, 2));
+        assertEquals(4, graph.vertexAt(2, 2).outgoingEdges().spliterator().getExactSizeIfKnown());
+        assertMatchesRebuild(graph);
+
+        graph.toggleTile(0, 1);  // reopen the tunnel
+        assertMatchesRebuild(graph);
+        assertEquals(3, graph.version());
+
+        // Every remaining vertex is listed exactly once, under its id
+        int count = 0;
+        for (MazeVertex v : graph.vertices()) {
+            assertSame(v, graph.vertex(v.id()));
+            count += 1;
+        }
+        assertEquals(vertexCount + 1, count);
+    }
+
+    @DisplayName("WHEN a tile is toggled, THEN each change listener is told which edges were "
+            + "removed and added.")
+    @Test
+    void testChangeListener() {
+        GameMap map = createMap("""
+                wwwww
+                ppppp
+                wwwww""");
+        MazeGraph graph = new MazeGraph(map);
+        ArrayList<MazeEdge> removed = new ArrayList<>();
+        ArrayList<MazeEdge> added = new ArrayList<>();
+        MazeGraph.ChangeListener listener = (g, loc, type, r, a) -> {
+            assertSame(graph, g);
+            assertEquals(new IPair(2, 1), loc);
+            removed.addAll(r);
+            added.addAll(a);
+        };
+        graph.addChangeListener(listener);
+
+        graph.setTile(2, 1, TileType.WALL);
+        assertEquals(4, removed.size());
+        assertTrue(added.isEmpty());
+        for (MazeEdge e : removed) {
+            assertTrue(e.src().loc().equals(new IPair(2, 1))
+                    || e.dst().loc().equals(new IPair(2, 1)));
+        }
+
+        removed.clear();
+        graph.setTile(2, 1, TileType.WALL);  // no change
+        assertTrue(removed.isEmpty());
+
+        graph.setTile(2, 1, TileType.PATH);
+        assertEquals(4, added.size());
+        assertTrue(removed.isEmpty());
+
+        graph.removeChangeListener(listener);
+        added.clear();
+        graph.toggleTile(2, 1);
+        assertTrue(added.isEmpty());
+        assertTrue(removed.isEmpty());
+    }
+
+    @DisplayName("GIVEN paths cached in a graph, WHEN a tile on one of them is closed and then "
+            + "opened again, THEN only the paths that may have changed are searched for again, "
+            + "AND every path matches a new search.")
+    @Test
+    void testPathCacheForgetsOnlyChangedPaths() {
+        GameMap map = createMap("""
+                wwwwwwwwwww
+                wwwwwwwwwww
+                wwppppppppw
+                wwpwwpwwpww
+                wwpwwpwwpww
+                wwppppppppw
+                wwpwwpwwpww
+                wwpwwpwwpww
+                wwppppppppw
+                wwwwwwwwwww
+                wwwwwwwwwww""");
+        MazeGraph graph = new MazeGraph(map);
+        PathCache cache = graph.paths();
+        MazeVertex top = graph.vertexAt(2, 2);
+        MazeVertex bottom = graph.vertexAt(2, 8);
+        MazeVertex corner = graph.vertexAt(8, 2);
+        MazeVertex middle = graph.vertexAt(5, 2);
+        List<MazeEdge> down = cache.shortestNonBacktrackingPath(top, bottom, null);
+        List<MazeEdge> across = cache.shortestNonBacktrackingPath(corner, middle, null);
+        assertEquals(6, down.size());
+
+        // Closing a tile of the left column only forgets the path down it
+        graph.toggleTile(2, 4);
+        assertSame(across, cache.shortestNonBacktrackingPath(corner, middle, null));
+        List<MazeEdge> detour = cache.shortestNonBacktrackingPath(top, bottom, null);
+        assertEquals(Pathfinding.shortestNonBacktrackingPath(top, bottom, null), detour);
+        assertTrue(detour.size() > 6);
+
+        // Reopening it may shorten the detour, but not the short downhill path far from it
+        graph.toggleTile(2, 4);
+        assertSame(across, cache.shortestNonBacktrackingPath(corner, middle, null));
+        List<MazeEdge> reopened = cache.shortestNonBacktrackingPath(top, bottom, null);
+        assertEquals(Pathfinding.shortestNonBacktrackingPath(top, bottom, null), reopened);
+        assertEquals(6, reopened.size());
+    }
+
+    @DisplayName("WHEN graphs are requested from a registry for maps with equal contents, THEN "
+            + "the same frozen graph is returned, and it cannot be changed.")
+    @Test
+    void testRegistrySharesFrozenGraphs() {
+        String template = """
+                wwwww
+                ppppp
+                wwwww""";
+        MazeGraphRegistry registry = new MazeGraphRegistry();
+        MazeGraph graph = registry.graphFor(createMap(template));
+        assertSame(graph, registry.graphFor(createMap(template)));
+        assertSame(graph, registry.intern(new MazeGraph(createMap(template))));
+        assertEquals(1, registry.size());
+        assertTrue(graph.isFrozen());
+        assertThrows(IllegalStateException.class, () -> graph.toggleTile(2, 1));
+
+        GameMap other = createMap(template);
+        other.elevations()[2][1] += 1;
+        assertNotSame(graph, registry.graphFor(other));
+    }
+
+    @DisplayName("WHEN `closestTo` is given targets anywhere (including out of range) in a maze "
+            + "produced by the maze generator, THEN it returns the same vertex as probing the "
+            + "tiles near the target.")
+    @Test
+    void testClosestToTable() {
+        GameMap map = createMap("""
+                wwwwwwwwwww
+                wwwwwwwwwww
+                wwppppppppw
+                wwpwwpwwpww
+                wwpwwpwwpww
+                wwppppppppw
+                wwpwwpwwpww
+                wwpwwpwwpww
+                wwppppppppw
+                wwwwwwwwwww
+                wwwwwwwwwww""");
+        MazeGraph graph = new MazeGraph(map);
+        for (int i = -5; i < 16; i++) {
+            for (int j = -5; j < 16; j++) {
+                int ci = Math.clamp(i, 0, 9);
+                int cj = Math.clamp(j, 0, 9);
+                int ip = ((ci - 1) / 3) * 3 + 2;
+                int jp = ((cj - 1) / 3) * 3 + 2;
+                MazeVertex expected = graph.vertexAt(ci, cj);
+                if (expected == null) {
+                    expected = graph.vertexAt(ci, jp);
+                }
+                if (expected == null) {
+                    expected = graph.vertexAt(ip, cj);
+                }
+                if (expected == null) {
+                    expected = graph.vertexAt(ip, jp);
+                }
+                assertSame(expected, graph.closestTo(i, j));
+                assertEquals(expected.id(), graph.closestIdTo(i, j));
+            }
+        }
+    }
 }
@@ -0,0 +1,44 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import model.MazeGraph.Direction;
+import model.MazeGraph.MazeEdge;
+import model.MazeGraph.MazeVertex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import util.Randomness;
+
+public class NearestDotIndexTest {
+
+    @DisplayName("WHEN PacMann eats items, THEN the nearest-item index matches an index built from "
+            + "scratch, AND each vertex's direction leads along a cheapest path to an item.")
+    @Test
+    void testUpdatesMatchRebuild() {
+        GameModel model = GameModel.newGame(10, 10, GameModel.Player.FIELD_AI,
+                new Randomness(2110), null, 4);
+        NearestDotIndex index = model.nearestDots();
+        int updates = 0;
+        while (updates < 300 && model.state() != GameModel.GameState.VICTORY
+                && model.state() != GameModel.GameState.DEFEAT) {
+            model.updateActors(16);
+            updates += 1;
+        }
+        assertSame(index, model.nearestDots());
+        assertTrue(index.updates() > 0);
+
+        NearestDotIndex rebuilt = new NearestDotIndex(model);
+        for (int id = 0; id < model.graph().vertexCount(); id++) {
+            MazeVertex v = model.graph().vertex(id);
+            assertEquals(rebuilt.distance(v), index.distance(v), 1e-6);
+            Direction d = index.direction(v);
+            if (model.itemAt(v) != GameModel.Item.NONE) {
+                assertEquals(0, index.distance(v));
+                assertNull(d);
+            } else {
+                MazeEdge e = v.edgeInDirection(d);
+                assertEquals(index.distance(v), e.weight() + index.distance(e.dst()), 1e-6);
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import model.MazeGraph.MazeEdge;
+import model.MazeGraph.MazeVertex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import util.Randomness;
+
+public class RoutePlannerTest {
+
+    /**
+     * Assert that `route` expands to a connected path from PacMann's current edge that passes
+     * every item remaining in `model`.
+     */
+    static void assertClearsBoard(GameModel model, RoutePlanner.Route route) {
+        List<MazeEdge> path = route.edgesFrom(model, model.pacMann().currentEdge(), 0,
+                route.size());
+        Set<MazeVertex> passed = new HashSet<>();
+        for (int k = 0; k < path.size(); k++) {
+            if (k > 0) {
+                assertEquals(path.get(k - 1).dst(), path.get(k).src());
+            }
+            passed.add(path.get(k).dst());
+        }
+        for (int id = model.nextItemVertex(0); id >= 0; id = model.nextItemVertex(id + 1)) {
+            assertTrue(passed.contains(model.graph().vertex(id)));
+        }
+    }
+
+    @DisplayName("WHEN a route is planned to clear the board, THEN it is a connected path that "
+            + "passes every item, AND it is no longer than the nearest-neighbor route.")
+    @Test
+    void testRouteClearsBoard() {
+        GameModel model = GameModel.newGame(10, 10, true, new Randomness(2110));
+        RoutePlanner planner = new RoutePlanner(model.graph());
+        RoutePlanner.Route route = planner.plan(model, 1000);
+        assertTrue(route.length() <= route.initialLength());
+        assertClearsBoard(model, route);
+    }
+
+    @DisplayName("WHEN a route is planned with no time at all, THEN it still passes every item.")
+    @Test
+    void testOutOfTimeRouteClearsBoard() {
+        GameModel model = GameModel.newGame(10, 10, true, new Randomness(2110));
+        RoutePlanner planner = new RoutePlanner(model.graph());
+        RoutePlanner.Route route = planner.plan(model, 0);
+        assertEquals(planner.plan(model, 1000).size(), route.size());
+        assertClearsBoard(model, route);
+    }
+
+    @DisplayName("GIVEN a planner for a 100x100 board, WHEN routes are planned with various "
+            + "budgets, THEN planning stops within a few ms of each budget.")
+    @Test
+    void testPlanningMeetsBudget() {
+        GameModel model = GameModel.newGame(100, 100, true, new Randomness(2110));
+        RoutePlanner planner = new RoutePlanner(model.graph());
+        // Let the JIT compile the planner first, as it would have after a few games
+        for (int k = 0; k < 5; k++) {
+            planner.plan(model, PacMannAI.ROUTE_BUDGET);
+        }
+
+        // The margin covers the work after the deadline, and a garbage collection
+        double margin = 15;
+        for (double budget : new double[]{0, 10, 25}) {
+            planner.plan(model, budget);
+            double millis = planner.planNanos() / 1e6;
+            assertTrue(millis < budget + margin, "Planning with a budget of " + budget
+                    + " ms took " + millis + " ms");
+        }
+    }
+
+    @DisplayName("GIVEN a search AI with route guidance on a new 100x100 board, WHEN it plans its "
+            + "first route, THEN building the planner and planning take under 50 ms in total.")
+    @Test
+    void testRouteGuidanceMeetsBudget() {
+        // Let the JIT compile building and planning first, as it would have after a few games
+        GameModel warmUp = GameModel.newGame(100, 100, true, new Randomness(2110));
+        for (int k = 0; k < 10; k++) {
+            new RoutePlanner(warmUp.graph()).plan(warmUp, PacMannAI.ROUTE_BUDGET);
+        }
+
+        // A garbage collection can stall any one plan, so the fastest of a few must meet the budget
+        double fastest = Double.POSITIVE_INFINITY;
+        for (int seed = 1; seed <= 3; seed++) {
+            GameModel model = GameModel.newGame(100, 100, true, new Randomness(seed));
+            PacMannAI ai = (PacMannAI) model.pacMann();
+            ai.setBudget(1, Double.POSITIVE_INFINITY);
+            ai.setRouteGuidance(true);
+            ai.nextEdge();
+            assertEquals(1, ai.routePlans());
+            fastest = Math.min(fastest, ai.routePlanNanos() / 1e6);
+        }
+        assertTrue(fastest < 50, "Building and planning a route took " + fastest + " ms");
+    }
+}
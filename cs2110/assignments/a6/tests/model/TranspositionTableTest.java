@@ -0,0 +1,31 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TranspositionTableTest {
+
+    @DisplayName("WHEN results are stored in a full bucket, THEN the deeper result is kept, AND "
+            + "results from the current search replace those from older searches.")
+    @Test
+    void testBucketReplacement() {
+        TranspositionTable table = new TranspositionTable(4);
+        table.newSearch();
+        // Keys 3, 19, and 35 share a bucket
+        table.store(3, 2, 1.5, 1);
+        table.store(19, 4, 2.5, 2);
+        table.store(35, 1, 3.5, 3);
+        assertEquals(-1, table.find(3));
+        assertEquals(2.5, table.value(table.find(19)));
+        assertEquals(3, table.move(table.find(35)));
+        table.store(19, 1, 0.5, 0);
+        assertEquals(4, table.depth(table.find(19)));
+        table.newSearch();
+        table.store(3, 1, 1.5, 1);
+        assertTrue(table.find(3) >= 0);
+        assertTrue(table.find(19) >= 0);
+        assertEquals(-1, table.find(35));
+    }
+}
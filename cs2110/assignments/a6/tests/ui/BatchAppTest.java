@@ -0,0 +1,201 @@
+package ui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import model.GameModel.GameState;
+import model.GameModel.Player;
+import model.PacMannAI;
+import model.PacMannAI.Parallelism;
+import model.PacMannExpectimaxAI;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ui.BatchResults.Contents;
+import ui.ResultStore.Column;
+import util.Randomness;
+
+public class BatchAppTest {
+
+    /**
+     * Return the settings of a batch of games played by `player`, searching with 8 rollouts per
+     * decision spread across `searchPool` as `search` says.
+     */
+    static BatchApp.Settings settings(Player player, Parallelism search, ForkJoinPool searchPool) {
+        return new BatchApp.Settings(10, 10, player, null, 4, true, 0, null, search, searchPool,
+                PacMannAI.DEFAULT_ROOT_TREES, 8, PacMannExpectimaxAI.DEFAULT_DEPTH,
+                Double.POSITIVE_INFINITY, false, false, Double.POSITIVE_INFINITY, Long.MAX_VALUE,
+                Double.POSITIVE_INFINITY, true);
+    }
+
+    /**
+     * Play games `first` to `end` (exclusive) of a seeded batch of field AI games with `jobs` jobs,
+     * recording their results in `file`, and return their statistics.
+     */
+    static BatchApp.Statistics play(int first, int end, int jobs, Path file) throws IOException {
+        return play(settings(Player.FIELD_AI, Parallelism.SERIAL, ForkJoinPool.commonPool()),
+                first, end, jobs, file);
+    }
+
+    /**
+     * Play games `first` to `end` (exclusive) of a seeded batch with `settings` and `jobs` jobs,
+     * recording their results in `file`, and return their statistics.  If `file` already holds
+     * some of those results, the shard is resumed as `BatchApp` resumes it: the recorded games are
+     * not played again, but are included in the statistics.
+     */
+    static BatchApp.Statistics play(BatchApp.Settings settings, int first, int end, int jobs,
+            Path file) throws IOException {
+        return play(settings, first, end, jobs, file, null);
+    }
+
+    /**
+     * Play games `first` to `end` (exclusive) of a seeded batch with `settings` and `jobs` jobs,
+     * recording their results in `file` and in `store` (if it is not null), and return their
+     * statistics.  A shard is resumed as `BatchApp` resumes it, dropping any stored results of the
+     * games it plays again.
+     */
+    static BatchApp.Statistics play(BatchApp.Settings settings, int first, int end, int jobs,
+            Path file, ResultStore store) throws IOException {
+        var stats = new BatchApp.Statistics(settings);
+        try (var results = new BatchResults(file, new BatchResults.Shard(2110, end, first, end,
+                settings.config()))) {
+            if (results.recorded() > 0) {
+                stats.addRecorded(BatchResults.read(file));
+            }
+            first += results.recorded();
+            Randomness randomness = new Randomness(2110);
+            for (int i = 0; i < first; i++) {
+                randomness = randomness.next();
+            }
+            if (store != null) {
+                BatchApp.dropReplayedGames(store, randomness, first, end);
+            }
+            BatchApp.playGames(settings, randomness, first, end, jobs, false, results, store,
+                    false, stats);
+        }
+        return stats;
+    }
+
+    @DisplayName("WHEN a seeded batch is played with one job and with four, THEN the same results "
+            + "are recorded in the same order, AND the summaries are identical.")
+    @Test
+    void testJobsDoNotChangeResults(@TempDir Path directory) throws IOException {
+        BatchApp.Statistics serial = play(0, 12, 1, directory.resolve("serial.bin"));
+        BatchApp.Statistics parallel = play(0, 12, 4, directory.resolve("parallel.bin"));
+
+        Contents serialResults = BatchResults.read(directory.resolve("serial.bin"));
+        Contents parallelResults = BatchResults.read(directory.resolve("parallel.bin"));
+        assertEquals(12, serialResults.size());
+        assertEquals(12, parallelResults.size());
+        for (int i = 0; i < 12; i++) {
+            assertEquals(serialResults.result(i), parallelResults.result(i));
+        }
+        assertEquals(12, serial.summary().numGames());
+        assertEquals(BatchResultsTest.printed(serial.summary()),
+                BatchResultsTest.printed(parallel.summary()));
+    }
+
+    @DisplayName("WHEN a batch is played in two parts, THEN the second part continues the sequence "
+            + "of games, AND the merged summary matches that of the whole batch.")
+    @Test
+    void testPartsContinueTheBatch(@TempDir Path directory) throws IOException {
+        BatchApp.Statistics whole = play(0, 8, 2, directory.resolve("whole.bin"));
+        BatchApp.Statistics head = play(0, 5, 1, directory.resolve("head.bin"));
+        BatchApp.Statistics rest = play(5, 8, 3, directory.resolve("rest.bin"));
+
+        Contents wholeResults = BatchResults.read(directory.resolve("whole.bin"));
+        Contents restResults = BatchResults.read(directory.resolve("rest.bin"));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(wholeResults.result(5 + i), restResults.result(i));
+        }
+        head.summary().merge(rest.summary());
+        assertEquals(BatchResultsTest.printed(whole.summary()),
+                BatchResultsTest.printed(head.summary()));
+    }
+
+    @DisplayName("GIVEN a result file holding part or all of a shard, WHEN the shard is resumed, "
+            + "THEN the summary covers the recorded games as well as those played now.")
+    @Test
+    void testResumedShardReportsRecordedGames(@TempDir Path directory) throws IOException {
+        BatchApp.Statistics whole = play(0, 6, 1, directory.resolve("whole.bin"));
+
+        // Rerunning a complete shard plays nothing, but still reports every game
+        BatchApp.Statistics rerun = play(0, 6, 1, directory.resolve("whole.bin"));
+        assertEquals(6, rerun.summary().numGames());
+        assertEquals(BatchResultsTest.printed(whole.summary()),
+                BatchResultsTest.printed(rerun.summary()));
+
+        // A shard interrupted after 4 games is completed by the resumed run
+        Path partial = directory.resolve("partial.bin");
+        play(0, 6, 1, partial);
+        byte[] bytes = Files.readAllBytes(partial);
+        Files.write(partial,
+                Arrays.copyOf(bytes, BatchResults.HEADER_BYTES + 4 * BatchResults.RECORD_BYTES));
+        BatchApp.Statistics resumed = play(0, 6, 2, partial);
+        assertEquals(BatchResultsTest.printed(whole.summary()),
+                BatchResultsTest.printed(resumed.summary()));
+    }
+
+    @DisplayName("GIVEN a run that stopped after storing results of games it did not record, "
+            + "WHEN the shard is resumed, THEN the store holds each game of the shard once, in "
+            + "order.")
+    @Test
+    void testResumedShardDoesNotStoreGamesTwice(@TempDir Path directory) throws IOException {
+        BatchApp.Settings settings = settings(Player.FIELD_AI, Parallelism.SERIAL,
+                ForkJoinPool.commonPool());
+        Path file = directory.resolve("shard.bin");
+        Path storeDirectory = directory.resolve("store");
+        try (var store = new ResultStore(storeDirectory)) {
+            // Another batch's games 0 and 1 come first, and must be kept
+            store.append(0, 1, GameState.DEFEAT, 0, 0, 0, 0);
+            store.append(1, 2, GameState.DEFEAT, 0, 0, 0, 0);
+            play(settings, 0, 6, 1, file, store);
+        }
+        // As if the run had stopped after storing game 4 but before recording it
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file,
+                Arrays.copyOf(bytes, BatchResults.HEADER_BYTES + 4 * BatchResults.RECORD_BYTES));
+
+        try (var store = new ResultStore(storeDirectory)) {
+            play(settings, 0, 6, 2, file, store);
+        }
+        var snapshot = new ResultStore.Snapshot(storeDirectory);
+        Contents results = BatchResults.read(file);
+        assertEquals(2 + 6, snapshot.rows());
+        assertEquals(1, snapshot.longValue(Column.SEED, 0));
+        assertEquals(2, snapshot.longValue(Column.SEED, 1));
+        for (int i = 0; i < 6; i++) {
+            assertEquals(i, snapshot.longValue(Column.GAME, 2 + i));
+            assertEquals(results.result(i).seed(), snapshot.longValue(Column.SEED, 2 + i));
+            assertEquals(results.result(i).score(), snapshot.longValue(Column.SCORE, 2 + i));
+        }
+    }
+
+    @DisplayName("WHEN a seeded batch is played by the root-parallel search AI on search pools of "
+            + "different sizes, THEN the same results are recorded.")
+    @Test
+    void testSearchPoolDoesNotChangeResults(@TempDir Path directory) throws IOException {
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool triple = new ForkJoinPool(3);
+        try {
+            play(settings(Player.SEARCH_AI, Parallelism.ROOT, single), 0, 3, 1,
+                    directory.resolve("single.bin"));
+            play(settings(Player.SEARCH_AI, Parallelism.ROOT, triple), 0, 3, 1,
+                    directory.resolve("triple.bin"));
+        } finally {
+            single.shutdown();
+            triple.shutdown();
+        }
+
+        Contents singleResults = BatchResults.read(directory.resolve("single.bin"));
+        Contents tripleResults = BatchResults.read(directory.resolve("triple.bin"));
+        assertEquals(3, singleResults.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(singleResults.result(i), tripleResults.result(i));
+        }
+    }
+}
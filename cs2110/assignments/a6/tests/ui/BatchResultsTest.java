@@ -0,0 +1,193 @@
+package ui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import model.GameModel.GameState;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ui.BatchResults.Config;
+import ui.BatchResults.Contents;
+import ui.BatchResults.Result;
+import ui.BatchResults.Shard;
+
+public class BatchResultsTest {
+
+    static final Config config = new Config(10, 10, 4, 1, 0, 4, 64, 6, true, false, true, 0, 5,
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Long.MAX_VALUE);
+
+    /**
+     * Return the made-up result of game `game` of a batch.
+     */
+    static Result result(int game) {
+        return new Result(game, 1000 + game, (game % 3 == 0) ? GameState.VICTORY : GameState.DEFEAT,
+                100 * game, 1000.0 * game + 0.25, game % 4);
+    }
+
+    /**
+     * Write a result file at `file` for games `first` to `end` (exclusive) of a batch of 10 games
+     * played with `config`, recording the results of the games before `recordedEnd`.
+     */
+    static Path writeShard(Path file, int first, int end, int recordedEnd, Config config)
+            throws IOException {
+        try (var results = new BatchResults(file, new Shard(7, 10, first, end, config))) {
+            for (int game = first; game < recordedEnd; game++) {
+                results.append(result(game));
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Return what `summary` prints.
+     */
+    static String printed(BatchSummary summary) {
+        PrintStream out = System.out;
+        var bytes = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(bytes));
+        try {
+            summary.print();
+        } finally {
+            System.setOut(out);
+        }
+        return bytes.toString();
+    }
+
+    @DisplayName("GIVEN a result file ending in part of a record, WHEN it is reopened for the same "
+            + "shard, THEN it resumes after the last complete result, AND the partial record is "
+            + "overwritten.")
+    @Test
+    void testResumeAfterPartialRecord(@TempDir Path directory) throws IOException {
+        Path file = writeShard(directory.resolve("r.bin"), 2, 8, 5, config);
+        Files.write(file, new byte[] {0, 0, 0, 5, 1, 2, 3}, StandardOpenOption.APPEND);
+        assertEquals(3, BatchResults.read(file).size());
+
+        Shard shard = new Shard(7, 10, 2, 8, config);
+        try (var results = new BatchResults(file, shard)) {
+            assertEquals(3, results.recorded());
+            assertEquals(shard, results.shard());
+            results.append(result(5));
+        }
+        assertEquals(BatchResults.HEADER_BYTES + 4L * BatchResults.RECORD_BYTES, Files.size(file));
+
+        Contents contents = BatchResults.read(file);
+        assertEquals(shard, contents.shard());
+        assertEquals(4, contents.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(result(2 + i), contents.result(i));
+        }
+    }
+
+    @DisplayName("GIVEN a result file ending in part of its header, WHEN it is reopened, THEN it is "
+            + "started afresh for the shard.")
+    @Test
+    void testResumeAfterPartialHeader(@TempDir Path directory) throws IOException {
+        Path file = writeShard(directory.resolve("r.bin"), 0, 5, 0, config);
+        byte[] header = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(header, header.length - 7));
+
+        Shard shard = new Shard(7, 10, 0, 5, config);
+        try (var results = new BatchResults(file, shard)) {
+            assertEquals(0, results.recorded());
+            results.append(result(0));
+        }
+        Contents contents = BatchResults.read(file);
+        assertEquals(shard, contents.shard());
+        assertEquals(1, contents.size());
+        assertEquals(result(0), contents.result(0));
+    }
+
+    @DisplayName("WHEN a result file is reopened for another shard or batch configuration, or a "
+            + "file is not a result file, THEN it is rejected.")
+    @Test
+    void testRejectsMismatchedShard(@TempDir Path directory) throws IOException {
+        Path file = writeShard(directory.resolve("r.bin"), 0, 5, 2, config);
+        assertThrows(IllegalArgumentException.class,
+                () -> new BatchResults(file, new Shard(7, 10, 0, 6, config)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BatchResults(file, new Shard(8, 10, 0, 5, config)));
+        Config otherEngine = new Config(10, 10, 4, 1, 0, 4, 64, 6, false, false, true, 0, 5,
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Long.MAX_VALUE);
+        assertThrows(IllegalArgumentException.class,
+                () -> new BatchResults(file, new Shard(7, 10, 0, 5, otherEngine)));
+        Config otherRollouts = new Config(10, 10, 4, 1, 0, 4, 32, 6, true, false, true, 0, 5,
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Long.MAX_VALUE);
+        assertThrows(IllegalArgumentException.class,
+                () -> new BatchResults(file, new Shard(7, 10, 0, 5, otherRollouts)));
+        Config otherTrees = new Config(10, 10, 4, 1, 0, 2, 64, 6, true, false, true, 0, 5,
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Long.MAX_VALUE);
+        assertThrows(IllegalArgumentException.class,
+                () -> new BatchResults(file, new Shard(7, 10, 0, 5, otherTrees)));
+        assertEquals(2, BatchResults.read(file).size());
+
+        Path other = directory.resolve("other.bin");
+        Files.write(other, new byte[BatchResults.HEADER_BYTES]);
+        assertThrows(IllegalArgumentException.class, () -> BatchResults.read(other));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BatchResults(other, new Shard(7, 10, 0, 5, config)));
+    }
+
+    @DisplayName("WHEN the shards of a batch are merged in any order, THEN they are summarized "
+            + "exactly like one shard holding every game.")
+    @Test
+    void testMergeMatchesSingleShard(@TempDir Path directory) throws IOException {
+        List<Contents> shards = new ArrayList<>();
+        shards.add(BatchResults.read(writeShard(directory.resolve("b.bin"), 6, 10, 10, config)));
+        shards.add(BatchResults.read(writeShard(directory.resolve("a.bin"), 0, 3, 3, config)));
+        shards.add(BatchResults.read(writeShard(directory.resolve("c.bin"), 3, 6, 6, config)));
+        Shard batch = BatchMerge.sortShards(shards);
+        assertEquals(0, batch.first());
+        assertEquals(List.of(0, 3, 6), shards.stream().map(c -> c.shard().first()).toList());
+        BatchSummary merged = BatchMerge.summarize(shards, false);
+
+        List<Contents> whole = new ArrayList<>();
+        whole.add(BatchResults.read(writeShard(directory.resolve("all.bin"), 0, 10, 10, config)));
+        BatchMerge.sortShards(whole);
+        BatchSummary single = BatchMerge.summarize(whole, false);
+
+        assertEquals(10, merged.numGames());
+        assertEquals(printed(single), printed(merged));
+    }
+
+    @DisplayName("WHEN shards overlap or belong to different batches, THEN they cannot be merged.")
+    @Test
+    void testMergeRejectsMismatchedShards(@TempDir Path directory) throws IOException {
+        Contents first = BatchResults.read(writeShard(directory.resolve("a.bin"), 0, 4, 4, config));
+        Contents overlapping = BatchResults.read(
+                writeShard(directory.resolve("b.bin"), 3, 6, 6, config));
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchMerge.sortShards(new ArrayList<>(List.of(overlapping, first))));
+
+        Config otherBudget = new Config(10, 10, 4, 1, 0, 4, 64, 6, true, false, true, 0, 10,
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Long.MAX_VALUE);
+        Contents otherBatch = BatchResults.read(
+                writeShard(directory.resolve("c.bin"), 4, 6, 6, otherBudget));
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchMerge.sortShards(new ArrayList<>(List.of(first, otherBatch))));
+
+        Config otherTrees = new Config(10, 10, 4, 1, 0, 2, 64, 6, true, false, true, 0, 5,
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Long.MAX_VALUE);
+        Contents otherSearch = BatchResults.read(
+                writeShard(directory.resolve("d.bin"), 4, 6, 6, otherTrees));
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchMerge.sortShards(new ArrayList<>(List.of(first, otherSearch))));
+    }
+
+    @DisplayName("WHEN nothing has been added to a summary, THEN printing it reports no games "
+            + "without dividing by zero.")
+    @Test
+    void testEmptySummary() {
+        String printed = printed(new BatchSummary());
+        assertFalse(printed.contains("NaN"), printed);
+        assertTrue(printed.contains("0"), printed);
+    }
+}
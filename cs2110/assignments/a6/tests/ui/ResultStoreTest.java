@@ -0,0 +1,161 @@
+package ui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import model.GameModel.GameState;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ui.ResultStore.Column;
+
+public class ResultStoreTest {
+
+    /**
+     * Append the result of game `k` of a made-up batch to `store`.
+     */
+    static void appendGame(ResultStore store, int k) throws IOException {
+        store.append(k, 1000 + k, (k % 3 == 0) ? GameState.VICTORY : GameState.DEFEAT, 100 * k,
+                k + 0.5, k % 4, 10L * k);
+    }
+
+    /**
+     * Assert that row `row` of `snapshot` holds the result of game `k` (see `appendGame()`).
+     */
+    static void assertGame(ResultStore.Snapshot snapshot, int row, int k) {
+        assertEquals(k, snapshot.longValue(Column.GAME, row));
+        assertEquals(1000 + k, snapshot.longValue(Column.SEED, row));
+        assertEquals(((k % 3 == 0) ? GameState.VICTORY : GameState.DEFEAT).ordinal(),
+                snapshot.longValue(Column.RESULT, row));
+        assertEquals(100 * k, snapshot.longValue(Column.SCORE, row));
+        assertEquals(k + 0.5, snapshot.doubleValue(Column.TIME, row));
+        assertEquals(k, snapshot.longValue(Column.TIME, row));
+        assertEquals(k % 4, snapshot.longValue(Column.LIVES, row));
+        assertEquals(10L * k, snapshot.longValue(Column.STEPS, row));
+    }
+
+    @DisplayName("WHEN results are appended and the store is closed and reopened, THEN a snapshot "
+            + "holds every result in order, AND appending continues after them.")
+    @Test
+    void testAppendAndReopen(@TempDir Path directory) throws IOException {
+        try (var store = new ResultStore(directory)) {
+            for (int k = 0; k < 5; k++) {
+                appendGame(store, k);
+            }
+            assertEquals(5, store.rows());
+        }
+        try (var store = new ResultStore(directory)) {
+            assertEquals(5, store.rows());
+            appendGame(store, 5);
+        }
+
+        var snapshot = new ResultStore.Snapshot(directory);
+        assertEquals(6, snapshot.rows());
+        for (int k = 0; k < 6; k++) {
+            assertGame(snapshot, k, k);
+        }
+    }
+
+    @DisplayName("GIVEN a store whose last rows were never committed, WHEN it is read or reopened, "
+            + "THEN only the committed rows are seen, AND new rows overwrite the rest.")
+    @Test
+    void testUncommittedRowsAreDiscarded(@TempDir Path directory) throws IOException {
+        // Left open, as if its process were killed after appending games 3 and 4
+        var killed = new ResultStore(directory);
+        for (int k = 0; k < 5; k++) {
+            appendGame(killed, k);
+            if (k == 2) {
+                killed.commit();
+            }
+        }
+        assertEquals(3, new ResultStore.Snapshot(directory).rows());
+
+        try (var store = new ResultStore(directory)) {
+            assertEquals(3, store.rows());
+            appendGame(store, 7);
+        }
+        var snapshot = new ResultStore.Snapshot(directory);
+        assertEquals(4, snapshot.rows());
+        for (int k = 0; k < 3; k++) {
+            assertGame(snapshot, k, k);
+        }
+        assertGame(snapshot, 3, 7);
+    }
+
+    @DisplayName("GIVEN a store with uncommitted rows, WHEN it is truncated, THEN the remaining "
+            + "rows are committed AND the removed rows are overwritten by new ones.")
+    @Test
+    void testTruncate(@TempDir Path directory) throws IOException {
+        try (var store = new ResultStore(directory)) {
+            for (int k = 0; k < 5; k++) {
+                appendGame(store, k);
+            }
+            assertEquals(4, store.game(4));
+            assertEquals(1004, store.seed(4));
+            assertThrows(IndexOutOfBoundsException.class, () -> store.game(5));
+            assertThrows(IndexOutOfBoundsException.class, () -> store.truncate(6));
+
+            store.truncate(2);
+            assertEquals(2, store.rows());
+            assertEquals(2, new ResultStore.Snapshot(directory).rows());
+            appendGame(store, 9);
+        }
+        var snapshot = new ResultStore.Snapshot(directory);
+        assertEquals(3, snapshot.rows());
+        assertGame(snapshot, 0, 0);
+        assertGame(snapshot, 1, 1);
+        assertGame(snapshot, 2, 9);
+    }
+
+    @DisplayName("WHEN a directory holds something other than a store, THEN it cannot be opened.")
+    @Test
+    void testRejectsOtherFiles(@TempDir Path directory) throws IOException {
+        Files.write(directory.resolve("rows"), new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12,
+                13, 14, 15, 16});
+        assertThrows(IllegalArgumentException.class, () -> new ResultStore(directory));
+        assertThrows(IllegalArgumentException.class, () -> new ResultStore.Snapshot(directory));
+    }
+
+    @DisplayName("WHEN query filters are parsed, THEN each column is compared with its value using "
+            + "the longest matching operator, AND arguments without an operator are not filters.")
+    @Test
+    void testFilterParsing(@TempDir Path directory) throws IOException {
+        try (var store = new ResultStore(directory)) {
+            for (int k = 0; k < 6; k++) {
+                appendGame(store, k);
+            }
+        }
+        var snapshot = new ResultStore.Snapshot(directory);
+
+        ResultQuery.Filter filter = ResultQuery.Filter.parse("score>=300");
+        assertEquals(Column.SCORE, filter.column());
+        assertEquals(">=", filter.operator());
+        assertEquals(300, filter.value());
+        assertFalse(filter.test(snapshot, 2));
+        assertTrue(filter.test(snapshot, 3));
+
+        filter = ResultQuery.Filter.parse("Result!=victory");
+        assertEquals(Column.RESULT, filter.column());
+        assertEquals("!=", filter.operator());
+        assertEquals(GameState.VICTORY.ordinal(), filter.value());
+        assertFalse(filter.test(snapshot, 3));
+        assertTrue(filter.test(snapshot, 4));
+
+        filter = ResultQuery.Filter.parse("time<2.5");
+        assertEquals(Column.TIME, filter.column());
+        assertEquals(2.5, filter.time());
+        assertTrue(filter.test(snapshot, 1));
+        assertFalse(filter.test(snapshot, 2));
+
+        filter = ResultQuery.Filter.parse("lives=1");
+        assertTrue(filter.test(snapshot, 1));
+        assertFalse(filter.test(snapshot, 2));
+
+        assertNull(ResultQuery.Filter.parse("score"));
+        assertNull(ResultQuery.Filter.parse("=3"));
+        assertThrows(IllegalArgumentException.class, () -> ResultQuery.Filter.parse("color=3"));
+        assertThrows(NumberFormatException.class, () -> ResultQuery.Filter.parse("score>x"));
+    }
+}
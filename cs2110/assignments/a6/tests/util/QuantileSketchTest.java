@@ -0,0 +1,92 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class QuantileSketchTest {
+
+    /**
+     * Return the fraction of `sorted` that is at most `x`.
+     */
+    static double rankOf(double[] sorted, double x) {
+        int i = Arrays.binarySearch(sorted, x);
+        if (i < 0) {
+            i = -i - 1;
+        } else {
+            while (i < sorted.length && sorted[i] == x) {
+                i++;
+            }
+        }
+        return (double) i / sorted.length;
+    }
+
+    @DisplayName("GIVEN a sketch holding fewer values than its capacity, WHEN quantiles are "
+            + "queried, THEN they will be exact")
+    @Test
+    void testSmallExact() {
+        QuantileSketch sketch = new QuantileSketch();
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        for (int i = 100; i >= 1; i--) {
+            sketch.add(i);
+        }
+        assertEquals(100, sketch.count());
+        assertEquals(1, sketch.quantile(0));
+        assertEquals(50, sketch.quantile(0.5));
+        assertEquals(99, sketch.quantile(0.99));
+        assertEquals(100, sketch.quantile(1));
+    }
+
+    @DisplayName("WHEN a long stream is added, THEN the sketch will hold a small fraction of it "
+            + "AND the ranks of its quantiles will be close to those requested")
+    @Test
+    void testLargeStream() {
+        Random rng = new Random(2);
+        int n = 1_000_000;
+        double[] values = new double[n];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < n; i++) {
+            values[i] = Math.exp(rng.nextGaussian());
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(n, sketch.count());
+        assertTrue(sketch.retained() < 2000, "Retained " + sketch.retained());
+        for (double q : new double[]{0.01, 0.1, 0.5, 0.9, 0.99}) {
+            assertEquals(q, rankOf(values, sketch.quantile(q)), 0.02);
+        }
+        assertEquals(values[0], sketch.quantile(0));
+        assertEquals(values[n - 1], sketch.quantile(1));
+    }
+
+    @DisplayName("GIVEN sketches of parts of a stream, WHEN they are merged, THEN the result will "
+            + "summarize the whole stream")
+    @Test
+    void testMerge() {
+        Random rng = new Random(3);
+        int n = 200_000;
+        double[] values = new double[n];
+        QuantileSketch merged = new QuantileSketch();
+        QuantileSketch[] parts = new QuantileSketch[8];
+        for (int p = 0; p < parts.length; p++) {
+            parts[p] = new QuantileSketch();
+        }
+        for (int i = 0; i < n; i++) {
+            values[i] = rng.nextDouble();
+            parts[i % parts.length].add(values[i]);
+        }
+        for (QuantileSketch part : parts) {
+            merged.merge(part);
+        }
+        Arrays.sort(values);
+
+        assertEquals(n, merged.count());
+        for (double q : new double[]{0.1, 0.5, 0.99}) {
+            assertEquals(q, rankOf(values, merged.quantile(q)), 0.02);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class RunningStatsTest {
+
+    @DisplayName("WHEN values are added, THEN the count, mean, sample variance, minimum, and "
+            + "maximum will be those of the values")
+    @Test
+    void testAdd() {
+        RunningStats stats = new RunningStats();
+        assertTrue(Double.isNaN(stats.mean()));
+
+        for (double x : new double[]{2, 4, 4, 4, 5, 5, 7, 9}) {
+            stats.add(x);
+        }
+        assertEquals(8, stats.count());
+        assertEquals(5, stats.mean(), 1e-12);
+        assertEquals(32.0 / 7, stats.variance(), 1e-12);
+        assertEquals(2, stats.min());
+        assertEquals(9, stats.max());
+    }
+
+    @DisplayName("WHEN values far from zero are added, THEN the variance will not suffer from "
+            + "cancellation")
+    @Test
+    void testLargeOffset() {
+        RunningStats stats = new RunningStats();
+        for (double x : new double[]{1e9 + 4, 1e9 + 7, 1e9 + 13, 1e9 + 16}) {
+            stats.add(x);
+        }
+        assertEquals(30, stats.variance(), 1e-6);
+    }
+
+    @DisplayName("GIVEN two accumulators of parts of a stream, WHEN they are merged, THEN the "
+            + "result will match an accumulator of the whole stream")
+    @Test
+    void testMerge() {
+        Random rng = new Random(1);
+        RunningStats whole = new RunningStats();
+        RunningStats first = new RunningStats();
+        RunningStats second = new RunningStats();
+        for (int i = 0; i < 1000; i++) {
+            double x = 100 + 10 * rng.nextGaussian();
+            whole.add(x);
+            (i < 300 ? first : second).add(x);
+        }
+        first.merge(second);
+        first.merge(new RunningStats());
+
+        assertEquals(whole.count(), first.count());
+        assertEquals(whole.mean(), first.mean(), 1e-9);
+        assertEquals(whole.variance(), first.variance(), 1e-9);
+        assertEquals(whole.min(), first.min());
+        assertEquals(whole.max(), first.max());
+    }
+}